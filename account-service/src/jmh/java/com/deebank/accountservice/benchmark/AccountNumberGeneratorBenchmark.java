@@ -0,0 +1,139 @@
+package com.deebank.accountservice.benchmark;
+
+import com.deebank.accountservice.cache.ExistenceIndex;
+import com.deebank.accountservice.config.AccountNumberProperties;
+import com.deebank.accountservice.config.ExistenceIndexProperties;
+import com.deebank.accountservice.exception.BusinessException;
+import com.deebank.accountservice.repository.AccountRepository;
+import com.deebank.accountservice.util.AccountNumberGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link AccountNumberGenerator#generateAccountNumber()} in RANDOM mode against an accounts table
+ * filled to a given share of the 7-digit number space. Each attempt is an indexed existence check,
+ * so the expected cost grows with {@code 1 / (1 - fill)}. Generated numbers are not inserted, so the
+ * fill level stays fixed for the whole trial. At high fill levels a call can give up after
+ * {@code MAX_ATTEMPTS}; those calls are measured like any other.
+ * <p>
+ * PERMUTATION and POOL modes do not probe the table and are left out.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccountNumberGeneratorBenchmark {
+
+	// The owner and the dictionary entries every seeded account references
+	private static final List<String> SEED_REFERENCES_SQL = List.of(
+			"INSERT INTO customer (customer_id, name, email, mobile_number, created_at, created_by) "
+					+ "VALUES (1, 'Bench', 'bench@bench.test', '80000000', CURRENT_DATE, 'bench')",
+			"INSERT INTO account_type (name) VALUES ('Savings')",
+			"INSERT INTO branch (address) VALUES ('1 Bench Street')");
+	private static final String SEED_SQL =
+			"INSERT INTO accounts (account_number, customer_id, account_type_id, branch_id, created_at, created_by) "
+					+ "SELECT X, 1, t.account_type_id, b.branch_id, CURRENT_DATE, 'bench' "
+					+ "FROM SYSTEM_RANGE(1000000, 9999999), account_type t, branch b "
+					// Multiplicative hash spreads the filled numbers evenly over the space
+					+ "WHERE MOD(X * 2654435761, 1000) < ?";
+	private static final String EXISTS_SQL = "SELECT COUNT(*) FROM accounts WHERE account_number = ?";
+
+	@Param({"0.0", "0.5", "0.9", "0.99"})
+	public double fill;
+
+	private Path directory;
+	private SingleConnectionDataSource dataSource;
+	private AccountNumberGenerator generator;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory(Path.of("build"), "account-number-benchmark");
+		String url = "jdbc:h2:file:" + directory.toAbsolutePath().resolve("db");
+		Flyway.configure().dataSource(url, "sa", "").load().migrate();
+		dataSource = new SingleConnectionDataSource(url, "sa", "", true);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		SEED_REFERENCES_SQL.forEach(jdbcTemplate::update);
+		jdbcTemplate.update(SEED_SQL, Math.round(fill * 1000));
+
+		AccountNumberProperties properties = new AccountNumberProperties();
+		properties.setMode(AccountNumberProperties.Mode.RANDOM);
+		// Without the existence index every candidate is checked in the database, which is what is measured here
+		ExistenceIndexProperties indexProperties = new ExistenceIndexProperties();
+		indexProperties.setEnabled(false);
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		generator = new AccountNumberGenerator(jdbcAccountRepository(jdbcTemplate), jdbcTemplate, properties, Optional.empty(),
+				meterRegistry, new ExistenceIndex(jdbcTemplate, indexProperties, meterRegistry));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		dataSource.destroy();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public long generateAccountNumber() {
+		try {
+			return generator.generateAccountNumber();
+		} catch (BusinessException e) {
+			return -1;
+		}
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public List<Long> generateAccountNumbers100() {
+		try {
+			return generator.generateAccountNumbers(100);
+		} catch (BusinessException e) {
+			return List.of();
+		}
+	}
+
+	/**
+	 * The two repository methods the generator calls, answered with plain JDBC so the benchmark
+	 * needs no Spring context.
+	 */
+	private static AccountRepository jdbcAccountRepository(JdbcTemplate jdbcTemplate) {
+		return (AccountRepository) Proxy.newProxyInstance(AccountRepository.class.getClassLoader(),
+				new Class<?>[]{AccountRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+					case "existsByAccountNumber" -> jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, args[0]) > 0;
+					case "findExistingAccountNumbers" -> findExisting(jdbcTemplate, (Collection<?>) args[0]);
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static List<Long> findExisting(JdbcTemplate jdbcTemplate, Collection<?> accountNumbers) {
+		String placeholders = String.join(",", Collections.nCopies(accountNumbers.size(), "?"));
+		return jdbcTemplate.queryForList("SELECT account_number FROM accounts WHERE account_number IN (" + placeholders + ")",
+				Long.class, accountNumbers.toArray());
+	}
+
+}
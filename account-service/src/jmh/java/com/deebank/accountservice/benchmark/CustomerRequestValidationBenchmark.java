@@ -0,0 +1,58 @@
+package com.deebank.accountservice.benchmark;
+
+import com.deebank.accountservice.dto.CustomerRequestDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of {@link CustomerRequestDto} as done for every create and update, for a request
+ * that passes and one that fails every constraint. The failing case includes building the
+ * violations and interpolating their messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomerRequestValidationBenchmark {
+
+	private ValidatorFactory validatorFactory;
+	private Validator validator;
+	private CustomerRequestDto validRequest;
+	private CustomerRequestDto invalidRequest;
+
+	@Setup
+	public void setUp() {
+		validatorFactory = Validation.buildDefaultValidatorFactory();
+		validator = validatorFactory.getValidator();
+		validRequest = new CustomerRequestDto("John Doe", "john.doe@example.com", "81234567");
+		invalidRequest = new CustomerRequestDto(" ", "john.doe@example", "71234567");
+	}
+
+	@TearDown
+	public void tearDown() {
+		validatorFactory.close();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<CustomerRequestDto>> validateValid() {
+		return validator.validate(validRequest);
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<CustomerRequestDto>> validateInvalid() {
+		return validator.validate(invalidRequest);
+	}
+
+}
@@ -0,0 +1,193 @@
+package com.deebank.accountservice.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of the customer lookups and of creating a customer against the migrated schema at 1M and
+ * 10M rows, comparing the optimistic insert {@code CustomerService} does now with the former
+ * check-then-insert round trips.
+ * <p>
+ * The database is an H2 file under {@code build/} so the seeded rows do not count against the heap.
+ * Seeding 10M customers and accounts takes a while on every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CustomerUniquenessBenchmark {
+
+	private static final String SEED_CUSTOMERS_SQL =
+			"INSERT INTO customer (customer_id, name, email, mobile_number, created_at, created_by) "
+					+ "SELECT X, 'Customer ' || X, 'customer' || X || '@bench.test', CAST(80000000 + X AS VARCHAR), "
+					+ "CURRENT_DATE, 'bench' FROM SYSTEM_RANGE(1, ?)";
+	private static final String SEED_DICTIONARIES_SQL =
+			"INSERT INTO account_type (name) VALUES ('Savings'); INSERT INTO branch (address) VALUES ('1 Bench Street')";
+	private static final String SEED_ACCOUNTS_SQL =
+			"INSERT INTO accounts (account_number, customer_id, account_type_id, branch_id, created_at, created_by) "
+					+ "SELECT 1000000 + X, X, t.account_type_id, b.branch_id, CURRENT_DATE, 'bench' "
+					+ "FROM SYSTEM_RANGE(1, ?), account_type t, branch b";
+	private static final String FIND_BY_EMAIL_SQL = "SELECT customer_id FROM customer WHERE email = ?";
+	private static final String FIND_BY_MOBILE_NUMBER_SQL = "SELECT customer_id FROM customer WHERE mobile_number = ?";
+	private static final String FIND_ACCOUNTS_BY_CUSTOMER_SQL = "SELECT account_number FROM accounts WHERE customer_id = ?";
+	private static final String INSERT_CUSTOMER_SQL =
+			"INSERT INTO customer (customer_id, name, email, mobile_number, created_at, created_by) VALUES (?, ?, ?, ?, ?, ?)";
+
+	@Param({"1000000", "10000000"})
+	public long rows;
+
+	private Path directory;
+	private Connection connection;
+	private PreparedStatement findByEmail;
+	private PreparedStatement findByMobileNumber;
+	private PreparedStatement findAccountsByCustomer;
+	private PreparedStatement insertCustomer;
+	private long nextCustomerId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, SQLException {
+		directory = Files.createTempDirectory(Path.of("build"), "customer-uniqueness-benchmark");
+		String url = "jdbc:h2:file:" + directory.toAbsolutePath().resolve("db");
+		Flyway.configure().dataSource(url, "sa", "").load().migrate();
+
+		connection = DriverManager.getConnection(url, "sa", "");
+		seed(SEED_CUSTOMERS_SQL);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(SEED_DICTIONARIES_SQL);
+		}
+		seed(SEED_ACCOUNTS_SQL);
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("ANALYZE");
+		}
+		nextCustomerId = rows + 1;
+
+		findByEmail = connection.prepareStatement(FIND_BY_EMAIL_SQL);
+		findByMobileNumber = connection.prepareStatement(FIND_BY_MOBILE_NUMBER_SQL);
+		findAccountsByCustomer = connection.prepareStatement(FIND_ACCOUNTS_BY_CUSTOMER_SQL);
+		insertCustomer = connection.prepareStatement(INSERT_CUSTOMER_SQL);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException, SQLException {
+		connection.close();
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	@Benchmark
+	public boolean findCustomerByEmail() throws SQLException {
+		findByEmail.setString(1, "customer" + existingId() + "@bench.test");
+		return exists(findByEmail);
+	}
+
+	@Benchmark
+	public boolean findCustomerByMobileNumber() throws SQLException {
+		findByMobileNumber.setString(1, String.valueOf(80000000 + existingId()));
+		return exists(findByMobileNumber);
+	}
+
+	@Benchmark
+	public void findAccountsByCustomerId(Blackhole blackhole) throws SQLException {
+		findAccountsByCustomer.setLong(1, existingId());
+		try (ResultSet resultSet = findAccountsByCustomer.executeQuery()) {
+			while (resultSet.next()) {
+				blackhole.consume(resultSet.getLong(1));
+			}
+		}
+	}
+
+	/**
+	 * What {@code CustomerService.createCustomer} does now: one insert, uniqueness checked by the constraints.
+	 */
+	@Benchmark
+	public int createCustomer() throws SQLException {
+		return insert(nextCustomerId++);
+	}
+
+	/**
+	 * The former create path: look up the email and the mobile number, then insert.
+	 */
+	@Benchmark
+	public int createCustomerWithPreChecks() throws SQLException {
+		long id = nextCustomerId++;
+		findByEmail.setString(1, "customer" + id + "@bench.test");
+		findByMobileNumber.setString(1, String.valueOf(80000000 + id));
+		if (exists(findByEmail) || exists(findByMobileNumber)) {
+			return 0;
+		}
+		return insert(id);
+	}
+
+	/**
+	 * A create that conflicts with an existing email and is rejected by {@code uk_customer_email}.
+	 */
+	@Benchmark
+	public boolean createDuplicateCustomer() {
+		try {
+			insert(existingId(), nextCustomerId++);
+			return false;
+		} catch (SQLException e) {
+			return true;
+		}
+	}
+
+	private long existingId() {
+		return ThreadLocalRandom.current().nextLong(1, rows + 1);
+	}
+
+	private int insert(long id) throws SQLException {
+		return insert(id, id);
+	}
+
+	private int insert(long emailId, long id) throws SQLException {
+		insertCustomer.setLong(1, id);
+		insertCustomer.setString(2, "Customer " + id);
+		insertCustomer.setString(3, "customer" + emailId + "@bench.test");
+		insertCustomer.setString(4, String.valueOf(80000000 + id));
+		insertCustomer.setDate(5, Date.valueOf(LocalDate.now()));
+		insertCustomer.setString(6, "bench");
+		return insertCustomer.executeUpdate();
+	}
+
+	private static boolean exists(PreparedStatement statement) throws SQLException {
+		try (ResultSet resultSet = statement.executeQuery()) {
+			return resultSet.next();
+		}
+	}
+
+	private void seed(String sql) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setLong(1, rows);
+			statement.executeUpdate();
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.deebank.accountservice.benchmark;
+
+import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.dto.ErrorResponseDto;
+import com.deebank.accountservice.dto.ResponseDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.databind.util.RawValue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the {@link ResponseDto} and {@link ErrorResponseDto} envelopes, on their own and
+ * serialized to UTF-8 JSON the way a response body is written. The cached variant wraps an
+ * account encoded in advance, as {@code JsonPayloadCache} hands it to the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseEnvelopeBenchmark {
+
+	private ObjectWriter writer;
+	private AccountDto account;
+	private RawValue encodedAccount;
+	private List<String> validationErrors;
+
+	@Setup
+	public void setUp() {
+		writer = JsonMapper.builder().build().writer();
+		account = AccountDto.builder()
+				.accountNumber(1234567L)
+				.customerId(1L)
+				.accountType("Savings")
+				.branchAddress("1 Bench Street")
+				.createdAt(LocalDate.of(2024, 1, 15))
+				.createdBy("bench")
+				.build();
+		SerializedString json = new SerializedString(writer.writeValueAsString(account));
+		json.asUnquotedUTF8();
+		encodedAccount = new RawValue(json);
+		validationErrors = List.of("name: Name cannot be blank", "email: Email should be valid",
+				"mobileNumber: Mobile number should be 8 digits starting with 8 or 9");
+	}
+
+	@Benchmark
+	public ResponseDto<AccountDto> buildSuccess() {
+		return ResponseDto.success(account);
+	}
+
+	@Benchmark
+	public ErrorResponseDto buildError() {
+		return ErrorResponseDto.of("/api/accounts/1234567", "RESOURCE_NOT_FOUND", "Account with number 1234567 not found");
+	}
+
+	@Benchmark
+	public byte[] serializeSuccess() {
+		return writer.writeValueAsBytes(ResponseDto.success(account));
+	}
+
+	@Benchmark
+	public byte[] serializeCachedSuccess() {
+		return writer.writeValueAsBytes(ResponseDto.success(encodedAccount));
+	}
+
+	@Benchmark
+	public byte[] serializeError() {
+		return writer.writeValueAsBytes(
+				ErrorResponseDto.of("/api/accounts/1234567", "RESOURCE_NOT_FOUND", "Account with number 1234567 not found"));
+	}
+
+	@Benchmark
+	public byte[] serializeValidationError() {
+		return writer.writeValueAsBytes(
+				ErrorResponseDto.of("/api/customers", "VALIDATION_FAILED", "Validation failed", validationErrors));
+	}
+
+}
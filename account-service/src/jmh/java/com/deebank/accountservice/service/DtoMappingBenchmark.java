@@ -0,0 +1,82 @@
+package com.deebank.accountservice.service;
+
+import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.dto.CustomerDto;
+import com.deebank.accountservice.entity.Account;
+import com.deebank.accountservice.entity.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Entity to DTO mapping in {@link AccountService} and {@link CustomerService}. Lives in the
+ * services' package because the mappers are package-private; the services are built without the
+ * collaborators the mappers never touch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoMappingBenchmark {
+
+	@Param({"1", "10"})
+	public int accountsPerCustomer;
+
+	private AccountService accountService;
+	private CustomerService customerService;
+	private Account account;
+	private Customer customer;
+	private List<Long> accountNumbers;
+
+	@Setup
+	public void setUp() {
+		accountService = new AccountService(null, null, null, null, null, null, null, null, null, null, null, null, null);
+		customerService = new CustomerService(null, null, null, null, null, null, null, null);
+
+		account = new Account();
+		account.setAccountNumber(1234567L);
+		account.setCustomerId(1L);
+		account.setAccountType("Savings");
+		account.setBranchAddress("1 Bench Street");
+		account.setCreatedAt(LocalDate.of(2024, 1, 15));
+		account.setCreatedBy("bench");
+		account.setUpdatedAt(LocalDate.of(2024, 2, 1));
+		account.setUpdatedBy("bench");
+
+		customer = new Customer();
+		customer.setCustomerId(1L);
+		customer.setName("John Doe");
+		customer.setEmail("john.doe@example.com");
+		customer.setMobileNumber("81234567");
+		customer.setCreatedAt(LocalDate.of(2024, 1, 15));
+		customer.setCreatedBy("bench");
+		accountNumbers = LongStream.range(0, accountsPerCustomer).map(i -> 1234567L + i).boxed().toList();
+	}
+
+	@Benchmark
+	public AccountDto mapAccount() {
+		return accountService.mapToDto(account);
+	}
+
+	@Benchmark
+	public CustomerDto mapCustomer() {
+		return customerService.mapToDto(customer, accountNumbers);
+	}
+
+	@Benchmark
+	public List<AccountDto> mapAccountPage() {
+		// A default page of accounts, as getAccounts maps it
+		return Collections.nCopies(20, account).stream().map(accountService::mapToDto).toList();
+	}
+
+}
@@ -0,0 +1,135 @@
+package com.deebank.accountservice.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The account and customer endpoints driven by the load harnesses, each with a default weight
+ * in the request mix.
+ */
+enum Endpoint {
+
+	GET_ACCOUNT("GET /api/accounts/{accountNumber}", 30) {
+		@Override
+		HttpRequest.Builder request(ServiceUnderTest service, AtomicLong sequence) {
+			return get(service, "/api/accounts/" + pick(service.accountNumbers()));
+		}
+	},
+	GET_CUSTOMER("GET /api/customers/{customerId}", 20) {
+		@Override
+		HttpRequest.Builder request(ServiceUnderTest service, AtomicLong sequence) {
+			return get(service, "/api/customers/" + pick(service.customerIds()));
+		}
+	},
+	GET_ACCOUNTS_OF_CUSTOMER("GET /api/accounts/customer/{customerId}", 15) {
+		@Override
+		HttpRequest.Builder request(ServiceUnderTest service, AtomicLong sequence) {
+			return get(service, "/api/accounts/customer/" + pick(service.customerIds()));
+		}
+	},
+	LIST_CUSTOMERS("GET /api/customers?size=50", 15) {
+		@Override
+		HttpRequest.Builder request(ServiceUnderTest service, AtomicLong sequence) {
+			return get(service, "/api/customers?size=50&customerIdFrom=" + pick(service.customerIds()));
+		}
+	},
+	CREATE_CUSTOMER("POST /api/customers", 10) {
+		@Override
+		HttpRequest.Builder request(ServiceUnderTest service, AtomicLong sequence) {
+			long next = sequence.incrementAndGet();
+			return json(service, "/api/customers", "POST", """
+					{"name":"Load Created %d","email":"created%d@bench.test","mobileNumber":"%d"}"""
+					.formatted(next, next, 90000000 + next));
+		}
+	},
+	PATCH_ACCOUNT("PATCH /api/accounts/{accountNumber}", 10) {
+		@Override
+		HttpRequest.Builder request(ServiceUnderTest service, AtomicLong sequence) {
+			return json(service, "/api/accounts/" + pick(service.accountNumbers()), "PATCH",
+					"{\"branchAddress\":\"" + sequence.incrementAndGet() + " Load Street\"}");
+		}
+	};
+
+	private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+	private final String label;
+	private final int defaultWeight;
+
+	Endpoint(String label, int defaultWeight) {
+		this.label = label;
+		this.defaultWeight = defaultWeight;
+	}
+
+	String label() {
+		return label;
+	}
+
+	int defaultWeight() {
+		return defaultWeight;
+	}
+
+	abstract HttpRequest.Builder request(ServiceUnderTest service, AtomicLong sequence);
+
+	static Map<Endpoint, Integer> defaultWeights() {
+		Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+		for (Endpoint endpoint : values()) {
+			weights.put(endpoint, endpoint.defaultWeight());
+		}
+		return weights;
+	}
+
+	/**
+	 * Parses a mix such as {@code GET_ACCOUNT:50,CREATE_CUSTOMER:5}; endpoints left out are not driven.
+	 */
+	static Map<Endpoint, Integer> parseWeights(String mix) {
+		Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+		for (String entry : mix.split(",")) {
+			String[] pair = entry.trim().split(":", 2);
+			int weight = pair.length > 1 ? Integer.parseInt(pair[1].trim()) : 1;
+			if (weight < 0) {
+				throw new IllegalArgumentException("Weight of " + pair[0] + " cannot be negative");
+			}
+			weights.put(valueOf(pair[0].trim()), weight);
+		}
+		return weights;
+	}
+
+	/**
+	 * Each endpoint repeated by its weight, so a uniformly random index picks from the weighted mix.
+	 */
+	static Endpoint[] mix(Map<Endpoint, Integer> weights) {
+		List<Endpoint> mix = new ArrayList<>();
+		weights.forEach((endpoint, weight) -> {
+			for (int i = 0; i < weight; i++) {
+				mix.add(endpoint);
+			}
+		});
+		if (mix.isEmpty()) {
+			throw new IllegalArgumentException("Endpoint mix cannot be empty");
+		}
+		return mix.toArray(Endpoint[]::new);
+	}
+
+	private static long pick(List<Long> ids) {
+		return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+	}
+
+	private static HttpRequest.Builder get(ServiceUnderTest service, String path) {
+		return HttpRequest.newBuilder(service.baseUri().resolve(path)).timeout(REQUEST_TIMEOUT).GET();
+	}
+
+	private static HttpRequest.Builder json(ServiceUnderTest service, String path, String method, String body) {
+		return HttpRequest.newBuilder(service.baseUri().resolve(URI.create(path)))
+				.timeout(REQUEST_TIMEOUT)
+				.header("Content-Type", "application/json")
+				.method(method, HttpRequest.BodyPublishers.ofString(body));
+	}
+
+}
@@ -0,0 +1,319 @@
+package com.deebank.accountservice.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives the account and customer endpoints at fixed arrival rates and records an HDR latency
+ * histogram per endpoint. Unlike {@link ThreadingBenchmark}, the load is an open model: requests
+ * arrive on a Poisson schedule whether or not earlier ones have completed, the way independent users
+ * do, so a slow server builds a queue instead of slowing the load down. Latency is measured from the
+ * scheduled arrival time, so time spent waiting behind a stalled request is not hidden.
+ * <p>
+ * Run with {@code ./gradlew loadTest}. Options, passed with {@code -PloadTestArgs="..."}:
+ * {@code --rates=100,200,400} requests per second, one stage per rate on the same instance;
+ * {@code --warmup=PT10S --duration=PT30S} per stage; {@code --customers=2000};
+ * {@code --mix=GET_ACCOUNT:30,CREATE_CUSTOMER:10} with {@link Endpoint} names, defaulting to their
+ * weights; {@code --max-in-flight=5000} after which arrivals are dropped and counted.
+ * Any other {@code --name=value} is handed to the application, as for {@link ThreadingBenchmark}.
+ * <p>
+ * Throughput and latency percentiles count successful requests only, as in {@link ThreadingBenchmark}.
+ * Failed requests are errors, and so are requests still running {@value #DRAIN_SECONDS}s after the
+ * last arrival of their stage; those are also reported as undrained and their late completions
+ * are ignored.
+ * <p>
+ * The report is printed and written as JSON to {@code build/reports/load-test}, together with the
+ * full percentile distribution of each endpoint in HdrHistogram's {@code .hgrm} format.
+ */
+public final class OpenModelLoadTest {
+
+	// Three significant digits keep the error of every recorded latency below 0.1%
+	private static final int SIGNIFICANT_DIGITS = 3;
+	private static final String ALL = "ALL";
+	private static final int DRAIN_SECONDS = 30;
+
+	private OpenModelLoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = Options.parse(args);
+		Path output = Path.of("build", "reports", "load-test", "run-" + Instant.now().toEpochMilli());
+		Files.createDirectories(output);
+
+		List<StageResult> stages = new ArrayList<>();
+		// Shared by all stages so customers created in one stage do not collide with those of the next
+		AtomicLong sequence = new AtomicLong();
+		try (ServiceUnderTest service = ServiceUnderTest.start(options.customers(), options.springArgs())) {
+			HttpClient client = HttpClient.newBuilder()
+					.executor(Executors.newVirtualThreadPerTaskExecutor())
+					.connectTimeout(Duration.ofSeconds(5))
+					.build();
+			for (int rate : options.rates()) {
+				System.out.printf("%n== %d req/s: %s warmup, %s measured%n", rate, options.warmup(), options.duration());
+				StageResult stage = runStage(client, service, options, rate, sequence, output);
+				stage.endpoints().forEach((endpoint, result) -> System.out.println(result.format(endpoint)));
+				if (stage.dropped() > 0) {
+					System.out.printf("%d arrivals dropped at the in-flight limit%n", stage.dropped());
+				}
+				stages.add(stage);
+			}
+		}
+
+		Path file = output.resolve("results.json");
+		JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), Map.of(
+				"options", options.describe(),
+				"stages", stages
+		));
+		System.out.printf("%nReport written to %s%n", file.toAbsolutePath());
+	}
+
+	private static StageResult runStage(HttpClient client, ServiceUnderTest service, Options options, int rate,
+			AtomicLong sequence, Path output) throws InterruptedException, IOException {
+		Endpoint[] mix = Endpoint.mix(options.weights());
+		Map<Endpoint, EndpointRecorder> recorders = new EnumMap<>(Endpoint.class);
+		for (Endpoint endpoint : options.weights().keySet()) {
+			recorders.put(endpoint, new EndpointRecorder());
+		}
+		Set<Arrival> inFlight = ConcurrentHashMap.newKeySet();
+		LongAdder dropped = new LongAdder();
+
+		double meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / (double) rate;
+		long start = System.nanoTime();
+		long measureFrom = start + options.warmup().toNanos();
+		long end = measureFrom + options.duration().toNanos();
+		long scheduled = start;
+		while (scheduled < end) {
+			long delay = scheduled - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(delay);
+			}
+			long intendedStart = scheduled;
+			boolean measured = intendedStart >= measureFrom;
+			// Exponential gaps between arrivals make a Poisson process
+			scheduled += (long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanIntervalNanos);
+
+			if (inFlight.size() >= options.maxInFlight()) {
+				if (measured) {
+					dropped.increment();
+				}
+				continue;
+			}
+			Endpoint endpoint = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+			HttpRequest request = endpoint.request(service, sequence).build();
+			Arrival arrival = new Arrival(endpoint, measured);
+			inFlight.add(arrival);
+			client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+				if (arrival.settle()) {
+					if (measured) {
+						boolean failed = failure != null || response.statusCode() >= 400;
+						recorders.get(endpoint).record(System.nanoTime() - intendedStart, failed);
+					}
+					// Only once recorded, so the stage is not read while this is still being recorded
+					inFlight.remove(arrival);
+				}
+			});
+		}
+		// Requests still running count towards the stage they arrived in
+		long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DRAIN_SECONDS);
+		while (!inFlight.isEmpty() && System.nanoTime() < drainDeadline) {
+			Thread.sleep(10);
+		}
+		for (Arrival arrival : inFlight) {
+			if (arrival.settle()) {
+				if (arrival.measured()) {
+					recorders.get(arrival.endpoint()).undrained.increment();
+				}
+				inFlight.remove(arrival);
+			}
+		}
+		// What is left settled itself just now and is being recorded
+		while (!inFlight.isEmpty()) {
+			Thread.onSpinWait();
+		}
+
+		double seconds = options.duration().toNanos() / 1e9;
+		Map<String, Histogram> histograms = new LinkedHashMap<>();
+		Map<String, EndpointResult> endpoints = new LinkedHashMap<>();
+		Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+		long totalErrors = 0;
+		long totalUndrained = 0;
+		for (Map.Entry<Endpoint, EndpointRecorder> entry : recorders.entrySet()) {
+			Histogram histogram = entry.getValue().latencies.getIntervalHistogram();
+			long errors = entry.getValue().errors.sum();
+			long undrained = entry.getValue().undrained.sum();
+			histograms.put(entry.getKey().name(), histogram);
+			endpoints.put(entry.getKey().label(), EndpointResult.of(histogram, errors, undrained, seconds));
+			total.add(histogram);
+			totalErrors += errors;
+			totalUndrained += undrained;
+		}
+		histograms.put(ALL, total);
+		endpoints.put(ALL, EndpointResult.of(total, totalErrors, totalUndrained, seconds));
+		writeDistributions(output, rate, histograms);
+		return new StageResult(rate, dropped.sum(), endpoints);
+	}
+
+	private static void writeDistributions(Path output, int rate, Map<String, Histogram> histograms) throws IOException {
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			Path file = output.resolve(rate + "rps-" + entry.getKey() + ".hgrm");
+			try (PrintStream stream = new PrintStream(file.toFile())) {
+				// Nanosecond values printed as milliseconds
+				entry.getValue().outputPercentileDistribution(stream, 1e6);
+			}
+		}
+	}
+
+	/**
+	 * A request that was sent, settled exactly once: by its completion or, if it is still running
+	 * when the stage ends, as undrained. Compared by identity.
+	 */
+	private static final class Arrival {
+
+		private final Endpoint endpoint;
+		private final boolean measured;
+		private final AtomicBoolean settled = new AtomicBoolean();
+
+		Arrival(Endpoint endpoint, boolean measured) {
+			this.endpoint = endpoint;
+			this.measured = measured;
+		}
+
+		Endpoint endpoint() {
+			return endpoint;
+		}
+
+		boolean measured() {
+			return measured;
+		}
+
+		boolean settle() {
+			return settled.compareAndSet(false, true);
+		}
+
+	}
+
+	/**
+	 * Latencies of the successful requests of one endpoint and counts of the others, written to
+	 * concurrently by the completing requests.
+	 */
+	private static final class EndpointRecorder {
+
+		private final Recorder latencies = new Recorder(SIGNIFICANT_DIGITS);
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder undrained = new LongAdder();
+
+		void record(long latencyNanos, boolean failed) {
+			if (failed) {
+				errors.increment();
+			} else {
+				latencies.recordValue(latencyNanos);
+			}
+		}
+
+	}
+
+	record StageResult(int arrivalRatePerSecond, long dropped, Map<String, EndpointResult> endpoints) {
+	}
+
+	/**
+	 * @param errors Failed requests, including the undrained ones
+	 * @param throughputPerSecond Successful requests per second
+	 */
+	record EndpointResult(long requests, long successes, long errors, long undrained, double errorRate,
+			double throughputPerSecond, double p50Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+		static EndpointResult of(Histogram successes, long failed, long undrained, double seconds) {
+			long succeeded = successes.getTotalCount();
+			long errors = failed + undrained;
+			long requests = succeeded + errors;
+			return new EndpointResult(requests, succeeded, errors, undrained, requests == 0 ? 0 : (double) errors / requests,
+					succeeded / seconds, millis(successes, 50), millis(successes, 99), millis(successes, 99.9),
+					successes.getMaxValue() / 1e6);
+		}
+
+		private static double millis(Histogram histogram, double percentile) {
+			return histogram.getValueAtPercentile(percentile) / 1e6;
+		}
+
+		String format(String endpoint) {
+			return String.format("%-42s %9d req %9.1f ok/s  p50 %8.2f ms  p99 %8.2f ms  p999 %8.2f ms  max %8.2f ms  errors %.2f%% (%d undrained)",
+					endpoint, requests, throughputPerSecond, p50Millis, p99Millis, p999Millis, maxMillis, errorRate * 100, undrained);
+		}
+
+	}
+
+	record Options(List<Integer> rates, Duration warmup, Duration duration, int customers,
+			Map<Endpoint, Integer> weights, int maxInFlight, List<String> springArgs) {
+
+		static Options parse(String[] args) {
+			List<Integer> rates = List.of(100, 200, 400);
+			Duration warmup = Duration.ofSeconds(10);
+			Duration duration = Duration.ofSeconds(30);
+			int customers = 2000;
+			Map<Endpoint, Integer> weights = Endpoint.defaultWeights();
+			int maxInFlight = 5000;
+			List<String> springArgs = new ArrayList<>();
+			for (String arg : args) {
+				String[] pair = arg.split("=", 2);
+				String value = pair.length > 1 ? pair[1] : "";
+				switch (pair[0]) {
+					case "--rates" -> rates = Arrays.stream(value.split(",")).map(String::trim).map(Integer::valueOf).toList();
+					case "--warmup" -> warmup = Duration.parse(value);
+					case "--duration" -> duration = Duration.parse(value);
+					case "--customers" -> customers = Integer.parseInt(value);
+					case "--mix" -> weights = Endpoint.parseWeights(value);
+					case "--max-in-flight" -> maxInFlight = Integer.parseInt(value);
+					default -> springArgs.add(arg);
+				}
+			}
+			if (rates.stream().anyMatch(rate -> rate <= 0)) {
+				throw new IllegalArgumentException("Arrival rates must be positive");
+			}
+			return new Options(rates, warmup, duration, customers, weights, maxInFlight, springArgs);
+		}
+
+		Map<String, Object> describe() {
+			Map<String, Object> description = new LinkedHashMap<>();
+			description.put("rates", rates);
+			description.put("warmup", warmup.toString());
+			description.put("duration", duration.toString());
+			description.put("customers", customers);
+			Map<String, Integer> mix = new LinkedHashMap<>();
+			weights.forEach((endpoint, weight) -> mix.put(endpoint.name(), weight));
+			description.put("mix", mix);
+			description.put("maxInFlight", maxInFlight);
+			description.put("springArgs", springArgs);
+			description.put("javaVersion", Runtime.version().toString());
+			description.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+			return description;
+		}
+
+	}
+
+}
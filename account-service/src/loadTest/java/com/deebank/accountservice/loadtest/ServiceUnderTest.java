@@ -0,0 +1,108 @@
+package com.deebank.accountservice.loadtest;
+
+import com.deebank.accountservice.AccountServiceApplication;
+import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.dto.AccountRequestDto;
+import com.deebank.accountservice.dto.BatchItemResultDto;
+import com.deebank.accountservice.dto.CustomerDto;
+import com.deebank.accountservice.dto.CustomerRequestDto;
+import com.deebank.accountservice.service.AccountService;
+import com.deebank.accountservice.service.CustomerService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * The application started in-process on a random port against its own in-memory database, as
+ * {@code application-test.yml} does for the integration specs, and seeded with customers and accounts.
+ */
+final class ServiceUnderTest implements AutoCloseable {
+
+	private static final int SEED_BATCH_SIZE = 500;
+
+	private final ConfigurableApplicationContext context;
+	private final URI baseUri;
+	private final List<Long> customerIds = new ArrayList<>();
+	private final List<Long> accountNumbers = new ArrayList<>();
+
+	private ServiceUnderTest(ConfigurableApplicationContext context) {
+		this.context = context;
+		this.baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+	}
+
+	/**
+	 * @param customers   Customers to seed, each with one account
+	 * @param springArgs  Extra {@code --name=value} application arguments; later ones win
+	 */
+	static ServiceUnderTest start(int customers, List<String> springArgs) {
+		List<String> args = new ArrayList<>(List.of(
+				"--server.port=0",
+				"--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+				"--spring.jpa.show-sql=false",
+				"--spring.h2.console.enabled=false",
+				"--logging.level.root=WARN"
+		));
+		args.addAll(springArgs);
+		ServiceUnderTest service = new ServiceUnderTest(new SpringApplicationBuilder(AccountServiceApplication.class)
+				.run(args.toArray(String[]::new)));
+		service.seed(customers);
+		return service;
+	}
+
+	URI baseUri() {
+		return baseUri;
+	}
+
+	List<Long> customerIds() {
+		return customerIds;
+	}
+
+	List<Long> accountNumbers() {
+		return accountNumbers;
+	}
+
+	<T> T bean(Class<T> type) {
+		return context.getBean(type);
+	}
+
+	@Override
+	public void close() {
+		context.close();
+	}
+
+	private void seed(int customers) {
+		CustomerService customerService = context.getBean(CustomerService.class);
+		AccountService accountService = context.getBean(AccountService.class);
+		for (int start = 0; start < customers; start += SEED_BATCH_SIZE) {
+			List<CustomerRequestDto> requests = IntStream.range(start, Math.min(customers, start + SEED_BATCH_SIZE))
+					.mapToObj(index -> CustomerRequestDto.builder()
+							.name("Load Customer " + index)
+							.email("load" + index + "@bench.test")
+							.mobileNumber(String.valueOf(80000000 + index))
+							.build())
+					.toList();
+			List<Long> created = customerService.createCustomers(requests).getResults().stream()
+					.map(BatchItemResultDto::getData)
+					.map(CustomerDto::getCustomerId)
+					.toList();
+			customerIds.addAll(created);
+			accountService.createAccounts(created.stream()
+							.map(customerId -> AccountRequestDto.builder()
+									.customerId(customerId)
+									.accountType("Savings")
+									.branchAddress("1 Load Street")
+									.build())
+							.toList())
+					.getResults().stream()
+					.map(BatchItemResultDto::getData)
+					.map(AccountDto::getAccountNumber)
+					.forEach(accountNumbers::add);
+		}
+	}
+
+}
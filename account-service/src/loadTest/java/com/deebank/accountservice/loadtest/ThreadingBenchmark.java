@@ -0,0 +1,249 @@
+package com.deebank.accountservice.loadtest;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares throughput and latency of the account and customer endpoints with Tomcat on platform
+ * threads and on virtual threads. Each mode starts a fresh instance of the application with the
+ * same seed data and is driven by the same closed-loop workload: {@code concurrency} clients that
+ * each send the next request as soon as the previous one completes, picked from the weighted
+ * {@link Endpoint} mix.
+ * <p>
+ * Run with {@code ./gradlew threadingBenchmark}. Options, passed with {@code -PbenchmarkArgs="..."}:
+ * {@code --concurrency=400 --warmup=PT10S --duration=PT30S --customers=2000 --modes=platform,virtual};
+ * any other {@code --name=value} is handed to the application, e.g. {@code --server.tomcat.threads.max=50}
+ * to reproduce thread saturation or {@code --spring.datasource.url=...} to measure against a real
+ * database. With the default in-memory H2 the requests hardly wait on I/O, so the gap between the
+ * modes is smaller than in production.
+ * <p>
+ * Both modes run with the configuration that ships, including the
+ * {@code deebank.virtual-threads.concurrency-limit} of virtual mode: it admits
+ * {@code requests-per-connection} requests per primary pool connection and answers the rest with
+ * 503s after {@code acquire-timeout}, which show up as errors. Pass
+ * {@code --deebank.virtual-threads.concurrency-limit.max-concurrent-requests=<n>} to measure another
+ * cap. Throughput and latency percentiles count successful requests only; failed ones are reported
+ * as errors.
+ * <p>
+ * The report is printed and written as JSON to {@code build/reports/threading-benchmark}.
+ */
+public final class ThreadingBenchmark {
+
+	private ThreadingBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Options options = Options.parse(args);
+		Map<String, Map<String, EndpointResult>> report = new LinkedHashMap<>();
+		for (String mode : options.modes()) {
+			List<String> springArgs = new ArrayList<>(options.springArgs());
+			springArgs.add("--spring.threads.virtual.enabled=" + "virtual".equals(mode));
+			try (ServiceUnderTest service = ServiceUnderTest.start(options.customers(), springArgs)) {
+				System.out.printf("%n== %s threads: %d clients, %s warmup, %s measured%n",
+						mode, options.concurrency(), options.warmup(), options.duration());
+				Map<String, EndpointResult> results = run(service, options);
+				results.forEach((endpoint, result) -> System.out.println(result.format(endpoint)));
+				report.put(mode, results);
+			}
+		}
+		Path output = Path.of("build", "reports", "threading-benchmark");
+		Files.createDirectories(output);
+		Path file = output.resolve("results-" + Instant.now().toEpochMilli() + ".json");
+		JsonMapper.builder().build().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), Map.of(
+				"options", options.describe(),
+				"results", report
+		));
+		System.out.printf("%nReport written to %s%n", file.toAbsolutePath());
+	}
+
+	private static Map<String, EndpointResult> run(ServiceUnderTest service, Options options) throws InterruptedException {
+		HttpClient client = HttpClient.newBuilder()
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		Endpoint[] mix = Endpoint.mix(Endpoint.defaultWeights());
+		AtomicLong sequence = new AtomicLong();
+		long measureFrom = System.nanoTime() + options.warmup().toNanos();
+		long end = measureFrom + options.duration().toNanos();
+
+		List<Recorder> recorders = new ArrayList<>(options.concurrency());
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < options.concurrency(); i++) {
+				Recorder recorder = new Recorder();
+				recorders.add(recorder);
+				clients.execute(() -> {
+					long now;
+					while ((now = System.nanoTime()) < end) {
+						Endpoint endpoint = mix[ThreadLocalRandom.current().nextInt(mix.length)];
+						boolean failed;
+						try {
+							HttpResponse<Void> response = client.send(endpoint.request(service, sequence).build(),
+									HttpResponse.BodyHandlers.discarding());
+							failed = response.statusCode() >= 400;
+						} catch (IOException e) {
+							failed = true;
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+						if (now >= measureFrom) {
+							recorder.record(endpoint, System.nanoTime() - now, failed);
+						}
+					}
+				});
+			}
+		}
+
+		Map<String, EndpointResult> results = new LinkedHashMap<>();
+		double seconds = options.duration().toNanos() / 1e9;
+		for (Endpoint endpoint : Endpoint.values()) {
+			results.put(endpoint.label(), EndpointResult.of(recorders.stream().map(r -> r.get(endpoint)).toList(), seconds));
+		}
+		results.put("ALL", EndpointResult.of(recorders.stream().flatMap(r -> Arrays.stream(Endpoint.values()).map(r::get)).toList(), seconds));
+		return results;
+	}
+
+	/**
+	 * Latencies of one client, one growable array per endpoint; only its own thread writes to it.
+	 */
+	private static final class Recorder {
+
+		private final Map<Endpoint, Samples> samples = new EnumMap<>(Endpoint.class);
+
+		void record(Endpoint endpoint, long latencyNanos, boolean failed) {
+			samples.computeIfAbsent(endpoint, e -> new Samples()).add(latencyNanos, failed);
+		}
+
+		Samples get(Endpoint endpoint) {
+			return samples.getOrDefault(endpoint, new Samples());
+		}
+
+	}
+
+	/**
+	 * Latencies of the successful requests and the number of failed ones, which are often fast
+	 * rejections and would flatter the percentiles.
+	 */
+	private static final class Samples {
+
+		private long[] latencies = new long[1024];
+		private int count;
+		private long errors;
+
+		void add(long latencyNanos, boolean failed) {
+			if (failed) {
+				errors++;
+				return;
+			}
+			if (count == latencies.length) {
+				latencies = Arrays.copyOf(latencies, count * 2);
+			}
+			latencies[count++] = latencyNanos;
+		}
+
+	}
+
+	/**
+	 * @param successes           Requests answered with a status below 400
+	 * @param throughputPerSecond Successful requests per second
+	 * @param errorsPerSecond     Failed requests per second
+	 * @param p50Millis           Median latency of the successful requests
+	 */
+	record EndpointResult(long successes, long errors, double throughputPerSecond, double errorsPerSecond,
+			double p50Millis, double p99Millis, double maxMillis) {
+
+		static EndpointResult of(List<Samples> parts, double seconds) {
+			int successes = parts.stream().mapToInt(samples -> samples.count).sum();
+			long[] all = new long[successes];
+			int offset = 0;
+			long errors = 0;
+			for (Samples samples : parts) {
+				System.arraycopy(samples.latencies, 0, all, offset, samples.count);
+				offset += samples.count;
+				errors += samples.errors;
+			}
+			Arrays.sort(all);
+			return new EndpointResult(successes, errors, successes / seconds, errors / seconds,
+					percentile(all, 0.50), percentile(all, 0.99), successes == 0 ? 0 : all[successes - 1] / 1e6);
+		}
+
+		private static double percentile(long[] sorted, double quantile) {
+			if (sorted.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(quantile * sorted.length) - 1;
+			return sorted[Math.max(0, index)] / 1e6;
+		}
+
+		String format(String endpoint) {
+			return String.format("%-42s %9d ok %9.1f ok/s  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms  errors %d (%.1f/s)",
+					endpoint, successes, throughputPerSecond, p50Millis, p99Millis, maxMillis, errors, errorsPerSecond);
+		}
+
+	}
+
+	record Options(int concurrency, Duration warmup, Duration duration, int customers, List<String> modes,
+			List<String> springArgs) {
+
+		private static final String CONCURRENCY_LIMIT_ARG =
+				"--deebank.virtual-threads.concurrency-limit.max-concurrent-requests";
+
+		static Options parse(String[] args) {
+			int concurrency = 400;
+			Duration warmup = Duration.ofSeconds(10);
+			Duration duration = Duration.ofSeconds(30);
+			int customers = 2000;
+			List<String> modes = List.of("platform", "virtual");
+			List<String> springArgs = new ArrayList<>();
+			for (String arg : args) {
+				String[] pair = arg.split("=", 2);
+				String value = pair.length > 1 ? pair[1] : "";
+				switch (pair[0]) {
+					case "--concurrency" -> concurrency = Integer.parseInt(value);
+					case "--warmup" -> warmup = Duration.parse(value);
+					case "--duration" -> duration = Duration.parse(value);
+					case "--customers" -> customers = Integer.parseInt(value);
+					case "--modes" -> modes = List.of(value.split(","));
+					default -> springArgs.add(arg);
+				}
+			}
+			return new Options(concurrency, warmup, duration, customers, modes, springArgs);
+		}
+
+		Map<String, Object> describe() {
+			Map<String, Object> description = new LinkedHashMap<>();
+			description.put("concurrency", concurrency);
+			description.put("warmup", warmup.toString());
+			description.put("duration", duration.toString());
+			description.put("customers", customers);
+			description.put("springArgs", springArgs);
+			description.put("maxConcurrentRequests", springArgs.stream()
+					.filter(arg -> arg.startsWith(CONCURRENCY_LIMIT_ARG + "="))
+					.map(arg -> arg.substring(CONCURRENCY_LIMIT_ARG.length() + 1))
+					.findFirst()
+					.orElse("default"));
+			description.put("javaVersion", Runtime.version().toString());
+			description.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+			return description;
+		}
+
+	}
+
+}
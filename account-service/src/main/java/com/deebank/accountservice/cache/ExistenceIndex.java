@@ -0,0 +1,218 @@
+package com.deebank.accountservice.cache;
+
+import com.deebank.accountservice.config.ExistenceIndexProperties;
+import com.deebank.accountservice.util.LongHashSet;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the customer IDs and account numbers that exist, held in {@link LongHashSet}s
+ * so a check costs neither a database round trip nor a boxed {@code Long}.
+ * <p>
+ * A positive answer is authoritative for rows this instance created; a negative one only means the
+ * row is not known here, for instance because another instance created it a moment ago, and callers
+ * confirm it in the database. The services record their creates and deletes once the transaction
+ * commits, and the index is rebuilt from the tables at startup and every
+ * {@code deebank.existence-index.refresh-interval} to pick up deletes made elsewhere.
+ */
+@Slf4j
+@Component
+public class ExistenceIndex {
+
+	private static final String CUSTOMER_IDS_SQL = "SELECT customer_id FROM customer";
+	private static final String ACCOUNT_NUMBERS_SQL = "SELECT account_number FROM accounts";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ExistenceIndexProperties properties;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ReentrantLock rebuildLock = new ReentrantLock();
+	private LongHashSet customerIds = new LongHashSet();
+	private LongHashSet accountNumbers = new LongHashSet();
+	private boolean loaded;
+	// Changes committed while a rebuild scans the tables, replayed onto its result; null while none runs
+	private List<Change> changesDuringRebuild;
+
+	public ExistenceIndex(JdbcTemplate jdbcTemplate, ExistenceIndexProperties properties, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.properties = properties;
+		Gauge.builder("deebank.existence.index.size", this, index -> index.size(Kind.CUSTOMER))
+				.description("Keys held by the in-memory existence index")
+				.tag("kind", "customer")
+				.register(meterRegistry);
+		Gauge.builder("deebank.existence.index.size", this, index -> index.size(Kind.ACCOUNT))
+				.description("Keys held by the in-memory existence index")
+				.tag("kind", "account")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @return {@code true} if the customer is known to exist; {@code false} if that is unknown
+	 */
+	public boolean customerExists(long customerId) {
+		return contains(Kind.CUSTOMER, customerId);
+	}
+
+	/**
+	 * @return {@code true} if the account is known to exist; {@code false} if that is unknown
+	 */
+	public boolean accountExists(long accountNumber) {
+		return contains(Kind.ACCOUNT, accountNumber);
+	}
+
+	public void customersCreated(Collection<Long> customerIds) {
+		afterCommit(Kind.CUSTOMER, customerIds, true);
+	}
+
+	public void customerDeleted(Long customerId) {
+		afterCommit(Kind.CUSTOMER, List.of(customerId), false);
+	}
+
+	public void accountsCreated(Collection<Long> accountNumbers) {
+		afterCommit(Kind.ACCOUNT, accountNumbers, true);
+	}
+
+	public void accountDeleted(Long accountNumber) {
+		afterCommit(Kind.ACCOUNT, List.of(accountNumber), false);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${deebank.existence-index.refresh-interval:PT5M}",
+			initialDelayString = "${deebank.existence-index.refresh-interval:PT5M}")
+	public void rebuild() {
+		if (!properties.isEnabled() || !rebuildLock.tryLock()) {
+			return;
+		}
+		try {
+			lock.writeLock().lock();
+			try {
+				changesDuringRebuild = new ArrayList<>();
+			} finally {
+				lock.writeLock().unlock();
+			}
+			LongHashSet scannedCustomerIds = scan(CUSTOMER_IDS_SQL);
+			LongHashSet scannedAccountNumbers = scan(ACCOUNT_NUMBERS_SQL);
+			lock.writeLock().lock();
+			try {
+				// A change seen by the scan as well is replayed harmlessly; one it missed is not lost
+				for (Change change : changesDuringRebuild) {
+					change.applyTo(change.kind() == Kind.CUSTOMER ? scannedCustomerIds : scannedAccountNumbers);
+				}
+				customerIds = scannedCustomerIds;
+				accountNumbers = scannedAccountNumbers;
+				loaded = true;
+			} finally {
+				changesDuringRebuild = null;
+				lock.writeLock().unlock();
+			}
+			log.debug("Existence index rebuilt with {} customers and {} accounts",
+					scannedCustomerIds.size(), scannedAccountNumbers.size());
+		} catch (DataAccessException e) {
+			// Keep answering from the previous index; the next run tries again
+			lock.writeLock().lock();
+			try {
+				changesDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			log.warn("Could not rebuild the existence index", e);
+		} finally {
+			rebuildLock.unlock();
+		}
+	}
+
+	private LongHashSet scan(String sql) {
+		LongHashSet keys = new LongHashSet();
+		jdbcTemplate.query(sql, (RowCallbackHandler) resultSet -> keys.add(resultSet.getLong(1)));
+		return keys;
+	}
+
+	private boolean contains(Kind kind, long key) {
+		lock.readLock().lock();
+		try {
+			return loaded && keys(kind).contains(key);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private int size(Kind kind) {
+		lock.readLock().lock();
+		try {
+			return keys(kind).size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private LongHashSet keys(Kind kind) {
+		return kind == Kind.CUSTOMER ? customerIds : accountNumbers;
+	}
+
+	// Applied only once the rows are committed, so a rolled back insert is never reported as existing
+	private void afterCommit(Kind kind, Collection<Long> keys, boolean exists) {
+		if (!properties.isEnabled() || keys.isEmpty()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(kind, keys, exists);
+			return;
+		}
+		List<Long> committed = List.copyOf(keys);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				apply(kind, committed, exists);
+			}
+		});
+	}
+
+	private void apply(Kind kind, Collection<Long> keys, boolean exists) {
+		lock.writeLock().lock();
+		try {
+			LongHashSet set = keys(kind);
+			for (Long key : keys) {
+				Change change = new Change(kind, key, exists);
+				change.applyTo(set);
+				if (changesDuringRebuild != null) {
+					changesDuringRebuild.add(change);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private enum Kind {
+		CUSTOMER,
+		ACCOUNT
+	}
+
+	private record Change(Kind kind, long key, boolean exists) {
+
+		void applyTo(LongHashSet set) {
+			if (exists) {
+				set.add(key);
+			} else {
+				set.remove(key);
+			}
+		}
+
+	}
+
+}
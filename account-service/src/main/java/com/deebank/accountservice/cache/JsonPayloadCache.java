@@ -0,0 +1,191 @@
+package com.deebank.accountservice.cache;
+
+import com.deebank.accountservice.concurrency.SingleFlight;
+import com.deebank.accountservice.config.ReadCoalescingProperties;
+import com.deebank.accountservice.config.ResponseCacheProperties;
+import com.deebank.accountservice.datasource.DataSourceRouting;
+import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.dto.CustomerDto;
+import com.deebank.accountservice.event.AccountChangedEvent;
+import com.deebank.accountservice.event.CustomerChangedEvent;
+import com.deebank.accountservice.util.VersionTag;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.util.RawValue;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the encoded JSON of hot {@link AccountDto} and {@link CustomerDto} payloads, together with
+ * their entity tags.
+ * <p>
+ * A hit skips the service, the DTO mapping and Jackson's bean serialization entirely: the cached
+ * {@link RawValue} is written into the response envelope by copying its UTF-8 bytes. Entries are
+ * weighed by their encoded size and dropped after the surrounding transaction commits whenever
+ * {@code AccountService} or {@code CustomerService} change the entity.
+ * <p>
+ * Concurrent misses of the same key share one load through a {@link SingleFlight}, bounded by
+ * {@code deebank.read-coalescing.max-wait} and counted in its meters like the other coalesced reads.
+ */
+@Component
+public class JsonPayloadCache {
+
+	// Rough per-entry cost of the key, the cache node and the RawValue wrapper
+	private static final int ENTRY_OVERHEAD_BYTES = 96;
+	private static final int INVALIDATION_STRIPES = 1024;
+
+	private final Cache<PayloadKey, Payload> cache;
+	private final ObjectWriter accountWriter;
+	private final ObjectWriter customerWriter;
+	private final boolean coalescing;
+	private final SingleFlight<PayloadKey, Payload> accountLoads;
+	private final SingleFlight<PayloadKey, Payload> customerLoads;
+	// Invalidations per stripe of keys, so a load can tell whether its key was invalidated meanwhile
+	private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+	public JsonPayloadCache(ObjectMapper objectMapper, ResponseCacheProperties properties,
+			ReadCoalescingProperties coalescingProperties, MeterRegistry meterRegistry) {
+		this.coalescing = coalescingProperties.isEnabled();
+		this.accountLoads = new SingleFlight<>("account-payload", coalescingProperties.getMaxWait(), meterRegistry);
+		this.customerLoads = new SingleFlight<>("customer-payload", coalescingProperties.getMaxWait(), meterRegistry);
+		this.accountWriter = objectMapper.writerFor(AccountDto.class);
+		this.customerWriter = objectMapper.writerFor(CustomerDto.class);
+		this.cache = Caffeine.newBuilder()
+				.maximumWeight(properties.getMaxSize().toBytes())
+				.weigher((PayloadKey key, Payload payload) -> weigh(payload))
+				.expireAfterWrite(properties.getTtl())
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "json-payload");
+	}
+
+	/**
+	 * Returns the encoded account, loading and encoding it on a miss. Exceptions from the loader,
+	 * such as a missing account, propagate and nothing is cached.
+	 */
+	public Payload account(Long accountNumber, Supplier<AccountDto> loader) {
+		return get(new PayloadKey(PayloadType.ACCOUNT, accountNumber), accountLoads, () -> {
+			AccountDto account = loadFromPrimary(loader);
+			return encode(accountWriter, account, account.getVersion());
+		});
+	}
+
+	/**
+	 * Returns the encoded customer, loading and encoding it on a miss.
+	 */
+	public Payload customer(Long customerId, Supplier<CustomerDto> loader) {
+		return get(new PayloadKey(PayloadType.CUSTOMER, customerId), customerLoads, () -> {
+			CustomerDto customer = loadFromPrimary(loader);
+			return encode(customerWriter, customer, customer.getVersion());
+		});
+	}
+
+	/**
+	 * Returns the entity tag of the account: the cached one, or on a miss that of the version the
+	 * loader looks up. A miss does not populate the cache, so revalidating never encodes a payload.
+	 */
+	public String accountETag(Long accountNumber, Supplier<Long> versionLoader) {
+		Payload cached = cache.getIfPresent(new PayloadKey(PayloadType.ACCOUNT, accountNumber));
+		return cached != null ? cached.eTag() : VersionTag.of(loadFromPrimary(versionLoader));
+	}
+
+	/**
+	 * Returns the entity tag of the customer, looking up its version on a miss.
+	 */
+	public String customerETag(Long customerId, Supplier<Long> versionLoader) {
+		Payload cached = cache.getIfPresent(new PayloadKey(PayloadType.CUSTOMER, customerId));
+		return cached != null ? cached.eTag() : VersionTag.of(loadFromPrimary(versionLoader));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAccountChanged(AccountChangedEvent event) {
+		event.accountNumbers().forEach(accountNumber -> invalidate(new PayloadKey(PayloadType.ACCOUNT, accountNumber)));
+		// Customer payloads embed their account numbers
+		event.customerIds().forEach(customerId -> invalidate(new PayloadKey(PayloadType.CUSTOMER, customerId)));
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCustomerChanged(CustomerChangedEvent event) {
+		invalidate(new PayloadKey(PayloadType.CUSTOMER, event.customerId()));
+	}
+
+	public void clear() {
+		cache.invalidateAll();
+	}
+
+	private Payload get(PayloadKey key, SingleFlight<PayloadKey, Payload> loads, Supplier<Payload> loader) {
+		Payload cached = cache.getIfPresent(key);
+		if (cached != null) {
+			return cached;
+		}
+		return coalescing ? loads.load(key, () -> load(key, loader)) : load(key, loader);
+	}
+
+	// A load that saw the old row must not repopulate an entry invalidated while it ran. The check
+	// and the put are atomic for the key, and an invalidation counts before it removes the entry.
+	private Payload load(PayloadKey key, Supplier<Payload> loader) {
+		int stripe = stripe(key);
+		long invalidationsBefore = invalidations.get(stripe);
+		Payload payload = loader.get();
+		cache.asMap().compute(key, (k, current) -> invalidations.get(stripe) == invalidationsBefore ? payload : current);
+		return payload;
+	}
+
+	private void invalidate(PayloadKey key) {
+		invalidations.incrementAndGet(stripe(key));
+		cache.invalidate(key);
+		// Reads arriving from now on start a new load instead of joining one that may see the old row
+		(key.type() == PayloadType.ACCOUNT ? accountLoads : customerLoads).forget(key);
+	}
+
+	private static int stripe(PayloadKey key) {
+		return Math.floorMod(key.hashCode(), INVALIDATION_STRIPES);
+	}
+
+	// A miss right after an invalidation must not be refilled from a replica that has not caught up yet
+	private static <T> T loadFromPrimary(Supplier<T> loader) {
+		try (DataSourceRouting.Scope ignored = DataSourceRouting.requirePrimary()) {
+			return loader.get();
+		}
+	}
+
+	private static Payload encode(ObjectWriter writer, Object payload, Long version) {
+		SerializedString json = new SerializedString(writer.writeValueAsString(payload));
+		// Encode to UTF-8 once here rather than on the first response that writes it
+		json.asUnquotedUTF8();
+		return new Payload(new RawValue(json), VersionTag.of(version));
+	}
+
+	private static int weigh(Payload payload) {
+		// Both the String and its UTF-8 bytes are retained
+		SerializedString json = (SerializedString) payload.json().rawValue();
+		return ENTRY_OVERHEAD_BYTES + json.charLength() + json.asUnquotedUTF8().length;
+	}
+
+	/**
+	 * An encoded payload and the entity tag of the version it was encoded from.
+	 *
+	 * @param json The DTO as JSON, ready to be written into the response envelope
+	 * @param eTag Quoted entity tag, or {@code null} when the DTO carries no version
+	 */
+	public record Payload(RawValue json, String eTag) {
+
+	}
+
+	private enum PayloadType {
+		ACCOUNT, CUSTOMER
+	}
+
+	private record PayloadKey(PayloadType type, Long id) {
+
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.deebank.accountservice.concurrency;
+
+import com.deebank.accountservice.exception.BusinessException;
+import com.deebank.accountservice.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of requests handled at once. With virtual threads Tomcat no longer bounds
+ * concurrency, so without a cap every request beyond the connection pool size would park in
+ * Hikari until its connection timeout; here it waits briefly for a permit and is otherwise
+ * rejected with {@link ErrorCode#SERVICE_UNAVAILABLE}.
+ * <p>
+ * A request that goes asynchronous, such as a streaming export, gives its permit back once the
+ * handler returns.
+ */
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+	private final Semaphore permits;
+	private final long acquireTimeoutNanos;
+	private final Counter rejectedCounter;
+
+	public ConcurrencyLimitInterceptor(int limit, Duration acquireTimeout, MeterRegistry meterRegistry) {
+		this.permits = new Semaphore(limit, true);
+		this.acquireTimeoutNanos = acquireTimeout.toNanos();
+		Gauge.builder("deebank.concurrency.limit", () -> limit)
+				.description("Maximum number of API requests handled at once")
+				.register(meterRegistry);
+		Gauge.builder("deebank.concurrency.in.flight", permits, semaphore -> limit - semaphore.availablePermits())
+				.description("API requests currently holding a permit")
+				.register(meterRegistry);
+		this.rejectedCounter = Counter.builder("deebank.concurrency.rejected")
+				.description("API requests rejected because no permit became available in time")
+				.register(meterRegistry);
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getDispatcherType() != DispatcherType.REQUEST) {
+			// Async and error dispatches belong to a request that already passed the limit
+			return true;
+		}
+		boolean acquired;
+		try {
+			acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			acquired = false;
+		}
+		if (!acquired) {
+			rejectedCounter.increment();
+			throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Too many concurrent requests, retry later");
+		}
+		request.setAttribute(PERMIT_ATTRIBUTE, Boolean.TRUE);
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		release(request);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		release(request);
+	}
+
+	private void release(HttpServletRequest request) {
+		if (request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+			request.removeAttribute(PERMIT_ATTRIBUTE);
+			permits.release();
+		}
+	}
+
+}
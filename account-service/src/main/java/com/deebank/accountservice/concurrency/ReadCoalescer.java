@@ -0,0 +1,84 @@
+package com.deebank.accountservice.concurrency;
+
+import com.deebank.accountservice.config.ReadCoalescingProperties;
+import com.deebank.accountservice.datasource.DataSourceRouting;
+import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.event.AccountChangedEvent;
+import com.deebank.accountservice.event.CustomerChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * {@link SingleFlight} in front of the service reads that bursts of clients repeat within
+ * milliseconds of each other. It sits outside the services' transactions, so the one load that runs
+ * uses one connection and its result is shared as is. Single account and customer payloads are
+ * coalesced by {@code JsonPayloadCache}, which sends its misses through a flight of its own.
+ * <p>
+ * A write forgets the flights of the keys it changed once its transaction commits, before its
+ * response is sent, so a read issued after a write completed never joins a load that started before
+ * it. Reads that must see the primary only join flights that read from the primary.
+ */
+@Component
+public class ReadCoalescer {
+
+	private final ReadCoalescingProperties properties;
+	private final SingleFlight<FlightKey, List<AccountDto>> accountsByCustomer;
+	private final SingleFlight<FlightKey, Long> accountVersions;
+	private final SingleFlight<FlightKey, Long> customerVersions;
+
+	public ReadCoalescer(ReadCoalescingProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.accountsByCustomer = new SingleFlight<>("accounts-by-customer", properties.getMaxWait(), meterRegistry);
+		this.accountVersions = new SingleFlight<>("account-version", properties.getMaxWait(), meterRegistry);
+		this.customerVersions = new SingleFlight<>("customer-version", properties.getMaxWait(), meterRegistry);
+	}
+
+	public List<AccountDto> accountsByCustomer(Long customerId, Supplier<List<AccountDto>> loader) {
+		return load(accountsByCustomer, customerId, loader);
+	}
+
+	public Long accountVersion(Long accountNumber, Supplier<Long> loader) {
+		return load(accountVersions, accountNumber, loader);
+	}
+
+	public Long customerVersion(Long customerId, Supplier<Long> loader) {
+		return load(customerVersions, customerId, loader);
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onAccountChanged(AccountChangedEvent event) {
+		event.accountNumbers().forEach(accountNumber -> forget(accountVersions, accountNumber));
+		event.customerIds().forEach(customerId -> {
+			forget(accountsByCustomer, customerId);
+			// The customer's version moves with its list of accounts
+			forget(customerVersions, customerId);
+		});
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onCustomerChanged(CustomerChangedEvent event) {
+		forget(customerVersions, event.customerId());
+		// A deleted customer's accounts are no longer found
+		forget(accountsByCustomer, event.customerId());
+	}
+
+	private <V> V load(SingleFlight<FlightKey, V> flight, Long id, Supplier<V> loader) {
+		if (!properties.isEnabled()) {
+			return loader.get();
+		}
+		return flight.load(new FlightKey(id, DataSourceRouting.isPrimaryRequired()), loader);
+	}
+
+	private static void forget(SingleFlight<FlightKey, ?> flight, Long id) {
+		flight.forget(new FlightKey(id, false));
+		flight.forget(new FlightKey(id, true));
+	}
+
+	private record FlightKey(Long id, boolean primaryRequired) {
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.deebank.accountservice.concurrency;
+
+import com.deebank.accountservice.exception.BusinessException;
+import com.deebank.accountservice.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load on its own thread and
+ * every caller that arrives while it is in flight waits for and shares its result or exception.
+ * Nothing is kept once the load completes, so this never serves a result to a caller that arrived
+ * after it was produced.
+ * <p>
+ * Waiting is bounded; a caller whose wait runs out is rejected with
+ * {@link ErrorCode#SERVICE_UNAVAILABLE} like a request that finds no concurrency permit, rather than
+ * adding another load to a database that is already slow. Each call is counted in
+ * {@code deebank.read.coalescing.requests} by outcome: {@code loaded}, {@code shared} or
+ * {@code timed_out}; shared over all is the coalescing ratio.
+ */
+public final class SingleFlight<K, V> {
+
+	private final String name;
+	private final long maxWaitNanos;
+	private final Map<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+	private final Counter loadedCounter;
+	private final Counter sharedCounter;
+	private final Counter timedOutCounter;
+
+	/**
+	 * @param name Name of the read, used as the {@code read} tag of the meters
+	 */
+	public SingleFlight(String name, Duration maxWait, MeterRegistry meterRegistry) {
+		this.name = name;
+		this.maxWaitNanos = maxWait.toNanos();
+		this.loadedCounter = requests(meterRegistry, "loaded");
+		this.sharedCounter = requests(meterRegistry, "shared");
+		this.timedOutCounter = requests(meterRegistry, "timed_out");
+		Gauge.builder("deebank.read.coalescing.in.flight", flights, Map::size)
+				.description("Loads currently in flight that later callers can join")
+				.tag("read", name)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Returns the result of the load in flight for the key, or runs the loader if there is none.
+	 *
+	 * @throws BusinessException with {@link ErrorCode#SERVICE_UNAVAILABLE} if the load in flight does
+	 *                           not complete within the maximum wait
+	 */
+	public V load(K key, Supplier<V> loader) {
+		CompletableFuture<V> flight = new CompletableFuture<>();
+		CompletableFuture<V> inFlight = flights.putIfAbsent(key, flight);
+		if (inFlight != null) {
+			return join(inFlight);
+		}
+		loadedCounter.increment();
+		try {
+			V value = loader.get();
+			flight.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			// Only our own flight; a forget() may already have made room for a newer one
+			flights.remove(key, flight);
+		}
+	}
+
+	/**
+	 * Detaches the load in flight for the key, if any, so callers arriving from now on start a new
+	 * one. Callers already waiting still get its result, which was being read when the change
+	 * that makes it stale happened.
+	 */
+	public void forget(K key) {
+		flights.remove(key);
+	}
+
+	private V join(CompletableFuture<V> flight) {
+		try {
+			V value = flight.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+			sharedCounter.increment();
+			return value;
+		} catch (ExecutionException e) {
+			sharedCounter.increment();
+			// The loader's own exception, such as ResourceNotFoundException, so it maps to the same response
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (e.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			timedOutCounter.increment();
+			throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE,
+					"Timed out waiting for a concurrent " + name + " read, retry later", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE,
+					"Interrupted while waiting for a concurrent " + name + " read", e);
+		}
+	}
+
+	private Counter requests(MeterRegistry meterRegistry, String outcome) {
+		return Counter.builder("deebank.read.coalescing.requests")
+				.description("Coalesced reads by whether they ran the load, shared another's or gave up waiting")
+				.tag("read", name)
+				.tag("outcome", outcome)
+				.register(meterRegistry);
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.deebank.accountservice.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams the JDK's {@code jdk.VirtualThreadPinned} events, which fire when a virtual thread
+ * blocks while pinned to its carrier, typically inside a {@code synchronized} block or a native
+ * frame. Each event is counted and timed as {@code deebank.virtual.threads.pinned}; the first
+ * occurrence of every distinct call site is logged with its stack so the offending code can be
+ * found and moved to a {@link java.util.concurrent.locks.ReentrantLock}.
+ * <p>
+ * The stack of a pinning event always starts in the JDK's parking code, so the call site is the
+ * first frame outside {@code java.}, {@code jdk.} and {@code sun.}; the log shows the stack down to
+ * that frame and some of its callers, among which is the one holding the monitor.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+	private static final List<String> JDK_PACKAGES = List.of("java.", "jdk.", "sun.");
+	// Callers logged below the call site
+	private static final int LOGGED_CALLER_FRAMES = 12;
+
+	private final RecordingStream stream;
+	private final Counter pinnedCounter;
+	private final Timer pinnedTimer;
+	private final Counter siteCounter;
+	private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+
+	public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+		this.pinnedCounter = Counter.builder("deebank.virtual.threads.pinned.events")
+				.description("Times a virtual thread blocked while pinned to its carrier thread")
+				.register(meterRegistry);
+		this.pinnedTimer = Timer.builder("deebank.virtual.threads.pinned")
+				.description("Time virtual threads spent blocked while pinned")
+				.register(meterRegistry);
+		this.siteCounter = Counter.builder("deebank.virtual.threads.pinned.sites")
+				.description("Distinct call sites at which virtual threads were pinned, each logged once")
+				.register(meterRegistry);
+		this.stream = new RecordingStream();
+		stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+		stream.onEvent(PINNED_EVENT, this::onPinned);
+	}
+
+	public void start() {
+		stream.startAsync();
+	}
+
+	@Override
+	public void close() {
+		stream.close();
+	}
+
+	private void onPinned(RecordedEvent event) {
+		pinnedCounter.increment();
+		pinnedTimer.record(event.getDuration());
+		if (event.getStackTrace() != null) {
+			report(event.getDuration(), event.getStackTrace().getFrames().stream()
+					.map(VirtualThreadPinningMonitor::format)
+					.toList());
+		}
+	}
+
+	/**
+	 * Logs the stack unless its call site was logged before.
+	 *
+	 * @param frames Formatted frames, innermost first
+	 */
+	void report(Duration duration, List<String> frames) {
+		if (frames.isEmpty()) {
+			return;
+		}
+		int site = callSite(frames);
+		if (reportedSites.add(frames.get(site))) {
+			siteCounter.increment();
+			String stack = String.join("\n\tat ", frames.subList(0, Math.min(frames.size(), site + 1 + LOGGED_CALLER_FRAMES)));
+			log.warn("Virtual thread pinned for {} ms\n\tat {}", duration.toMillis(), stack);
+		}
+	}
+
+	// The innermost frame outside the JDK, or the innermost one if all are in it
+	private static int callSite(List<String> frames) {
+		for (int index = 0; index < frames.size(); index++) {
+			String frame = frames.get(index);
+			if (JDK_PACKAGES.stream().noneMatch(frame::startsWith)) {
+				return index;
+			}
+		}
+		return 0;
+	}
+
+	private static String format(RecordedFrame frame) {
+		return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+	}
+
+}
@@ -0,0 +1,18 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.account-batch")
+public class AccountBatchProperties {
+
+	/** Largest number of accounts accepted by one batch request. */
+	private int maxItems = 10000;
+
+	/** Accounts inserted per flush; keep equal to hibernate.jdbc.batch_size so each flush is one JDBC batch. */
+	private int flushSize = 50;
+
+}
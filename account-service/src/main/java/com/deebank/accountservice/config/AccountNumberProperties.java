@@ -0,0 +1,60 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.account-number")
+public class AccountNumberProperties {
+
+	/**
+	 * Strategy used by {@link com.deebank.accountservice.util.AccountNumberGenerator}.
+	 */
+	private Mode mode = Mode.RANDOM;
+
+	/**
+	 * Secret key for the PERMUTATION mode. Must stay the same for the lifetime of the
+	 * database, otherwise previously issued numbers are no longer guaranteed to be unique.
+	 */
+	private String permutationKey;
+
+	private final Pool pool = new Pool();
+
+	public enum Mode {
+		/** SecureRandom draw checked against the accounts table on every attempt. */
+		RANDOM,
+		/** Keyed permutation of a shared database sequence; collision-free without lookups. */
+		PERMUTATION,
+		/** In-memory pool of numbers reserved in bulk by a background task. */
+		POOL
+	}
+
+	@Getter
+	@Setter
+	public static class Pool {
+
+		/** Maximum number of reserved numbers held in memory. */
+		private int capacity = 500;
+
+		/** Pool depth below which a background refill is triggered. */
+		private int lowWaterMark = 100;
+
+		/** Number of candidates drawn and reserved per refill round. */
+		private int refillBatchSize = 200;
+
+		/** How long a reservation stays valid before any instance may reclaim it. */
+		private Duration lease = Duration.ofMinutes(10);
+
+		/** Maximum time a caller waits for a number when the pool is empty. */
+		private Duration takeTimeout = Duration.ofSeconds(2);
+
+		/** Interval of the scheduled refill and reclaim task (ISO-8601). */
+		private Duration refillInterval = Duration.ofSeconds(5);
+
+	}
+
+}
@@ -0,0 +1,23 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.account-stats")
+public class AccountStatsProperties {
+
+	/** Keep account counts by type and branch in memory for GET /api/accounts/stats. */
+	private boolean enabled = true;
+
+	/**
+	 * How often the counts are recomputed with one GROUP BY over the accounts table, picking up
+	 * writes made by other instances or outside the services.
+	 */
+	private Duration reconcileInterval = Duration.ofMinutes(5);
+
+}
@@ -0,0 +1,18 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.customer-import")
+public class CustomerImportProperties {
+
+	/** Input lines committed per transaction; the checkpoint advances by this much at a time. */
+	private int chunkSize = 500;
+
+	/** Rejected lines listed in the import response; further rejections are only counted. */
+	private int maxReportedErrors = 100;
+
+}
@@ -0,0 +1,23 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.customer-search")
+public class CustomerSearchProperties {
+
+	/** Keep the in-memory index behind GET /api/customers/search; it holds every customer's name, domain and mobile number. */
+	private boolean enabled = true;
+
+	/** How often the index is rebuilt from the table, picking up changes made by other instances or outside the services. */
+	private Duration refreshInterval = Duration.ofMinutes(5);
+
+	/** Shortest name word or mobile number prefix accepted; shorter ones would match too much of the index. */
+	private int minPrefixLength = 2;
+
+}
@@ -0,0 +1,21 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.dictionary")
+public class DictionaryProperties {
+
+	/**
+	 * Shortest time between two reloads of a dictionary table caused by looking up a value it does
+	 * not have, e.g. an unknown account type in a query filter. A value added by another instance
+	 * can be reported absent for up to this long.
+	 */
+	private Duration minReloadInterval = Duration.ofSeconds(5);
+
+}
@@ -0,0 +1,23 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.existence-index")
+public class ExistenceIndexProperties {
+
+	/** Answer existence checks from memory; when off, every check goes to the database. */
+	private boolean enabled = true;
+
+	/**
+	 * How often the index is rebuilt from the tables, picking up deletes made by other instances or
+	 * outside the services. Until then such a row can still be reported as existing.
+	 */
+	private Duration refreshInterval = Duration.ofMinutes(5);
+
+}
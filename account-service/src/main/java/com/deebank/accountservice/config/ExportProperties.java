@@ -0,0 +1,18 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.export")
+public class ExportProperties {
+
+	/** JDBC fetch size of the export cursor; also the chunk size for batched account number lookups. */
+	private int fetchSize = 500;
+
+	/** Number of rows written between flushes of the response stream. */
+	private int flushEvery = 1000;
+
+}
@@ -0,0 +1,36 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+import java.util.Objects;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.lookup")
+public class LookupProperties {
+
+	/** Largest number of IDs one lookup request may resolve; each lookup binds them all to one IN list. */
+	private int maxIds = 500;
+
+	/**
+	 * Checks the requested IDs and returns them without duplicates, in request order.
+	 *
+	 * @throws IllegalArgumentException if there are none, too many, or a null among them
+	 */
+	public List<Long> resolveIds(List<Long> ids) {
+		if (ids == null || ids.isEmpty()) {
+			throw new IllegalArgumentException("Lookup must contain at least one ID");
+		}
+		if (ids.size() > maxIds) {
+			throw new IllegalArgumentException("Lookup cannot contain more than " + maxIds + " IDs");
+		}
+		if (ids.stream().anyMatch(Objects::isNull)) {
+			throw new IllegalArgumentException("Lookup IDs cannot be null");
+		}
+		return ids.stream().distinct().toList();
+	}
+
+}
@@ -0,0 +1,42 @@
+package com.deebank.accountservice.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Service-layer timers. {@code @Timed} on {@code AccountService} and {@code CustomerService} records
+ * every public method as {@code deebank.service}, tagged with {@code class}, {@code method} and
+ * {@code exception}; calls a service makes to itself bypass the proxy and are not timed separately.
+ * <p>
+ * Controller endpoints need no aspect: Spring MVC records them as {@code http.server.requests}.
+ * Connection pool ({@code hikaricp.*}) and Hibernate session ({@code hibernate.*}) meters are bound
+ * by Spring Boot, which exposes Hibernate's session activity only as counters; the gauge here adds
+ * how many are open right now. All of it is scraped through {@code /actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+	@Bean
+	public MeterBinder hibernateSessionGauges(EntityManagerFactory entityManagerFactory) {
+		return registry -> {
+			Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+			Gauge.builder("deebank.hibernate.sessions.open", statistics,
+							stats -> stats.getSessionOpenCount() - stats.getSessionCloseCount())
+					.description("Hibernate sessions opened and not yet closed")
+					.register(registry);
+		};
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.pagination")
+public class PaginationProperties {
+
+	/** Page size used when the client does not ask for one. */
+	private int defaultSize = 50;
+
+	/** Largest page size a client may request. */
+	private int maxSize = 500;
+
+	public int resolveSize(Integer requestedSize) {
+		if (requestedSize == null) {
+			return defaultSize;
+		}
+		if (requestedSize < 1 || requestedSize > maxSize) {
+			throw new IllegalArgumentException("Page size must be between 1 and " + maxSize);
+		}
+		return requestedSize;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.read-coalescing")
+public class ReadCoalescingProperties {
+
+	/** Share one database load between concurrent identical reads. */
+	private boolean enabled = true;
+
+	/** How long a read waits for the load it joined before it is rejected with 503. */
+	private Duration maxWait = Duration.ofSeconds(2);
+
+}
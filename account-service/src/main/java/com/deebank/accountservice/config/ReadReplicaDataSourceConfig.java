@@ -0,0 +1,84 @@
+package com.deebank.accountservice.config;
+
+import com.deebank.accountservice.datasource.ReadWriteRoutingDataSource;
+import com.deebank.accountservice.datasource.ReadYourWritesFilter;
+import com.deebank.accountservice.datasource.ReplicaReadJpaDialect;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.AbstractEntityManagerFactoryBean;
+
+import javax.sql.DataSource;
+
+/**
+ * Splits database traffic between the primary and a read replica when
+ * {@code deebank.datasource.replica.url} is set. Without it the auto-configured single pool is used.
+ * <p>
+ * Both pools are beans so they are health-checked, exposed as {@code hikaricp.*} meters and closed
+ * on shutdown; the {@link Primary} routing proxy is what JPA, Flyway and {@code JdbcTemplate} use.
+ * Flyway and any work outside a read-only transaction go to the primary. Reads from the replica do
+ * not fill the second-level cache, see {@link ReplicaReadJpaDialect}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "deebank.datasource.replica", name = "url")
+public class ReadReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties(prefix = "spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	@ConfigurationProperties(prefix = "deebank.datasource.replica.hikari")
+	public HikariDataSource replicaDataSource(ReadReplicaProperties properties) {
+		HikariDataSource dataSource = DataSourceBuilder.create()
+				.type(HikariDataSource.class)
+				.url(properties.getUrl())
+				.username(properties.getUsername())
+				.password(properties.getPassword())
+				.driverClassName(properties.getDriverClassName())
+				.build();
+		dataSource.setPoolName("replica");
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+		return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource));
+	}
+
+	@Bean
+	public static BeanPostProcessor replicaReadJpaDialectPostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				// Before initialization, while the vendor adapter's dialect has not been applied yet
+				if (bean instanceof AbstractEntityManagerFactoryBean entityManagerFactory) {
+					entityManagerFactory.setJpaDialect(new ReplicaReadJpaDialect());
+				}
+				return bean;
+			}
+		};
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "deebank.datasource.replica.read-your-writes", name = "enabled", matchIfMissing = true)
+	public ReadYourWritesFilter readYourWritesFilter(ReadReplicaProperties properties) {
+		ReadReplicaProperties.ReadYourWrites readYourWrites = properties.getReadYourWrites();
+		return new ReadYourWritesFilter(readYourWrites.getClientHeader(), readYourWrites.getWindow(),
+				readYourWrites.getMaxClients());
+	}
+
+}
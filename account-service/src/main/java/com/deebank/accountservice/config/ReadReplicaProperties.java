@@ -0,0 +1,46 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Read replica for read-only transactions. Routing is enabled only when {@code url} is set; pool
+ * settings are bound from {@code deebank.datasource.replica.hikari.*} like {@code spring.datasource.hikari.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.datasource.replica")
+public class ReadReplicaProperties {
+
+	private String url;
+
+	private String username;
+
+	private String password;
+
+	private String driverClassName;
+
+	private final ReadYourWrites readYourWrites = new ReadYourWrites();
+
+	@Getter
+	@Setter
+	public static class ReadYourWrites {
+
+		/** Pin reads of a client that recently wrote to the primary; per instance, so behind a load balancer it needs client affinity. */
+		private boolean enabled = true;
+
+		/** Request header that identifies a client. */
+		private String clientHeader = "X-Client-Id";
+
+		/** How long after a write the client's reads stay on the primary; should exceed the replica lag. */
+		private Duration window = Duration.ofSeconds(5);
+
+		/** Upper bound on clients remembered at once. */
+		private long maxClients = 100_000;
+
+	}
+
+}
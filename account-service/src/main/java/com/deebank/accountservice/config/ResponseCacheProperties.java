@@ -0,0 +1,21 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.response-cache")
+public class ResponseCacheProperties {
+
+	/** Upper bound on the encoded JSON held in memory; least recently used entries are evicted first. */
+	private DataSize maxSize = DataSize.ofMegabytes(64);
+
+	/** Safety net for changes made outside the services, such as manual SQL. */
+	private Duration ttl = Duration.ofMinutes(10);
+
+}
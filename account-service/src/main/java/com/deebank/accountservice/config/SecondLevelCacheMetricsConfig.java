@@ -0,0 +1,40 @@
+package com.deebank.accountservice.config;
+
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+
+/**
+ * Publishes per-region cache meters for the Hibernate second-level cache.
+ * <p>
+ * Hibernate's own {@code hibernate.second.level.cache.*} meters count hits, misses and puts but
+ * not evictions; {@link JCacheMetrics} adds {@code cache.evictions} and {@code cache.removals}
+ * from the JCache statistics of each region, tagged with {@code cache=<region>}.
+ */
+@Configuration
+public class SecondLevelCacheMetricsConfig {
+
+	@Bean
+	public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+		return registry -> {
+			RegionFactory regionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+					.getCache()
+					.getRegionFactory();
+			if (regionFactory instanceof JCacheRegionFactory jCacheRegionFactory) {
+				CacheManager cacheManager = jCacheRegionFactory.getCacheManager();
+				for (String cacheName : cacheManager.getCacheNames()) {
+					JCacheMetrics.monitor(registry, cacheManager.getCache(cacheName), Tags.of("cache.manager", "hibernate"));
+				}
+			}
+		};
+	}
+
+}
@@ -0,0 +1,51 @@
+package com.deebank.accountservice.config;
+
+import com.deebank.accountservice.sql.SqlStatementBudgetInterceptor;
+import com.deebank.accountservice.sql.StatementCountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Enforces {@link com.deebank.accountservice.sql.SqlStatementBudget}s on the API when
+ * {@code deebank.sql-budget.enabled} is true, as it is in the dev and test profiles. Statements are
+ * counted on the {@code dataSource} bean that JPA, Flyway and {@code JdbcTemplate} share.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "deebank.sql-budget", name = "enabled")
+public class SqlStatementBudgetConfig {
+
+	@Bean
+	public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				// Only the shared one: the pools behind a routing DataSource would count its statements twice
+				return "dataSource".equals(beanName) && bean instanceof DataSource dataSource
+						? new StatementCountingDataSource(dataSource)
+						: bean;
+			}
+		};
+	}
+
+	@Bean
+	public SqlStatementBudgetInterceptor sqlStatementBudgetInterceptor(SqlStatementBudgetProperties properties) {
+		return new SqlStatementBudgetInterceptor(properties.getDefaultMaxStatements());
+	}
+
+	@Bean
+	public WebMvcConfigurer sqlStatementBudgetConfigurer(SqlStatementBudgetInterceptor interceptor) {
+		return new WebMvcConfigurer() {
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+			}
+		};
+	}
+
+}
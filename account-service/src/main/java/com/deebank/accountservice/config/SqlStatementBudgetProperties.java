@@ -0,0 +1,21 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Per-request SQL statement budgets, see {@link com.deebank.accountservice.sql.SqlStatementBudget}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.sql-budget")
+public class SqlStatementBudgetProperties {
+
+	/** Count statements per /api request and warn about calls over budget; meant for dev and tests. */
+	private boolean enabled;
+
+	/** Budget of endpoints without a {@code @SqlStatementBudget}. */
+	private int defaultMaxStatements = 10;
+
+}
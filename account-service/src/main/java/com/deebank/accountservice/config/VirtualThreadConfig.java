@@ -0,0 +1,71 @@
+package com.deebank.accountservice.config;
+
+import com.deebank.accountservice.concurrency.ConcurrencyLimitInterceptor;
+import com.deebank.accountservice.concurrency.VirtualThreadPinningMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Virtual-thread execution mode, switched on with {@code spring.threads.virtual.enabled=true}.
+ * <p>
+ * Spring Boot then runs Tomcat requests, {@code @Scheduled} tasks and the async MVC executor behind
+ * streaming exports on virtual threads; the account number pool picks its refill thread the same
+ * way. This adds the two safeguards the mode needs: a request concurrency limit derived from the
+ * primary connection pool and monitoring of pinned virtual threads.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+	@Bean
+	@ConditionalOnProperty(prefix = "deebank.virtual-threads.concurrency-limit", name = "enabled", matchIfMissing = true)
+	public ConcurrencyLimitInterceptor concurrencyLimitInterceptor(VirtualThreadProperties properties,
+			DataSource dataSource, MeterRegistry meterRegistry) throws SQLException {
+		VirtualThreadProperties.ConcurrencyLimit concurrencyLimit = properties.getConcurrencyLimit();
+		int limit = concurrencyLimit.getMaxConcurrentRequests();
+		if (limit <= 0) {
+			if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+				throw new IllegalStateException("Cannot derive the concurrency limit from a non-Hikari DataSource; "
+						+ "set deebank.virtual-threads.concurrency-limit.max-concurrent-requests");
+			}
+			// Outside a transaction the routing DataSource resolves to the primary pool
+			int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+			limit = poolSize * concurrencyLimit.getRequestsPerConnection();
+		}
+		log.info("Virtual threads enabled, limiting /api to {} concurrent requests", limit);
+		return new ConcurrencyLimitInterceptor(limit, concurrencyLimit.getAcquireTimeout(), meterRegistry);
+	}
+
+	@Bean
+	public WebMvcConfigurer concurrencyLimitConfigurer(
+			ObjectProvider<ConcurrencyLimitInterceptor> interceptor) {
+		return new WebMvcConfigurer() {
+			@Override
+			public void addInterceptors(InterceptorRegistry registry) {
+				// Actuator stays outside the limit so health checks keep answering under load
+				interceptor.ifAvailable(limit -> registry.addInterceptor(limit).addPathPatterns("/api/**"));
+			}
+		};
+	}
+
+	@Bean(initMethod = "start", destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "deebank.virtual-threads.pinning", name = "enabled", matchIfMissing = true)
+	public VirtualThreadPinningMonitor virtualThreadPinningMonitor(VirtualThreadProperties properties,
+			MeterRegistry meterRegistry) {
+		return new VirtualThreadPinningMonitor(properties.getPinning().getThreshold(), meterRegistry);
+	}
+
+}
@@ -0,0 +1,53 @@
+package com.deebank.accountservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Safeguards that apply when {@code spring.threads.virtual.enabled} is true.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "deebank.virtual-threads")
+public class VirtualThreadProperties {
+
+	private final ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
+
+	private final Pinning pinning = new Pinning();
+
+	@Getter
+	@Setter
+	public static class ConcurrencyLimit {
+
+		private boolean enabled = true;
+
+		/**
+		 * Concurrent /api requests allowed per connection of the primary pool. Requests beyond the
+		 * pool size queue in Hikari; the limit bounds that queue instead of letting it grow with
+		 * every virtual thread.
+		 */
+		private int requestsPerConnection = 2;
+
+		/** Explicit limit that overrides the one derived from the pool size when greater than zero. */
+		private int maxConcurrentRequests;
+
+		/** How long a request waits for a permit before it is rejected with 503. */
+		private Duration acquireTimeout = Duration.ofMillis(500);
+
+	}
+
+	@Getter
+	@Setter
+	public static class Pinning {
+
+		private boolean enabled = true;
+
+		/** Pinned periods shorter than this are ignored. */
+		private Duration threshold = Duration.ofMillis(20);
+
+	}
+
+}
@@ -1,10 +1,20 @@
 package com.deebank.accountservice.controller;
 
+import com.deebank.accountservice.cache.JsonPayloadCache;
+import com.deebank.accountservice.concurrency.ReadCoalescer;
 import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.dto.AccountPageRequestDto;
 import com.deebank.accountservice.dto.AccountRequestDto;
+import com.deebank.accountservice.dto.AccountStatsDto;
+import com.deebank.accountservice.dto.BatchResultDto;
 import com.deebank.accountservice.dto.ErrorResponseDto;
+import com.deebank.accountservice.dto.LookupResultDto;
+import com.deebank.accountservice.dto.PageDto;
 import com.deebank.accountservice.dto.ResponseDto;
 import com.deebank.accountservice.service.AccountService;
+import com.deebank.accountservice.service.ExportService;
+import com.deebank.accountservice.sql.SqlStatementBudget;
+import com.deebank.accountservice.util.VersionTag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,11 +24,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.util.RawValue;
 
 import java.util.List;
 
@@ -30,8 +44,12 @@ import java.util.List;
 public class AccountController {
 
 	private final AccountService accountService;
+	private final ExportService exportService;
+	private final JsonPayloadCache jsonPayloadCache;
+	private final ReadCoalescer readCoalescer;
 
 	@PostMapping
+	@SqlStatementBudget(4)
 	@Operation(
 			summary = "Create a new account",
 			description = "Creates a new bank account for a customer. Requires customer ID, account type, and branch address."
@@ -67,10 +85,82 @@ public class AccountController {
 				.body(ResponseDto.success("Account created successfully", accountDto));
 	}
 
+	@PostMapping("/batch")
+	@SqlStatementBudget(SqlStatementBudget.UNBOUNDED)
+	@Operation(
+			summary = "Create accounts in bulk",
+			description = "Creates many accounts in one request. Each item is validated independently and the response "
+					+ "reports success or failure for every item in request order. Valid items are inserted together "
+					+ "even when other items fail."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Batch processed - see the per-item results",
+					content = @Content(schema = @Schema(implementation = ResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request - empty batch, too many items, or malformed body",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<ResponseDto<BatchResultDto<AccountDto>>> createAccounts(
+			@RequestBody
+			@Parameter(description = "Account creation requests", required = true)
+			List<AccountRequestDto> accountRequestDtos) {
+		BatchResultDto<AccountDto> result = accountService.createAccounts(accountRequestDtos);
+		return ResponseEntity.ok(ResponseDto.success(
+				"Batch processed: " + result.getSucceeded() + " created, " + result.getFailed() + " failed", result));
+	}
+
+	@PostMapping("/lookup")
+	@SqlStatementBudget(1)
+	@Operation(
+			summary = "Look up many accounts",
+			description = "Resolves up to deebank.lookup.max-ids account numbers in one request, replacing one GET per "
+					+ "account. Accounts that exist are returned in request order; numbers without an account are "
+					+ "listed as missing. Duplicate numbers are resolved once."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Lookup processed - see the found and missing accounts",
+					content = @Content(schema = @Schema(implementation = ResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request - no account numbers, too many, a null number, or malformed body",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<ResponseDto<LookupResultDto<AccountDto>>> lookupAccounts(
+			@RequestBody
+			@Parameter(description = "Account numbers to resolve", required = true)
+			List<Long> accountNumbers) {
+		LookupResultDto<AccountDto> result = accountService.lookupAccounts(accountNumbers);
+		return ResponseEntity.ok(ResponseDto.success(
+				"Lookup processed: " + result.getFound().size() + " found, " + result.getMissing().size() + " missing",
+				result));
+	}
+
 	@GetMapping("/{accountNumber}")
+	@SqlStatementBudget(2)
 	@Operation(
 			summary = "Get account by account number",
-			description = "Retrieves account details for a specific account number"
+			description = "Retrieves account details for a specific account number. The response carries the version "
+					+ "of the account as its ETag; sending it back in If-None-Match answers 304 without the payload "
+					+ "while the account is unchanged."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -78,6 +168,10 @@ public class AccountController {
 					description = "Account retrieved successfully",
 					content = @Content(schema = @Schema(implementation = ResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "304",
+					description = "Not modified - the account still has the version named by If-None-Match"
+			),
 			@ApiResponse(
 					responseCode = "400",
 					description = "Bad request - invalid parameter type",
@@ -94,18 +188,29 @@ public class AccountController {
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			)
 	})
-	public ResponseEntity<ResponseDto<AccountDto>> getAccount(
+	public ResponseEntity<ResponseDto<RawValue>> getAccount(
 			@PathVariable 
 			@Parameter(description = "Account number", required = true, example = "1234567")
-			Long accountNumber) {
-		AccountDto accountDto = accountService.getAccount(accountNumber);
-		return ResponseEntity.ok(ResponseDto.success(accountDto));
+			Long accountNumber,
+			@Parameter(hidden = true)
+			WebRequest request) {
+		// Revalidation needs only the version, from the cached payload or a lookup of that column alone
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && request.checkNotModified(
+				jsonPayloadCache.accountETag(accountNumber, () -> readCoalescer.accountVersion(accountNumber,
+						() -> accountService.getAccountVersion(accountNumber))))) {
+			return null;
+		}
+		// Served from pre-encoded JSON; the service is only called on a cache miss
+		JsonPayloadCache.Payload account = jsonPayloadCache.account(accountNumber, () -> accountService.getAccount(accountNumber));
+		return ResponseEntity.ok().eTag(account.eTag()).body(ResponseDto.success(account.json()));
 	}
 
 	@GetMapping
+	@SqlStatementBudget(1)
 	@Operation(
 			summary = "Get all accounts",
-			description = "Retrieves a list of all accounts in the system"
+			description = "Retrieves accounts one page at a time, ordered by account number. "
+					+ "Pass the returned nextCursor as 'cursor' to fetch the following page."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -113,18 +218,104 @@ public class AccountController {
 					description = "Accounts retrieved successfully",
 					content = @Content(schema = @Schema(implementation = ResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request - invalid cursor, page size, sort direction or parameter type",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			)
 	})
-	public ResponseEntity<ResponseDto<List<AccountDto>>> getAllAccounts() {
-		List<AccountDto> accounts = accountService.getAllAccounts();
+	public ResponseEntity<ResponseDto<PageDto<AccountDto>>> getAllAccounts(
+			@RequestParam(required = false)
+			@Parameter(description = "Continuation token returned as nextCursor by the previous page")
+			String cursor,
+			@RequestParam(required = false)
+			@Parameter(description = "Page size (defaults to 50, at most 500)", example = "50")
+			Integer size,
+			@RequestParam(required = false)
+			@Parameter(description = "Sort direction on account number", example = "asc")
+			String sort,
+			@RequestParam(required = false)
+			@Parameter(description = "Only return accounts of this type", example = "Savings")
+			String accountType,
+			@RequestParam(required = false)
+			@Parameter(description = "Only return accounts whose customer ID is at least this value", example = "1")
+			Long customerIdFrom,
+			@RequestParam(required = false)
+			@Parameter(description = "Only return accounts whose customer ID is at most this value", example = "100")
+			Long customerIdTo) {
+		AccountPageRequestDto pageRequest = AccountPageRequestDto.builder()
+				.cursor(cursor)
+				.size(size)
+				.sort(sort)
+				.accountType(accountType)
+				.customerIdFrom(customerIdFrom)
+				.customerIdTo(customerIdTo)
+				.build();
+		PageDto<AccountDto> accounts = accountService.getAccounts(pageRequest);
 		return ResponseEntity.ok(ResponseDto.success(accounts));
 	}
 
+	@GetMapping("/stats")
+	@SqlStatementBudget(0)
+	@Operation(
+			summary = "Get account statistics",
+			description = "Returns the number of accounts in total, per account type and per branch address. "
+					+ "Served from counters updated as writes commit, without querying the accounts; they are "
+					+ "reconciled with the database every deebank.account-stats.reconcile-interval, so writes "
+					+ "made through other instances can take that long to show."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Statistics retrieved successfully",
+					content = @Content(schema = @Schema(implementation = ResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "503",
+					description = "Service unavailable - statistics are disabled or still being counted",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<ResponseDto<AccountStatsDto>> getAccountStats() {
+		return ResponseEntity.ok(ResponseDto.success(accountService.getAccountStats()));
+	}
+
+	@GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(
+			summary = "Export all accounts",
+			description = "Streams every account as newline-delimited JSON. "
+					+ "Rows are written as they are read from the database, so the export works for tables of any size."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Accounts streamed successfully, one JSON document per line"
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<StreamingResponseBody> exportAccounts() {
+		StreamingResponseBody body = exportService::exportAccounts;
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(body);
+	}
+
 	@GetMapping("/customer/{customerId}")
+	@SqlStatementBudget(2)
 	@Operation(
 			summary = "Get accounts by customer ID",
 			description = "Retrieves all accounts associated with a specific customer"
@@ -155,14 +346,18 @@ public class AccountController {
 			@PathVariable 
 			@Parameter(description = "Customer ID", required = true, example = "1")
 			Long customerId) {
-		List<AccountDto> accounts = accountService.getAccountsByCustomerId(customerId);
+		// Bursts of the same lookup share one load
+		List<AccountDto> accounts = readCoalescer.accountsByCustomer(customerId,
+				() -> accountService.getAccountsByCustomerId(customerId));
 		return ResponseEntity.ok(ResponseDto.success(accounts));
 	}
 
 	@PutMapping("/{accountNumber}")
+	@SqlStatementBudget(2)
 	@Operation(
 			summary = "Update account",
-			description = "Updates all fields of an existing account. All fields must be provided."
+			description = "Updates all fields of an existing account. All fields must be provided. Send the ETag of "
+					+ "the account in If-Match to update it only if nobody else has changed it in the meantime."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -180,6 +375,11 @@ public class AccountController {
 					description = "Account not found",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "Precondition failed - the account no longer has the version named by If-Match",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
@@ -192,15 +392,23 @@ public class AccountController {
 			Long accountNumber,
 			@Valid @RequestBody 
 			@Parameter(description = "Account update request", required = true)
-			AccountRequestDto accountRequestDto) {
-		AccountDto accountDto = accountService.updateAccount(accountNumber, accountRequestDto);
-		return ResponseEntity.ok(ResponseDto.success("Account updated successfully", accountDto));
+			AccountRequestDto accountRequestDto,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+			@Parameter(description = "ETag of the version the change is based on; the change is refused with 412 once the account has another version")
+			String ifMatch) {
+		AccountDto accountDto = accountService.updateAccount(accountNumber, accountRequestDto,
+				VersionTag.expectedVersion(ifMatch));
+		return ResponseEntity.ok()
+				.eTag(VersionTag.of(accountDto.getVersion()))
+				.body(ResponseDto.success("Account updated successfully", accountDto));
 	}
 
 	@PatchMapping("/{accountNumber}")
+	@SqlStatementBudget(2)
 	@Operation(
 			summary = "Partially update account",
-			description = "Updates specific fields of an existing account. Only provided fields will be updated."
+			description = "Updates specific fields of an existing account. Only provided fields will be updated. "
+					+ "Honours If-Match like the full update."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -218,6 +426,11 @@ public class AccountController {
 					description = "Account not found",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "Precondition failed - the account no longer has the version named by If-Match",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
@@ -230,15 +443,23 @@ public class AccountController {
 			Long accountNumber,
 			@RequestBody 
 			@Parameter(description = "Partial account update request", required = true)
-			AccountRequestDto accountRequestDto) {
-		AccountDto accountDto = accountService.partialUpdateAccount(accountNumber, accountRequestDto);
-		return ResponseEntity.ok(ResponseDto.success("Account updated successfully", accountDto));
+			AccountRequestDto accountRequestDto,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+			@Parameter(description = "ETag of the version the change is based on; the change is refused with 412 once the account has another version")
+			String ifMatch) {
+		AccountDto accountDto = accountService.partialUpdateAccount(accountNumber, accountRequestDto,
+				VersionTag.expectedVersion(ifMatch));
+		return ResponseEntity.ok()
+				.eTag(VersionTag.of(accountDto.getVersion()))
+				.body(ResponseDto.success("Account updated successfully", accountDto));
 	}
 
 	@DeleteMapping("/{accountNumber}")
+	@SqlStatementBudget(3)
 	@Operation(
 			summary = "Delete account",
-			description = "Deletes an account from the system. This operation cannot be undone."
+			description = "Deletes an account from the system. This operation cannot be undone. Honours If-Match "
+					+ "like the updates."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -256,6 +477,11 @@ public class AccountController {
 					description = "Account not found",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "Precondition failed - the account no longer has the version named by If-Match",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
@@ -265,8 +491,11 @@ public class AccountController {
 	public ResponseEntity<ResponseDto<Void>> deleteAccount(
 			@PathVariable 
 			@Parameter(description = "Account number", required = true, example = "1234567")
-			Long accountNumber) {
-		accountService.deleteAccount(accountNumber);
+			Long accountNumber,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+			@Parameter(description = "ETag of the version the change is based on; the change is refused with 412 once the account has another version")
+			String ifMatch) {
+		accountService.deleteAccount(accountNumber, VersionTag.expectedVersion(ifMatch));
 		return ResponseEntity.ok(ResponseDto.success("Account deleted successfully", null));
 	}
 
@@ -1,10 +1,22 @@
 package com.deebank.accountservice.controller;
 
+import com.deebank.accountservice.cache.JsonPayloadCache;
+import com.deebank.accountservice.concurrency.ReadCoalescer;
 import com.deebank.accountservice.dto.CustomerDto;
+import com.deebank.accountservice.dto.CustomerImportDto;
+import com.deebank.accountservice.dto.CustomerPageRequestDto;
 import com.deebank.accountservice.dto.CustomerRequestDto;
+import com.deebank.accountservice.dto.CustomerSearchRequestDto;
 import com.deebank.accountservice.dto.ErrorResponseDto;
+import com.deebank.accountservice.dto.LookupResultDto;
+import com.deebank.accountservice.dto.PageDto;
 import com.deebank.accountservice.dto.ResponseDto;
+import com.deebank.accountservice.entity.CustomerImport;
+import com.deebank.accountservice.service.CustomerImportService;
 import com.deebank.accountservice.service.CustomerService;
+import com.deebank.accountservice.service.ExportService;
+import com.deebank.accountservice.sql.SqlStatementBudget;
+import com.deebank.accountservice.util.VersionTag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,12 +26,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.util.RawValue;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -30,8 +48,13 @@ import java.util.List;
 public class CustomerController {
 
 	private final CustomerService customerService;
+	private final ExportService exportService;
+	private final CustomerImportService customerImportService;
+	private final JsonPayloadCache jsonPayloadCache;
+	private final ReadCoalescer readCoalescer;
 
 	@PostMapping
+	@SqlStatementBudget(3)
 	@Operation(
 			summary = "Create a new customer",
 			description = "Creates a new customer in the system. Requires name, email, and mobile number. Email and mobile number must be unique."
@@ -67,10 +90,107 @@ public class CustomerController {
 				.body(ResponseDto.success("Customer created successfully", customerDto));
 	}
 
+	@PostMapping("/lookup")
+	@SqlStatementBudget(2)
+	@Operation(
+			summary = "Look up many customers",
+			description = "Resolves up to deebank.lookup.max-ids customer IDs in one request, with their account numbers. "
+					+ "Customers that exist are returned in request order; IDs without a customer are listed as "
+					+ "missing. Duplicate IDs are resolved once."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Lookup processed - see the found and missing customers",
+					content = @Content(schema = @Schema(implementation = ResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request - no customer IDs, too many, a null ID, or malformed body",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<ResponseDto<LookupResultDto<CustomerDto>>> lookupCustomers(
+			@RequestBody
+			@Parameter(description = "Customer IDs to resolve", required = true)
+			List<Long> customerIds) {
+		LookupResultDto<CustomerDto> result = customerService.lookupCustomers(customerIds);
+		return ResponseEntity.ok(ResponseDto.success(
+				"Lookup processed: " + result.getFound().size() + " found, " + result.getMissing().size() + " missing",
+				result));
+	}
+
+	@GetMapping("/search")
+	@SqlStatementBudget(2)
+	@Operation(
+			summary = "Search customers",
+			description = "Finds customers whose name has words starting with every word of 'name', whose email "
+					+ "address is at 'emailDomain' and whose mobile number starts with 'mobileNumber'; at least one "
+					+ "criterion is required and every one given must match. Results are ranked by how well the name "
+					+ "matches, whole words before prefixes, then by customer ID. "
+					+ "Pass the returned nextCursor as 'cursor' to fetch the following page."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Search completed",
+					content = @Content(schema = @Schema(implementation = ResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request - no criterion, a prefix shorter than deebank.customer-search.min-prefix-length, "
+							+ "invalid cursor or page size",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "503",
+					description = "Service unavailable - search is disabled or its index is still being built",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<ResponseDto<PageDto<CustomerDto>>> searchCustomers(
+			@RequestParam(required = false)
+			@Parameter(description = "Words the name must have words starting with", example = "jo sm")
+			String name,
+			@RequestParam(required = false)
+			@Parameter(description = "Domain of the email address", example = "example.com")
+			String emailDomain,
+			@RequestParam(required = false)
+			@Parameter(description = "Prefix of the mobile number", example = "8123")
+			String mobileNumber,
+			@RequestParam(required = false)
+			@Parameter(description = "Continuation token returned as nextCursor by the previous page")
+			String cursor,
+			@RequestParam(required = false)
+			@Parameter(description = "Page size (defaults to 50, at most 500)", example = "50")
+			Integer size) {
+		CustomerSearchRequestDto searchRequest = CustomerSearchRequestDto.builder()
+				.name(name)
+				.emailDomain(emailDomain)
+				.mobileNumber(mobileNumber)
+				.cursor(cursor)
+				.size(size)
+				.build();
+		return ResponseEntity.ok(ResponseDto.success(customerService.searchCustomers(searchRequest)));
+	}
+
 	@GetMapping("/{customerId}")
+	@SqlStatementBudget(3)
 	@Operation(
 			summary = "Get customer by ID",
-			description = "Retrieves customer details including associated account numbers for a specific customer ID"
+			description = "Retrieves customer details including associated account numbers for a specific customer ID. "
+					+ "The response carries the version of the customer as its ETag; sending it back in If-None-Match "
+					+ "answers 304 without the payload while the customer, including its list of accounts, is unchanged."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -78,6 +198,10 @@ public class CustomerController {
 					description = "Customer retrieved successfully",
 					content = @Content(schema = @Schema(implementation = ResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "304",
+					description = "Not modified - the customer still has the version named by If-None-Match"
+			),
 			@ApiResponse(
 					responseCode = "400",
 					description = "Bad request - invalid parameter type",
@@ -94,18 +218,29 @@ public class CustomerController {
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			)
 	})
-	public ResponseEntity<ResponseDto<CustomerDto>> getCustomer(
+	public ResponseEntity<ResponseDto<RawValue>> getCustomer(
 			@PathVariable 
 			@Parameter(description = "Customer ID", required = true, example = "1")
-			Long customerId) {
-		CustomerDto customerDto = customerService.getCustomer(customerId);
-		return ResponseEntity.ok(ResponseDto.success(customerDto));
+			Long customerId,
+			@Parameter(hidden = true)
+			WebRequest request) {
+		// Revalidation needs only the version, from the cached payload or a lookup of that column alone
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null && request.checkNotModified(
+				jsonPayloadCache.customerETag(customerId, () -> readCoalescer.customerVersion(customerId,
+						() -> customerService.getCustomerVersion(customerId))))) {
+			return null;
+		}
+		// Served from pre-encoded JSON; the service is only called on a cache miss
+		JsonPayloadCache.Payload customer = jsonPayloadCache.customer(customerId, () -> customerService.getCustomer(customerId));
+		return ResponseEntity.ok().eTag(customer.eTag()).body(ResponseDto.success(customer.json()));
 	}
 
 	@GetMapping
+	@SqlStatementBudget(2)
 	@Operation(
 			summary = "Get all customers",
-			description = "Retrieves a list of all customers in the system"
+			description = "Retrieves customers one page at a time, ordered by customer ID. "
+					+ "Pass the returned nextCursor as 'cursor' to fetch the following page."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -113,21 +248,148 @@ public class CustomerController {
 					description = "Customers retrieved successfully",
 					content = @Content(schema = @Schema(implementation = ResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request - invalid cursor, page size, sort direction or parameter type",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			)
 	})
-	public ResponseEntity<ResponseDto<List<CustomerDto>>> getAllCustomers() {
-		List<CustomerDto> customers = customerService.getAllCustomers();
+	public ResponseEntity<ResponseDto<PageDto<CustomerDto>>> getAllCustomers(
+			@RequestParam(required = false)
+			@Parameter(description = "Continuation token returned as nextCursor by the previous page")
+			String cursor,
+			@RequestParam(required = false)
+			@Parameter(description = "Page size (defaults to 50, at most 500)", example = "50")
+			Integer size,
+			@RequestParam(required = false)
+			@Parameter(description = "Sort direction on customer ID", example = "asc")
+			String sort,
+			@RequestParam(required = false)
+			@Parameter(description = "Only return customers whose ID is at least this value", example = "1")
+			Long customerIdFrom,
+			@RequestParam(required = false)
+			@Parameter(description = "Only return customers whose ID is at most this value", example = "100")
+			Long customerIdTo) {
+		CustomerPageRequestDto pageRequest = CustomerPageRequestDto.builder()
+				.cursor(cursor)
+				.size(size)
+				.sort(sort)
+				.customerIdFrom(customerIdFrom)
+				.customerIdTo(customerIdTo)
+				.build();
+		PageDto<CustomerDto> customers = customerService.getCustomers(pageRequest);
 		return ResponseEntity.ok(ResponseDto.success(customers));
 	}
 
+	@GetMapping(path = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	@Operation(
+			summary = "Export all customers",
+			description = "Streams every customer as newline-delimited JSON, each with its account numbers. "
+					+ "Rows are written as they are read from the database, so the export works for tables of any size."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Customers streamed successfully, one JSON document per line"
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<StreamingResponseBody> exportCustomers() {
+		StreamingResponseBody body = exportService::exportCustomers;
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(body);
+	}
+
+	@PostMapping(path = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+	@SqlStatementBudget(SqlStatementBudget.UNBOUNDED)
+	@Operation(
+			summary = "Import customers",
+			description = "Imports customers from a CSV file with a name,email,mobileNumber header or from newline-delimited JSON. "
+					+ "The input is streamed and committed in chunks; invalid or duplicate lines are rejected individually. "
+					+ "If the import fails, upload the same input again with its importId to resume after the last committed chunk."
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Import completed - see the counts and rejected lines",
+					content = @Content(schema = @Schema(implementation = ResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "400",
+					description = "Bad request - missing CSV header columns, or input shorter than the resumed checkpoint",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "Import to resume not found",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - the import is marked FAILED and can be resumed",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<ResponseDto<CustomerImportDto>> importCustomers(
+			@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+			@RequestParam(required = false)
+			@Parameter(description = "ID of a failed import to resume")
+			String importId,
+			InputStream body) throws IOException {
+		CustomerImport.Format format = MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType)
+				? CustomerImport.Format.NDJSON
+				: CustomerImport.Format.CSV;
+		CustomerImportDto result = customerImportService.importCustomers(body, format, importId);
+		return ResponseEntity.ok(ResponseDto.success(
+				"Import completed: " + result.getImported() + " imported, " + result.getRejected() + " rejected", result));
+	}
+
+	@GetMapping("/import/{importId}")
+	@SqlStatementBudget(1)
+	@Operation(
+			summary = "Get customer import progress",
+			description = "Returns the committed progress of a running, failed or completed customer import"
+	)
+	@ApiResponses(value = {
+			@ApiResponse(
+					responseCode = "200",
+					description = "Import progress retrieved successfully",
+					content = @Content(schema = @Schema(implementation = ResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "404",
+					description = "Import not found",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
+			@ApiResponse(
+					responseCode = "500",
+					description = "Internal server error - unexpected error occurred",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			)
+	})
+	public ResponseEntity<ResponseDto<CustomerImportDto>> getImport(
+			@PathVariable
+			@Parameter(description = "Import ID", required = true)
+			String importId) {
+		return ResponseEntity.ok(ResponseDto.success(customerImportService.getImport(importId)));
+	}
+
 	@PutMapping("/{customerId}")
+	@SqlStatementBudget(2)
 	@Operation(
 			summary = "Update customer",
-			description = "Updates all fields of an existing customer. All fields must be provided."
+			description = "Updates all fields of an existing customer. All fields must be provided. Send the ETag of "
+					+ "the customer in If-Match to update it only if nobody else has changed it in the meantime."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -150,6 +412,11 @@ public class CustomerController {
 					description = "Conflict - customer with email or mobile number already exists",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "Precondition failed - the customer no longer has the version named by If-Match",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
@@ -162,15 +429,23 @@ public class CustomerController {
 			Long customerId,
 			@Valid @RequestBody 
 			@Parameter(description = "Customer update request", required = true)
-			CustomerRequestDto customerRequestDto) {
-		CustomerDto customerDto = customerService.updateCustomer(customerId, customerRequestDto);
-		return ResponseEntity.ok(ResponseDto.success("Customer updated successfully", customerDto));
+			CustomerRequestDto customerRequestDto,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+			@Parameter(description = "ETag of the version the change is based on; the change is refused with 412 once the customer has another version")
+			String ifMatch) {
+		CustomerDto customerDto = customerService.updateCustomer(customerId, customerRequestDto,
+				VersionTag.expectedVersion(ifMatch));
+		return ResponseEntity.ok()
+				.eTag(VersionTag.of(customerDto.getVersion()))
+				.body(ResponseDto.success("Customer updated successfully", customerDto));
 	}
 
 	@PatchMapping("/{customerId}")
+	@SqlStatementBudget(2)
 	@Operation(
 			summary = "Partially update customer",
-			description = "Updates specific fields of an existing customer. Only provided fields will be updated."
+			description = "Updates specific fields of an existing customer. Only provided fields will be updated. "
+					+ "Honours If-Match like the full update."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -193,6 +468,11 @@ public class CustomerController {
 					description = "Conflict - customer with email or mobile number already exists",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "Precondition failed - the customer no longer has the version named by If-Match",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
@@ -205,15 +485,23 @@ public class CustomerController {
 			Long customerId,
 			@RequestBody 
 			@Parameter(description = "Partial customer update request", required = true)
-			CustomerRequestDto customerRequestDto) {
-		CustomerDto customerDto = customerService.partialUpdateCustomer(customerId, customerRequestDto);
-		return ResponseEntity.ok(ResponseDto.success("Customer updated successfully", customerDto));
+			CustomerRequestDto customerRequestDto,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+			@Parameter(description = "ETag of the version the change is based on; the change is refused with 412 once the customer has another version")
+			String ifMatch) {
+		CustomerDto customerDto = customerService.partialUpdateCustomer(customerId, customerRequestDto,
+				VersionTag.expectedVersion(ifMatch));
+		return ResponseEntity.ok()
+				.eTag(VersionTag.of(customerDto.getVersion()))
+				.body(ResponseDto.success("Customer updated successfully", customerDto));
 	}
 
 	@DeleteMapping("/{customerId}")
+	@SqlStatementBudget(3)
 	@Operation(
 			summary = "Delete customer",
-			description = "Deletes a customer from the system. Customer must not have any associated accounts. This operation cannot be undone."
+			description = "Deletes a customer from the system. Customer must not have any associated accounts. This operation cannot be undone. "
+					+ "Honours If-Match like the updates."
 	)
 	@ApiResponses(value = {
 			@ApiResponse(
@@ -231,6 +519,11 @@ public class CustomerController {
 					description = "Customer not found",
 					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
 			),
+			@ApiResponse(
+					responseCode = "412",
+					description = "Precondition failed - the customer no longer has the version named by If-Match",
+					content = @Content(schema = @Schema(implementation = ErrorResponseDto.class))
+			),
 			@ApiResponse(
 					responseCode = "500",
 					description = "Internal server error - unexpected error occurred",
@@ -240,8 +533,11 @@ public class CustomerController {
 	public ResponseEntity<ResponseDto<Void>> deleteCustomer(
 			@PathVariable 
 			@Parameter(description = "Customer ID", required = true, example = "1")
-			Long customerId) {
-		customerService.deleteCustomer(customerId);
+			Long customerId,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false)
+			@Parameter(description = "ETag of the version the change is based on; the change is refused with 412 once the customer has another version")
+			String ifMatch) {
+		customerService.deleteCustomer(customerId, VersionTag.expectedVersion(ifMatch));
 		return ResponseEntity.ok(ResponseDto.success("Customer deleted successfully", null));
 	}
 
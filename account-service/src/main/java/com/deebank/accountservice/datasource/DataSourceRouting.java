@@ -0,0 +1,37 @@
+package com.deebank.accountservice.datasource;
+
+/**
+ * Per-thread override that sends read-only transactions to the primary instead of the replica.
+ * Used for reads that must observe the latest committed writes, such as a client reading back its
+ * own changes or a cache being repopulated right after an invalidation.
+ */
+public final class DataSourceRouting {
+
+	private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+	private DataSourceRouting() {
+	}
+
+	/**
+	 * Routes every transaction started on this thread to the primary until the returned scope is
+	 * closed. Scopes nest; closing one restores the routing that was in effect when it was opened.
+	 */
+	public static Scope requirePrimary() {
+		boolean previous = PRIMARY_REQUIRED.get();
+		PRIMARY_REQUIRED.set(Boolean.TRUE);
+		return () -> PRIMARY_REQUIRED.set(previous);
+	}
+
+	public static boolean isPrimaryRequired() {
+		return PRIMARY_REQUIRED.get();
+	}
+
+	@FunctionalInterface
+	public interface Scope extends AutoCloseable {
+
+		@Override
+		void close();
+
+	}
+
+}
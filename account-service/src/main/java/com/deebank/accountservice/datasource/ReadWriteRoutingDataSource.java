@@ -0,0 +1,39 @@
+package com.deebank.accountservice.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the primary.
+ * <p>
+ * The transaction manager opens its connection before it publishes the read-only flag, so this
+ * must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * which defers the choice of target until the first statement runs inside the transaction.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	public enum Route {
+		PRIMARY, REPLICA
+	}
+
+	public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+		setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return currentRoute();
+	}
+
+	public static Route currentRoute() {
+		boolean readOnly = TransactionSynchronizationManager.isActualTransactionActive()
+				&& TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+		return readOnly && !DataSourceRouting.isPrimaryRequired() ? Route.REPLICA : Route.PRIMARY;
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.deebank.accountservice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Pins the reads of a client to the primary for a while after it sent a write, so it sees its own
+ * changes even when the replica lags behind. Clients identify themselves with a request header;
+ * requests without it are never pinned.
+ * <p>
+ * Recent writers are remembered in memory, so the guarantee holds per instance only: behind a load
+ * balancer a read sent to another instance than the write is routed as if the client had never
+ * written, whatever the window. It needs client affinity, or a store of recent writers shared by
+ * all instances; the window itself only needs to exceed the replica lag.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+	private final String clientHeader;
+	private final Cache<String, Boolean> recentWriters;
+
+	public ReadYourWritesFilter(String clientHeader, Duration window, long maxClients) {
+		this.clientHeader = clientHeader;
+		this.recentWriters = Caffeine.newBuilder()
+				.expireAfterWrite(window)
+				.maximumSize(maxClients)
+				.build();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String clientId = request.getHeader(clientHeader);
+		if (clientId == null || clientId.isBlank()) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		if (!SAFE_METHODS.contains(request.getMethod())) {
+			// Recorded before the write runs, so a read racing the response is already pinned
+			recentWriters.put(clientId, Boolean.TRUE);
+			filterChain.doFilter(request, response);
+			return;
+		}
+		if (recentWriters.getIfPresent(clientId) == null) {
+			filterChain.doFilter(request, response);
+			return;
+		}
+		try (DataSourceRouting.Scope ignored = DataSourceRouting.requirePrimary()) {
+			filterChain.doFilter(request, response);
+		}
+	}
+
+}
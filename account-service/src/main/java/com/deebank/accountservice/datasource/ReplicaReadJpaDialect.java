@@ -0,0 +1,32 @@
+package com.deebank.accountservice.datasource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+
+/**
+ * Keeps reads from the replica out of the second-level cache. A write on the primary invalidates
+ * the entities and cached queries it touched; a replica that has not caught up yet would otherwise
+ * put the old rows back under a newer timestamp, where they count as valid and are served to every
+ * client, including those pinned to the primary. Transactions routed to the replica still read the
+ * cache but no longer put into it.
+ */
+public class ReplicaReadJpaDialect extends HibernateJpaDialect {
+
+	@Override
+	public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+			throws PersistenceException, SQLException, TransactionException {
+		Object transactionData = super.beginTransaction(entityManager, definition);
+		// Set on every transaction: with open-in-view one session spans the transactions of a request
+		boolean replica = definition.isReadOnly() && !DataSourceRouting.isPrimaryRequired();
+		entityManager.unwrap(Session.class).setCacheMode(replica ? CacheMode.GET : CacheMode.NORMAL);
+		return transactionData;
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.deebank.accountservice.dictionary;
+
+import com.deebank.accountservice.config.DictionaryProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Collection;
+
+/**
+ * The dictionaries behind the {@code account_type_id} and {@code branch_id} columns of accounts.
+ * Values are registered before an account with them is written; reads map keys back through
+ * {@link AccountTypeConverter} and {@link BranchAddressConverter}.
+ */
+@Component
+public class AccountDictionaries {
+
+	private final ValueDictionary accountTypes;
+	private final ValueDictionary branches;
+
+	public AccountDictionaries(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+			DictionaryProperties properties, MeterRegistry meterRegistry) {
+		this.accountTypes = new ValueDictionary("Account type", "account_type", "account_type_id", "name",
+				jdbcTemplate, transactionManager, properties.getMinReloadInterval());
+		this.branches = new ValueDictionary("Branch address", "branch", "branch_id", "address",
+				jdbcTemplate, transactionManager, properties.getMinReloadInterval());
+		Gauge.builder("deebank.dictionary.size", accountTypes, ValueDictionary::size)
+				.description("Entries held by an in-memory dictionary of account column values")
+				.tag("dictionary", "account_type")
+				.register(meterRegistry);
+		Gauge.builder("deebank.dictionary.size", branches, ValueDictionary::size)
+				.description("Entries held by an in-memory dictionary of account column values")
+				.tag("dictionary", "branch")
+				.register(meterRegistry);
+	}
+
+	public ValueDictionary accountTypes() {
+		return accountTypes;
+	}
+
+	public ValueDictionary branches() {
+		return branches;
+	}
+
+	/**
+	 * Makes sure the given values have keys, with at most one transaction per dictionary and none
+	 * when all are known; {@code null} values are left alone. Call it before the write transaction
+	 * opens, so registering never needs a second connection while that one holds its own and its locks.
+	 */
+	public void register(Collection<String> accountTypes, Collection<String> branchAddresses) {
+		this.accountTypes.registerAll(accountTypes);
+		this.branches.registerAll(branchAddresses);
+	}
+
+}
@@ -0,0 +1,34 @@
+package com.deebank.accountservice.dictionary;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Stores {@code Account.accountType} as its {@code account_type} dictionary key.
+ */
+@Converter
+public class AccountTypeConverter implements AttributeConverter<String, Short> {
+
+	// Resolved on first use; Hibernate creates converters while the transaction manager is still being built
+	private final ObjectProvider<AccountDictionaries> dictionaries;
+
+	public AccountTypeConverter(ObjectProvider<AccountDictionaries> dictionaries) {
+		this.dictionaries = dictionaries;
+	}
+
+	@Override
+	public Short convertToDatabaseColumn(String accountType) {
+		if (accountType == null) {
+			return null;
+		}
+		// A type without a key matches no account in a query; writes register theirs first
+		return (short) dictionaries.getObject().accountTypes().keyOf(accountType).orElse(ValueDictionary.NO_KEY);
+	}
+
+	@Override
+	public String convertToEntityAttribute(Short key) {
+		return key != null ? dictionaries.getObject().accountTypes().valueOf(key) : null;
+	}
+
+}
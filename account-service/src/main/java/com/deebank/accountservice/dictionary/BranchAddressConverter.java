@@ -0,0 +1,34 @@
+package com.deebank.accountservice.dictionary;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Stores {@code Account.branchAddress} as its {@code branch} dictionary key.
+ */
+@Converter
+public class BranchAddressConverter implements AttributeConverter<String, Integer> {
+
+	// Resolved on first use; Hibernate creates converters while the transaction manager is still being built
+	private final ObjectProvider<AccountDictionaries> dictionaries;
+
+	public BranchAddressConverter(ObjectProvider<AccountDictionaries> dictionaries) {
+		this.dictionaries = dictionaries;
+	}
+
+	@Override
+	public Integer convertToDatabaseColumn(String branchAddress) {
+		if (branchAddress == null) {
+			return null;
+		}
+		// A branch without a key matches no account in a query; writes register theirs first
+		return dictionaries.getObject().branches().keyOf(branchAddress).orElse(ValueDictionary.NO_KEY);
+	}
+
+	@Override
+	public String convertToEntityAttribute(Integer key) {
+		return key != null ? dictionaries.getObject().branches().valueOf(key) : null;
+	}
+
+}
@@ -0,0 +1,219 @@
+package com.deebank.accountservice.dictionary;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory copy of a dictionary table, which gives each distinct value of a low-cardinality
+ * column a compact integer key. Lookups go both ways without a query: value to key through a map,
+ * key to value through an array indexed by key. Every value is held once, so the entities loaded
+ * with it share one instance instead of each carrying its own copy.
+ * <p>
+ * Entries are never removed, so the copy only grows. A value or key missing here was added by
+ * another instance and is picked up by reloading the table; a value missing there too is inserted
+ * by {@link #registerAll(Collection)} in a transaction of its own, so its key stays valid even if the
+ * caller's transaction rolls back.
+ * <p>
+ * A lookup of an unknown value reloads the table at most once per {@code minReloadInterval} and
+ * only on the thread that wins the reload lock; the others answer from the current copy. A value
+ * found absent is answered from memory for the same interval, so repeating it runs no query.
+ */
+public final class ValueDictionary {
+
+	/**
+	 * Key of no entry; identity keys start at 1.
+	 */
+	public static final int NO_KEY = 0;
+
+	// Bounds the memory taken by unknown values between two reloads; beyond it misses are only throttled
+	private static final int MAX_ABSENT_VALUES = 10_000;
+
+	private final String name;
+	private final String selectSql;
+	private final String insertSql;
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate newTransaction;
+	private final long minReloadIntervalNanos;
+	// A ReentrantLock rather than a monitor, so a virtual thread waiting on the reload query is not pinned
+	private final ReentrantLock reloadLock = new ReentrantLock();
+	// Values found missing, with the System.nanoTime() they were; trusted for minReloadInterval
+	private final Map<String, Long> absent = new ConcurrentHashMap<>();
+	private volatile Entries entries = new Entries(Map.of(), new String[0]);
+	private volatile long lastReloadNanos;
+	private volatile boolean reloaded;
+
+	/**
+	 * @param name              Name of the values, used in error messages
+	 * @param minReloadInterval Shortest time between two reloads caused by looking up an unknown value
+	 */
+	public ValueDictionary(String name, String table, String keyColumn, String valueColumn,
+			JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, Duration minReloadInterval) {
+		this.name = name;
+		this.minReloadIntervalNanos = minReloadInterval.toNanos();
+		this.selectSql = "SELECT " + keyColumn + ", " + valueColumn + " FROM " + table;
+		this.insertSql = "INSERT INTO " + table + " (" + valueColumn + ") VALUES (?)";
+		this.jdbcTemplate = jdbcTemplate;
+		this.newTransaction = new TransactionTemplate(transactionManager);
+		this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * @return the key of the value, or empty if no row can have it
+	 */
+	public OptionalInt keyOf(String value) {
+		Integer key = entries.keys().get(value);
+		if (key == null) {
+			Long absentSince = absent.get(value);
+			if (absentSince != null && System.nanoTime() - absentSince < minReloadIntervalNanos) {
+				return OptionalInt.empty();
+			}
+			// Read in the caller's transaction: a row it can see can only reference an entry it can see
+			reloadIfDue();
+			key = entries.keys().get(value);
+			if (key == null && (absentSince != null || absent.size() < MAX_ABSENT_VALUES)) {
+				absent.put(value, System.nanoTime());
+			}
+		}
+		return key != null ? OptionalInt.of(key) : OptionalInt.empty();
+	}
+
+	/**
+	 * Returns the key of the value, adding it to the table first if it is new.
+	 */
+	public int register(String value) {
+		Objects.requireNonNull(value, name + " cannot be null");
+		registerAll(List.of(value));
+		return entries.keys().get(value);
+	}
+
+	/**
+	 * Adds the values the table does not have yet, all in one transaction of its own; {@code null}
+	 * values are left alone. Call it before the caller's transaction opens: the new transaction
+	 * needs a connection of its own, and no query runs when every value is already known.
+	 */
+	public void registerAll(Collection<String> values) {
+		Set<String> missing = values.stream()
+				.filter(value -> value != null && !entries.keys().containsKey(value))
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		if (missing.isEmpty()) {
+			return;
+		}
+		newTransaction.executeWithoutResult(status -> {
+			reloadLock.lock();
+			try {
+				reload();
+				boolean inserted = false;
+				for (String value : missing) {
+					if (entries.keys().containsKey(value)) {
+						continue;
+					}
+					try {
+						jdbcTemplate.update(insertSql, value);
+						inserted = true;
+					} catch (DuplicateKeyException e) {
+						// Another instance added it meanwhile; the reload below picks up its key
+						inserted = true;
+					}
+				}
+				if (inserted) {
+					reload();
+				}
+			} finally {
+				reloadLock.unlock();
+			}
+		});
+		for (String value : missing) {
+			if (!entries.keys().containsKey(value)) {
+				throw new IllegalStateException("Could not add " + name + " '" + value + "'");
+			}
+		}
+	}
+
+	/**
+	 * @throws IllegalStateException if the table has no entry with the key
+	 */
+	public String valueOf(int key) {
+		String value = entries.valueOf(key);
+		if (value == null) {
+			// Keys come from rows, so a missing one was added elsewhere and is worth waiting for
+			reloadLock.lock();
+			try {
+				value = entries.valueOf(key);
+				if (value == null) {
+					reload();
+					value = entries.valueOf(key);
+				}
+			} finally {
+				reloadLock.unlock();
+			}
+			if (value == null) {
+				throw new IllegalStateException("Unknown " + name + " key: " + key);
+			}
+		}
+		return value;
+	}
+
+	public int size() {
+		return entries.keys().size();
+	}
+
+	private void reloadIfDue() {
+		if (reloaded && System.nanoTime() - lastReloadNanos < minReloadIntervalNanos) {
+			return;
+		}
+		// A thread that finds a reload already running answers from the copy it has
+		if (!reloadLock.tryLock()) {
+			return;
+		}
+		try {
+			if (!reloaded || System.nanoTime() - lastReloadNanos >= minReloadIntervalNanos) {
+				reload();
+			}
+		} finally {
+			reloadLock.unlock();
+		}
+	}
+
+	// Callers hold reloadLock. Merges rather than replaces, so a reload from a replica that lags behind loses nothing
+	private void reload() {
+		Map<String, Integer> keys = new HashMap<>(entries.keys());
+		jdbcTemplate.query(selectSql, (RowCallbackHandler) resultSet -> {
+			String value = resultSet.getString(2);
+			keys.putIfAbsent(value, resultSet.getInt(1));
+		});
+		int maxKey = keys.values().stream().mapToInt(Integer::intValue).max().orElse(NO_KEY);
+		String[] values = new String[maxKey + 1];
+		// The map key is the instance handed out for every later lookup of the value
+		keys.forEach((value, key) -> values[key] = value);
+		entries = new Entries(Map.copyOf(keys), values);
+		absent.clear();
+		lastReloadNanos = System.nanoTime();
+		reloaded = true;
+	}
+
+	private record Entries(Map<String, Integer> keys, String[] values) {
+
+		String valueOf(int key) {
+			return key >= 0 && key < values.length ? values[key] : null;
+		}
+
+	}
+
+}
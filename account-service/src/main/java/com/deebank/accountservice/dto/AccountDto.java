@@ -39,5 +39,8 @@ public class AccountDto {
 	@Schema(description = "User who last updated the account", example = "admin")
 	private String updatedBy;
 
+	@Schema(description = "Version of the account, also sent as its ETag", example = "3")
+	private Long version;
+
 }
 
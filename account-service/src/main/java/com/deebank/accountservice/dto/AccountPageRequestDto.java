@@ -0,0 +1,26 @@
+package com.deebank.accountservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountPageRequestDto {
+
+	private String cursor;
+
+	private Integer size;
+
+	private String sort;
+
+	private String accountType;
+
+	private Long customerIdFrom;
+
+	private Long customerIdTo;
+
+}
@@ -0,0 +1,32 @@
+package com.deebank.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Account counts by type and by branch")
+public class AccountStatsDto {
+
+	@Schema(description = "Number of accounts", example = "1250")
+	private Long totalAccounts;
+
+	@Schema(description = "Number of accounts of each account type, by type name", example = "{\"Savings\": 800, \"Checking\": 450}")
+	private Map<String, Long> byAccountType;
+
+	@Schema(description = "Number of accounts at each branch, by branch address", example = "{\"123 Main St\": 1250}")
+	private Map<String, Long> byBranchAddress;
+
+	@Schema(description = "When the counts were last reconciled against the database; writes since then are included "
+			+ "as they commit on this instance")
+	private LocalDateTime reconciledAt;
+
+}
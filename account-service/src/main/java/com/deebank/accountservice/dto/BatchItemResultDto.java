@@ -0,0 +1,48 @@
+package com.deebank.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Outcome of a single item in a batch request")
+public class BatchItemResultDto<T> {
+
+	@Schema(description = "Zero-based position of the item in the request", example = "0")
+	private Integer index;
+
+	@Schema(description = "Whether the item was processed successfully", example = "true")
+	private Boolean success;
+
+	@Schema(description = "Result of the item; absent when it failed")
+	private T data;
+
+	@Schema(description = "Error code when the item failed", example = "RESOURCE_NOT_FOUND")
+	private String errorCode;
+
+	@Schema(description = "Error message when the item failed", example = "Customer not found with id: 999")
+	private String errorMessage;
+
+	public static <T> BatchItemResultDto<T> success(int index, T data) {
+		return BatchItemResultDto.<T>builder()
+				.index(index)
+				.success(true)
+				.data(data)
+				.build();
+	}
+
+	public static <T> BatchItemResultDto<T> failure(int index, String errorCode, String errorMessage) {
+		return BatchItemResultDto.<T>builder()
+				.index(index)
+				.success(false)
+				.errorCode(errorCode)
+				.errorMessage(errorMessage)
+				.build();
+	}
+
+}
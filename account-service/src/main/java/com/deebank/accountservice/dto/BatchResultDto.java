@@ -0,0 +1,40 @@
+package com.deebank.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Per-item outcome of a batch request")
+public class BatchResultDto<T> {
+
+	@Schema(description = "Number of items in the request", example = "3")
+	private Integer total;
+
+	@Schema(description = "Number of items processed successfully", example = "2")
+	private Integer succeeded;
+
+	@Schema(description = "Number of items that failed", example = "1")
+	private Integer failed;
+
+	@Schema(description = "One result per request item, in request order")
+	private List<BatchItemResultDto<T>> results;
+
+	public static <T> BatchResultDto<T> of(List<BatchItemResultDto<T>> results) {
+		int succeeded = (int) results.stream().filter(result -> Boolean.TRUE.equals(result.getSuccess())).count();
+		return BatchResultDto.<T>builder()
+				.total(results.size())
+				.succeeded(succeeded)
+				.failed(results.size() - succeeded)
+				.results(results)
+				.build();
+	}
+
+}
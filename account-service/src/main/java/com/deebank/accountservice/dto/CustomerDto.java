@@ -43,5 +43,8 @@ public class CustomerDto {
 	@Schema(description = "User who last updated the customer", example = "admin")
 	private String updatedBy;
 
+	@Schema(description = "Version of the customer, also sent as its ETag", example = "3")
+	private Long version;
+
 }
 
@@ -0,0 +1,49 @@
+package com.deebank.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Progress of a streaming customer import")
+public class CustomerImportDto {
+
+	@Schema(description = "Import ID; pass it as 'importId' to resume a failed import", example = "3f2b8c1e-5d4a-4e8b-9c1d-2a7e6f0b9d31")
+	private String importId;
+
+	@Schema(description = "Input format", example = "CSV")
+	private String format;
+
+	@Schema(description = "Import status", example = "COMPLETED", allowableValues = {"IN_PROGRESS", "COMPLETED", "FAILED"})
+	private String status;
+
+	@Schema(description = "Input lines committed so far, excluding the CSV header", example = "100000")
+	private Long linesProcessed;
+
+	@Schema(description = "Customers created so far", example = "99990")
+	private Long imported;
+
+	@Schema(description = "Lines rejected so far", example = "10")
+	private Long rejected;
+
+	@Schema(description = "Error that stopped the import, if it failed", example = "Connection reset")
+	private String lastError;
+
+	@Schema(description = "Rejected lines from this run, as 'line N: reason'")
+	private List<String> errors;
+
+	@Schema(description = "When the import was first started", example = "2024-01-15T10:30:00")
+	private LocalDateTime startedAt;
+
+	@Schema(description = "When the checkpoint last advanced", example = "2024-01-15T10:35:00")
+	private LocalDateTime updatedAt;
+
+}
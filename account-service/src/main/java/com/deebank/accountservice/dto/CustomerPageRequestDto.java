@@ -0,0 +1,24 @@
+package com.deebank.accountservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerPageRequestDto {
+
+	private String cursor;
+
+	private Integer size;
+
+	private String sort;
+
+	private Long customerIdFrom;
+
+	private Long customerIdTo;
+
+}
@@ -0,0 +1,24 @@
+package com.deebank.accountservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CustomerSearchRequestDto {
+
+	private String name;
+
+	private String emailDomain;
+
+	private String mobileNumber;
+
+	private String cursor;
+
+	private Integer size;
+
+}
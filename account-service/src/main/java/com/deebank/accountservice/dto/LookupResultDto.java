@@ -0,0 +1,24 @@
+package com.deebank.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resources resolved by a multi-get lookup")
+public class LookupResultDto<T> {
+
+	@Schema(description = "Resources that exist, in the order their IDs were first requested")
+	private List<T> found;
+
+	@Schema(description = "Requested IDs that do not exist, in request order", example = "[9999999]")
+	private List<Long> missing;
+
+}
@@ -0,0 +1,30 @@
+package com.deebank.accountservice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "A page of results with an opaque continuation token")
+public class PageDto<T> {
+
+	@Schema(description = "Items on this page")
+	private List<T> items;
+
+	@Schema(description = "Number of items on this page", example = "50")
+	private Integer size;
+
+	@Schema(description = "Whether more items follow this page", example = "true")
+	private Boolean hasMore;
+
+	@Schema(description = "Token to pass as 'cursor' to fetch the next page; absent on the last page", example = "YXNjOjEyMzQ1Njc")
+	private String nextCursor;
+
+}
@@ -1,20 +1,27 @@
 package com.deebank.accountservice.entity;
 
+import com.deebank.accountservice.dictionary.AccountTypeConverter;
+import com.deebank.accountservice.dictionary.BranchAddressConverter;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.springframework.data.domain.Persistable;
 
 @Entity
 @Table(name = "accounts")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "account")
 @Getter
 @Setter
 @ToString
 @NoArgsConstructor
 @AllArgsConstructor
-public class Account extends BaseEntity {
+public class Account extends BaseEntity implements Persistable<Long> {
 
 	@Id
 	@Column(name = "account_number")
@@ -23,11 +30,38 @@ public class Account extends BaseEntity {
 	@Column(name = "customer_id", nullable = false)
 	private Long customerId;
 
-	@Column(name = "account_type", nullable = false, length = 100)
+	// Stored as dictionary keys; the values loaded are the dictionaries' shared instances
+	@Column(name = "account_type_id", nullable = false)
+	@Convert(converter = AccountTypeConverter.class)
 	private String accountType;
 
-	@Column(name = "branch_address", nullable = false, length = 200)
+	@Column(name = "branch_id", nullable = false)
+	@Convert(converter = BranchAddressConverter.class)
 	private String branchAddress;
 
+	// Account numbers are assigned before saving, so Spring Data cannot tell a new account
+	// from a detached one by its ID; without this flag every save would merge with a SELECT first
+	@Transient
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	@ToString.Exclude
+	private boolean newEntity = true;
+
+	@Override
+	public Long getId() {
+		return accountNumber;
+	}
+
+	@Override
+	public boolean isNew() {
+		return newEntity;
+	}
+
+	@PostLoad
+	@PostPersist
+	void markNotNew() {
+		this.newEntity = false;
+	}
+
 }
 
@@ -3,6 +3,7 @@ package com.deebank.accountservice.entity;
 import jakarta.persistence.Column;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.Version;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
@@ -37,5 +38,10 @@ public class BaseEntity {
 	@Column(name = "updated_by")
 	private String updatedBy;
 
+	// Incremented on every update and checked by it; clients see it as the ETag of the resource
+	@Version
+	@Column(name = "version", nullable = false)
+	private Long version;
+
 }
 
@@ -0,0 +1,66 @@
+package com.deebank.accountservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+
+/**
+ * Checkpoint of a streaming customer import. Updated in the same transaction as each chunk of
+ * inserted customers, so {@code linesProcessed} always matches what has been committed.
+ */
+@Entity
+@Table(name = "customer_import")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+public class CustomerImport {
+
+	public enum Format {
+		CSV, NDJSON
+	}
+
+	public enum Status {
+		IN_PROGRESS, COMPLETED, FAILED
+	}
+
+	@Id
+	@Column(name = "import_id", length = 36)
+	private String importId;
+
+	// Plain varchar as in db/migration, rather than the native enum type some dialects prefer
+	@Enumerated(EnumType.STRING)
+	@JdbcTypeCode(SqlTypes.VARCHAR)
+	@Column(name = "format", nullable = false, length = 10)
+	private Format format;
+
+	@Enumerated(EnumType.STRING)
+	@JdbcTypeCode(SqlTypes.VARCHAR)
+	@Column(name = "status", nullable = false, length = 20)
+	private Status status;
+
+	@Column(name = "lines_processed", nullable = false)
+	private long linesProcessed;
+
+	@Column(name = "imported", nullable = false)
+	private long imported;
+
+	@Column(name = "rejected", nullable = false)
+	private long rejected;
+
+	@Column(name = "last_error", length = 500)
+	private String lastError;
+
+	@Column(name = "started_at", nullable = false)
+	private LocalDateTime startedAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+}
@@ -0,0 +1,23 @@
+package com.deebank.accountservice.event;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Published by {@code AccountService} whenever accounts are created, updated or deleted.
+ *
+ * @param accountNumbers Accounts whose state changed
+ * @param customerIds    Customers whose list of account numbers may have changed
+ */
+public record AccountChangedEvent(Collection<Long> accountNumbers, Collection<Long> customerIds) {
+
+	public static AccountChangedEvent of(Long accountNumber, Long... customerIds) {
+		return new AccountChangedEvent(List.of(accountNumber), Stream.of(customerIds)
+				.filter(Objects::nonNull)
+				.distinct()
+				.toList());
+	}
+
+}
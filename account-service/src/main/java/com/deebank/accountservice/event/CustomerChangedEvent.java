@@ -0,0 +1,10 @@
+package com.deebank.accountservice.event;
+
+/**
+ * Published by {@code CustomerService} whenever a customer is updated or deleted.
+ *
+ * @param customerId Customer whose state changed
+ */
+public record CustomerChangedEvent(Long customerId) {
+
+}
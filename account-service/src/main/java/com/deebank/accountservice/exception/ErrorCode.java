@@ -11,7 +11,10 @@ public enum ErrorCode {
 	RESOURCE_NOT_FOUND(HttpStatus.NOT_FOUND, "Resource not found"),
 	RESOURCE_ALREADY_EXISTS(HttpStatus.CONFLICT, "Resource already exists"),
 	OPERATION_NOT_ALLOWED(HttpStatus.BAD_REQUEST, "Operation not allowed"),
+	CONCURRENT_MODIFICATION(HttpStatus.CONFLICT, "The resource was changed by another request"),
+	PRECONDITION_FAILED(HttpStatus.PRECONDITION_FAILED, "The resource no longer matches the given ETag"),
 	GENERATION_FAILED(HttpStatus.INTERNAL_SERVER_ERROR, "Generation operation failed"),
+	SERVICE_UNAVAILABLE(HttpStatus.SERVICE_UNAVAILABLE, "Service is temporarily overloaded"),
 	INTERNAL_SERVER_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred");
 
 	private final HttpStatus httpStatus;
@@ -1,8 +1,12 @@
 package com.deebank.accountservice.exception;
 
 import com.deebank.accountservice.dto.ErrorResponseDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -12,15 +16,30 @@ import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+	private final Map<ErrorCode, Counter> errorCounters = new EnumMap<>(ErrorCode.class);
+
+	public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+		// Registered up front so every code reports zero until it first occurs
+		for (ErrorCode errorCode : ErrorCode.values()) {
+			errorCounters.put(errorCode, Counter.builder("deebank.errors")
+					.description("Error responses by error code")
+					.tag("code", errorCode.getCode())
+					.tag("status", String.valueOf(errorCode.getHttpStatus().value()))
+					.register(meterRegistry));
+		}
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ErrorResponseDto> handleValidationExceptions(
 			MethodArgumentNotValidException ex, WebRequest request) {
@@ -44,7 +63,7 @@ public class GlobalExceptionHandler {
 		);
 		errorResponse.setErrorDetails(errorDetails);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(ErrorCode.VALIDATION_FAILED.getHttpStatus()));
+		return respond(ErrorCode.VALIDATION_FAILED, errorResponse);
 	}
 
 	@ExceptionHandler(ConstraintViolationException.class)
@@ -64,7 +83,7 @@ public class GlobalExceptionHandler {
 				errors
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(ErrorCode.CONSTRAINT_VALIDATION_FAILED.getHttpStatus()));
+		return respond(ErrorCode.CONSTRAINT_VALIDATION_FAILED, errorResponse);
 	}
 
 	@ExceptionHandler(IllegalArgumentException.class)
@@ -78,7 +97,7 @@ public class GlobalExceptionHandler {
 				ex.getMessage() != null ? ex.getMessage() : ErrorCode.INVALID_INPUT.getDefaultMessage()
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(ErrorCode.INVALID_INPUT.getHttpStatus()));
+		return respond(ErrorCode.INVALID_INPUT, errorResponse);
 	}
 
 	@ExceptionHandler(MethodArgumentTypeMismatchException.class)
@@ -99,7 +118,7 @@ public class GlobalExceptionHandler {
 				message
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(ErrorCode.INVALID_PARAMETER.getHttpStatus()));
+		return respond(ErrorCode.INVALID_PARAMETER, errorResponse);
 	}
 
 	@ExceptionHandler(ResourceNotFoundException.class)
@@ -115,7 +134,7 @@ public class GlobalExceptionHandler {
 				ex.getMessage() != null ? ex.getMessage() : errorCode.getDefaultMessage()
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(errorCode.getHttpStatus()));
+		return respond(errorCode, errorResponse);
 	}
 
 	@ExceptionHandler(ResourceAlreadyExistsException.class)
@@ -131,7 +150,32 @@ public class GlobalExceptionHandler {
 				ex.getMessage() != null ? ex.getMessage() : errorCode.getDefaultMessage()
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(errorCode.getHttpStatus()));
+		return respond(errorCode, errorResponse);
+	}
+
+	/**
+	 * Unique constraint violations that were not translated by a service, such as a concurrent insert
+	 * detected at commit, are conflicts rather than server errors.
+	 */
+	@ExceptionHandler(DataIntegrityViolationException.class)
+	public ResponseEntity<ErrorResponseDto> handleDataIntegrityViolationException(
+			DataIntegrityViolationException ex, WebRequest request) {
+		
+		Optional<UniqueConstraint> constraint = UniqueConstraint.violatedBy(ex);
+		if (constraint.isEmpty()) {
+			return handleRuntimeException(ex, request);
+		}
+
+		String apiPath = request.getDescription(false).replace("uri=", "");
+		ErrorCode errorCode = ErrorCode.RESOURCE_ALREADY_EXISTS;
+		
+		ErrorResponseDto errorResponse = ErrorResponseDto.of(
+				apiPath,
+				errorCode.getCode(),
+				errorCode.getDefaultMessage() + ": " + constraint.get().getConstraintName()
+		);
+
+		return respond(errorCode, errorResponse);
 	}
 
 	@ExceptionHandler(OperationNotAllowedException.class)
@@ -147,7 +191,42 @@ public class GlobalExceptionHandler {
 				ex.getMessage() != null ? ex.getMessage() : errorCode.getDefaultMessage()
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(errorCode.getHttpStatus()));
+		return respond(errorCode, errorResponse);
+	}
+
+	@ExceptionHandler(PreconditionFailedException.class)
+	public ResponseEntity<ErrorResponseDto> handlePreconditionFailedException(
+			PreconditionFailedException ex, WebRequest request) {
+		
+		String apiPath = request.getDescription(false).replace("uri=", "");
+		ErrorCode errorCode = ex.getErrorCode();
+		
+		ErrorResponseDto errorResponse = ErrorResponseDto.of(
+				apiPath,
+				errorCode.getCode(),
+				ex.getMessage() != null ? ex.getMessage() : errorCode.getDefaultMessage()
+		);
+
+		return respond(errorCode, errorResponse);
+	}
+
+	/**
+	 * A versioned write that found the row already changed by a concurrent request.
+	 */
+	@ExceptionHandler(OptimisticLockingFailureException.class)
+	public ResponseEntity<ErrorResponseDto> handleOptimisticLockingFailureException(
+			OptimisticLockingFailureException ex, WebRequest request) {
+		
+		String apiPath = request.getDescription(false).replace("uri=", "");
+		ErrorCode errorCode = ErrorCode.CONCURRENT_MODIFICATION;
+		
+		ErrorResponseDto errorResponse = ErrorResponseDto.of(
+				apiPath,
+				errorCode.getCode(),
+				errorCode.getDefaultMessage()
+		);
+
+		return respond(errorCode, errorResponse);
 	}
 
 	@ExceptionHandler(BusinessException.class)
@@ -163,7 +242,7 @@ public class GlobalExceptionHandler {
 				ex.getMessage() != null ? ex.getMessage() : errorCode.getDefaultMessage()
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(errorCode.getHttpStatus()));
+		return respond(errorCode, errorResponse);
 	}
 
 	@ExceptionHandler(RuntimeException.class)
@@ -179,7 +258,7 @@ public class GlobalExceptionHandler {
 				ex.getMessage() != null ? ex.getMessage() : errorCode.getDefaultMessage()
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(errorCode.getHttpStatus()));
+		return respond(errorCode, errorResponse);
 	}
 
 	@ExceptionHandler(Exception.class)
@@ -197,8 +276,12 @@ public class GlobalExceptionHandler {
 				errorMessage
 		);
 
-		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(ErrorCode.INTERNAL_SERVER_ERROR.getHttpStatus()));
+		return respond(ErrorCode.INTERNAL_SERVER_ERROR, errorResponse);
 	}
 
-}
+	private ResponseEntity<ErrorResponseDto> respond(ErrorCode errorCode, ErrorResponseDto errorResponse) {
+		errorCounters.get(errorCode).increment();
+		return new ResponseEntity<>(errorResponse, Objects.requireNonNull(errorCode.getHttpStatus()));
+	}
 
+}
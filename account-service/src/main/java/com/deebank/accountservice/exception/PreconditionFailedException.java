@@ -0,0 +1,16 @@
+package com.deebank.accountservice.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+	private final ErrorCode errorCode;
+
+	public PreconditionFailedException(String message) {
+		super(message);
+		this.errorCode = ErrorCode.PRECONDITION_FAILED;
+	}
+
+	public ErrorCode getErrorCode() {
+		return errorCode;
+	}
+
+}
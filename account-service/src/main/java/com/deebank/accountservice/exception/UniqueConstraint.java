@@ -0,0 +1,51 @@
+package com.deebank.accountservice.exception;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Unique constraints declared in {@code db/migration}. Services insert and update optimistically and
+ * use this to turn a violation reported by the database into a {@link ResourceAlreadyExistsException}.
+ */
+public enum UniqueConstraint {
+
+	CUSTOMER_EMAIL("uk_customer_email", "Customer with email %s already exists"),
+	CUSTOMER_MOBILE_NUMBER("uk_customer_mobile_number", "Customer with mobile number %s already exists");
+
+	private final String constraintName;
+	private final String messageTemplate;
+
+	UniqueConstraint(String constraintName, String messageTemplate) {
+		this.constraintName = constraintName;
+		this.messageTemplate = messageTemplate;
+	}
+
+	public String getConstraintName() {
+		return constraintName;
+	}
+
+	public ResourceAlreadyExistsException toException(Object value, Throwable cause) {
+		return new ResourceAlreadyExistsException(String.format(messageTemplate, value), cause);
+	}
+
+	/**
+	 * Finds the constraint a write violated. Every supported database names the constraint in its
+	 * error message, which survives Spring's exception translation as the most specific cause.
+	 */
+	public static Optional<UniqueConstraint> violatedBy(DataIntegrityViolationException ex) {
+		String message = ex.getMostSpecificCause().getMessage();
+		if (message == null) {
+			return Optional.empty();
+		}
+		String normalized = message.toLowerCase(Locale.ROOT);
+		for (UniqueConstraint constraint : values()) {
+			if (normalized.contains(constraint.constraintName)) {
+				return Optional.of(constraint);
+			}
+		}
+		return Optional.empty();
+	}
+
+}
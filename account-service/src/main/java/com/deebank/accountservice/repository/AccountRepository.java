@@ -1,20 +1,92 @@
 package com.deebank.accountservice.repository;
 
 import com.deebank.accountservice.entity.Account;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends JpaRepository<Account, Long> {
+public interface AccountRepository extends JpaRepository<Account, Long>, AccountUpdateRepository {
+
+	/** Query cache region for lookups by customer; invalidated by Hibernate on every write to accounts. */
+	String ACCOUNTS_BY_CUSTOMER_REGION = "account-by-customer";
 
 	Optional<Account> findByAccountNumber(Long accountNumber);
 
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ACCOUNTS_BY_CUSTOMER_REGION)
+	})
 	List<Account> findByCustomerId(Long customerId);
 
 	boolean existsByAccountNumber(Long accountNumber);
 
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ACCOUNTS_BY_CUSTOMER_REGION)
+	})
+	boolean existsByCustomerId(Long customerId);
+
+	@Query("select a.version from Account a where a.accountNumber = :accountNumber")
+	Optional<Long> findVersion(@Param("accountNumber") Long accountNumber);
+
+	@Query("select a.accountNumber from Account a where a.customerId = :customerId order by a.accountNumber")
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+			@QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = ACCOUNTS_BY_CUSTOMER_REGION)
+	})
+	List<Long> findAccountNumbersByCustomerId(@Param("customerId") Long customerId);
+
+	@Query("""
+			select a.customerId as customerId, a.accountNumber as accountNumber
+			from Account a
+			where a.customerId in :customerIds
+			order by a.customerId, a.accountNumber
+			""")
+	List<CustomerAccountNumber> findAccountNumbersByCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
+	@Query("select a from Account a where a.accountNumber in :accountNumbers")
+	List<Account> findAllByAccountNumbers(@Param("accountNumbers") Collection<Long> accountNumbers);
+
+	@Query("select a.accountNumber from Account a where a.accountNumber in :accountNumbers")
+	List<Long> findExistingAccountNumbers(@Param("accountNumbers") Collection<Long> accountNumbers);
+
+	@Query("""
+			select a from Account a
+			where (:after is null or a.accountNumber > :after)
+			  and (:accountType is null or a.accountType = :accountType)
+			  and (:customerIdFrom is null or a.customerId >= :customerIdFrom)
+			  and (:customerIdTo is null or a.customerId <= :customerIdTo)
+			order by a.accountNumber asc
+			""")
+	List<Account> findPageAscending(@Param("after") Long after,
+			@Param("accountType") String accountType,
+			@Param("customerIdFrom") Long customerIdFrom,
+			@Param("customerIdTo") Long customerIdTo,
+			Pageable limit);
+
+	@Query("""
+			select a from Account a
+			where (:before is null or a.accountNumber < :before)
+			  and (:accountType is null or a.accountType = :accountType)
+			  and (:customerIdFrom is null or a.customerId >= :customerIdFrom)
+			  and (:customerIdTo is null or a.customerId <= :customerIdTo)
+			order by a.accountNumber desc
+			""")
+	List<Account> findPageDescending(@Param("before") Long before,
+			@Param("accountType") String accountType,
+			@Param("customerIdFrom") Long customerIdFrom,
+			@Param("customerIdTo") Long customerIdTo,
+			Pageable limit);
+
 }
 
@@ -0,0 +1,15 @@
+package com.deebank.accountservice.repository;
+
+import com.deebank.accountservice.entity.Account;
+
+/**
+ * Result of a single-statement account update.
+ *
+ * @param previousCustomerId    Owner before the update, whose account list may have changed too
+ * @param previousAccountType   Account type before the update
+ * @param previousBranchAddress Branch address before the update
+ * @param account               New state of the account; detached, not managed by the persistence context
+ */
+public record AccountUpdate(Long previousCustomerId, String previousAccountType, String previousBranchAddress,
+		Account account) {
+}
@@ -0,0 +1,32 @@
+package com.deebank.accountservice.repository;
+
+import java.util.Optional;
+
+/**
+ * Account updates issued as one conditional UPDATE that also returns the row, without loading
+ * the entity first; on databases that cannot return the rows of an UPDATE, the row is locked and
+ * read first. Audit columns and the version are set by the statement; given an expected version,
+ * the row is only updated while it still has that version. The account type and
+ * branch address must already be registered with {@code AccountDictionaries}.
+ */
+public interface AccountUpdateRepository {
+
+	/**
+	 * Overwrites the customer, type and branch of an account, provided the new customer exists.
+	 *
+	 * @return The update, or empty when the account does not exist, has another version than the
+	 * expected one, or the customer does not exist
+	 */
+	Optional<AccountUpdate> updateAccount(Long accountNumber, Long customerId, String accountType, String branchAddress,
+			Long expectedVersion);
+
+	/**
+	 * Sets the non-null fields, checking the customer only when one is given.
+	 *
+	 * @return The update, or empty when the account does not exist, has another version than the
+	 * expected one, or the given customer does not exist
+	 */
+	Optional<AccountUpdate> patchAccount(Long accountNumber, Long customerId, String accountType, String branchAddress,
+			Long expectedVersion);
+
+}
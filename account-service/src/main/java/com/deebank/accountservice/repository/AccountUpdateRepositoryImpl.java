@@ -0,0 +1,174 @@
+package com.deebank.accountservice.repository;
+
+import com.deebank.accountservice.dictionary.AccountDictionaries;
+import com.deebank.accountservice.dictionary.ValueDictionary;
+import com.deebank.accountservice.entity.Account;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.query.CommonQueryContract;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+class AccountUpdateRepositoryImpl implements AccountUpdateRepository {
+
+	private static final String PREVIOUS_COLUMNS = "customer_id, account_type_id, branch_id, created_at, created_by, version";
+
+	// The customer check is part of the WHERE clause
+	private static final String UPDATE_SQL = """
+			UPDATE accounts
+			SET customer_id = COALESCE(CAST(:customerId AS BIGINT), customer_id),
+				account_type_id = COALESCE(CAST(:accountTypeId AS SMALLINT), account_type_id),
+				branch_id = COALESCE(CAST(:branchId AS INT), branch_id),
+				updated_at = :updatedAt,
+				updated_by = :updatedBy,
+				version = version + 1
+			WHERE account_number = :accountNumber
+			  AND (CAST(:expectedVersion AS BIGINT) IS NULL OR version = CAST(:expectedVersion AS BIGINT))
+			  AND (CAST(:customerId AS BIGINT) IS NULL
+			       OR EXISTS (SELECT 1 FROM customer WHERE customer_id = CAST(:customerId AS BIGINT)))
+			""";
+
+	// OLD TABLE returns the row as it was, which gives the previous owner; the new state follows from
+	// the old one and the values set
+	private static final String UPDATE_RETURNING_SQL =
+			"SELECT " + PREVIOUS_COLUMNS + " FROM OLD TABLE (" + UPDATE_SQL + ")";
+
+	// Without OLD TABLE the previous row is read first, locked so that it is still current when the
+	// UPDATE below runs with its version as the expected one
+	private static final String SELECT_FOR_UPDATE_SQL =
+			"SELECT " + PREVIOUS_COLUMNS + " FROM accounts WHERE account_number = :accountNumber FOR UPDATE";
+
+	private final EntityManager entityManager;
+	private final AuditorAware<String> auditorAware;
+	private final AccountDictionaries dictionaries;
+	private final boolean deltaTables;
+
+	@Autowired
+	AccountUpdateRepositoryImpl(EntityManager entityManager, AuditorAware<String> auditorAware,
+			AccountDictionaries dictionaries) {
+		this(entityManager, auditorAware, dictionaries, SingleStatementUpdates.supportsDeltaTables(entityManager));
+	}
+
+	AccountUpdateRepositoryImpl(EntityManager entityManager, AuditorAware<String> auditorAware,
+			AccountDictionaries dictionaries, boolean deltaTables) {
+		this.entityManager = entityManager;
+		this.auditorAware = auditorAware;
+		this.dictionaries = dictionaries;
+		this.deltaTables = deltaTables;
+	}
+
+	@Override
+	public Optional<AccountUpdate> updateAccount(Long accountNumber, Long customerId, String accountType,
+			String branchAddress, Long expectedVersion) {
+		return update(accountNumber,
+				Objects.requireNonNull(customerId, "Customer ID cannot be null"),
+				Objects.requireNonNull(accountType, "Account type cannot be null"),
+				Objects.requireNonNull(branchAddress, "Branch address cannot be null"),
+				expectedVersion);
+	}
+
+	@Override
+	public Optional<AccountUpdate> patchAccount(Long accountNumber, Long customerId, String accountType,
+			String branchAddress, Long expectedVersion) {
+		return update(accountNumber, customerId, accountType, branchAddress, expectedVersion);
+	}
+
+	private Optional<AccountUpdate> update(Long accountNumber, Long customerId, String accountType, String branchAddress,
+			Long expectedVersion) {
+		Objects.requireNonNull(accountNumber, "Account number cannot be null");
+		LocalDate updatedAt = LocalDate.now();
+		String updatedBy = auditorAware.getCurrentAuditor().orElse(null);
+		// AccountService registers new values before its transaction opens
+		Integer accountTypeId = accountType != null ? keyOf(dictionaries.accountTypes(), accountType) : null;
+		Integer branchId = branchAddress != null ? keyOf(dictionaries.branches(), branchAddress) : null;
+
+		List<Object[]> rows;
+		if (deltaTables) {
+			NativeQuery<Object[]> query = previousQuery(UPDATE_RETURNING_SQL);
+			bindUpdate(query, accountNumber, customerId, accountTypeId, branchId, updatedAt, updatedBy, expectedVersion);
+			rows = query.getResultList();
+		} else {
+			rows = lockThenUpdate(accountNumber, customerId, accountTypeId, branchId, updatedAt, updatedBy,
+					expectedVersion);
+		}
+		if (rows.isEmpty()) {
+			return Optional.empty();
+		}
+
+		Object[] previous = rows.getFirst();
+		Long previousCustomerId = (Long) previous[0];
+		String previousAccountType = dictionaries.accountTypes().valueOf((Integer) previous[1]);
+		String previousBranchAddress = dictionaries.branches().valueOf((Integer) previous[2]);
+		Account account = new Account();
+		account.setAccountNumber(accountNumber);
+		account.setCustomerId(customerId != null ? customerId : previousCustomerId);
+		account.setAccountType(accountType != null ? dictionaries.accountTypes().valueOf(accountTypeId) : previousAccountType);
+		account.setBranchAddress(branchAddress != null ? dictionaries.branches().valueOf(branchId) : previousBranchAddress);
+		account.setCreatedAt((LocalDate) previous[3]);
+		account.setCreatedBy((String) previous[4]);
+		account.setUpdatedAt(updatedAt);
+		account.setUpdatedBy(updatedBy);
+		account.setVersion((Long) previous[5] + 1);
+
+		SingleStatementUpdates.detach(entityManager, Account.class, accountNumber);
+		boolean customerChanged = !previousCustomerId.equals(account.getCustomerId());
+		SingleStatementUpdates.evict(entityManager, cache -> {
+			cache.evictEntityData(Account.class, accountNumber);
+			if (customerChanged) {
+				// Cached account lists of the old and the new owner are both stale
+				cache.evictQueryRegion(AccountRepository.ACCOUNTS_BY_CUSTOMER_REGION);
+			}
+		});
+		return Optional.of(new AccountUpdate(previousCustomerId, previousAccountType, previousBranchAddress, account));
+	}
+
+	private List<Object[]> lockThenUpdate(Long accountNumber, Long customerId, Integer accountTypeId, Integer branchId,
+			LocalDate updatedAt, String updatedBy, Long expectedVersion) {
+		List<Object[]> rows = previousQuery(SELECT_FOR_UPDATE_SQL)
+				.setParameter("accountNumber", accountNumber, Long.class)
+				.getResultList();
+		if (rows.isEmpty()) {
+			return rows;
+		}
+		Long version = (Long) rows.getFirst()[5];
+		if (expectedVersion != null && !expectedVersion.equals(version)) {
+			return List.of();
+		}
+		NativeQuery<?> update = SingleStatementUpdates.nativeUpdate(entityManager, UPDATE_SQL, Account.class);
+		bindUpdate(update, accountNumber, customerId, accountTypeId, branchId, updatedAt, updatedBy, version);
+		return update.executeUpdate() == 0 ? List.of() : rows;
+	}
+
+	private NativeQuery<Object[]> previousQuery(String sql) {
+		return entityManager.unwrap(Session.class).createNativeQuery(sql, Object[].class)
+				.addScalar("customer_id", Long.class)
+				.addScalar("account_type_id", Integer.class)
+				.addScalar("branch_id", Integer.class)
+				.addScalar("created_at", LocalDate.class)
+				.addScalar("created_by", String.class)
+				.addScalar("version", Long.class);
+	}
+
+	private static void bindUpdate(CommonQueryContract query, Long accountNumber, Long customerId, Integer accountTypeId,
+			Integer branchId, LocalDate updatedAt, String updatedBy, Long expectedVersion) {
+		query.setParameter("customerId", customerId, Long.class)
+				.setParameter("accountTypeId", accountTypeId, Integer.class)
+				.setParameter("branchId", branchId, Integer.class)
+				.setParameter("updatedAt", updatedAt, LocalDate.class)
+				.setParameter("updatedBy", updatedBy, String.class)
+				.setParameter("accountNumber", accountNumber, Long.class)
+				.setParameter("expectedVersion", expectedVersion, Long.class);
+	}
+
+	private static int keyOf(ValueDictionary dictionary, String value) {
+		return dictionary.keyOf(value).orElseThrow(() ->
+				new IllegalStateException("'" + value + "' is not registered; register it before the update"));
+	}
+
+}
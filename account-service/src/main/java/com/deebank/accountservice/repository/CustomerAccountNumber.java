@@ -0,0 +1,12 @@
+package com.deebank.accountservice.repository;
+
+/**
+ * Projection of an account number together with the customer that owns it.
+ */
+public interface CustomerAccountNumber {
+
+	Long getCustomerId();
+
+	Long getAccountNumber();
+
+}
@@ -0,0 +1,10 @@
+package com.deebank.accountservice.repository;
+
+import com.deebank.accountservice.entity.CustomerImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CustomerImportRepository extends JpaRepository<CustomerImport, String> {
+
+}
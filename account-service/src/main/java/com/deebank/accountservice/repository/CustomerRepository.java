@@ -1,17 +1,61 @@
 package com.deebank.accountservice.repository;
 
 import com.deebank.accountservice.entity.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerUpdateRepository {
 
 	Optional<Customer> findByEmail(String email);
 
 	Optional<Customer> findByMobileNumber(String mobileNumber);
 
+	@Query("select c.version from Customer c where c.customerId = :customerId")
+	Optional<Long> findVersion(@Param("customerId") Long customerId);
+
+	@Query("select c from Customer c where c.customerId in :customerIds")
+	List<Customer> findAllByCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
+	@Query("select c.customerId from Customer c where c.customerId in :customerIds")
+	List<Long> findExistingCustomerIds(@Param("customerIds") Collection<Long> customerIds);
+
+	@Query("select c.email from Customer c where c.email in :emails")
+	List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+	@Query("select c.mobileNumber from Customer c where c.mobileNumber in :mobileNumbers")
+	List<String> findExistingMobileNumbers(@Param("mobileNumbers") Collection<String> mobileNumbers);
+
+	@Query("""
+			select c from Customer c
+			where (:after is null or c.customerId > :after)
+			  and (:customerIdFrom is null or c.customerId >= :customerIdFrom)
+			  and (:customerIdTo is null or c.customerId <= :customerIdTo)
+			order by c.customerId asc
+			""")
+	List<Customer> findPageAscending(@Param("after") Long after,
+			@Param("customerIdFrom") Long customerIdFrom,
+			@Param("customerIdTo") Long customerIdTo,
+			Pageable limit);
+
+	@Query("""
+			select c from Customer c
+			where (:before is null or c.customerId < :before)
+			  and (:customerIdFrom is null or c.customerId >= :customerIdFrom)
+			  and (:customerIdTo is null or c.customerId <= :customerIdTo)
+			order by c.customerId desc
+			""")
+	List<Customer> findPageDescending(@Param("before") Long before,
+			@Param("customerIdFrom") Long customerIdFrom,
+			@Param("customerIdTo") Long customerIdTo,
+			Pageable limit);
+
 }
 
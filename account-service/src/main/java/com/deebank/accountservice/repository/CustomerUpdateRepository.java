@@ -0,0 +1,45 @@
+package com.deebank.accountservice.repository;
+
+import com.deebank.accountservice.entity.Customer;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Customer updates issued as one UPDATE that also returns the new row, without loading the entity
+ * first; on databases that cannot return the rows of an UPDATE, the row is read back after it.
+ * Audit columns and the version are set by the statement; given an expected version, the row is
+ * only updated while it still has that version. A taken email or mobile number surfaces as the
+ * unique constraint violation of the statement.
+ */
+public interface CustomerUpdateRepository {
+
+	/**
+	 * Overwrites the name, email and mobile number of a customer.
+	 *
+	 * @return The customer as updated, detached; empty when it does not exist or has another version
+	 * than the expected one
+	 */
+	Optional<Customer> updateCustomer(Long customerId, String name, String email, String mobileNumber,
+			Long expectedVersion);
+
+	/**
+	 * Sets the non-null fields.
+	 *
+	 * @return The customer as updated, detached; empty when it does not exist or has another version
+	 * than the expected one
+	 */
+	Optional<Customer> patchCustomer(Long customerId, String name, String email, String mobileNumber,
+			Long expectedVersion);
+
+	/**
+	 * Increments the version of customers whose list of accounts changed, which is part of their
+	 * representation. The updated rows stay locked until the transaction ends, so a customer cannot
+	 * be deleted while an account is added to it.
+	 *
+	 * @return The IDs of the customers that exist, in no particular order
+	 */
+	List<Long> incrementVersions(Collection<Long> customerIds);
+
+}
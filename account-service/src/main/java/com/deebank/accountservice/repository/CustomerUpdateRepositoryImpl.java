@@ -0,0 +1,177 @@
+package com.deebank.accountservice.repository;
+
+import com.deebank.accountservice.entity.Customer;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.query.CommonQueryContract;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.AuditorAware;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+class CustomerUpdateRepositoryImpl implements CustomerUpdateRepository {
+
+	private static final String COLUMNS =
+			"customer_id, name, email, mobile_number, created_at, created_by, updated_at, updated_by, version";
+
+	private static final String UPDATE_SQL = """
+			UPDATE customer
+			SET name = COALESCE(CAST(:name AS VARCHAR(100)), name),
+				email = COALESCE(CAST(:email AS VARCHAR(100)), email),
+				mobile_number = COALESCE(CAST(:mobileNumber AS VARCHAR(20)), mobile_number),
+				updated_at = :updatedAt,
+				updated_by = :updatedBy,
+				version = version + 1
+			WHERE customer_id = :customerId
+			  AND (CAST(:expectedVersion AS BIGINT) IS NULL OR version = CAST(:expectedVersion AS BIGINT))
+			""";
+
+	// FINAL TABLE returns the row as the UPDATE left it
+	private static final String UPDATE_RETURNING_SQL =
+			"SELECT " + COLUMNS + " FROM FINAL TABLE (" + UPDATE_SQL + ")";
+
+	// Reads the row back under the lock the UPDATE took; the second-level cache may still hold the old one
+	private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM customer WHERE customer_id = :customerId";
+
+	private static final String INCREMENT_VERSIONS_SQL =
+			"UPDATE customer SET version = version + 1 WHERE customer_id IN (:customerIds)";
+
+	private static final String INCREMENT_VERSIONS_RETURNING_SQL =
+			"SELECT customer_id FROM FINAL TABLE (" + INCREMENT_VERSIONS_SQL + ")";
+
+	private static final String SELECT_IDS_SQL = "SELECT customer_id FROM customer WHERE customer_id IN (:customerIds)";
+
+	private final EntityManager entityManager;
+	private final AuditorAware<String> auditorAware;
+	private final boolean deltaTables;
+
+	@Autowired
+	CustomerUpdateRepositoryImpl(EntityManager entityManager, AuditorAware<String> auditorAware) {
+		this(entityManager, auditorAware, SingleStatementUpdates.supportsDeltaTables(entityManager));
+	}
+
+	CustomerUpdateRepositoryImpl(EntityManager entityManager, AuditorAware<String> auditorAware, boolean deltaTables) {
+		this.entityManager = entityManager;
+		this.auditorAware = auditorAware;
+		this.deltaTables = deltaTables;
+	}
+
+	@Override
+	public Optional<Customer> updateCustomer(Long customerId, String name, String email, String mobileNumber,
+			Long expectedVersion) {
+		return update(customerId,
+				Objects.requireNonNull(name, "Name cannot be null"),
+				Objects.requireNonNull(email, "Email cannot be null"),
+				Objects.requireNonNull(mobileNumber, "Mobile number cannot be null"),
+				expectedVersion);
+	}
+
+	@Override
+	public Optional<Customer> patchCustomer(Long customerId, String name, String email, String mobileNumber,
+			Long expectedVersion) {
+		return update(customerId, name, email, mobileNumber, expectedVersion);
+	}
+
+	@Override
+	public List<Long> incrementVersions(Collection<Long> customerIds) {
+		if (customerIds.isEmpty()) {
+			return List.of();
+		}
+		List<Long> updated = deltaTables
+				? incrementVersionsReturning(customerIds)
+				: incrementVersionsThenSelect(customerIds);
+		for (Long customerId : updated) {
+			SingleStatementUpdates.detach(entityManager, Customer.class, customerId);
+		}
+		SingleStatementUpdates.evict(entityManager,
+				cache -> updated.forEach(customerId -> cache.evictEntityData(Customer.class, customerId)));
+		return updated;
+	}
+
+	private Optional<Customer> update(Long customerId, String name, String email, String mobileNumber,
+			Long expectedVersion) {
+		Objects.requireNonNull(customerId, "Customer ID cannot be null");
+
+		LocalDate updatedAt = LocalDate.now();
+		String updatedBy = auditorAware.getCurrentAuditor().orElse(null);
+		List<Object[]> rows;
+		if (deltaTables) {
+			NativeQuery<Object[]> query = customerQuery(UPDATE_RETURNING_SQL);
+			bindUpdate(query, customerId, name, email, mobileNumber, updatedAt, updatedBy, expectedVersion);
+			rows = query.getResultList();
+		} else {
+			NativeQuery<?> update = SingleStatementUpdates.nativeUpdate(entityManager, UPDATE_SQL, Customer.class);
+			bindUpdate(update, customerId, name, email, mobileNumber, updatedAt, updatedBy, expectedVersion);
+			rows = update.executeUpdate() == 0
+					? List.of()
+					: customerQuery(SELECT_SQL).setParameter("customerId", customerId, Long.class).getResultList();
+		}
+		if (rows.isEmpty()) {
+			return Optional.empty();
+		}
+
+		Object[] row = rows.getFirst();
+		Customer customer = new Customer((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+		customer.setCreatedAt((LocalDate) row[4]);
+		customer.setCreatedBy((String) row[5]);
+		customer.setUpdatedAt((LocalDate) row[6]);
+		customer.setUpdatedBy((String) row[7]);
+		customer.setVersion((Long) row[8]);
+
+		SingleStatementUpdates.detach(entityManager, Customer.class, customerId);
+		SingleStatementUpdates.evict(entityManager, cache -> cache.evictEntityData(Customer.class, customerId));
+		return Optional.of(customer);
+	}
+
+	private List<Long> incrementVersionsReturning(Collection<Long> customerIds) {
+		return entityManager.unwrap(Session.class)
+				.createNativeQuery(INCREMENT_VERSIONS_RETURNING_SQL, Long.class)
+				.setParameterList("customerIds", customerIds)
+				.getResultList();
+	}
+
+	private List<Long> incrementVersionsThenSelect(Collection<Long> customerIds) {
+		Set<Long> distinct = new HashSet<>(customerIds);
+		int updated = SingleStatementUpdates.nativeUpdate(entityManager, INCREMENT_VERSIONS_SQL, Customer.class)
+				.setParameterList("customerIds", distinct)
+				.executeUpdate();
+		if (updated == distinct.size()) {
+			return List.copyOf(distinct);
+		}
+		return entityManager.unwrap(Session.class).createNativeQuery(SELECT_IDS_SQL, Long.class)
+				.setParameterList("customerIds", distinct)
+				.getResultList();
+	}
+
+	private NativeQuery<Object[]> customerQuery(String sql) {
+		return entityManager.unwrap(Session.class).createNativeQuery(sql, Object[].class)
+				.addScalar("customer_id", Long.class)
+				.addScalar("name", String.class)
+				.addScalar("email", String.class)
+				.addScalar("mobile_number", String.class)
+				.addScalar("created_at", LocalDate.class)
+				.addScalar("created_by", String.class)
+				.addScalar("updated_at", LocalDate.class)
+				.addScalar("updated_by", String.class)
+				.addScalar("version", Long.class);
+	}
+
+	private static void bindUpdate(CommonQueryContract query, Long customerId, String name, String email,
+			String mobileNumber, LocalDate updatedAt, String updatedBy, Long expectedVersion) {
+		query.setParameter("name", name, String.class)
+				.setParameter("email", email, String.class)
+				.setParameter("mobileNumber", mobileNumber, String.class)
+				.setParameter("updatedAt", updatedAt, LocalDate.class)
+				.setParameter("updatedBy", updatedBy, String.class)
+				.setParameter("customerId", customerId, Long.class)
+				.setParameter("expectedVersion", expectedVersion, Long.class);
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.deebank.accountservice.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.DB2Dialect;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+/**
+ * Shared plumbing of the single-statement update fragments. Where the database supports it, their
+ * UPDATE is wrapped in {@code FROM OLD TABLE} / {@code FROM FINAL TABLE} so one round trip both writes
+ * the row and returns it; elsewhere the same conditional UPDATE runs on its own and the row is read
+ * separately. Either way it runs as a native query so Hibernate neither loads nor dirty-checks the
+ * entity. What Hibernate would otherwise keep consistent is done here instead: a stale managed
+ * instance is detached and the second-level cache entry evicted.
+ */
+final class SingleStatementUpdates {
+
+	private SingleStatementUpdates() {
+	}
+
+	/**
+	 * Whether the database returns the rows an UPDATE changed through {@code FROM OLD TABLE} /
+	 * {@code FROM FINAL TABLE}. Only H2 and DB2 have these data change delta tables.
+	 */
+	static boolean supportsDeltaTables(EntityManager entityManager) {
+		Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+				.getJdbcServices().getDialect();
+		return dialect instanceof H2Dialect || dialect instanceof DB2Dialect;
+	}
+
+	/**
+	 * A native UPDATE of the entity's table. Hibernate takes a native statement that names no entity
+	 * to touch every table, and clears all entity regions and cached queries when it runs.
+	 */
+	static NativeQuery<?> nativeUpdate(EntityManager entityManager, String sql, Class<?> entityType) {
+		NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+		return query.addSynchronizedEntityClass(entityType);
+	}
+
+	/**
+	 * Detaches the managed instance of the entity, if any, so later reads in the same persistence
+	 * context see the updated row. Does not hit the database: an unloaded reference is only a proxy.
+	 */
+	static void detach(EntityManager entityManager, Class<?> entityType, Object id) {
+		Session session = entityManager.unwrap(Session.class);
+		session.detach(session.getReference(entityType, id));
+	}
+
+	/**
+	 * Evicts second-level cache data now and again once the transaction completes, so a concurrent
+	 * read of the old row cannot put it back in between.
+	 */
+	static void evict(EntityManager entityManager, Consumer<Cache> eviction) {
+		Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+		eviction.accept(cache);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					eviction.accept(cache);
+				}
+			});
+		}
+	}
+
+}
@@ -0,0 +1,360 @@
+package com.deebank.accountservice.search;
+
+import com.deebank.accountservice.config.CustomerSearchProperties;
+import com.deebank.accountservice.entity.Customer;
+import com.deebank.accountservice.exception.BusinessException;
+import com.deebank.accountservice.exception.ErrorCode;
+import com.deebank.accountservice.util.LongHashSet;
+import com.deebank.accountservice.util.SearchCursor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory inverted index behind {@code GET /api/customers/search}. Name words and mobile numbers
+ * are kept in sorted maps, so a prefix is a range of keys; email domains in a hash map. Each key maps
+ * to a {@link LongHashSet} of customer IDs.
+ * <p>
+ * A search walks the postings of its most selective criterion only, checks the other criteria
+ * against the customer's indexed fields, and keeps the best {@code size + 1} hits in a bounded heap,
+ * so its cost follows the number of candidates rather than the number of customers. The index only
+ * ranks: the page itself is read from the database.
+ * <p>
+ * {@code CustomerService} records every write once its transaction commits; the index is rebuilt
+ * from the table at startup and every {@code deebank.customer-search.refresh-interval}.
+ */
+@Slf4j
+@Component
+public class CustomerSearchIndex {
+
+	private static final String CUSTOMERS_SQL = "SELECT customer_id, name, email, mobile_number FROM customer";
+	// Sorts after every character a name word or mobile number can contain, closing a prefix range
+	private static final char RANGE_END = Character.MAX_VALUE;
+
+	// Best first: highest score, then lowest customer ID
+	private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+			.thenComparingLong(Hit::customerId);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final CustomerSearchProperties properties;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ReentrantLock rebuildLock = new ReentrantLock();
+	private Postings postings = new Postings();
+	private boolean loaded;
+	// Writes committed while a rebuild scans the table, replayed onto its result; null while none runs
+	private List<Change> changesDuringRebuild;
+
+	public CustomerSearchIndex(JdbcTemplate jdbcTemplate, CustomerSearchProperties properties, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.properties = properties;
+		Gauge.builder("deebank.customer.search.index.size", this, CustomerSearchIndex::size)
+				.description("Customers held by the in-memory search index")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @throws IllegalArgumentException if no criterion is given or a prefix is too short
+	 */
+	public CustomerSearchQuery query(String name, String emailDomain, String mobileNumber) {
+		return CustomerSearchQuery.of(name, emailDomain, mobileNumber, properties.getMinPrefixLength());
+	}
+
+	/**
+	 * Finds the best ranked customers after the cursor.
+	 *
+	 * @throws BusinessException with {@link ErrorCode#SERVICE_UNAVAILABLE} if the index is disabled or not built yet
+	 */
+	public Hits search(CustomerSearchQuery query, SearchCursor cursor, int size) {
+		lock.readLock().lock();
+		try {
+			if (!loaded) {
+				throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, properties.isEnabled()
+						? "Customer search index is still being built, retry later"
+						: "Customer search is disabled");
+			}
+			// Worst first, so the head is the hit to drop once there are more than size + 1
+			PriorityQueue<Hit> best = new PriorityQueue<>(size + 2, RANKING.reversed());
+			postings.forEachCandidate(query, customerId -> {
+				Document document = postings.documents.get(customerId);
+				if (document == null || !query.matches(document.nameTokens(), document.emailDomain(), document.mobileNumber())) {
+					return;
+				}
+				int score = query.score(document.nameTokens());
+				if (cursor != null && !cursor.precedes(score, customerId)) {
+					return;
+				}
+				best.add(new Hit(customerId, score));
+				if (best.size() > size + 1) {
+					best.poll();
+				}
+			});
+			List<Hit> ranked = new ArrayList<>(best);
+			ranked.sort(RANKING);
+			boolean hasMore = ranked.size() > size;
+			List<Hit> page = hasMore ? ranked.subList(0, size) : ranked;
+			Hit last = hasMore ? page.getLast() : null;
+			return new Hits(page.stream().map(Hit::customerId).toList(),
+					last != null ? new SearchCursor(last.score(), last.customerId()) : null);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void customersSaved(Collection<Customer> customers) {
+		afterCommit(customers.stream()
+				.map(customer -> new Change(customer.getCustomerId(), Document.of(customer.getName(),
+						customer.getEmail(), customer.getMobileNumber())))
+				.toList());
+	}
+
+	public void customerDeleted(Long customerId) {
+		afterCommit(List.of(new Change(customerId, null)));
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${deebank.customer-search.refresh-interval:PT5M}",
+			initialDelayString = "${deebank.customer-search.refresh-interval:PT5M}")
+	public void rebuild() {
+		if (!properties.isEnabled() || !rebuildLock.tryLock()) {
+			return;
+		}
+		try {
+			lock.writeLock().lock();
+			try {
+				changesDuringRebuild = new ArrayList<>();
+			} finally {
+				lock.writeLock().unlock();
+			}
+			Postings scanned = new Postings();
+			jdbcTemplate.query(CUSTOMERS_SQL, (RowCallbackHandler) resultSet -> scanned.put(resultSet.getLong(1),
+					Document.of(resultSet.getString(2), resultSet.getString(3), resultSet.getString(4))));
+			lock.writeLock().lock();
+			try {
+				changesDuringRebuild.forEach(change -> change.applyTo(scanned));
+				postings = scanned;
+				loaded = true;
+			} finally {
+				changesDuringRebuild = null;
+				lock.writeLock().unlock();
+			}
+			log.debug("Customer search index rebuilt with {} customers", scanned.documents.size());
+		} catch (DataAccessException e) {
+			// Keep searching the previous index; the next run tries again
+			lock.writeLock().lock();
+			try {
+				changesDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			log.warn("Could not rebuild the customer search index", e);
+		} finally {
+			rebuildLock.unlock();
+		}
+	}
+
+	private int size() {
+		lock.readLock().lock();
+		try {
+			return postings.documents.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Applied only once the rows are committed, so a rolled back write is never found
+	private void afterCommit(List<Change> changes) {
+		if (!properties.isEnabled() || changes.isEmpty()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(changes);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				apply(changes);
+			}
+		});
+	}
+
+	private void apply(List<Change> changes) {
+		lock.writeLock().lock();
+		try {
+			for (Change change : changes) {
+				change.applyTo(postings);
+				if (changesDuringRebuild != null) {
+					changesDuringRebuild.add(change);
+				}
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Ranked customer IDs of one page of results.
+	 *
+	 * @param customerIds Best first
+	 * @param next        Cursor of the following page, or {@code null} on the last one
+	 */
+	public record Hits(List<Long> customerIds, SearchCursor next) {
+	}
+
+	private record Hit(long customerId, int score) {
+	}
+
+	/**
+	 * The indexed fields of one customer, also used to remove its old keys when it changes.
+	 */
+	private record Document(String[] nameTokens, String emailDomain, String mobileNumber) {
+
+		static Document of(String name, String email, String mobileNumber) {
+			return new Document(name != null ? CustomerSearchQuery.words(name) : new String[0],
+					CustomerSearchQuery.domainOf(email), mobileNumber);
+		}
+
+	}
+
+	/**
+	 * A write to apply; a {@code null} document removes the customer.
+	 */
+	private record Change(long customerId, Document document) {
+
+		void applyTo(Postings postings) {
+			if (document != null) {
+				postings.put(customerId, document);
+			} else {
+				postings.remove(customerId);
+			}
+		}
+
+	}
+
+	/**
+	 * The postings themselves; not thread-safe, guarded by the index's lock.
+	 */
+	private static final class Postings {
+
+		private final Map<Long, Document> documents = new HashMap<>();
+		private final NavigableMap<String, LongHashSet> nameWords = new TreeMap<>();
+		private final Map<String, LongHashSet> emailDomains = new HashMap<>();
+		private final NavigableMap<String, LongHashSet> mobileNumbers = new TreeMap<>();
+
+		void put(long customerId, Document document) {
+			remove(customerId);
+			documents.put(customerId, document);
+			for (String token : document.nameTokens()) {
+				nameWords.computeIfAbsent(token, key -> new LongHashSet(1)).add(customerId);
+			}
+			emailDomains.computeIfAbsent(document.emailDomain(), key -> new LongHashSet(1)).add(customerId);
+			if (document.mobileNumber() != null) {
+				mobileNumbers.computeIfAbsent(document.mobileNumber(), key -> new LongHashSet(1)).add(customerId);
+			}
+		}
+
+		void remove(long customerId) {
+			Document document = documents.remove(customerId);
+			if (document == null) {
+				return;
+			}
+			for (String token : document.nameTokens()) {
+				removePosting(nameWords, token, customerId);
+			}
+			removePosting(emailDomains, document.emailDomain(), customerId);
+			if (document.mobileNumber() != null) {
+				removePosting(mobileNumbers, document.mobileNumber(), customerId);
+			}
+		}
+
+		/**
+		 * Passes each customer that may match to the action exactly once, walking the postings of
+		 * the criterion with the fewest of them.
+		 */
+		void forEachCandidate(CustomerSearchQuery query, LongConsumer action) {
+			Runnable walk = null;
+			long fewest = Long.MAX_VALUE;
+			if (query.emailDomain() != null) {
+				LongHashSet domain = emailDomains.get(query.emailDomain());
+				if (domain == null) {
+					return;
+				}
+				fewest = domain.size();
+				walk = () -> domain.forEach(action);
+			}
+			if (query.mobileNumberPrefix() != null) {
+				NavigableMap<String, LongHashSet> range = prefixRange(mobileNumbers, query.mobileNumberPrefix());
+				long count = countUpTo(range, fewest);
+				if (count < fewest) {
+					fewest = count;
+					walk = () -> range.values().forEach(ids -> ids.forEach(action));
+				}
+			}
+			for (String word : query.nameWords()) {
+				NavigableMap<String, LongHashSet> range = prefixRange(nameWords, word);
+				long count = countUpTo(range, fewest);
+				if (count < fewest) {
+					fewest = count;
+					walk = () -> range.forEach((token, ids) -> ids.forEach(customerId -> {
+						// A name with several words starting with the prefix is listed under each; take the first
+						Document document = documents.get(customerId);
+						if (document != null && token.equals(document.nameTokens()[
+								CustomerSearchQuery.firstTokenStartingWith(document.nameTokens(), word)])) {
+							action.accept(customerId);
+						}
+					}));
+				}
+			}
+			if (walk != null && fewest > 0) {
+				walk.run();
+			}
+		}
+
+		private static NavigableMap<String, LongHashSet> prefixRange(NavigableMap<String, LongHashSet> postings, String prefix) {
+			return postings.subMap(prefix, true, prefix + RANGE_END, false);
+		}
+
+		// Stops counting once the range is known to be no better than the current choice
+		private static long countUpTo(NavigableMap<String, LongHashSet> range, long limit) {
+			long count = 0;
+			for (LongHashSet ids : range.values()) {
+				count += ids.size();
+				if (count >= limit) {
+					break;
+				}
+			}
+			return count;
+		}
+
+		private static void removePosting(Map<String, LongHashSet> postings, String key, long customerId) {
+			LongHashSet ids = postings.get(key);
+			if (ids != null && ids.remove(customerId) && ids.isEmpty()) {
+				postings.remove(key);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+package com.deebank.accountservice.search;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalised customer search criteria; every criterion given must match.
+ *
+ * @param nameWords          Prefixes that must each start a word of the name, lower case
+ * @param emailDomain        Domain the email address must have, lower case, or {@code null}
+ * @param mobileNumberPrefix Prefix of the mobile number, or {@code null}
+ */
+public record CustomerSearchQuery(List<String> nameWords, String emailDomain, String mobileNumberPrefix) {
+
+	private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	/**
+	 * @throws IllegalArgumentException if no criterion is given or a prefix is shorter than {@code minPrefixLength}
+	 */
+	public static CustomerSearchQuery of(String name, String emailDomain, String mobileNumber, int minPrefixLength) {
+		List<String> nameWords = name != null ? List.of(words(name)) : List.of();
+		String domain = emailDomain != null && !emailDomain.isBlank()
+				? emailDomain.strip().toLowerCase(Locale.ROOT).replaceFirst("^@", "")
+				: null;
+		String mobileNumberPrefix = mobileNumber != null && !mobileNumber.isBlank() ? mobileNumber.strip() : null;
+		if (nameWords.isEmpty() && domain == null && mobileNumberPrefix == null) {
+			throw new IllegalArgumentException("Search needs a name, email domain or mobile number");
+		}
+		if (nameWords.stream().anyMatch(word -> word.length() < minPrefixLength)
+				|| (mobileNumberPrefix != null && mobileNumberPrefix.length() < minPrefixLength)) {
+			throw new IllegalArgumentException("Name words and mobile number prefixes need at least "
+					+ minPrefixLength + " characters");
+		}
+		return new CustomerSearchQuery(nameWords, domain, mobileNumberPrefix);
+	}
+
+	/**
+	 * Splits a name into lower-case words on anything that is not a letter or digit.
+	 */
+	public static String[] words(String name) {
+		return Arrays.stream(WORD_SEPARATOR.split(name.toLowerCase(Locale.ROOT)))
+				.filter(word -> !word.isEmpty())
+				.toArray(String[]::new);
+	}
+
+	/**
+	 * Lower-case domain of an email address, or an empty string without one.
+	 */
+	public static String domainOf(String email) {
+		int at = email != null ? email.lastIndexOf('@') : -1;
+		return at >= 0 ? email.substring(at + 1).toLowerCase(Locale.ROOT) : "";
+	}
+
+	public boolean matches(String[] nameTokens, String domain, String mobileNumber) {
+		if (emailDomain != null && !emailDomain.equals(domain)) {
+			return false;
+		}
+		if (mobileNumberPrefix != null && (mobileNumber == null || !mobileNumber.startsWith(mobileNumberPrefix))) {
+			return false;
+		}
+		for (String word : nameWords) {
+			if (firstTokenStartingWith(nameTokens, word) < 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public boolean matches(String name, String email, String mobileNumber) {
+		return matches(name != null ? words(name) : new String[0], domainOf(email), mobileNumber);
+	}
+
+	/**
+	 * Relevance of a matching name: two points per word that is a whole name token rather than just
+	 * a prefix of one, one for the rest, and one more when the first word starts the name.
+	 */
+	public int score(String[] nameTokens) {
+		int score = 0;
+		for (String word : nameWords) {
+			int token = firstTokenStartingWith(nameTokens, word);
+			boolean whole = false;
+			for (int index = token; index < nameTokens.length; index++) {
+				if (nameTokens[index].equals(word)) {
+					whole = true;
+					break;
+				}
+			}
+			score += whole ? 2 : 1;
+		}
+		if (!nameWords.isEmpty() && nameTokens.length > 0 && nameTokens[0].startsWith(nameWords.getFirst())) {
+			score++;
+		}
+		return score;
+	}
+
+	static int firstTokenStartingWith(String[] nameTokens, String word) {
+		for (int index = 0; index < nameTokens.length; index++) {
+			if (nameTokens[index].startsWith(word)) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -1,36 +1,87 @@
 package com.deebank.accountservice.service;
 
+import com.deebank.accountservice.cache.ExistenceIndex;
+import com.deebank.accountservice.config.AccountBatchProperties;
+import com.deebank.accountservice.config.LookupProperties;
+import com.deebank.accountservice.config.PaginationProperties;
+import com.deebank.accountservice.dictionary.AccountDictionaries;
 import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.dto.AccountPageRequestDto;
 import com.deebank.accountservice.dto.AccountRequestDto;
+import com.deebank.accountservice.dto.AccountStatsDto;
+import com.deebank.accountservice.dto.BatchItemResultDto;
+import com.deebank.accountservice.dto.BatchResultDto;
+import com.deebank.accountservice.dto.LookupResultDto;
+import com.deebank.accountservice.dto.PageDto;
 import com.deebank.accountservice.entity.Account;
+import com.deebank.accountservice.event.AccountChangedEvent;
+import com.deebank.accountservice.exception.ErrorCode;
+import com.deebank.accountservice.exception.PreconditionFailedException;
 import com.deebank.accountservice.exception.ResourceNotFoundException;
 import com.deebank.accountservice.repository.AccountRepository;
+import com.deebank.accountservice.repository.AccountUpdate;
 import com.deebank.accountservice.repository.CustomerRepository;
+import com.deebank.accountservice.stats.AccountStatistics;
 import com.deebank.accountservice.util.AccountNumberGenerator;
+import com.deebank.accountservice.util.PageCursor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 @Transactional
+@Timed(value = "deebank.service", histogram = true)
 public class AccountService {
 
 	private final AccountRepository accountRepository;
 	private final CustomerRepository customerRepository;
 	private final AccountNumberGenerator accountNumberGenerator;
+	private final PaginationProperties paginationProperties;
+	private final AccountBatchProperties accountBatchProperties;
+	private final EntityManager entityManager;
+	private final Validator validator;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ExistenceIndex existenceIndex;
+	private final LookupProperties lookupProperties;
+	private final AccountStatistics accountStatistics;
+	private final AccountDictionaries accountDictionaries;
+	// Write methods register new dictionary values first and only then open their transaction with it
+	private final TransactionOperations transactionOperations;
 
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public AccountDto createAccount(AccountRequestDto requestDto) {
 		if (requestDto == null) {
 			throw new IllegalArgumentException("Account request cannot be null");
 		}
+		registerDictionaryValues(List.of(requestDto));
+		return transactionOperations.execute(status -> insertAccount(requestDto));
+	}
+
+	private AccountDto insertAccount(AccountRequestDto requestDto) {
 		Long customerId = Objects.requireNonNull(requestDto.getCustomerId(), "Customer ID cannot be null");
-		// Verify customer exists
-		if (!customerRepository.existsById(customerId)) {
+		// The customer's account numbers change with it; this also verifies that the customer exists
+		if (customerRepository.incrementVersions(List.of(customerId)).isEmpty()) {
 			throw new ResourceNotFoundException("Customer not found with id: " + customerId);
 		}
 
@@ -47,37 +98,215 @@ public class AccountService {
 		// Audit fields (createdAt, createdBy, updatedAt, updatedBy) are automatically set by JPA auditing
 
 		Account savedAccount = accountRepository.save(account);
+		existenceIndex.accountsCreated(List.of(accountNumber));
+		accountStatistics.accountsCreated(List.of(account));
+		eventPublisher.publishEvent(AccountChangedEvent.of(accountNumber, customerId));
 		return mapToDto(savedAccount);
 	}
 
+	/**
+	 * Creates many accounts at once. Every item is validated on its own and reported in the
+	 * result at its request position; all customer IDs are checked with one query, account
+	 * numbers are allocated in bulk, and the accepted accounts are inserted in JDBC batches
+	 * of {@code flushSize} rows.
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public BatchResultDto<AccountDto> createAccounts(List<AccountRequestDto> requestDtos) {
+		if (requestDtos == null || requestDtos.isEmpty()) {
+			throw new IllegalArgumentException("Account batch cannot be empty");
+		}
+		if (requestDtos.size() > accountBatchProperties.getMaxItems()) {
+			throw new IllegalArgumentException(
+					"Account batch cannot contain more than " + accountBatchProperties.getMaxItems() + " items");
+		}
+
+		List<BatchItemResultDto<AccountDto>> results = new ArrayList<>(Collections.nCopies(requestDtos.size(), null));
+		List<Integer> accepted = new ArrayList<>(requestDtos.size());
+		for (int index = 0; index < requestDtos.size(); index++) {
+			AccountRequestDto requestDto = requestDtos.get(index);
+			if (requestDto == null) {
+				results.set(index, BatchItemResultDto.failure(index,
+						ErrorCode.INVALID_INPUT.getCode(), "Account request cannot be null"));
+				continue;
+			}
+			Set<ConstraintViolation<AccountRequestDto>> violations = validator.validate(requestDto);
+			if (!violations.isEmpty()) {
+				results.set(index, BatchItemResultDto.failure(index,
+						ErrorCode.VALIDATION_FAILED.getCode(), violationMessage(violations)));
+				continue;
+			}
+			accepted.add(index);
+		}
+
+		registerDictionaryValues(accepted.stream().map(requestDtos::get).toList());
+		return transactionOperations.execute(status -> insertAccounts(requestDtos, results, accepted));
+	}
+
+	private BatchResultDto<AccountDto> insertAccounts(List<AccountRequestDto> requestDtos,
+			List<BatchItemResultDto<AccountDto>> results, List<Integer> accepted) {
+		// Verify all customers exist with a single statement, which also moves their versions on
+		Set<Long> customerIds = accepted.stream()
+				.map(index -> requestDtos.get(index).getCustomerId())
+				.collect(Collectors.toSet());
+		Set<Long> existingCustomerIds = customerIds.isEmpty()
+				? Set.of()
+				: new HashSet<>(customerRepository.incrementVersions(customerIds));
+		accepted.removeIf(index -> {
+			Long customerId = requestDtos.get(index).getCustomerId();
+			if (existingCustomerIds.contains(customerId)) {
+				return false;
+			}
+			results.set(index, BatchItemResultDto.failure(index,
+					ErrorCode.RESOURCE_NOT_FOUND.getCode(), "Customer not found with id: " + customerId));
+			return true;
+		});
+
+		List<Long> accountNumbers = accountNumberGenerator.generateAccountNumbers(accepted.size());
+		int flushSize = accountBatchProperties.getFlushSize();
+		for (int from = 0; from < accepted.size(); from += flushSize) {
+			int to = Math.min(from + flushSize, accepted.size());
+			List<Account> chunk = new ArrayList<>(to - from);
+			for (int position = from; position < to; position++) {
+				AccountRequestDto requestDto = requestDtos.get(accepted.get(position));
+				Account account = new Account();
+				account.setAccountNumber(accountNumbers.get(position));
+				account.setCustomerId(requestDto.getCustomerId());
+				account.setAccountType(requestDto.getAccountType());
+				account.setBranchAddress(requestDto.getBranchAddress());
+				chunk.add(account);
+			}
+			// New accounts are persisted without a merge SELECT, so the flush sends one JDBC batch per chunk
+			List<Account> savedAccounts = accountRepository.saveAll(chunk);
+			accountRepository.flush();
+			accountStatistics.accountsCreated(savedAccounts);
+			for (int position = from; position < to; position++) {
+				int index = accepted.get(position);
+				results.set(index, BatchItemResultDto.success(index, mapToDto(savedAccounts.get(position - from))));
+			}
+			// Keep the persistence context small however large the batch is
+			entityManager.clear();
+		}
+
+		if (!accepted.isEmpty()) {
+			existenceIndex.accountsCreated(accountNumbers);
+			eventPublisher.publishEvent(new AccountChangedEvent(accountNumbers, existingCustomerIds));
+		}
+		return BatchResultDto.of(results);
+	}
+
+	@Transactional(readOnly = true)
 	public AccountDto getAccount(Long accountNumber) {
 		if (accountNumber == null) {
 			throw new IllegalArgumentException("Account number cannot be null");
 		}
-		Account account = accountRepository.findByAccountNumber(accountNumber)
+		Account account = accountRepository.findById(accountNumber)
 				.orElseThrow(() -> new ResourceNotFoundException("Account not found with account number: " + accountNumber));
 		return mapToDto(account);
 	}
 
-	public List<AccountDto> getAllAccounts() {
-		return accountRepository.findAll().stream()
-				.map(this::mapToDto)
-				.collect(Collectors.toList());
+	/**
+	 * Resolves many account numbers with one IN query; numbers without an account are reported as missing.
+	 */
+	@Transactional(readOnly = true)
+	public LookupResultDto<AccountDto> lookupAccounts(List<Long> accountNumbers) {
+		List<Long> requested = lookupProperties.resolveIds(accountNumbers);
+		Map<Long, Account> accounts = accountRepository.findAllByAccountNumbers(requested).stream()
+				.collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+		return LookupResultDto.<AccountDto>builder()
+				.found(requested.stream()
+						.filter(accounts::containsKey)
+						.map(accountNumber -> mapToDto(accounts.get(accountNumber)))
+						.collect(Collectors.toList()))
+				.missing(requested.stream()
+						.filter(accountNumber -> !accounts.containsKey(accountNumber))
+						.collect(Collectors.toList()))
+				.build();
+	}
+
+	/**
+	 * Looks up only the version of an account, to revalidate a client's copy without loading it.
+	 */
+	@Transactional(readOnly = true)
+	public Long getAccountVersion(Long accountNumber) {
+		if (accountNumber == null) {
+			throw new IllegalArgumentException("Account number cannot be null");
+		}
+		return accountRepository.findVersion(accountNumber)
+				.orElseThrow(() -> new ResourceNotFoundException("Account not found with account number: " + accountNumber));
+	}
+
+	@Transactional(readOnly = true)
+	public PageDto<AccountDto> getAccounts(AccountPageRequestDto requestDto) {
+		AccountPageRequestDto request = requestDto != null ? requestDto : new AccountPageRequestDto();
+		int size = paginationProperties.resolveSize(request.getSize());
+		PageCursor cursor = PageCursor.decode(request.getCursor());
+		Sort.Direction direction = PageCursor.resolveDirection(request.getSort(), cursor);
+		Long lastKey = cursor != null ? cursor.lastKey() : null;
+
+		// Fetch one extra row to learn whether another page follows
+		PageRequest limit = PageRequest.of(0, size + 1);
+		List<Account> rows = direction.isAscending()
+				? accountRepository.findPageAscending(lastKey, request.getAccountType(),
+						request.getCustomerIdFrom(), request.getCustomerIdTo(), limit)
+				: accountRepository.findPageDescending(lastKey, request.getAccountType(),
+						request.getCustomerIdFrom(), request.getCustomerIdTo(), limit);
+
+		boolean hasMore = rows.size() > size;
+		List<Account> page = hasMore ? rows.subList(0, size) : rows;
+		return PageDto.<AccountDto>builder()
+				.items(page.stream().map(this::mapToDto).collect(Collectors.toList()))
+				.size(page.size())
+				.hasMore(hasMore)
+				.nextCursor(hasMore ? new PageCursor(direction, page.get(size - 1).getAccountNumber()).encode() : null)
+				.build();
 	}
 
+	/**
+	 * Lists the accounts of a customer with a single query. Accounts can only reference an existing
+	 * customer, so the customer is looked up only when it has none and is not in the existence index.
+	 */
+	@Transactional(readOnly = true)
 	public List<AccountDto> getAccountsByCustomerId(Long customerId) {
 		if (customerId == null) {
 			throw new IllegalArgumentException("Customer ID cannot be null");
 		}
-		if (!customerRepository.existsById(customerId)) {
+		List<Account> accounts = accountRepository.findByCustomerId(customerId);
+		if (accounts.isEmpty() && !existenceIndex.customerExists(customerId)
+				&& !customerRepository.existsById(customerId)) {
 			throw new ResourceNotFoundException("Customer not found with id: " + customerId);
 		}
-		return accountRepository.findByCustomerId(customerId).stream()
+		return accounts.stream()
 				.map(this::mapToDto)
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Account counts by type and branch from the in-memory statistics; no query is run.
+	 */
+	@Transactional(readOnly = true)
+	public AccountStatsDto getAccountStats() {
+		AccountStatistics.Snapshot snapshot = accountStatistics.snapshot();
+		return AccountStatsDto.builder()
+				.totalAccounts(snapshot.totalAccounts())
+				.byAccountType(snapshot.byAccountType())
+				.byBranchAddress(snapshot.byBranchAddress())
+				.reconciledAt(snapshot.reconciledAt())
+				.build();
+	}
+
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public AccountDto updateAccount(Long accountNumber, AccountRequestDto requestDto) {
+		return updateAccount(accountNumber, requestDto, null);
+	}
+
+	/**
+	 * Replaces the account in a single conditional UPDATE that also verifies the customer exists;
+	 * the account is neither loaded nor dirty-checked.
+	 *
+	 * @param expectedVersion Version the account must still have, or {@code null} for any
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public AccountDto updateAccount(Long accountNumber, AccountRequestDto requestDto, Long expectedVersion) {
 		if (accountNumber == null) {
 			throw new IllegalArgumentException("Account number cannot be null");
 		}
@@ -85,69 +314,120 @@ public class AccountService {
 			throw new IllegalArgumentException("Account request cannot be null");
 		}
 		Long customerId = Objects.requireNonNull(requestDto.getCustomerId(), "Customer ID cannot be null");
-		Account account = accountRepository.findByAccountNumber(accountNumber)
-				.orElseThrow(() -> new ResourceNotFoundException("Account not found with account number: " + accountNumber));
-
-		// Verify customer exists if customerId is being changed
-		if (!account.getCustomerId().equals(customerId)) {
-			if (!customerRepository.existsById(customerId)) {
-				throw new RuntimeException("Customer not found with id: " + customerId);
-			}
-		}
-
-		account.setCustomerId(requestDto.getCustomerId());
-		account.setAccountType(requestDto.getAccountType());
-		account.setBranchAddress(requestDto.getBranchAddress());
-		// Audit fields (updatedAt, updatedBy) are automatically set by JPA auditing
-
-		Account updatedAccount = accountRepository.save(account);
-		return mapToDto(updatedAccount);
+		registerDictionaryValues(List.of(requestDto));
+		return transactionOperations.execute(status -> {
+			AccountUpdate update = accountRepository.updateAccount(accountNumber, customerId,
+							requestDto.getAccountType(), requestDto.getBranchAddress(), expectedVersion)
+					.orElseThrow(() -> updateFailure(accountNumber, customerId, expectedVersion));
+			return published(update);
+		});
 	}
 
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public AccountDto partialUpdateAccount(Long accountNumber, AccountRequestDto requestDto) {
+		return partialUpdateAccount(accountNumber, requestDto, null);
+	}
+
+	/**
+	 * Sets the non-null fields in a single conditional UPDATE, checking the customer only when one is given.
+	 *
+	 * @param expectedVersion Version the account must still have, or {@code null} for any
+	 */
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public AccountDto partialUpdateAccount(Long accountNumber, AccountRequestDto requestDto, Long expectedVersion) {
 		if (accountNumber == null) {
 			throw new IllegalArgumentException("Account number cannot be null");
 		}
-		Account account = accountRepository.findByAccountNumber(accountNumber)
-				.orElseThrow(() -> new ResourceNotFoundException("Account not found with account number: " + accountNumber));
-
-		if (requestDto != null) {
-			if (requestDto.getCustomerId() != null) {
-				Long customerId = Objects.requireNonNull(requestDto.getCustomerId(), "Customer ID cannot be null");
-				if (!account.getCustomerId().equals(customerId)) {
-					if (!customerRepository.existsById(customerId)) {
-						throw new RuntimeException("Customer not found with id: " + customerId);
-					}
-					account.setCustomerId(customerId);
-				}
-			}
-			if (requestDto.getAccountType() != null) {
-				account.setAccountType(requestDto.getAccountType());
-			}
-			if (requestDto.getBranchAddress() != null) {
-				account.setBranchAddress(requestDto.getBranchAddress());
-			}
-		}
-		// Audit fields (updatedAt, updatedBy) are automatically set by JPA auditing
-
-		Account updatedAccount = accountRepository.save(account);
-		return mapToDto(updatedAccount);
+		AccountRequestDto request = requestDto != null ? requestDto : new AccountRequestDto();
+		Long customerId = request.getCustomerId();
+		registerDictionaryValues(List.of(request));
+		return transactionOperations.execute(status -> {
+			AccountUpdate update = accountRepository.patchAccount(accountNumber, customerId,
+							request.getAccountType(), request.getBranchAddress(), expectedVersion)
+					.orElseThrow(() -> updateFailure(accountNumber, customerId, expectedVersion));
+			return published(update);
+		});
 	}
 
 	public void deleteAccount(Long accountNumber) {
+		deleteAccount(accountNumber, null);
+	}
+
+	/**
+	 * @param expectedVersion Version the account must still have, or {@code null} for any
+	 */
+	public void deleteAccount(Long accountNumber, Long expectedVersion) {
 		if (accountNumber == null) {
 			throw new IllegalArgumentException("Account number cannot be null");
 		}
 		Account account = Objects.requireNonNull(
-				accountRepository.findByAccountNumber(accountNumber)
+				accountRepository.findById(accountNumber)
 						.orElseThrow(() -> new RuntimeException("Account not found with account number: " + accountNumber)),
 				"Account cannot be null"
 		);
+		requireVersion(accountNumber, account.getVersion(), expectedVersion);
 
+		// The versioned DELETE still fails if the account changes between this read and the flush
 		accountRepository.delete(account);
+		customerRepository.incrementVersions(List.of(account.getCustomerId()));
+		existenceIndex.accountDeleted(accountNumber);
+		accountStatistics.accountDeleted(account);
+		eventPublisher.publishEvent(AccountChangedEvent.of(accountNumber, account.getCustomerId()));
+	}
+
+	/**
+	 * Tells why a conditional update matched no row. Only runs on failure, so the successful path stays one statement.
+	 */
+	private RuntimeException updateFailure(Long accountNumber, Long customerId, Long expectedVersion) {
+		Optional<Long> version = accountRepository.findVersion(accountNumber);
+		if (version.isEmpty()) {
+			return new ResourceNotFoundException("Account not found with account number: " + accountNumber);
+		}
+		if (expectedVersion != null && !expectedVersion.equals(version.get())) {
+			return versionMismatch(accountNumber, version.get(), expectedVersion);
+		}
+		return new RuntimeException("Customer not found with id: " + customerId);
+	}
+
+	private static void requireVersion(Long accountNumber, Long version, Long expectedVersion) {
+		if (expectedVersion != null && !expectedVersion.equals(version)) {
+			throw versionMismatch(accountNumber, version, expectedVersion);
+		}
+	}
+
+	private static PreconditionFailedException versionMismatch(Long accountNumber, Long version, Long expectedVersion) {
+		return new PreconditionFailedException("Account " + accountNumber + " is at version " + version
+				+ ", not " + expectedVersion);
+	}
+
+	private AccountDto published(AccountUpdate update) {
+		Account account = update.account();
+		accountStatistics.accountUpdated(update.previousAccountType(), update.previousBranchAddress(), account);
+		if (!update.previousCustomerId().equals(account.getCustomerId())) {
+			// The account moved from one customer's list of account numbers to the other's
+			customerRepository.incrementVersions(List.of(update.previousCustomerId(), account.getCustomerId()));
+		}
+		eventPublisher.publishEvent(AccountChangedEvent.of(account.getAccountNumber(),
+				update.previousCustomerId(), account.getCustomerId()));
+		return mapToDto(account);
+	}
+
+	// Outside any transaction: new values are added in one of their own, which then needs no second connection
+	private void registerDictionaryValues(List<AccountRequestDto> requestDtos) {
+		accountDictionaries.register(
+				requestDtos.stream().map(AccountRequestDto::getAccountType).toList(),
+				requestDtos.stream().map(AccountRequestDto::getBranchAddress).toList());
+	}
+
+	private static String violationMessage(Set<ConstraintViolation<AccountRequestDto>> violations) {
+		return violations.stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.sorted()
+				.collect(Collectors.joining(", "));
 	}
 
-	private AccountDto mapToDto(Account account) {
+	// Package-private for the mapping microbenchmark
+	AccountDto mapToDto(Account account) {
 		Account nonNullAccount = Objects.requireNonNull(account, "Account cannot be null");
 		return AccountDto.builder()
 				.accountNumber(nonNullAccount.getAccountNumber())
@@ -158,6 +438,7 @@ public class AccountService {
 				.createdBy(nonNullAccount.getCreatedBy())
 				.updatedAt(nonNullAccount.getUpdatedAt())
 				.updatedBy(nonNullAccount.getUpdatedBy())
+				.version(nonNullAccount.getVersion())
 				.build();
 	}
 
@@ -0,0 +1,306 @@
+package com.deebank.accountservice.service;
+
+import com.deebank.accountservice.config.CustomerImportProperties;
+import com.deebank.accountservice.dto.BatchItemResultDto;
+import com.deebank.accountservice.dto.BatchResultDto;
+import com.deebank.accountservice.dto.CustomerDto;
+import com.deebank.accountservice.dto.CustomerImportDto;
+import com.deebank.accountservice.dto.CustomerRequestDto;
+import com.deebank.accountservice.entity.CustomerImport;
+import com.deebank.accountservice.exception.ResourceNotFoundException;
+import com.deebank.accountservice.repository.CustomerImportRepository;
+import com.deebank.accountservice.util.CsvLine;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Imports customers from a CSV or NDJSON stream without holding the input in memory.
+ * <p>
+ * Lines are parsed in chunks and each chunk is handed to {@link CustomerService#createCustomers}
+ * in its own transaction, together with an update of the import's {@link CustomerImport}
+ * checkpoint. If an import fails part way, uploading the same input again with its import ID
+ * skips the lines that were already committed and carries on from there.
+ */
+@Slf4j
+@Service
+public class CustomerImportService {
+
+	private static final List<String> CSV_COLUMNS = List.of("name", "email", "mobilenumber");
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	private final CustomerService customerService;
+	private final CustomerImportRepository customerImportRepository;
+	private final EntityManager entityManager;
+	private final ObjectMapper objectMapper;
+	private final CustomerImportProperties properties;
+	private final TransactionTemplate transactionTemplate;
+
+	public CustomerImportService(CustomerService customerService, CustomerImportRepository customerImportRepository,
+			EntityManager entityManager, ObjectMapper objectMapper, CustomerImportProperties properties,
+			PlatformTransactionManager transactionManager) {
+		this.customerService = customerService;
+		this.customerImportRepository = customerImportRepository;
+		this.entityManager = entityManager;
+		this.objectMapper = objectMapper;
+		this.properties = properties;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	/**
+	 * Imports customers from the given stream.
+	 *
+	 * @param inputStream CSV with a {@code name,email,mobileNumber} header, or one JSON customer per line
+	 * @param format      Format of the input
+	 * @param importId    ID of a failed import to resume, or {@code null} to start a new one
+	 * @return The final state of the import, including the lines rejected during this run
+	 * @throws IOException if the input cannot be read; the import is marked FAILED and can be resumed
+	 */
+	public CustomerImportDto importCustomers(InputStream inputStream, CustomerImport.Format format, String importId)
+			throws IOException {
+		if (format == null) {
+			throw new IllegalArgumentException("Import format cannot be null");
+		}
+		CustomerImport checkpoint = importId == null ? start(format) : resume(importId, format);
+		if (checkpoint.getStatus() == CustomerImport.Status.COMPLETED) {
+			return mapToDto(checkpoint, List.of());
+		}
+
+		List<String> errors = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+			Map<String, Integer> columns = format == CustomerImport.Format.CSV ? readCsvHeader(reader) : Map.of();
+
+			long lineNumber = 0;
+			while (lineNumber < checkpoint.getLinesProcessed()) {
+				if (reader.readLine() == null) {
+					throw new IllegalArgumentException("Input has fewer lines than the " + checkpoint.getLinesProcessed()
+							+ " already imported by " + checkpoint.getImportId());
+				}
+				lineNumber++;
+			}
+
+			List<ImportLine> chunk = new ArrayList<>(properties.getChunkSize());
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				chunk.add(parse(line, lineNumber, format, columns));
+				if (chunk.size() == properties.getChunkSize()) {
+					checkpoint = commitChunk(checkpoint, chunk, errors);
+					chunk.clear();
+				}
+			}
+			if (!chunk.isEmpty()) {
+				checkpoint = commitChunk(checkpoint, chunk, errors);
+			}
+		} catch (IOException | RuntimeException e) {
+			markFailed(checkpoint.getImportId(), e);
+			throw e;
+		}
+
+		CustomerImport completed = checkpoint;
+		completed.setStatus(CustomerImport.Status.COMPLETED);
+		completed.setUpdatedAt(LocalDateTime.now());
+		checkpoint = transactionTemplate.execute(status -> customerImportRepository.save(completed));
+		log.info("Customer import {} completed: {} imported, {} rejected",
+				checkpoint.getImportId(), checkpoint.getImported(), checkpoint.getRejected());
+		return mapToDto(checkpoint, errors);
+	}
+
+	public CustomerImportDto getImport(String importId) {
+		return mapToDto(findImport(importId), List.of());
+	}
+
+	private CustomerImport start(CustomerImport.Format format) {
+		CustomerImport checkpoint = new CustomerImport();
+		checkpoint.setImportId(UUID.randomUUID().toString());
+		checkpoint.setFormat(format);
+		checkpoint.setStatus(CustomerImport.Status.IN_PROGRESS);
+		checkpoint.setStartedAt(LocalDateTime.now());
+		checkpoint.setUpdatedAt(checkpoint.getStartedAt());
+		return transactionTemplate.execute(status -> customerImportRepository.save(checkpoint));
+	}
+
+	private CustomerImport resume(String importId, CustomerImport.Format format) {
+		CustomerImport checkpoint = findImport(importId);
+		if (checkpoint.getFormat() != format) {
+			throw new IllegalArgumentException("Customer import " + importId + " was started as " + checkpoint.getFormat());
+		}
+		if (checkpoint.getStatus() == CustomerImport.Status.COMPLETED) {
+			return checkpoint;
+		}
+		log.info("Resuming customer import {} after line {}", importId, checkpoint.getLinesProcessed());
+		checkpoint.setStatus(CustomerImport.Status.IN_PROGRESS);
+		checkpoint.setLastError(null);
+		checkpoint.setUpdatedAt(LocalDateTime.now());
+		return transactionTemplate.execute(status -> customerImportRepository.save(checkpoint));
+	}
+
+	private CustomerImport findImport(String importId) {
+		if (importId == null) {
+			throw new IllegalArgumentException("Import ID cannot be null");
+		}
+		return customerImportRepository.findById(importId)
+				.orElseThrow(() -> new ResourceNotFoundException("Customer import not found with id: " + importId));
+	}
+
+	/**
+	 * Inserts one chunk and advances the checkpoint in the same transaction, then detaches
+	 * everything so the persistence context does not grow with the input.
+	 */
+	private CustomerImport commitChunk(CustomerImport checkpoint, List<ImportLine> chunk, List<String> errors) {
+		List<ImportLine> parsed = chunk.stream()
+				.filter(importLine -> importLine.request() != null)
+				.toList();
+		List<String> chunkErrors = new ArrayList<>();
+		chunk.stream()
+				.filter(importLine -> importLine.error() != null)
+				.forEach(importLine -> chunkErrors.add(describe(importLine, importLine.error())));
+
+		CustomerImport committed = transactionTemplate.execute(status -> {
+			long imported = 0;
+			if (!parsed.isEmpty()) {
+				BatchResultDto<CustomerDto> result = customerService.createCustomers(parsed.stream()
+						.map(ImportLine::request)
+						.toList());
+				imported = result.getSucceeded();
+				for (BatchItemResultDto<CustomerDto> item : result.getResults()) {
+					if (!Boolean.TRUE.equals(item.getSuccess())) {
+						chunkErrors.add(describe(parsed.get(item.getIndex()), item.getErrorMessage()));
+					}
+				}
+			}
+			checkpoint.setLinesProcessed(chunk.getLast().lineNumber());
+			checkpoint.setImported(checkpoint.getImported() + imported);
+			checkpoint.setRejected(checkpoint.getRejected() + chunkErrors.size());
+			checkpoint.setUpdatedAt(LocalDateTime.now());
+			return customerImportRepository.save(checkpoint);
+		});
+		entityManager.clear();
+
+		chunkErrors.stream()
+				.limit(Math.max(0, properties.getMaxReportedErrors() - errors.size()))
+				.forEach(errors::add);
+		log.info("Customer import {}: {} lines processed, {} imported, {} rejected", committed.getImportId(),
+				committed.getLinesProcessed(), committed.getImported(), committed.getRejected());
+		return committed;
+	}
+
+	private void markFailed(String importId, Exception cause) {
+		try {
+			transactionTemplate.executeWithoutResult(status -> customerImportRepository.findById(importId)
+					.ifPresent(checkpoint -> {
+						checkpoint.setStatus(CustomerImport.Status.FAILED);
+						checkpoint.setLastError(truncate(String.valueOf(cause.getMessage())));
+						checkpoint.setUpdatedAt(LocalDateTime.now());
+					}));
+		} catch (RuntimeException e) {
+			cause.addSuppressed(e);
+		}
+		log.warn("Customer import {} failed; resume it with importId={}", importId, importId, cause);
+	}
+
+	private Map<String, Integer> readCsvHeader(BufferedReader reader) throws IOException {
+		String header = reader.readLine();
+		if (header == null) {
+			throw new IllegalArgumentException("CSV input must start with a header line");
+		}
+		// Drop a UTF-8 byte order mark written by spreadsheet exports
+		if (header.startsWith("\uFEFF")) {
+			header = header.substring(1);
+		}
+		Map<String, Integer> columns = new HashMap<>();
+		List<String> names = CsvLine.split(header);
+		for (int i = 0; i < names.size(); i++) {
+			columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+		}
+		List<String> missing = CSV_COLUMNS.stream()
+				.filter(column -> !columns.containsKey(column))
+				.toList();
+		if (!missing.isEmpty()) {
+			throw new IllegalArgumentException("CSV header is missing columns: " + missing);
+		}
+		return columns;
+	}
+
+	private ImportLine parse(String line, long lineNumber, CustomerImport.Format format, Map<String, Integer> columns) {
+		if (line.isBlank()) {
+			return new ImportLine(lineNumber, format, null, null);
+		}
+		try {
+			CustomerRequestDto request = format == CustomerImport.Format.CSV
+					? parseCsv(line, columns)
+					: objectMapper.readValue(line, CustomerRequestDto.class);
+			return new ImportLine(lineNumber, format, request, null);
+		} catch (IllegalArgumentException e) {
+			return new ImportLine(lineNumber, format, null, e.getMessage());
+		} catch (JacksonException e) {
+			return new ImportLine(lineNumber, format, null, "Malformed JSON: " + e.getOriginalMessage());
+		}
+	}
+
+	private static CustomerRequestDto parseCsv(String line, Map<String, Integer> columns) {
+		List<String> fields = CsvLine.split(line);
+		return CustomerRequestDto.builder()
+				.name(field(fields, columns.get("name")))
+				.email(field(fields, columns.get("email")))
+				.mobileNumber(field(fields, columns.get("mobilenumber")))
+				.build();
+	}
+
+	private static String field(List<String> fields, int column) {
+		return column < fields.size() ? fields.get(column).trim() : null;
+	}
+
+	private static String describe(ImportLine importLine, String message) {
+		return "line " + importLine.inputLine() + ": " + message;
+	}
+
+	private static String truncate(String message) {
+		return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+	}
+
+	private CustomerImportDto mapToDto(CustomerImport checkpoint, List<String> errors) {
+		return CustomerImportDto.builder()
+				.importId(checkpoint.getImportId())
+				.format(checkpoint.getFormat().name())
+				.status(checkpoint.getStatus().name())
+				.linesProcessed(checkpoint.getLinesProcessed())
+				.imported(checkpoint.getImported())
+				.rejected(checkpoint.getRejected())
+				.lastError(checkpoint.getLastError())
+				.errors(errors)
+				.startedAt(checkpoint.getStartedAt())
+				.updatedAt(checkpoint.getUpdatedAt())
+				.build();
+	}
+
+	/**
+	 * One input line: either a parsed request, a parse error, or neither for a blank line.
+	 */
+	private record ImportLine(long lineNumber, CustomerImport.Format format, CustomerRequestDto request, String error) {
+
+		// Position in the input as the user sees it, counting the CSV header
+		long inputLine() {
+			return format == CustomerImport.Format.CSV ? lineNumber + 1 : lineNumber;
+		}
+
+	}
+
+}
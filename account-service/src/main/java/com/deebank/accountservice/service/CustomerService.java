@@ -1,124 +1,318 @@
 package com.deebank.accountservice.service;
 
+import com.deebank.accountservice.cache.ExistenceIndex;
+import com.deebank.accountservice.config.LookupProperties;
+import com.deebank.accountservice.config.PaginationProperties;
+import com.deebank.accountservice.dto.BatchItemResultDto;
+import com.deebank.accountservice.dto.BatchResultDto;
 import com.deebank.accountservice.dto.CustomerDto;
+import com.deebank.accountservice.dto.CustomerPageRequestDto;
 import com.deebank.accountservice.dto.CustomerRequestDto;
+import com.deebank.accountservice.dto.CustomerSearchRequestDto;
+import com.deebank.accountservice.dto.LookupResultDto;
+import com.deebank.accountservice.dto.PageDto;
 import com.deebank.accountservice.entity.Customer;
+import com.deebank.accountservice.event.CustomerChangedEvent;
+import com.deebank.accountservice.exception.ErrorCode;
 import com.deebank.accountservice.exception.OperationNotAllowedException;
+import com.deebank.accountservice.exception.PreconditionFailedException;
 import com.deebank.accountservice.exception.ResourceAlreadyExistsException;
 import com.deebank.accountservice.exception.ResourceNotFoundException;
+import com.deebank.accountservice.exception.UniqueConstraint;
 import com.deebank.accountservice.repository.AccountRepository;
+import com.deebank.accountservice.repository.CustomerAccountNumber;
 import com.deebank.accountservice.repository.CustomerRepository;
+import com.deebank.accountservice.search.CustomerSearchIndex;
+import com.deebank.accountservice.search.CustomerSearchQuery;
+import com.deebank.accountservice.util.PageCursor;
+import com.deebank.accountservice.util.SearchCursor;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
 @Transactional
+@Timed(value = "deebank.service", histogram = true)
 public class CustomerService {
 
 	private final CustomerRepository customerRepository;
 	private final AccountRepository accountRepository;
+	private final PaginationProperties paginationProperties;
+	private final Validator validator;
+	private final ApplicationEventPublisher eventPublisher;
+	private final ExistenceIndex existenceIndex;
+	private final LookupProperties lookupProperties;
+	private final CustomerSearchIndex customerSearchIndex;
 
 	public CustomerDto createCustomer(CustomerRequestDto requestDto) {
-		// Check if email already exists
-		if (customerRepository.findByEmail(requestDto.getEmail()).isPresent()) {
-			throw new ResourceAlreadyExistsException("Customer with email " + requestDto.getEmail() + " already exists");
-		}
-
-		// Check if mobile number already exists
-		if (customerRepository.findByMobileNumber(requestDto.getMobileNumber()).isPresent()) {
-			throw new ResourceAlreadyExistsException("Customer with mobile number " + requestDto.getMobileNumber() + " already exists");
-		}
-
 		Customer customer = new Customer();
 		customer.setName(requestDto.getName());
 		customer.setEmail(requestDto.getEmail());
 		customer.setMobileNumber(requestDto.getMobileNumber());
 		// Audit fields (createdAt, createdBy, updatedAt, updatedBy) are automatically set by JPA auditing
 
-		Customer savedCustomer = customerRepository.save(customer);
-		return mapToDto(savedCustomer);
+		// Email and mobile number uniqueness is enforced by the database; flush so a violation surfaces here
+		Customer savedCustomer = saveAndFlush(customer);
+		existenceIndex.customersCreated(List.of(savedCustomer.getCustomerId()));
+		customerSearchIndex.customersSaved(List.of(savedCustomer));
+		// A customer that was just created cannot own any accounts yet
+		return mapToDto(savedCustomer, List.of());
 	}
 
+	/**
+	 * Creates many customers at once, reporting each item at its position. Email and mobile
+	 * number uniqueness is checked for the whole batch with two set-based queries; the first
+	 * occurrence of a duplicate within the batch wins. Inserts are flushed as JDBC batches; a
+	 * customer created concurrently between the check and the flush fails the whole batch with
+	 * {@link ResourceAlreadyExistsException}.
+	 */
+	public BatchResultDto<CustomerDto> createCustomers(List<CustomerRequestDto> requestDtos) {
+		if (requestDtos == null) {
+			throw new IllegalArgumentException("Customer batch cannot be null");
+		}
+
+		List<BatchItemResultDto<CustomerDto>> results = new ArrayList<>(Collections.nCopies(requestDtos.size(), null));
+		List<Integer> accepted = new ArrayList<>(requestDtos.size());
+		for (int index = 0; index < requestDtos.size(); index++) {
+			CustomerRequestDto requestDto = requestDtos.get(index);
+			if (requestDto == null) {
+				results.set(index, BatchItemResultDto.failure(index,
+						ErrorCode.INVALID_INPUT.getCode(), "Customer request cannot be null"));
+				continue;
+			}
+			Set<ConstraintViolation<CustomerRequestDto>> violations = validator.validate(requestDto);
+			if (!violations.isEmpty()) {
+				results.set(index, BatchItemResultDto.failure(index,
+						ErrorCode.VALIDATION_FAILED.getCode(), violationMessage(violations)));
+				continue;
+			}
+			accepted.add(index);
+		}
+
+		Set<String> takenEmails = new HashSet<>();
+		Set<String> takenMobileNumbers = new HashSet<>();
+		if (!accepted.isEmpty()) {
+			takenEmails.addAll(customerRepository.findExistingEmails(accepted.stream()
+					.map(index -> requestDtos.get(index).getEmail())
+					.collect(Collectors.toSet())));
+			takenMobileNumbers.addAll(customerRepository.findExistingMobileNumbers(accepted.stream()
+					.map(index -> requestDtos.get(index).getMobileNumber())
+					.collect(Collectors.toSet())));
+		}
+
+		List<Customer> customers = new ArrayList<>(accepted.size());
+		List<Integer> inserted = new ArrayList<>(accepted.size());
+		for (Integer index : accepted) {
+			CustomerRequestDto requestDto = requestDtos.get(index);
+			// add() also claims the value, so later duplicates in the same batch are rejected
+			if (!takenEmails.add(requestDto.getEmail())) {
+				results.set(index, BatchItemResultDto.failure(index, ErrorCode.RESOURCE_ALREADY_EXISTS.getCode(),
+						"Customer with email " + requestDto.getEmail() + " already exists"));
+				continue;
+			}
+			if (!takenMobileNumbers.add(requestDto.getMobileNumber())) {
+				results.set(index, BatchItemResultDto.failure(index, ErrorCode.RESOURCE_ALREADY_EXISTS.getCode(),
+						"Customer with mobile number " + requestDto.getMobileNumber() + " already exists"));
+				continue;
+			}
+			Customer customer = new Customer();
+			customer.setName(requestDto.getName());
+			customer.setEmail(requestDto.getEmail());
+			customer.setMobileNumber(requestDto.getMobileNumber());
+			customers.add(customer);
+			inserted.add(index);
+		}
+
+		List<Customer> savedCustomers = customerRepository.saveAll(customers);
+		try {
+			customerRepository.flush();
+		} catch (DataIntegrityViolationException e) {
+			throw UniqueConstraint.violatedBy(e)
+					.map(constraint -> new ResourceAlreadyExistsException(
+							"A customer in the batch was created concurrently: " + constraint.getConstraintName(), e))
+					.orElseThrow(() -> e);
+		}
+		existenceIndex.customersCreated(savedCustomers.stream().map(Customer::getCustomerId).toList());
+		customerSearchIndex.customersSaved(savedCustomers);
+		for (int position = 0; position < inserted.size(); position++) {
+			int index = inserted.get(position);
+			results.set(index, BatchItemResultDto.success(index, mapToDto(savedCustomers.get(position), List.of())));
+		}
+		return BatchResultDto.of(results);
+	}
+
+	@Transactional(readOnly = true)
 	public CustomerDto getCustomer(Long customerId) {
 		if (customerId == null) {
 			throw new IllegalArgumentException("Customer ID cannot be null");
 		}
 		Customer customer = customerRepository.findById(customerId)
 				.orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
-		return mapToDto(customer);
+		return mapToDto(customer, accountRepository.findAccountNumbersByCustomerId(customerId));
 	}
 
-	public List<CustomerDto> getAllCustomers() {
-		return customerRepository.findAll().stream()
-				.map(this::mapToDto)
+	/**
+	 * Resolves many customers with one IN query, plus one query for the account numbers of all that exist.
+	 */
+	@Transactional(readOnly = true)
+	public LookupResultDto<CustomerDto> lookupCustomers(List<Long> customerIds) {
+		List<Long> requested = lookupProperties.resolveIds(customerIds);
+		Map<Long, Customer> customers = customerRepository.findAllByCustomerIds(requested).stream()
+				.collect(Collectors.toMap(Customer::getCustomerId, Function.identity()));
+		List<Customer> found = requested.stream()
+				.map(customers::get)
+				.filter(Objects::nonNull)
 				.collect(Collectors.toList());
+		return LookupResultDto.<CustomerDto>builder()
+				.found(mapToDtos(found))
+				.missing(requested.stream()
+						.filter(customerId -> !customers.containsKey(customerId))
+						.collect(Collectors.toList()))
+				.build();
 	}
 
-	public CustomerDto updateCustomer(Long customerId, CustomerRequestDto requestDto) {
+	/**
+	 * Looks up only the version of a customer, to revalidate a client's copy without loading it.
+	 */
+	@Transactional(readOnly = true)
+	public Long getCustomerVersion(Long customerId) {
 		if (customerId == null) {
 			throw new IllegalArgumentException("Customer ID cannot be null");
 		}
-		Customer customer = customerRepository.findById(customerId)
+		return customerRepository.findVersion(customerId)
 				.orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+	}
 
-		// Check if email is being changed and if it already exists
-		if (!customer.getEmail().equals(requestDto.getEmail())) {
-			if (customerRepository.findByEmail(requestDto.getEmail()).isPresent()) {
-				throw new ResourceAlreadyExistsException("Customer with email " + requestDto.getEmail() + " already exists");
-			}
-		}
+	@Transactional(readOnly = true)
+	public PageDto<CustomerDto> getCustomers(CustomerPageRequestDto requestDto) {
+		CustomerPageRequestDto request = requestDto != null ? requestDto : new CustomerPageRequestDto();
+		int size = paginationProperties.resolveSize(request.getSize());
+		PageCursor cursor = PageCursor.decode(request.getCursor());
+		Sort.Direction direction = PageCursor.resolveDirection(request.getSort(), cursor);
+		Long lastKey = cursor != null ? cursor.lastKey() : null;
 
-		// Check if mobile number is being changed and if it already exists
-		if (!customer.getMobileNumber().equals(requestDto.getMobileNumber())) {
-			if (customerRepository.findByMobileNumber(requestDto.getMobileNumber()).isPresent()) {
-				throw new ResourceAlreadyExistsException("Customer with mobile number " + requestDto.getMobileNumber() + " already exists");
-			}
-		}
+		// Fetch one extra row to learn whether another page follows
+		PageRequest limit = PageRequest.of(0, size + 1);
+		List<Customer> rows = direction.isAscending()
+				? customerRepository.findPageAscending(lastKey, request.getCustomerIdFrom(), request.getCustomerIdTo(), limit)
+				: customerRepository.findPageDescending(lastKey, request.getCustomerIdFrom(), request.getCustomerIdTo(), limit);
 
-		customer.setName(requestDto.getName());
-		customer.setEmail(requestDto.getEmail());
-		customer.setMobileNumber(requestDto.getMobileNumber());
-		// Audit fields (updatedAt, updatedBy) are automatically set by JPA auditing
+		boolean hasMore = rows.size() > size;
+		List<Customer> page = hasMore ? rows.subList(0, size) : rows;
+		return PageDto.<CustomerDto>builder()
+				.items(mapToDtos(page))
+				.size(page.size())
+				.hasMore(hasMore)
+				.nextCursor(hasMore ? new PageCursor(direction, page.get(size - 1).getCustomerId()).encode() : null)
+				.build();
+	}
 
-		Customer updatedCustomer = customerRepository.save(customer);
-		return mapToDto(updatedCustomer);
+	/**
+	 * Ranks matching customers with the in-memory search index, then reads the page with one IN query
+	 * plus one for the account numbers. A customer changed by another instance since the index last
+	 * saw it is dropped if it no longer matches, so a page may hold fewer than {@code size} items.
+	 */
+	@Transactional(readOnly = true)
+	public PageDto<CustomerDto> searchCustomers(CustomerSearchRequestDto requestDto) {
+		CustomerSearchRequestDto request = requestDto != null ? requestDto : new CustomerSearchRequestDto();
+		CustomerSearchQuery query = customerSearchIndex.query(request.getName(), request.getEmailDomain(), request.getMobileNumber());
+		int size = paginationProperties.resolveSize(request.getSize());
+		CustomerSearchIndex.Hits hits = customerSearchIndex.search(query, SearchCursor.decode(request.getCursor()), size);
+
+		List<Customer> page = List.of();
+		if (!hits.customerIds().isEmpty()) {
+			Map<Long, Customer> customers = customerRepository.findAllByCustomerIds(hits.customerIds()).stream()
+					.collect(Collectors.toMap(Customer::getCustomerId, Function.identity()));
+			page = hits.customerIds().stream()
+					.map(customers::get)
+					.filter(customer -> customer != null
+							&& query.matches(customer.getName(), customer.getEmail(), customer.getMobileNumber()))
+					.collect(Collectors.toList());
+		}
+		return PageDto.<CustomerDto>builder()
+				.items(mapToDtos(page))
+				.size(page.size())
+				.hasMore(hits.next() != null)
+				.nextCursor(hits.next() != null ? hits.next().encode() : null)
+				.build();
 	}
 
-	public CustomerDto partialUpdateCustomer(Long customerId, CustomerRequestDto requestDto) {
+	public CustomerDto updateCustomer(Long customerId, CustomerRequestDto requestDto) {
+		return updateCustomer(customerId, requestDto, null);
+	}
+
+	/**
+	 * Replaces the customer with a single UPDATE that returns the new row; the customer is neither
+	 * loaded nor dirty-checked.
+	 *
+	 * @param expectedVersion Version the customer must still have, or {@code null} for any
+	 */
+	public CustomerDto updateCustomer(Long customerId, CustomerRequestDto requestDto, Long expectedVersion) {
 		if (customerId == null) {
 			throw new IllegalArgumentException("Customer ID cannot be null");
 		}
-		Customer customer = customerRepository.findById(customerId)
-				.orElseThrow(() -> new ResourceNotFoundException("Customer not found with id: " + customerId));
+		Customer updatedCustomer = translatingUniqueViolations(
+				() -> customerRepository.updateCustomer(customerId, requestDto.getName(), requestDto.getEmail(),
+						requestDto.getMobileNumber(), expectedVersion),
+				requestDto.getEmail(), requestDto.getMobileNumber())
+				.orElseThrow(() -> updateFailure(customerId, expectedVersion));
+		customerSearchIndex.customersSaved(List.of(updatedCustomer));
+		eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
+		return mapToDto(updatedCustomer, accountRepository.findAccountNumbersByCustomerId(customerId));
+	}
 
-		if (requestDto.getName() != null) {
-			customer.setName(requestDto.getName());
-		}
-		if (requestDto.getEmail() != null && !customer.getEmail().equals(requestDto.getEmail())) {
-			if (customerRepository.findByEmail(requestDto.getEmail()).isPresent()) {
-				throw new ResourceAlreadyExistsException("Customer with email " + requestDto.getEmail() + " already exists");
-			}
-			customer.setEmail(requestDto.getEmail());
-		}
-		if (requestDto.getMobileNumber() != null && !customer.getMobileNumber().equals(requestDto.getMobileNumber())) {
-			if (customerRepository.findByMobileNumber(requestDto.getMobileNumber()).isPresent()) {
-				throw new ResourceAlreadyExistsException("Customer with mobile number " + requestDto.getMobileNumber() + " already exists");
-			}
-			customer.setMobileNumber(requestDto.getMobileNumber());
-		}
-		// Audit fields (updatedAt, updatedBy) are automatically set by JPA auditing
+	public CustomerDto partialUpdateCustomer(Long customerId, CustomerRequestDto requestDto) {
+		return partialUpdateCustomer(customerId, requestDto, null);
+	}
 
-		Customer updatedCustomer = customerRepository.save(customer);
-		return mapToDto(updatedCustomer);
+	/**
+	 * Sets the non-null fields with a single UPDATE that returns the new row.
+	 *
+	 * @param expectedVersion Version the customer must still have, or {@code null} for any
+	 */
+	public CustomerDto partialUpdateCustomer(Long customerId, CustomerRequestDto requestDto, Long expectedVersion) {
+		if (customerId == null) {
+			throw new IllegalArgumentException("Customer ID cannot be null");
+		}
+		CustomerRequestDto request = requestDto != null ? requestDto : new CustomerRequestDto();
+		Customer updatedCustomer = translatingUniqueViolations(
+				() -> customerRepository.patchCustomer(customerId, request.getName(), request.getEmail(),
+						request.getMobileNumber(), expectedVersion),
+				request.getEmail(), request.getMobileNumber())
+				.orElseThrow(() -> updateFailure(customerId, expectedVersion));
+		customerSearchIndex.customersSaved(List.of(updatedCustomer));
+		eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
+		return mapToDto(updatedCustomer, accountRepository.findAccountNumbersByCustomerId(customerId));
 	}
 
 	public void deleteCustomer(Long customerId) {
+		deleteCustomer(customerId, null);
+	}
+
+	/**
+	 * @param expectedVersion Version the customer must still have, or {@code null} for any
+	 */
+	public void deleteCustomer(Long customerId, Long expectedVersion) {
 		if (customerId == null) {
 			throw new IllegalArgumentException("Customer ID cannot be null");
 		}
@@ -127,22 +321,91 @@ public class CustomerService {
 						.orElseThrow(() -> new RuntimeException("Customer not found with id: " + customerId)),
 				"Customer cannot be null"
 		);
+		if (expectedVersion != null && !expectedVersion.equals(customer.getVersion())) {
+			throw versionMismatch(customerId, customer.getVersion(), expectedVersion);
+		}
 
-		// Check if customer has accounts
-		if (!accountRepository.findByCustomerId(customerId).isEmpty()) {
+		// An EXISTS probe on the customer_id index; the foreign key backs it up against a concurrent insert
+		if (accountRepository.existsByCustomerId(customerId)) {
 			throw new OperationNotAllowedException("Cannot delete customer with id " + customerId + " because they have associated accounts");
 		}
 
 		customerRepository.delete(customer);
+		existenceIndex.customerDeleted(customerId);
+		customerSearchIndex.customerDeleted(customerId);
+		eventPublisher.publishEvent(new CustomerChangedEvent(customerId));
+	}
+
+	/**
+	 * Tells why an update matched no row; without an expected version the customer can only be missing.
+	 */
+	private RuntimeException updateFailure(Long customerId, Long expectedVersion) {
+		Optional<Long> version = expectedVersion != null ? customerRepository.findVersion(customerId) : Optional.empty();
+		if (version.isEmpty()) {
+			return new ResourceNotFoundException("Customer not found with id: " + customerId);
+		}
+		return versionMismatch(customerId, version.get(), expectedVersion);
+	}
+
+	private static PreconditionFailedException versionMismatch(Long customerId, Long version, Long expectedVersion) {
+		return new PreconditionFailedException("Customer " + customerId + " is at version " + version
+				+ ", not " + expectedVersion);
+	}
+
+	/**
+	 * Saves and flushes, translating a violated unique constraint into {@link ResourceAlreadyExistsException}.
+	 * The failed statement leaves the transaction rollback-only, which the thrown exception rolls back anyway.
+	 */
+	private Customer saveAndFlush(Customer customer) {
+		return translatingUniqueViolations(() -> customerRepository.saveAndFlush(customer),
+				customer.getEmail(), customer.getMobileNumber());
+	}
+
+	/**
+	 * Runs a write, translating a violated unique constraint into {@link ResourceAlreadyExistsException}
+	 * that names the offending value.
+	 */
+	private <T> T translatingUniqueViolations(Supplier<T> write, String email, String mobileNumber) {
+		try {
+			return write.get();
+		} catch (DataIntegrityViolationException e) {
+			UniqueConstraint constraint = UniqueConstraint.violatedBy(e).orElseThrow(() -> e);
+			Object value = constraint == UniqueConstraint.CUSTOMER_EMAIL ? email : mobileNumber;
+			throw constraint.toException(value, e);
+		}
+	}
+
+	private static String violationMessage(Set<ConstraintViolation<CustomerRequestDto>> violations) {
+		return violations.stream()
+				.map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+				.sorted()
+				.collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * Maps a page of customers, loading the account numbers of all of them with a single query.
+	 */
+	private List<CustomerDto> mapToDtos(List<Customer> customers) {
+		if (customers.isEmpty()) {
+			return List.of();
+		}
+		List<Long> customerIds = customers.stream()
+				.map(Customer::getCustomerId)
+				.collect(Collectors.toList());
+		Map<Long, List<Long>> accountNumbersByCustomer = accountRepository.findAccountNumbersByCustomerIds(customerIds).stream()
+				.collect(Collectors.groupingBy(
+						CustomerAccountNumber::getCustomerId,
+						Collectors.mapping(CustomerAccountNumber::getAccountNumber, Collectors.toList())
+				));
+		return customers.stream()
+				.map(customer -> mapToDto(customer, accountNumbersByCustomer.getOrDefault(customer.getCustomerId(), List.of())))
+				.collect(Collectors.toList());
 	}
 
-	private CustomerDto mapToDto(Customer customer) {
+	// Package-private for the mapping microbenchmark
+	CustomerDto mapToDto(Customer customer, List<Long> accountNumbers) {
 		Customer nonNullCustomer = Objects.requireNonNull(customer, "Customer cannot be null");
 		Long customerId = Objects.requireNonNull(nonNullCustomer.getCustomerId(), "Customer ID cannot be null");
-		// Get account numbers for this customer
-		List<Long> accountNumbers = accountRepository.findByCustomerId(customerId).stream()
-				.map(account -> account.getAccountNumber())
-				.collect(Collectors.toList());
 
 		return CustomerDto.builder()
 				.customerId(customerId)
@@ -154,8 +417,8 @@ public class CustomerService {
 				.createdBy(nonNullCustomer.getCreatedBy())
 				.updatedAt(nonNullCustomer.getUpdatedAt())
 				.updatedBy(nonNullCustomer.getUpdatedBy())
+				.version(nonNullCustomer.getVersion())
 				.build();
 	}
 
 }
-
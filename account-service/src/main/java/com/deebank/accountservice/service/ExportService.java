@@ -0,0 +1,162 @@
+package com.deebank.accountservice.service;
+
+import com.deebank.accountservice.config.ExportProperties;
+import com.deebank.accountservice.dto.AccountDto;
+import com.deebank.accountservice.dto.CustomerDto;
+import com.deebank.accountservice.repository.AccountRepository;
+import com.deebank.accountservice.repository.CustomerAccountNumber;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.AllArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams whole tables as newline-delimited JSON. Rows are read through a forward-only cursor
+ * as plain projections, never as managed entities, and written out as they arrive, so heap use
+ * does not grow with the table size.
+ */
+@Service
+@AllArgsConstructor
+public class ExportService {
+
+	private static final byte NEWLINE = '\n';
+
+	private static final String ACCOUNTS_QUERY = """
+			select new com.deebank.accountservice.dto.AccountDto(
+				a.accountNumber, a.customerId, a.accountType, a.branchAddress,
+				a.createdAt, a.createdBy, a.updatedAt, a.updatedBy, a.version)
+			from Account a
+			order by a.accountNumber
+			""";
+
+	private static final String CUSTOMERS_QUERY = """
+			select c.customerId, c.name, c.email, c.mobileNumber,
+				c.createdAt, c.createdBy, c.updatedAt, c.updatedBy, c.version
+			from Customer c
+			order by c.customerId
+			""";
+
+	private final EntityManager entityManager;
+	private final AccountRepository accountRepository;
+	private final ObjectMapper objectMapper;
+	private final ExportProperties exportProperties;
+
+	/**
+	 * Writes every account as one JSON document per line.
+	 *
+	 * @return the number of accounts written
+	 * @throws IOException if the client goes away; the cursor is closed and the export stops
+	 */
+	@Transactional(readOnly = true)
+	public long exportAccounts(OutputStream outputStream) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(AccountDto.class);
+		long written = 0;
+		try (Stream<AccountDto> accounts = streamQuery(ACCOUNTS_QUERY, AccountDto.class)) {
+			Iterator<AccountDto> iterator = accounts.iterator();
+			while (iterator.hasNext()) {
+				writeLine(outputStream, writer.writeValueAsBytes(iterator.next()));
+				written++;
+				flushIfDue(outputStream, written);
+			}
+		}
+		outputStream.flush();
+		return written;
+	}
+
+	/**
+	 * Writes every customer, including its account numbers, as one JSON document per line.
+	 * Account numbers are resolved with one batched query per chunk of customers.
+	 *
+	 * @return the number of customers written
+	 * @throws IOException if the client goes away; the cursor is closed and the export stops
+	 */
+	@Transactional(readOnly = true)
+	public long exportCustomers(OutputStream outputStream) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(CustomerDto.class);
+		int chunkSize = exportProperties.getFetchSize();
+		List<CustomerDto> chunk = new ArrayList<>(chunkSize);
+		long written = 0;
+		try (Stream<Object[]> rows = streamQuery(CUSTOMERS_QUERY, Object[].class)) {
+			Iterator<Object[]> iterator = rows.iterator();
+			while (iterator.hasNext()) {
+				chunk.add(toCustomerDto(iterator.next()));
+				if (chunk.size() == chunkSize || !iterator.hasNext()) {
+					attachAccountNumbers(chunk);
+					for (CustomerDto customer : chunk) {
+						writeLine(outputStream, writer.writeValueAsBytes(customer));
+						written++;
+						flushIfDue(outputStream, written);
+					}
+					chunk.clear();
+				}
+			}
+		}
+		outputStream.flush();
+		return written;
+	}
+
+	private <T> Stream<T> streamQuery(String jpql, Class<T> resultType) {
+		TypedQuery<T> query = entityManager.createQuery(jpql, resultType)
+				.setHint(HibernateHints.HINT_FETCH_SIZE, exportProperties.getFetchSize())
+				.setHint(HibernateHints.HINT_READ_ONLY, true)
+				.setHint(HibernateHints.HINT_CACHEABLE, false);
+		return query.getResultStream();
+	}
+
+	private void attachAccountNumbers(List<CustomerDto> chunk) {
+		List<Long> customerIds = chunk.stream()
+				.map(CustomerDto::getCustomerId)
+				.collect(Collectors.toList());
+		Map<Long, List<Long>> accountNumbersByCustomer = accountRepository.findAccountNumbersByCustomerIds(customerIds).stream()
+				.collect(Collectors.groupingBy(
+						CustomerAccountNumber::getCustomerId,
+						Collectors.mapping(CustomerAccountNumber::getAccountNumber, Collectors.toList())
+				));
+		chunk.forEach(customer -> customer.setAccountNumbers(
+				accountNumbersByCustomer.getOrDefault(customer.getCustomerId(), List.of())));
+	}
+
+	private void writeLine(OutputStream outputStream, byte[] json) throws IOException {
+		outputStream.write(json);
+		outputStream.write(NEWLINE);
+	}
+
+	private void flushIfDue(OutputStream outputStream, long written) throws IOException {
+		if (written % exportProperties.getFlushEvery() == 0) {
+			outputStream.flush();
+			if (Thread.currentThread().isInterrupted()) {
+				throw new InterruptedIOException("Export cancelled after " + written + " rows");
+			}
+		}
+	}
+
+	private static CustomerDto toCustomerDto(Object[] row) {
+		return CustomerDto.builder()
+				.customerId((Long) row[0])
+				.name((String) row[1])
+				.email((String) row[2])
+				.mobileNumber((String) row[3])
+				.createdAt((LocalDate) row[4])
+				.createdBy((String) row[5])
+				.updatedAt((LocalDate) row[6])
+				.updatedBy((String) row[7])
+				.version((Long) row[8])
+				.build();
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.deebank.accountservice.sql;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Maximum number of SQL statements one call of the annotated endpoint may issue on the request
+ * thread. Checked by {@link SqlStatementBudgetInterceptor}; endpoints without the annotation get
+ * {@code deebank.sql-budget.default-max-statements}.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlStatementBudget {
+
+	/**
+	 * For endpoints whose statement count grows with the size of the input, such as batches and imports.
+	 */
+	int UNBOUNDED = Integer.MAX_VALUE;
+
+	int value();
+
+}
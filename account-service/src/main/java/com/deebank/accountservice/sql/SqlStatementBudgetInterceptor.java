@@ -0,0 +1,108 @@
+package com.deebank.accountservice.sql;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements of each endpoint call and logs a warning when a call goes over its
+ * {@link SqlStatementBudget}. Catches N+1 queries and redundant reads before they reach production.
+ * <p>
+ * Calls are also reported to any {@link #record() recording} open on the request thread, which is how
+ * the integration specs assert budgets on requests performed through MockMvc. A request that goes
+ * asynchronous, such as a streaming export, is only counted up to the point the handler returns.
+ */
+@Slf4j
+public class SqlStatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+	private static final String COUNT_ATTRIBUTE = SqlStatementBudgetInterceptor.class.getName() + ".count";
+	private static final ThreadLocal<List<SqlStatementUsage>> RECORDING = new ThreadLocal<>();
+
+	private final int defaultBudget;
+
+	public SqlStatementBudgetInterceptor(int defaultBudget) {
+		this.defaultBudget = defaultBudget;
+	}
+
+	/**
+	 * Collects the usage of every endpoint call completed on this thread until the recording is closed.
+	 * Closing a recording reinstates the one that was open before it.
+	 */
+	public static Recording record() {
+		Recording recording = new Recording(RECORDING.get());
+		RECORDING.set(recording.usages);
+		return recording;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getDispatcherType() == DispatcherType.REQUEST && handler instanceof HandlerMethod) {
+			request.setAttribute(COUNT_ATTRIBUTE, SqlStatementCounter.start());
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		complete(request, handler);
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+		complete(request, handler);
+	}
+
+	private void complete(HttpServletRequest request, Object handler) {
+		if (!(request.getAttribute(COUNT_ATTRIBUTE) instanceof SqlStatementCounter.Count count)) {
+			return;
+		}
+		request.removeAttribute(COUNT_ATTRIBUTE);
+		count.close();
+
+		HandlerMethod handlerMethod = (HandlerMethod) handler;
+		SqlStatementBudget budget = handlerMethod.getMethodAnnotation(SqlStatementBudget.class);
+		SqlStatementUsage usage = new SqlStatementUsage(
+				handlerMethod.getBeanType().getSimpleName() + "#" + handlerMethod.getMethod().getName(),
+				count.getStatements(),
+				budget != null ? budget.value() : defaultBudget);
+		if (usage.isOverBudget()) {
+			log.warn("{} {} issued {} SQL statements, over its budget of {}",
+					request.getMethod(), request.getRequestURI(), usage.statements(), usage.budget());
+		}
+		List<SqlStatementUsage> recording = RECORDING.get();
+		if (recording != null) {
+			recording.add(usage);
+		}
+	}
+
+	public static final class Recording implements AutoCloseable {
+
+		private final List<SqlStatementUsage> usages = new ArrayList<>();
+		private final List<SqlStatementUsage> previous;
+
+		private Recording(List<SqlStatementUsage> previous) {
+			this.previous = previous;
+		}
+
+		public List<SqlStatementUsage> getUsages() {
+			return List.copyOf(usages);
+		}
+
+		@Override
+		public void close() {
+			if (previous != null) {
+				RECORDING.set(previous);
+			} else {
+				RECORDING.remove();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.deebank.accountservice.sql;
+
+/**
+ * Counts the SQL statements issued on the current thread while a count is open. The statements are
+ * reported by {@link StatementCountingDataSource}, so Hibernate and {@code JdbcTemplate} are counted alike.
+ */
+public final class SqlStatementCounter {
+
+	private static final ThreadLocal<Count> CURRENT = new ThreadLocal<>();
+
+	private SqlStatementCounter() {
+	}
+
+	/**
+	 * Starts counting statements on this thread. Counts nest; closing one restores the count that was
+	 * open before, which does not include the statements of the inner one.
+	 */
+	public static Count start() {
+		Count count = new Count(CURRENT.get());
+		CURRENT.set(count);
+		return count;
+	}
+
+	static void statementIssued() {
+		Count count = CURRENT.get();
+		if (count != null) {
+			count.statements++;
+		}
+	}
+
+	public static final class Count implements AutoCloseable {
+
+		private final Count previous;
+		private int statements;
+
+		private Count(Count previous) {
+			this.previous = previous;
+		}
+
+		public int getStatements() {
+			return statements;
+		}
+
+		@Override
+		public void close() {
+			if (previous != null) {
+				CURRENT.set(previous);
+			} else {
+				CURRENT.remove();
+			}
+		}
+
+	}
+
+}
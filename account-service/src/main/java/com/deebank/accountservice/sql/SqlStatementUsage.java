@@ -0,0 +1,16 @@
+package com.deebank.accountservice.sql;
+
+/**
+ * Statements one endpoint call issued, against the budget that applied to it.
+ *
+ * @param endpoint   Handler method, e.g. {@code CustomerController#getCustomer}
+ * @param statements Statements issued on the request thread
+ * @param budget     Maximum allowed, or {@link SqlStatementBudget#UNBOUNDED}
+ */
+public record SqlStatementUsage(String endpoint, int statements, int budget) {
+
+	public boolean isOverBudget() {
+		return statements > budget;
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.deebank.accountservice.sql;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Reports every statement sent through the wrapped DataSource to {@link SqlStatementCounter}: a
+ * prepared or callable statement once when it is prepared, however often it is executed or batched,
+ * and a plain {@link Statement} once per execution. Sitting below Hibernate and {@code JdbcTemplate},
+ * it counts the statements of both.
+ */
+public class StatementCountingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+	public StatementCountingDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return counting(obtainTargetDataSource().getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return counting(obtainTargetDataSource().getConnection(username, password));
+	}
+
+	/**
+	 * Closes the wrapped pool, which the container would otherwise no longer see as closeable.
+	 */
+	@Override
+	public void close() throws Exception {
+		if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+			closeable.close();
+		}
+	}
+
+	private static Connection counting(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+				new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+					if (isIdentityMethod(method)) {
+						return identity(proxy, method, args);
+					}
+					if (method.getName().equals("prepareStatement") || method.getName().equals("prepareCall")) {
+						SqlStatementCounter.statementIssued();
+					}
+					Object result = invoke(connection, method, args);
+					return method.getName().equals("createStatement") ? counting((Statement) result) : result;
+				});
+	}
+
+	private static Statement counting(Statement statement) {
+		return (Statement) Proxy.newProxyInstance(StatementCountingDataSource.class.getClassLoader(),
+				new Class<?>[]{Statement.class}, (proxy, method, args) -> {
+					if (isIdentityMethod(method)) {
+						return identity(proxy, method, args);
+					}
+					// execute, executeQuery, executeUpdate, executeBatch and their large variants
+					if (method.getName().startsWith("execute")) {
+						SqlStatementCounter.statementIssued();
+					}
+					return invoke(statement, method, args);
+				});
+	}
+
+	private static boolean isIdentityMethod(Method method) {
+		return method.getName().equals("equals") || method.getName().equals("hashCode");
+	}
+
+	private static Object identity(Object proxy, Method method, Object[] args) {
+		return method.getName().equals("equals") ? proxy == args[0] : System.identityHashCode(proxy);
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getTargetException();
+		}
+	}
+
+}
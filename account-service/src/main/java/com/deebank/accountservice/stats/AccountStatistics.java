@@ -0,0 +1,247 @@
+package com.deebank.accountservice.stats;
+
+import com.deebank.accountservice.config.AccountStatsProperties;
+import com.deebank.accountservice.entity.Account;
+import com.deebank.accountservice.exception.BusinessException;
+import com.deebank.accountservice.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Number of accounts per account type and branch, kept in one {@link LongAdder} per group so
+ * concurrent writes add to striped cells instead of contending on a lock. A snapshot sums the
+ * groups, never the accounts.
+ * <p>
+ * {@code AccountService} records every create, update and delete once its transaction commits.
+ * Every {@code deebank.account-stats.reconcile-interval} the counts are replaced by a GROUP BY over
+ * the table, which picks up writes made by other instances; the size of each correction is counted
+ * in {@code deebank.account.stats.corrections}.
+ */
+@Slf4j
+@Component
+public class AccountStatistics {
+
+	// Groups on the compact dictionary keys and only then joins in the names
+	private static final String GROUP_COUNTS_SQL = """
+			SELECT t.name, b.address, g.accounts
+			FROM (SELECT account_type_id, branch_id, COUNT(*) AS accounts
+				FROM accounts GROUP BY account_type_id, branch_id) g
+			JOIN account_type t ON t.account_type_id = g.account_type_id
+			JOIN branch b ON b.branch_id = g.branch_id
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final AccountStatsProperties properties;
+	private final Counter correctionCounter;
+	// Writers share the read lock, as the adders need no exclusion among themselves; only a
+	// reconciliation takes the write lock, to swap in the recomputed counts
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ReentrantLock reconcileLock = new ReentrantLock();
+	private ConcurrentMap<Group, LongAdder> counts = new ConcurrentHashMap<>();
+	private LocalDateTime reconciledAt;
+	// Changes committed while a reconciliation counts the table, replayed onto its result; null while none runs
+	private Queue<Change> changesDuringReconcile;
+
+	public AccountStatistics(JdbcTemplate jdbcTemplate, AccountStatsProperties properties, MeterRegistry meterRegistry) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.properties = properties;
+		this.correctionCounter = Counter.builder("deebank.account.stats.corrections")
+				.description("Accounts by which reconciliation corrected the incrementally maintained counts")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @throws BusinessException with {@link ErrorCode#SERVICE_UNAVAILABLE} if the statistics are disabled or not counted yet
+	 */
+	public Snapshot snapshot() {
+		lock.readLock().lock();
+		try {
+			if (reconciledAt == null) {
+				throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, properties.isEnabled()
+						? "Account statistics are still being counted, retry later"
+						: "Account statistics are disabled");
+			}
+			SortedMap<String, Long> byAccountType = new TreeMap<>();
+			SortedMap<String, Long> byBranchAddress = new TreeMap<>();
+			long total = 0;
+			for (Map.Entry<Group, LongAdder> entry : counts.entrySet()) {
+				long count = entry.getValue().sum();
+				if (count == 0) {
+					continue;
+				}
+				byAccountType.merge(entry.getKey().accountType(), count, Long::sum);
+				byBranchAddress.merge(entry.getKey().branchAddress(), count, Long::sum);
+				total += count;
+			}
+			return new Snapshot(total, byAccountType, byBranchAddress, reconciledAt);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public void accountsCreated(Collection<Account> accounts) {
+		afterCommit(accounts.stream()
+				.map(account -> new Change(Group.of(account), 1))
+				.toList());
+	}
+
+	/**
+	 * @param previousAccountType   Account type before the update
+	 * @param previousBranchAddress Branch address before the update
+	 * @param account               New state of the account
+	 */
+	public void accountUpdated(String previousAccountType, String previousBranchAddress, Account account) {
+		Group previous = new Group(previousAccountType, previousBranchAddress);
+		Group current = Group.of(account);
+		if (!previous.equals(current)) {
+			afterCommit(List.of(new Change(previous, -1), new Change(current, 1)));
+		}
+	}
+
+	public void accountDeleted(Account account) {
+		afterCommit(List.of(new Change(Group.of(account), -1)));
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${deebank.account-stats.reconcile-interval:PT5M}",
+			initialDelayString = "${deebank.account-stats.reconcile-interval:PT5M}")
+	public void reconcile() {
+		if (!properties.isEnabled() || !reconcileLock.tryLock()) {
+			return;
+		}
+		try {
+			lock.writeLock().lock();
+			try {
+				changesDuringReconcile = new ConcurrentLinkedQueue<>();
+			} finally {
+				lock.writeLock().unlock();
+			}
+			ConcurrentMap<Group, LongAdder> counted = new ConcurrentHashMap<>();
+			jdbcTemplate.query(GROUP_COUNTS_SQL, (RowCallbackHandler) resultSet ->
+					new Change(new Group(resultSet.getString(1), resultSet.getString(2)), resultSet.getLong(3))
+							.applyTo(counted));
+			lock.writeLock().lock();
+			try {
+				// A change committed just as the count started may be in both; the next run corrects that
+				changesDuringReconcile.forEach(change -> change.applyTo(counted));
+				if (reconciledAt != null) {
+					correctionCounter.increment(difference(counts, counted));
+				}
+				counts = counted;
+				reconciledAt = LocalDateTime.now();
+			} finally {
+				changesDuringReconcile = null;
+				lock.writeLock().unlock();
+			}
+			log.debug("Account statistics reconciled over {} groups", counted.size());
+		} catch (DataAccessException e) {
+			// Keep counting from the previous result; the next run tries again
+			lock.writeLock().lock();
+			try {
+				changesDuringReconcile = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			log.warn("Could not reconcile the account statistics", e);
+		} finally {
+			reconcileLock.unlock();
+		}
+	}
+
+	private static long difference(Map<Group, LongAdder> previous, Map<Group, LongAdder> current) {
+		Set<Group> groups = new HashSet<>(previous.keySet());
+		groups.addAll(current.keySet());
+		long difference = 0;
+		for (Group group : groups) {
+			difference += Math.abs(sum(previous.get(group)) - sum(current.get(group)));
+		}
+		return difference;
+	}
+
+	private static long sum(LongAdder adder) {
+		return adder != null ? adder.sum() : 0;
+	}
+
+	// Applied only once the rows are committed, so a rolled back write is never counted
+	private void afterCommit(List<Change> changes) {
+		if (!properties.isEnabled() || changes.isEmpty()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			apply(changes);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				apply(changes);
+			}
+		});
+	}
+
+	private void apply(List<Change> changes) {
+		lock.readLock().lock();
+		try {
+			for (Change change : changes) {
+				change.applyTo(counts);
+				if (changesDuringReconcile != null) {
+					changesDuringReconcile.add(change);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Account counts at one moment.
+	 *
+	 * @param reconciledAt When the counts were last recomputed from the database
+	 */
+	public record Snapshot(long totalAccounts, SortedMap<String, Long> byAccountType,
+			SortedMap<String, Long> byBranchAddress, LocalDateTime reconciledAt) {
+	}
+
+	private record Group(String accountType, String branchAddress) {
+
+		static Group of(Account account) {
+			return new Group(account.getAccountType(), account.getBranchAddress());
+		}
+
+	}
+
+	private record Change(Group group, long delta) {
+
+		void applyTo(ConcurrentMap<Group, LongAdder> counts) {
+			counts.computeIfAbsent(group, key -> new LongAdder()).add(delta);
+		}
+
+	}
+
+}
@@ -1,11 +1,26 @@
 package com.deebank.accountservice.util;
 
+import com.deebank.accountservice.cache.ExistenceIndex;
+import com.deebank.accountservice.config.AccountNumberProperties;
 import com.deebank.accountservice.exception.BusinessException;
 import com.deebank.accountservice.exception.ErrorCode;
 import com.deebank.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 @Component
 public class AccountNumberGenerator {
@@ -13,42 +28,228 @@ public class AccountNumberGenerator {
 	private static final int MIN_ACCOUNT_NUMBER = 1000000; // 7 digits minimum
 	private static final int MAX_ACCOUNT_NUMBER = 9999999; // 7 digits maximum
 	private static final int MAX_ATTEMPTS = 100; // Max attempts to generate unique number
+	private static final long ACCOUNT_NUMBER_SPACE = MAX_ACCOUNT_NUMBER - MIN_ACCOUNT_NUMBER + 1L;
+
+	// Must match the INCREMENT BY of account_number_seq in db/migration
+	static final int SEQUENCE_ALLOCATION_SIZE = 50;
+	private static final String NEXT_BLOCK_SQL = "SELECT NEXT VALUE FOR account_number_seq";
 
 	private final AccountRepository accountRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final AccountNumberProperties properties;
 	private final SecureRandom random;
+	private final FeistelPermutation permutation;
+	private final AccountNumberPool pool;
+	private final ExistenceIndex existenceIndex;
+	private final ReentrantLock blockLock = new ReentrantLock();
+	private final MeterRegistry meterRegistry;
+	private final Timer attemptTimer;
+	private final GenerationTimers singleTimers;
+	private final GenerationTimers batchTimers;
+	private final DistributionSummary attemptsSummary;
+	private long nextCounter;
+	private long blockEnd;
 
-	public AccountNumberGenerator(AccountRepository accountRepository) {
+	public AccountNumberGenerator(AccountRepository accountRepository, JdbcTemplate jdbcTemplate,
+			AccountNumberProperties properties, Optional<AccountNumberPool> pool, MeterRegistry meterRegistry,
+			ExistenceIndex existenceIndex) {
 		this.accountRepository = accountRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.properties = properties;
 		this.random = new SecureRandom();
+		this.permutation = properties.getMode() == AccountNumberProperties.Mode.PERMUTATION
+				? new FeistelPermutation(ACCOUNT_NUMBER_SPACE, permutationKey(properties))
+				: null;
+		this.pool = properties.getMode() == AccountNumberProperties.Mode.POOL
+				? pool.orElseThrow(() -> new IllegalStateException("Account number pool is not configured"))
+				: null;
+		this.meterRegistry = meterRegistry;
+		this.existenceIndex = existenceIndex;
+		this.attemptTimer = Timer.builder("deebank.account.number.generation.attempt")
+				.description("Existence checks of RANDOM mode candidates")
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+		this.attemptsSummary = DistributionSummary.builder("deebank.account.number.generation.attempts")
+				.description("Candidates drawn per RANDOM mode call until enough unused numbers were found")
+				.register(meterRegistry);
+		this.singleTimers = new GenerationTimers(generationTimer("single", "success"), generationTimer("single", "failure"));
+		this.batchTimers = new GenerationTimers(generationTimer("batch", "success"), generationTimer("batch", "failure"));
 	}
 
 	/**
 	 * Generates a unique 7-digit account number that is not easy to guess.
-	 * Uses SecureRandom to generate non-sequential random numbers.
+	 * In RANDOM mode a SecureRandom number is drawn and checked against the database;
+	 * in PERMUTATION mode a shared sequence value is passed through a keyed permutation,
+	 * which is unique by construction and needs no existence check; in POOL mode a number
+	 * reserved in advance by {@link AccountNumberPool} is handed out.
 	 *
 	 * @return A unique 7-digit account number
-	 * @throws RuntimeException if unable to generate a unique number after max attempts
+	 * @throws BusinessException if unable to generate a unique number
 	 */
 	public Long generateAccountNumber() {
+		return timed(singleTimers, () -> switch (properties.getMode()) {
+			case PERMUTATION -> generatePermutedAccountNumber();
+			case POOL -> pool.take();
+			case RANDOM -> generateRandomAccountNumber();
+		});
+	}
+
+	/**
+	 * Generates {@code count} distinct account numbers in one go, using the same strategy as
+	 * {@link #generateAccountNumber()} but with set-based existence checks, a single lock
+	 * acquisition and a single reservation release instead of one round trip per number.
+	 *
+	 * @param count Number of account numbers to generate
+	 * @return {@code count} unique 7-digit account numbers
+	 * @throws BusinessException if unable to generate enough unique numbers
+	 */
+	public List<Long> generateAccountNumbers(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("Account number count cannot be negative");
+		}
+		if (count == 0) {
+			return List.of();
+		}
+		return timed(batchTimers, () -> switch (properties.getMode()) {
+			case PERMUTATION -> generatePermutedAccountNumbers(count);
+			case POOL -> pool.take(count);
+			case RANDOM -> generateRandomAccountNumbers(count);
+		});
+	}
+
+	private <T> T timed(GenerationTimers timers, Supplier<T> generation) {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		Timer timer = timers.failure();
+		try {
+			T result = generation.get();
+			timer = timers.success();
+			return result;
+		} finally {
+			sample.stop(timer);
+		}
+	}
+
+	// The mode is fixed for the lifetime of the generator, so every timer can be registered up front
+	private Timer generationTimer(String operation, String outcome) {
+		return Timer.builder("deebank.account.number.generation")
+				.description("Time to hand out account numbers, including every attempt and wait")
+				.tag("mode", properties.getMode().name().toLowerCase())
+				.tag("operation", operation)
+				.tag("outcome", outcome)
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	private Long generateRandomAccountNumber() {
 		int attempts = 0;
-		
+
 		while (attempts < MAX_ATTEMPTS) {
 			// Generate random 7-digit number
 			Long accountNumber = (long) (MIN_ACCOUNT_NUMBER + random.nextInt(MAX_ACCOUNT_NUMBER - MIN_ACCOUNT_NUMBER + 1));
-			
-			// Check if it already exists
-			if (!accountRepository.existsByAccountNumber(accountNumber)) {
+
+			// Check if it already exists; a number known to be taken needs no query
+			attempts++;
+			if (existenceIndex.accountExists(accountNumber)) {
+				continue;
+			}
+			if (!attemptTimer.record(() -> accountRepository.existsByAccountNumber(accountNumber))) {
+				attemptsSummary.record(attempts);
 				return accountNumber;
 			}
-			
-			attempts++;
 		}
-		
+
+		attemptsSummary.record(attempts);
+
 		throw new BusinessException(
 				ErrorCode.GENERATION_FAILED,
 				"Unable to generate unique account number after " + MAX_ATTEMPTS + " attempts"
 		);
 	}
 
-}
+	private List<Long> generateRandomAccountNumbers(int count) {
+		Set<Long> accountNumbers = new LinkedHashSet<>(count);
+		int attempts = 0;
+		long drawn = 0;
 
+		while (accountNumbers.size() < count) {
+			if (attempts++ >= MAX_ATTEMPTS) {
+				throw new BusinessException(
+						ErrorCode.GENERATION_FAILED,
+						"Unable to generate " + count + " unique account numbers after " + MAX_ATTEMPTS + " attempts"
+				);
+			}
+			Set<Long> candidates = new LinkedHashSet<>();
+			while (candidates.size() < count - accountNumbers.size()) {
+				Long candidate = (long) (MIN_ACCOUNT_NUMBER + random.nextInt(MAX_ACCOUNT_NUMBER - MIN_ACCOUNT_NUMBER + 1));
+				if (!accountNumbers.contains(candidate)) {
+					candidates.add(candidate);
+				}
+			}
+			drawn += candidates.size();
+			// One query checks whatever the index does not already know to be taken
+			candidates.removeIf(existenceIndex::accountExists);
+			if (!candidates.isEmpty()) {
+				attemptTimer.record(() -> accountRepository.findExistingAccountNumbers(candidates)).forEach(candidates::remove);
+			}
+			accountNumbers.addAll(candidates);
+		}
+		attemptsSummary.record(drawn);
+		return new ArrayList<>(accountNumbers);
+	}
+
+	private Long generatePermutedAccountNumber() {
+		blockLock.lock();
+		try {
+			return nextPermutedAccountNumber();
+		} finally {
+			blockLock.unlock();
+		}
+	}
+
+	private List<Long> generatePermutedAccountNumbers(int count) {
+		List<Long> accountNumbers = new ArrayList<>(count);
+		blockLock.lock();
+		try {
+			while (accountNumbers.size() < count) {
+				accountNumbers.add(nextPermutedAccountNumber());
+			}
+			return accountNumbers;
+		} finally {
+			blockLock.unlock();
+		}
+	}
+
+	// Callers must hold blockLock
+	private Long nextPermutedAccountNumber() {
+		if (nextCounter >= blockEnd) {
+			// Blocks handed out by the sequence are disjoint across all instances
+			long blockStart = Objects.requireNonNull(
+					jdbcTemplate.queryForObject(NEXT_BLOCK_SQL, Long.class),
+					"Account number sequence returned no value"
+			);
+			nextCounter = blockStart;
+			blockEnd = blockStart + SEQUENCE_ALLOCATION_SIZE;
+		}
+		long counter = nextCounter++;
+		if (counter >= ACCOUNT_NUMBER_SPACE) {
+			throw new BusinessException(
+					ErrorCode.GENERATION_FAILED,
+					"Account number space of " + ACCOUNT_NUMBER_SPACE + " numbers is exhausted"
+			);
+		}
+		return MIN_ACCOUNT_NUMBER + permutation.permute(counter);
+	}
+
+	private static byte[] permutationKey(AccountNumberProperties properties) {
+		String key = properties.getPermutationKey();
+		if (key == null || key.isBlank()) {
+			throw new IllegalStateException(
+					"deebank.account-number.permutation-key must be set when mode is PERMUTATION");
+		}
+		return key.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private record GenerationTimers(Timer success, Timer failure) {
+	}
+
+}
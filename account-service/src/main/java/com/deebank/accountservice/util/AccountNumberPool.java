@@ -0,0 +1,374 @@
+package com.deebank.accountservice.util;
+
+import com.deebank.accountservice.config.AccountNumberProperties;
+import com.deebank.accountservice.exception.BusinessException;
+import com.deebank.accountservice.exception.ErrorCode;
+import com.deebank.accountservice.repository.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory pool of account numbers for the POOL generator mode.
+ * <p>
+ * Numbers are drawn at random, filtered against existing accounts and reservations with
+ * set-based queries, and reserved durably in {@code account_number_reservation} before
+ * they enter the pool, so two instances never hand out the same number. A reservation is
+ * deleted in the caller's transaction when its number is used; reservations left behind by
+ * a crash or a rolled back transaction are reclaimed once their lease expires.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "deebank.account-number", name = "mode", havingValue = "pool")
+public class AccountNumberPool {
+
+	private static final int MIN_ACCOUNT_NUMBER = 1000000;
+	private static final int MAX_ACCOUNT_NUMBER = 9999999;
+
+	private static final String SELECT_RESERVED_SQL =
+			"SELECT account_number FROM account_number_reservation WHERE account_number IN (:accountNumbers)";
+	private static final String INSERT_RESERVATION_SQL =
+			"INSERT INTO account_number_reservation (account_number, instance_id, reserved_at) "
+					+ "VALUES (:accountNumber, :instanceId, :reservedAt)";
+	private static final String DELETE_RESERVATION_SQL =
+			"DELETE FROM account_number_reservation WHERE account_number = :accountNumber";
+	private static final String DELETE_EXPIRED_SQL =
+			"DELETE FROM account_number_reservation WHERE reserved_at < :cutoff";
+	private static final String DELETE_OWN_SQL =
+			"DELETE FROM account_number_reservation WHERE instance_id = :instanceId";
+
+	private final AccountRepository accountRepository;
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final TransactionTemplate releaseTransaction;
+	private final AccountNumberProperties.Pool properties;
+	private final SecureRandom random = new SecureRandom();
+	private final String instanceId = UUID.randomUUID().toString();
+	private final BlockingQueue<Reservation> pool;
+	private final ReentrantLock refillLock = new ReentrantLock();
+	private final AtomicBoolean refillQueued = new AtomicBoolean();
+	private final ExecutorService refillExecutor;
+	private final Timer stallTimer;
+	private final Counter exhaustedCounter;
+	private final Counter reservedCounter;
+	private final Counter expiredCounter;
+
+	public AccountNumberPool(AccountRepository accountRepository, NamedParameterJdbcTemplate jdbcTemplate,
+			AccountNumberProperties properties, MeterRegistry meterRegistry, Environment environment,
+			PlatformTransactionManager transactionManager) {
+		this.accountRepository = accountRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.releaseTransaction = new TransactionTemplate(transactionManager);
+		this.releaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		this.properties = properties.getPool();
+		this.pool = new ArrayBlockingQueue<>(this.properties.getCapacity());
+		// Refills block on JDBC and only ever hold a ReentrantLock, so they are safe to run on a virtual thread
+		ThreadFactory refillThreads = Threading.VIRTUAL.isActive(environment)
+				? Thread.ofVirtual().name("account-number-pool-refill").factory()
+				: Thread.ofPlatform().name("account-number-pool-refill").daemon(true).factory();
+		this.refillExecutor = Executors.newSingleThreadExecutor(refillThreads);
+
+		Gauge.builder("deebank.account.number.pool.depth", pool, BlockingQueue::size)
+				.description("Reserved account numbers available in memory")
+				.register(meterRegistry);
+		this.stallTimer = Timer.builder("deebank.account.number.pool.stalls")
+				.description("Requests that found the pool empty and waited for a refill")
+				.register(meterRegistry);
+		this.exhaustedCounter = Counter.builder("deebank.account.number.pool.exhausted")
+				.description("Requests that gave up waiting for a reserved number")
+				.register(meterRegistry);
+		this.reservedCounter = Counter.builder("deebank.account.number.pool.reserved")
+				.description("Account numbers reserved by refills")
+				.register(meterRegistry);
+		this.expiredCounter = Counter.builder("deebank.account.number.pool.expired")
+				.description("Reserved numbers discarded because their lease was about to expire")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Takes a reserved number from the pool and releases its reservation in the caller's
+	 * transaction, so the reservation is only gone once the account row is committed.
+	 *
+	 * @return A unique 7-digit account number
+	 * @throws BusinessException if no number becomes available within the take timeout
+	 */
+	public Long take() {
+		Reservation reservation = nextValid();
+		if (reservation == null) {
+			reservation = awaitRefill();
+		}
+		if (pool.size() < properties.getLowWaterMark()) {
+			triggerRefill();
+		}
+		jdbcTemplate.update(DELETE_RESERVATION_SQL, Map.of("accountNumber", reservation.accountNumber()));
+		return reservation.accountNumber();
+	}
+
+	/**
+	 * Takes {@code count} reserved numbers, waiting for refills as the pool drains, and releases
+	 * their reservations with one JDBC batch in the caller's transaction. On failure the numbers
+	 * already taken go back to the pool.
+	 *
+	 * @param count Number of account numbers to take
+	 * @return {@code count} unique 7-digit account numbers
+	 * @throws BusinessException if the pool runs dry for longer than the take timeout
+	 */
+	public List<Long> take(int count) {
+		List<Reservation> taken = new ArrayList<>(count);
+		try {
+			while (taken.size() < count) {
+				Reservation reservation = nextValid();
+				if (reservation == null) {
+					reservation = awaitRefill();
+				}
+				taken.add(reservation);
+				if (pool.size() < properties.getLowWaterMark()) {
+					triggerRefill();
+				}
+			}
+			List<Long> accountNumbers = taken.stream().map(Reservation::accountNumber).toList();
+			jdbcTemplate.batchUpdate(DELETE_RESERVATION_SQL, reservationKeys(accountNumbers));
+			return accountNumbers;
+		} catch (RuntimeException e) {
+			giveBack(taken);
+			throw e;
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${deebank.account-number.pool.refill-interval:PT5S}")
+	public void maintain() {
+		reclaimExpired();
+		refill();
+	}
+
+	void refill() {
+		if (!refillLock.tryLock()) {
+			return;
+		}
+		try {
+			int wanted;
+			while ((wanted = Math.min(properties.getRefillBatchSize(), pool.remainingCapacity())) > 0) {
+				if (reserveBatch(wanted) == 0) {
+					break;
+				}
+			}
+		} catch (RuntimeException e) {
+			log.warn("Account number pool refill failed", e);
+		} finally {
+			refillLock.unlock();
+		}
+	}
+
+	void reclaimExpired() {
+		Timestamp cutoff = Timestamp.from(Instant.now().minus(properties.getLease()));
+		int reclaimed = jdbcTemplate.update(DELETE_EXPIRED_SQL, Map.of("cutoff", cutoff));
+		if (reclaimed > 0) {
+			log.info("Reclaimed {} expired account number reservations", reclaimed);
+		}
+	}
+
+	int depth() {
+		return pool.size();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		refillExecutor.shutdownNow();
+		pool.clear();
+		try {
+			// Hand unused numbers back immediately instead of waiting for the lease to run out
+			jdbcTemplate.update(DELETE_OWN_SQL, Map.of("instanceId", instanceId));
+		} catch (RuntimeException e) {
+			log.debug("Could not release account number reservations on shutdown", e);
+		}
+	}
+
+	private int reserveBatch(int wanted) {
+		Set<Long> candidates = new LinkedHashSet<>();
+		while (candidates.size() < wanted) {
+			candidates.add((long) (MIN_ACCOUNT_NUMBER + random.nextInt(MAX_ACCOUNT_NUMBER - MIN_ACCOUNT_NUMBER + 1)));
+		}
+		// Reservations before accounts: a number moves from one to the other in a single transaction, so
+		// checked the other way round it could be missed by both queries and reserved a second time
+		jdbcTemplate.queryForList(SELECT_RESERVED_SQL, Map.of("accountNumbers", candidates), Long.class)
+				.forEach(candidates::remove);
+		if (!candidates.isEmpty()) {
+			accountRepository.findExistingAccountNumbers(candidates).forEach(candidates::remove);
+		}
+		if (candidates.isEmpty()) {
+			return 0;
+		}
+
+		Instant reservedAt = Instant.now();
+		List<Long> reserved = insertReservations(candidates, Timestamp.from(reservedAt));
+		// Stop handing a number out a little before its lease ends so a reclaiming instance cannot race the insert
+		Instant usableUntil = reservedAt.plus(properties.getLease().minus(properties.getLease().dividedBy(10)));
+		List<Long> unpooled = new ArrayList<>();
+		for (Long accountNumber : reserved) {
+			if (!unpooled.isEmpty() || !pool.offer(new Reservation(accountNumber, usableUntil))) {
+				unpooled.add(accountNumber);
+			}
+		}
+		if (!unpooled.isEmpty()) {
+			// Release what did not fit right away, rather than leaving it reserved until the lease runs out
+			jdbcTemplate.batchUpdate(DELETE_RESERVATION_SQL, reservationKeys(unpooled));
+		}
+		int pooled = reserved.size() - unpooled.size();
+		reservedCounter.increment(pooled);
+		return pooled;
+	}
+
+	private List<Long> insertReservations(Set<Long> candidates, Timestamp reservedAt) {
+		SqlParameterSource[] batch = candidates.stream()
+				.map(accountNumber -> reservationParameters(accountNumber, reservedAt))
+				.toArray(SqlParameterSource[]::new);
+		try {
+			// All or nothing: rows a failed batch had already inserted would be skipped as duplicates below
+			transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_RESERVATION_SQL, batch));
+			return new ArrayList<>(candidates);
+		} catch (DataIntegrityViolationException e) {
+			// Another instance reserved one of the candidates concurrently; the batch was rolled back, so go row by row
+			List<Long> reserved = new ArrayList<>(candidates.size());
+			for (Long accountNumber : candidates) {
+				try {
+					jdbcTemplate.update(INSERT_RESERVATION_SQL, reservationParameters(accountNumber, reservedAt));
+					reserved.add(accountNumber);
+				} catch (DataIntegrityViolationException duplicate) {
+					// Already reserved elsewhere, skip it
+				}
+			}
+			return reserved;
+		}
+	}
+
+	/**
+	 * Returns the numbers of a failed take to the pool; they are still reserved by this instance.
+	 * Whatever no longer fits is released in a transaction of its own, as the caller's is failing.
+	 */
+	private void giveBack(List<Reservation> taken) {
+		List<Long> unpooled = new ArrayList<>();
+		for (Reservation reservation : taken) {
+			if (!pool.offer(reservation)) {
+				unpooled.add(reservation.accountNumber());
+			}
+		}
+		if (unpooled.isEmpty()) {
+			return;
+		}
+		try {
+			releaseTransaction.executeWithoutResult(
+					status -> jdbcTemplate.batchUpdate(DELETE_RESERVATION_SQL, reservationKeys(unpooled)));
+		} catch (RuntimeException e) {
+			log.debug("Could not release account number reservations of a failed take", e);
+		}
+	}
+
+	private static SqlParameterSource[] reservationKeys(List<Long> accountNumbers) {
+		return accountNumbers.stream()
+				.map(accountNumber -> new MapSqlParameterSource("accountNumber", accountNumber))
+				.toArray(SqlParameterSource[]::new);
+	}
+
+	private SqlParameterSource reservationParameters(Long accountNumber, Timestamp reservedAt) {
+		return new MapSqlParameterSource()
+				.addValue("accountNumber", accountNumber)
+				.addValue("instanceId", instanceId)
+				.addValue("reservedAt", reservedAt);
+	}
+
+	private Reservation nextValid() {
+		Reservation reservation;
+		while ((reservation = pool.poll()) != null) {
+			if (reservation.isUsable()) {
+				return reservation;
+			}
+			expiredCounter.increment();
+		}
+		return null;
+	}
+
+	private Reservation awaitRefill() {
+		long start = System.nanoTime();
+		triggerRefill();
+		long deadline = start + properties.getTakeTimeout().toNanos();
+		try {
+			Reservation reservation;
+			long remaining;
+			while ((remaining = deadline - System.nanoTime()) > 0) {
+				reservation = pool.poll(remaining, TimeUnit.NANOSECONDS);
+				if (reservation == null) {
+					break;
+				}
+				if (reservation.isUsable()) {
+					return reservation;
+				}
+				expiredCounter.increment();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			stallTimer.record(Duration.ofNanos(System.nanoTime() - start));
+		}
+		exhaustedCounter.increment();
+		throw new BusinessException(
+				ErrorCode.GENERATION_FAILED,
+				"No reserved account number became available within " + properties.getTakeTimeout()
+		);
+	}
+
+	private void triggerRefill() {
+		if (!refillExecutor.isShutdown() && refillQueued.compareAndSet(false, true)) {
+			refillExecutor.execute(() -> {
+				try {
+					refill();
+				} finally {
+					refillQueued.set(false);
+				}
+			});
+		}
+	}
+
+	private record Reservation(long accountNumber, Instant usableUntil) {
+
+		boolean isUsable() {
+			return Instant.now().isBefore(usableUntil);
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.deebank.accountservice.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a single CSV record (RFC 4180 quoting, no embedded line breaks) into its fields.
+ */
+public final class CsvLine {
+
+	private static final char SEPARATOR = ',';
+	private static final char QUOTE = '"';
+
+	private CsvLine() {
+	}
+
+	/**
+	 * @param line One line of CSV input
+	 * @return The unquoted fields of the line
+	 * @throws IllegalArgumentException if a quoted field is not terminated
+	 */
+	public static List<String> split(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != QUOTE) {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+					// An escaped quote inside a quoted field
+					field.append(QUOTE);
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == QUOTE) {
+				quoted = true;
+			} else if (c == SEPARATOR) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("Unterminated quoted field");
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+}
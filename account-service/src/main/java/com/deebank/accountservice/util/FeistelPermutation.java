@@ -0,0 +1,71 @@
+package com.deebank.accountservice.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Keyed bijection on {@code [0, domainSize)} built from a balanced Feistel network with
+ * HMAC-SHA256 round functions. Values outside the domain are cycle-walked back into it,
+ * so every input maps to exactly one output and no two inputs share an output.
+ * <p>
+ * Not thread-safe: callers must serialize access.
+ */
+class FeistelPermutation {
+
+	private static final int ROUNDS = 4;
+	private static final String ALGORITHM = "HmacSHA256";
+
+	private final long domainSize;
+	private final int halfBits;
+	private final long halfMask;
+	private final Mac mac;
+	private final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + 1);
+
+	FeistelPermutation(long domainSize, byte[] key) {
+		if (domainSize < 2) {
+			throw new IllegalArgumentException("Domain size must be at least 2");
+		}
+		int bits = 64 - Long.numberOfLeadingZeros(domainSize - 1);
+		this.domainSize = domainSize;
+		this.halfBits = (bits + 1) / 2;
+		this.halfMask = (1L << halfBits) - 1;
+		try {
+			this.mac = Mac.getInstance(ALGORITHM);
+			this.mac.init(new SecretKeySpec(key, ALGORITHM));
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to initialise " + ALGORITHM, e);
+		}
+	}
+
+	long permute(long value) {
+		if (value < 0 || value >= domainSize) {
+			throw new IllegalArgumentException("Value " + value + " is outside of [0, " + domainSize + ")");
+		}
+		long result = value;
+		do {
+			result = encrypt(result);
+		} while (result >= domainSize);
+		return result;
+	}
+
+	private long encrypt(long value) {
+		long left = value >>> halfBits;
+		long right = value & halfMask;
+		for (int round = 0; round < ROUNDS; round++) {
+			long next = left ^ roundFunction(round, right);
+			left = right;
+			right = next;
+		}
+		return (left << halfBits) | right;
+	}
+
+	private long roundFunction(int round, long half) {
+		buffer.clear();
+		buffer.put((byte) round).putLong(half);
+		byte[] digest = mac.doFinal(buffer.array());
+		return ByteBuffer.wrap(digest).getLong() & halfMask;
+	}
+
+}
@@ -0,0 +1,174 @@
+package com.deebank.accountservice.util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Set of primitive {@code long} keys in a single open-addressed array with linear probing. Unlike a
+ * {@code HashSet<Long>} it allocates no node or box per key, so a lookup is a multiply and a scan of
+ * neighbouring array slots, and a key costs 8 to 16 bytes instead of about 50.
+ * <p>
+ * Zero marks an empty slot; a zero key is tracked in a separate flag. Not thread-safe.
+ */
+public final class LongHashSet {
+
+	// Golden-ratio multiplier; its high bits spread sequential IDs evenly over the table
+	private static final long PHI = 0x9E3779B97F4A7C15L;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private long[] keys;
+	private int shift;
+	private int mask;
+	private int size;
+	private int resizeAt;
+	private boolean containsZero;
+
+	public LongHashSet() {
+		this(16);
+	}
+
+	/**
+	 * @param expectedSize Number of keys the set can hold before it first grows
+	 */
+	public LongHashSet(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException("Expected size cannot be negative");
+		}
+		allocate(capacityFor(expectedSize));
+	}
+
+	/**
+	 * @return {@code true} if the key was not present yet
+	 */
+	public boolean add(long key) {
+		if (key == 0) {
+			boolean added = !containsZero;
+			containsZero = true;
+			return added;
+		}
+		int slot = slot(key);
+		while (keys[slot] != 0) {
+			if (keys[slot] == key) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = key;
+		if (++size > resizeAt) {
+			rehash(keys.length * 2);
+		}
+		return true;
+	}
+
+	public boolean contains(long key) {
+		if (key == 0) {
+			return containsZero;
+		}
+		int slot = slot(key);
+		long current;
+		while ((current = keys[slot]) != 0) {
+			if (current == key) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @return {@code true} if the key was present
+	 */
+	public boolean remove(long key) {
+		if (key == 0) {
+			boolean removed = containsZero;
+			containsZero = false;
+			return removed;
+		}
+		int slot = slot(key);
+		while (keys[slot] != key) {
+			if (keys[slot] == 0) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		// Shift later keys of the same probe run back into the gap instead of leaving a tombstone,
+		// so lookups never have to skip deleted slots
+		int gap = slot;
+		int next = slot;
+		while (true) {
+			next = (next + 1) & mask;
+			long candidate = keys[next];
+			if (candidate == 0) {
+				break;
+			}
+			int home = slot(candidate);
+			// The candidate may fill the gap unless its home slot lies cyclically after the gap
+			if (((next - home) & mask) >= ((next - gap) & mask)) {
+				keys[gap] = candidate;
+				gap = next;
+			}
+		}
+		keys[gap] = 0;
+		size--;
+		return true;
+	}
+
+	/**
+	 * Passes every key to the action, in no particular order. The set must not change meanwhile.
+	 */
+	public void forEach(LongConsumer action) {
+		if (containsZero) {
+			action.accept(0);
+		}
+		for (long key : keys) {
+			if (key != 0) {
+				action.accept(key);
+			}
+		}
+	}
+
+	public int size() {
+		return containsZero ? size + 1 : size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	private int slot(long key) {
+		return (int) ((key * PHI) >>> shift);
+	}
+
+	private static int capacityFor(int expectedSize) {
+		// Keep the table at most half full so probe runs stay short
+		long wanted = Math.max(4L, expectedSize * 2L);
+		if (wanted > MAX_CAPACITY) {
+			throw new IllegalArgumentException("Cannot hold " + expectedSize + " keys");
+		}
+		return Integer.highestOneBit((int) wanted - 1) << 1;
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		mask = capacity - 1;
+		shift = Long.numberOfLeadingZeros(mask);
+		resizeAt = capacity / 2;
+	}
+
+	private void rehash(int capacity) {
+		if (capacity > MAX_CAPACITY) {
+			throw new IllegalStateException("LongHashSet cannot grow beyond " + MAX_CAPACITY + " slots");
+		}
+		long[] previous = keys;
+		allocate(capacity);
+		for (long key : previous) {
+			if (key != 0) {
+				int slot = slot(key);
+				while (keys[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				keys[slot] = key;
+			}
+		}
+	}
+
+}
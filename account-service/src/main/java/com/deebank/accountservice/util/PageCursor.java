@@ -0,0 +1,56 @@
+package com.deebank.accountservice.util;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset continuation token: the sort direction and the last key of the previous page,
+ * Base64url encoded so clients do not depend on its layout.
+ */
+public record PageCursor(Sort.Direction direction, long lastKey) {
+
+	private static final String SEPARATOR = ":";
+
+	public String encode() {
+		String raw = direction.name().toLowerCase() + SEPARATOR + lastKey;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * @return the decoded cursor, or {@code null} when no token was supplied
+	 * @throws IllegalArgumentException if the token is malformed
+	 */
+	public static PageCursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.indexOf(SEPARATOR);
+			return new PageCursor(
+					Sort.Direction.fromString(raw.substring(0, separator)),
+					Long.parseLong(raw.substring(separator + 1))
+			);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Invalid page cursor: " + token);
+		}
+	}
+
+	/**
+	 * Resolves the sort direction from the request parameter and the cursor, rejecting a cursor
+	 * that was issued for the opposite direction.
+	 */
+	public static Sort.Direction resolveDirection(String sort, PageCursor cursor) {
+		Sort.Direction requested = sort == null || sort.isBlank() ? null : Sort.Direction.fromString(sort);
+		if (cursor == null) {
+			return requested != null ? requested : Sort.Direction.ASC;
+		}
+		if (requested != null && requested != cursor.direction()) {
+			throw new IllegalArgumentException("Sort direction does not match the page cursor");
+		}
+		return cursor.direction();
+	}
+
+}
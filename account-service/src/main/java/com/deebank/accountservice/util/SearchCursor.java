@@ -0,0 +1,46 @@
+package com.deebank.accountservice.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token of a ranked search: the score and customer ID of the last result of the
+ * previous page, which results are ordered by. Base64url encoded like {@link PageCursor}.
+ */
+public record SearchCursor(int score, long lastKey) {
+
+	private static final String SEPARATOR = ":";
+
+	public String encode() {
+		String raw = score + SEPARATOR + lastKey;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Whether a result ranks after this cursor: a lower score, or the same score and a higher key.
+	 */
+	public boolean precedes(int otherScore, long otherKey) {
+		return otherScore < score || (otherScore == score && otherKey > lastKey);
+	}
+
+	/**
+	 * @return the decoded cursor, or {@code null} when no token was supplied
+	 * @throws IllegalArgumentException if the token is malformed
+	 */
+	public static SearchCursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.indexOf(SEPARATOR);
+			return new SearchCursor(
+					Integer.parseInt(raw.substring(0, separator)),
+					Long.parseLong(raw.substring(separator + 1))
+			);
+		} catch (RuntimeException e) {
+			throw new IllegalArgumentException("Invalid search cursor: " + token);
+		}
+	}
+
+}
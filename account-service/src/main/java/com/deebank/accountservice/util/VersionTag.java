@@ -0,0 +1,52 @@
+package com.deebank.accountservice.util;
+
+import org.springframework.http.ETag;
+
+import java.util.List;
+
+/**
+ * Strong entity tags derived from the {@code version} of an entity: the version, quoted. Clients
+ * send them back in {@code If-None-Match} to revalidate a read and in {@code If-Match} to make a
+ * write conditional on the version they last saw.
+ */
+public final class VersionTag {
+
+	// Versions start at 0, so a conditional write expecting this one never matches
+	private static final long UNMATCHABLE_VERSION = -1L;
+
+	private VersionTag() {
+	}
+
+	/**
+	 * @return the entity tag of the version, or {@code null} when there is none
+	 */
+	public static String of(Long version) {
+		return version != null ? "\"" + version + "\"" : null;
+	}
+
+	/**
+	 * Reads the version an {@code If-Match} header requires. A single strong tag is supported; a weak
+	 * tag never matches, as If-Match uses strong comparison, and neither does a list of tags.
+	 *
+	 * @return the required version, or {@code null} when the header is absent or {@code *}, which any
+	 * existing version satisfies
+	 */
+	public static Long expectedVersion(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank()) {
+			return null;
+		}
+		List<ETag> tags = ETag.parse(ifMatch);
+		if (tags.stream().anyMatch(ETag::isWildcard)) {
+			return null;
+		}
+		if (tags.size() != 1 || tags.getFirst().weak()) {
+			return UNMATCHABLE_VERSION;
+		}
+		try {
+			return Long.parseLong(tags.getFirst().tag());
+		} catch (NumberFormatException e) {
+			return UNMATCHABLE_VERSION;
+		}
+	}
+
+}
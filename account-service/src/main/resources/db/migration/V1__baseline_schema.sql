@@ -0,0 +1,48 @@
+-- Schema as previously created by schema.sql, with ID columns widened to the bigint Hibernate validates against
+CREATE TABLE IF NOT EXISTS `customer` (
+  `customer_id` bigint PRIMARY KEY,
+  `name` varchar(100) NOT NULL,
+  `email` varchar(100) NOT NULL,
+  `mobile_number` varchar(20) NOT NULL,
+  `created_at` date NOT NULL,
+  `created_by` varchar(20) NOT NULL,
+  `updated_at` date DEFAULT NULL,
+    `updated_by` varchar(20) DEFAULT NULL
+);
+
+-- Customer IDs; must match allocationSize of the customer_seq generator on Customer
+CREATE SEQUENCE IF NOT EXISTS `customer_seq` START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS `accounts` (
+  `customer_id` bigint NOT NULL,
+   `account_number` bigint PRIMARY KEY,
+  `account_type` varchar(100) NOT NULL,
+  `branch_address` varchar(200) NOT NULL,
+  `created_at` date NOT NULL,
+   `created_by` varchar(20) NOT NULL,
+   `updated_at` date DEFAULT NULL,
+    `updated_by` varchar(20) DEFAULT NULL
+);
+
+-- Shared counter for AccountNumberGenerator PERMUTATION mode; each value reserves a block of 50
+CREATE SEQUENCE IF NOT EXISTS `account_number_seq` START WITH 0 MINVALUE 0 INCREMENT BY 50;
+
+-- Account numbers reserved by AccountNumberGenerator POOL mode, reclaimed once reserved_at is older than the lease
+CREATE TABLE IF NOT EXISTS `account_number_reservation` (
+  `account_number` bigint PRIMARY KEY,
+  `instance_id` varchar(64) NOT NULL,
+  `reserved_at` timestamp NOT NULL
+);
+
+-- Checkpoints of streaming customer imports; lines_processed counts input lines already committed
+CREATE TABLE IF NOT EXISTS `customer_import` (
+  `import_id` varchar(36) PRIMARY KEY,
+  `format` varchar(10) NOT NULL,
+  `status` varchar(20) NOT NULL,
+  `lines_processed` bigint NOT NULL,
+  `imported` bigint NOT NULL,
+  `rejected` bigint NOT NULL,
+  `last_error` varchar(500) DEFAULT NULL,
+  `started_at` timestamp NOT NULL,
+  `updated_at` timestamp NOT NULL
+);
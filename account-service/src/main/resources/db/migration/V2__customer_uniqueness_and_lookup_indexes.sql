@@ -0,0 +1,7 @@
+-- Email and mobile number uniqueness is enforced here; CustomerService inserts and updates optimistically
+-- and translates a violation of these constraints into ResourceAlreadyExistsException
+ALTER TABLE `customer` ADD CONSTRAINT `uk_customer_email` UNIQUE (`email`);
+ALTER TABLE `customer` ADD CONSTRAINT `uk_customer_mobile_number` UNIQUE (`mobile_number`);
+
+-- AccountRepository.findByCustomerId and the account-number lookups by customer
+CREATE INDEX `idx_accounts_customer_id` ON `accounts` (`customer_id`);
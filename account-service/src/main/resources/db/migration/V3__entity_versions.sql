@@ -0,0 +1,5 @@
+-- Optimistic locking version of BaseEntity, sent to clients as the ETag of the resource. A customer's
+-- version also moves when accounts are added to, moved from or removed from it, since its payload
+-- lists their account numbers
+ALTER TABLE `customer` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
+ALTER TABLE `accounts` ADD COLUMN `version` bigint NOT NULL DEFAULT 0;
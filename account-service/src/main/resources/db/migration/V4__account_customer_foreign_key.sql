@@ -0,0 +1,5 @@
+-- Accounts can only reference an existing customer, so a customer with accounts is known to exist and
+-- CustomerService.deleteCustomer cannot race an account insert. Backed by idx_accounts_customer_id;
+-- fails on a database that already holds accounts of deleted customers, which must be cleaned up first
+ALTER TABLE `accounts` ADD CONSTRAINT `fk_accounts_customer`
+  FOREIGN KEY (`customer_id`) REFERENCES `customer` (`customer_id`);
@@ -0,0 +1,36 @@
+-- Account types and branch addresses repeat verbatim on every account while only a handful of types and a
+-- few hundred branches exist. Each is now stored once and accounts reference it by a compact integer key,
+-- which shrinks the rows and the indexes on them. The dictionaries only ever grow; AccountDictionaries
+-- adds missing entries in a transaction of their own and keeps a copy in memory for the mapping
+CREATE TABLE IF NOT EXISTS `account_type` (
+  `account_type_id` smallint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  `name` varchar(100) NOT NULL,
+  CONSTRAINT `uk_account_type_name` UNIQUE (`name`)
+);
+
+CREATE TABLE IF NOT EXISTS `branch` (
+  `branch_id` int GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  `address` varchar(200) NOT NULL,
+  CONSTRAINT `uk_branch_address` UNIQUE (`address`)
+);
+
+INSERT INTO `account_type` (`name`) SELECT DISTINCT `account_type` FROM `accounts`;
+INSERT INTO `branch` (`address`) SELECT DISTINCT `branch_address` FROM `accounts`;
+
+ALTER TABLE `accounts` ADD COLUMN `account_type_id` smallint;
+ALTER TABLE `accounts` ADD COLUMN `branch_id` int;
+
+UPDATE `accounts` a SET
+  `account_type_id` = (SELECT t.`account_type_id` FROM `account_type` t WHERE t.`name` = a.`account_type`),
+  `branch_id` = (SELECT b.`branch_id` FROM `branch` b WHERE b.`address` = a.`branch_address`);
+
+ALTER TABLE `accounts` ALTER COLUMN `account_type_id` SET NOT NULL;
+ALTER TABLE `accounts` ALTER COLUMN `branch_id` SET NOT NULL;
+ALTER TABLE `accounts` DROP COLUMN `account_type`;
+ALTER TABLE `accounts` DROP COLUMN `branch_address`;
+
+-- Also reject a key that AccountDictionaries never handed out; the indexes backing them serve the type filter
+ALTER TABLE `accounts` ADD CONSTRAINT `fk_accounts_account_type`
+  FOREIGN KEY (`account_type_id`) REFERENCES `account_type` (`account_type_id`);
+ALTER TABLE `accounts` ADD CONSTRAINT `fk_accounts_branch`
+  FOREIGN KEY (`branch_id`) REFERENCES `branch` (`branch_id`);
@@ -0,0 +1,111 @@
+package com.deebank.accountservice.cache
+
+import com.deebank.accountservice.config.ExistenceIndexProperties
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.core.RowCallbackHandler
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+
+import java.sql.ResultSet
+
+class ExistenceIndexSpec extends Specification {
+
+    JdbcTemplate jdbcTemplate = Mock()
+    ExistenceIndexProperties properties = new ExistenceIndexProperties()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    ExistenceIndex index = new ExistenceIndex(jdbcTemplate, properties, meterRegistry)
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+    }
+
+    def "should know nothing until the tables have been scanned"() {
+        when:
+            index.customersCreated([1L])
+
+        then:
+            !index.customerExists(1L)
+    }
+
+    def "should answer from the scanned tables without a query"() {
+        when:
+            index.rebuild()
+
+        then:
+            1 * jdbcTemplate.query({ it.contains("FROM customer") }, _ as RowCallbackHandler) >> { args -> rows(args[1], 1L, 2L) }
+            1 * jdbcTemplate.query({ it.contains("FROM accounts") }, _ as RowCallbackHandler) >> { args -> rows(args[1], 1234567L) }
+
+        when:
+            def customerOne = index.customerExists(1L)
+            def customerThree = index.customerExists(3L)
+            def account = index.accountExists(1234567L)
+
+        then:
+            0 * jdbcTemplate._
+            customerOne
+            !customerThree
+            account
+            meterRegistry.get("deebank.existence.index.size").tag("kind", "customer").gauge().value() == 2
+    }
+
+    def "should apply creates and deletes only once the transaction commits"() {
+        given:
+            index.rebuild()
+            TransactionSynchronizationManager.initSynchronization()
+
+        when:
+            index.accountsCreated([1234567L])
+
+        then:
+            !index.accountExists(1234567L)
+
+        when:
+            TransactionSynchronizationManager.synchronizations*.afterCommit()
+            TransactionSynchronizationManager.clearSynchronization()
+
+        then:
+            index.accountExists(1234567L)
+
+        when:
+            index.accountDeleted(1234567L)
+
+        then:
+            !index.accountExists(1234567L)
+    }
+
+    def "should keep changes committed while a rebuild scans the tables"() {
+        when:
+            index.rebuild()
+
+        then:
+            1 * jdbcTemplate.query({ it.contains("FROM customer") }, _ as RowCallbackHandler) >> { args ->
+                // Committed concurrently, after the scan read the table
+                index.customersCreated([7L])
+                rows(args[1], 1L)
+            }
+            index.customerExists(1L)
+            index.customerExists(7L)
+    }
+
+    def "should not load or answer anything when disabled"() {
+        given:
+            properties.enabled = false
+
+        when:
+            index.rebuild()
+
+        then:
+            0 * jdbcTemplate._
+            !index.customerExists(1L)
+    }
+
+    private static void rows(RowCallbackHandler handler, Long... keys) {
+        keys.each { key ->
+            handler.processRow([getLong: { int column -> key }] as ResultSet)
+        }
+    }
+
+}
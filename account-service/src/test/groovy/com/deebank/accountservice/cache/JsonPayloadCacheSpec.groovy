@@ -0,0 +1,189 @@
+package com.deebank.accountservice.cache
+
+import com.deebank.accountservice.config.ReadCoalescingProperties
+import com.deebank.accountservice.config.ResponseCacheProperties
+import com.deebank.accountservice.dto.AccountDto
+import com.deebank.accountservice.dto.CustomerDto
+import com.deebank.accountservice.dto.ResponseDto
+import com.deebank.accountservice.event.AccountChangedEvent
+import com.deebank.accountservice.event.CustomerChangedEvent
+import com.deebank.accountservice.exception.ResourceNotFoundException
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+import tools.jackson.databind.ObjectMapper
+
+import java.time.LocalDate
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.Supplier
+
+class JsonPayloadCacheSpec extends Specification {
+
+    ObjectMapper objectMapper = new ObjectMapper()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    JsonPayloadCache cache = new JsonPayloadCache(objectMapper, new ResponseCacheProperties(),
+            new ReadCoalescingProperties(), meterRegistry)
+
+    AccountDto account = AccountDto.builder()
+            .accountNumber(1234567L)
+            .customerId(1L)
+            .accountType("Savings")
+            .branchAddress("123 Main St")
+            .createdAt(LocalDate.of(2024, 1, 15))
+            .createdBy("Account Service")
+            .build()
+
+    def "cached payload should serialize exactly like the DTO inside the response envelope"() {
+        when:
+            def cached = objectMapper.readTree(objectMapper.writeValueAsString(
+                    ResponseDto.success(cache.account(1234567L, { account }).json())))
+            def plain = objectMapper.readTree(objectMapper.writeValueAsString(ResponseDto.success(account)))
+
+        then:
+            cached.get("data") == plain.get("data")
+            cached.get("statusCode") == plain.get("statusCode")
+    }
+
+    def "the payload should carry the entity tag of its version"() {
+        given:
+            Supplier<Long> versionLoader = Mock()
+            account.version = 3L
+
+        when:
+            def payload = cache.account(1234567L, { account })
+
+        then:
+            payload.eTag() == '"3"'
+
+        when:
+            def eTag = cache.accountETag(1234567L, versionLoader)
+
+        then:
+            0 * versionLoader.get()
+            eTag == '"3"'
+    }
+
+    def "a miss should look up only the version and cache nothing"() {
+        given:
+            Supplier<AccountDto> loader = Mock()
+
+        when:
+            def eTag = cache.accountETag(1234567L, { 5L })
+            cache.account(1234567L, loader)
+
+        then:
+            eTag == '"5"'
+            1 * loader.get() >> account
+    }
+
+    def "a hit should not call the loader"() {
+        given:
+            Supplier<AccountDto> loader = Mock()
+
+        when:
+            def first = cache.account(1234567L, loader)
+            def second = cache.account(1234567L, loader)
+
+        then:
+            1 * loader.get() >> account
+            first.is(second)
+            meterRegistry.get("cache.gets").tag("cache", "json-payload").tag("result", "hit").functionCounter().count() == 1
+    }
+
+    def "a failing load should not be cached"() {
+        when:
+            cache.account(9999999L, { throw new ResourceNotFoundException("Account not found") })
+
+        then:
+            thrown(ResourceNotFoundException)
+
+        when:
+            def payload = cache.account(9999999L, { account })
+
+        then:
+            payload != null
+    }
+
+    def "account changes should evict the account and its customers"() {
+        given:
+            Supplier<AccountDto> accountLoader = Mock()
+            Supplier<CustomerDto> customerLoader = Mock()
+            cache.account(1234567L, { account })
+            cache.customer(1L, { CustomerDto.builder().customerId(1L).accountNumbers([1234567L]).build() })
+
+        when:
+            cache.onAccountChanged(AccountChangedEvent.of(1234567L, 1L))
+            cache.account(1234567L, accountLoader)
+            cache.customer(1L, customerLoader)
+
+        then:
+            1 * accountLoader.get() >> account
+            1 * customerLoader.get() >> CustomerDto.builder().customerId(1L).accountNumbers([]).build()
+    }
+
+    def "customer changes should evict only that customer"() {
+        given:
+            Supplier<CustomerDto> loader = Mock()
+            cache.customer(1L, { CustomerDto.builder().customerId(1L).build() })
+            cache.customer(2L, { CustomerDto.builder().customerId(2L).build() })
+
+        when:
+            cache.onCustomerChanged(new CustomerChangedEvent(1L))
+            cache.customer(1L, loader)
+            cache.customer(2L, loader)
+
+        then:
+            1 * loader.get() >> CustomerDto.builder().customerId(1L).build()
+    }
+
+    def "concurrent misses should share one load and be counted as coalesced reads"() {
+        given:
+            def executor = Executors.newVirtualThreadPerTaskExecutor()
+            def loads = new AtomicInteger()
+            def started = new CountDownLatch(1)
+            def release = new CountDownLatch(1)
+            def leader = executor.submit({
+                cache.customer(1L, {
+                    loads.incrementAndGet()
+                    started.countDown()
+                    release.await()
+                    CustomerDto.builder().customerId(1L).build()
+                })
+            } as Callable)
+            started.await()
+
+        when:
+            def followers = (1..10).collect {
+                executor.submit({ cache.customer(1L, { loads.incrementAndGet(); CustomerDto.builder().customerId(1L).build() }) } as Callable)
+            }
+            // Let the followers find the miss and join the load
+            Thread.sleep(150)
+            release.countDown()
+
+        then:
+            followers*.get().every { it.is(leader.get()) }
+            loads.get() == 1
+            meterRegistry.get("deebank.read.coalescing.requests").tag("read", "customer-payload").tag("outcome", "shared").counter().count() == 10
+
+        cleanup:
+            executor.shutdownNow()
+    }
+
+    def "a load overtaken by an invalidation should not be cached"() {
+        given:
+            Supplier<AccountDto> loader = Mock()
+
+        when:
+            cache.account(1234567L, {
+                // The account changes while it is being read
+                cache.onAccountChanged(AccountChangedEvent.of(1234567L, 1L))
+                account
+            })
+            cache.account(1234567L, loader)
+
+        then:
+            1 * loader.get() >> account
+    }
+}
@@ -0,0 +1,58 @@
+package com.deebank.accountservice.concurrency
+
+import com.deebank.accountservice.exception.BusinessException
+import com.deebank.accountservice.exception.ErrorCode
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import jakarta.servlet.DispatcherType
+import org.springframework.mock.web.MockHttpServletRequest
+import org.springframework.mock.web.MockHttpServletResponse
+import spock.lang.Specification
+
+import java.time.Duration
+
+class ConcurrencyLimitInterceptorSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    ConcurrencyLimitInterceptor interceptor = new ConcurrencyLimitInterceptor(2, Duration.ofMillis(20), meterRegistry)
+    MockHttpServletResponse response = new MockHttpServletResponse()
+
+    def "should reject requests beyond the limit until a permit is released"() {
+        given:
+            def first = new MockHttpServletRequest()
+            def second = new MockHttpServletRequest()
+
+        when:
+            interceptor.preHandle(first, response, null)
+            interceptor.preHandle(second, response, null)
+            interceptor.preHandle(new MockHttpServletRequest(), response, null)
+
+        then:
+            def ex = thrown(BusinessException)
+            ex.errorCode == ErrorCode.SERVICE_UNAVAILABLE
+            meterRegistry.get("deebank.concurrency.rejected").counter().count() == 1
+            meterRegistry.get("deebank.concurrency.in.flight").gauge().value() == 2
+
+        when:
+            interceptor.afterCompletion(first, response, null, null)
+            // Completion is idempotent: a second call must not hand out an extra permit
+            interceptor.afterCompletion(first, response, null, null)
+
+        then:
+            interceptor.preHandle(new MockHttpServletRequest(), response, null)
+            meterRegistry.get("deebank.concurrency.in.flight").gauge().value() == 2
+    }
+
+    def "should release the permit when a request goes asynchronous and not take one on the async dispatch"() {
+        given:
+            def request = new MockHttpServletRequest()
+
+        when:
+            interceptor.preHandle(request, response, null)
+            interceptor.afterConcurrentHandlingStarted(request, response, null)
+            request.dispatcherType = DispatcherType.ASYNC
+            interceptor.preHandle(request, response, null)
+
+        then:
+            meterRegistry.get("deebank.concurrency.in.flight").gauge().value() == 0
+    }
+}
@@ -0,0 +1,140 @@
+package com.deebank.accountservice.concurrency
+
+import com.deebank.accountservice.exception.BusinessException
+import com.deebank.accountservice.exception.ErrorCode
+import com.deebank.accountservice.exception.ResourceNotFoundException
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class SingleFlightSpec extends Specification {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    SingleFlight<Long, String> singleFlight = new SingleFlight<>("test", Duration.ofSeconds(5), meterRegistry)
+    def executor = Executors.newVirtualThreadPerTaskExecutor()
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    def "should run one load for concurrent callers of the same key and share its result"() {
+        given:
+            def loads = new AtomicInteger()
+            def started = new CountDownLatch(1)
+            def release = new CountDownLatch(1)
+            def leader = executor.submit({
+                singleFlight.load(1L, {
+                    loads.incrementAndGet()
+                    started.countDown()
+                    release.await()
+                    "customer 1"
+                })
+            } as Callable)
+            started.await()
+
+        when:
+            def followers = (1..20).collect {
+                executor.submit({ singleFlight.load(1L, { loads.incrementAndGet(); "loaded again" }) } as Callable)
+            }
+            waitForFollowers(20)
+            release.countDown()
+
+        then:
+            leader.get() == "customer 1"
+            followers*.get().every { it == "customer 1" }
+            loads.get() == 1
+            requests("loaded") == 1
+            requests("shared") == 20
+    }
+
+    def "should share the exception of the load"() {
+        given:
+            def started = new CountDownLatch(1)
+            def release = new CountDownLatch(1)
+            def leader = executor.submit({
+                singleFlight.load(1L, {
+                    started.countDown()
+                    release.await()
+                    throw new ResourceNotFoundException("Customer not found with id: 1")
+                })
+            } as Callable)
+            started.await()
+            def follower = executor.submit({ singleFlight.load(1L, { "unexpected" }) } as Callable)
+            waitForFollowers(1)
+
+        when:
+            release.countDown()
+            follower.get()
+
+        then:
+            def e = thrown(Exception)
+            e.cause instanceof ResourceNotFoundException
+    }
+
+    def "should not keep a completed result"() {
+        when:
+            def first = singleFlight.load(1L, { "first" })
+            def second = singleFlight.load(1L, { "second" })
+
+        then:
+            first == "first"
+            second == "second"
+            requests("loaded") == 2
+    }
+
+    def "should start a new load for callers arriving after the key was forgotten"() {
+        given:
+            def started = new CountDownLatch(1)
+            def release = new CountDownLatch(1)
+            def stale = executor.submit({
+                singleFlight.load(1L, { started.countDown(); release.await(); "before the write" })
+            } as Callable)
+            started.await()
+
+        when:
+            singleFlight.forget(1L)
+            def fresh = singleFlight.load(1L, { "after the write" })
+            release.countDown()
+
+        then:
+            fresh == "after the write"
+            stale.get() == "before the write"
+    }
+
+    def "should reject a caller whose wait runs out"() {
+        given:
+            def shortWait = new SingleFlight<Long, String>("short", Duration.ofMillis(50), meterRegistry)
+            def release = new CountDownLatch(1)
+            def started = new CountDownLatch(1)
+            def leader = executor.submit({ shortWait.load(1L, { started.countDown(); release.await(); "slow" }) } as Callable)
+            started.await()
+
+        when:
+            shortWait.load(1L, { "unexpected" })
+
+        then:
+            def e = thrown(BusinessException)
+            e.errorCode == ErrorCode.SERVICE_UNAVAILABLE
+            meterRegistry.get("deebank.read.coalescing.requests").tags("read", "short", "outcome", "timed_out").counter().count() == 1
+
+        cleanup:
+            release.countDown()
+            leader.get()
+    }
+
+    private double requests(String outcome) {
+        meterRegistry.get("deebank.read.coalescing.requests").tags("read", "test", "outcome", outcome).counter().count()
+    }
+
+    // Followers block inside CompletableFuture.get; give them time to get there before the leader completes
+    private static void waitForFollowers(int count) {
+        TimeUnit.MILLISECONDS.sleep(100 + count * 5)
+    }
+
+}
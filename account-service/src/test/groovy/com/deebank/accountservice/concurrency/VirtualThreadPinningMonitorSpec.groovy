@@ -0,0 +1,87 @@
+package com.deebank.accountservice.concurrency
+
+import groovy.transform.CompileStatic
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import spock.lang.Requires
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class VirtualThreadPinningMonitorSpec extends Specification {
+
+    // The frames every pinning event starts with, inside the JDK's parking code
+    static final List<String> PARK_FRAMES = [
+            "jdk.internal.misc.Unsafe.park:-1",
+            "java.lang.VirtualThread.parkOnCarrierThread:675",
+            "java.lang.VirtualThread.parkNanos:634",
+            "java.lang.VirtualThread.sleepNanos:791",
+            "java.lang.Thread.sleep:507"
+    ]
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(Duration.ZERO, meterRegistry)
+
+    def cleanup() {
+        monitor.close()
+    }
+
+    def "should tell call sites apart by their first frame outside the JDK"() {
+        when:
+            monitor.report(Duration.ofMillis(30), PARK_FRAMES + ["com.example.Ledger.post:42", "com.example.Api.call:7"])
+            monitor.report(Duration.ofMillis(30), PARK_FRAMES + ["com.example.Ledger.post:42", "com.example.Batch.run:9"])
+            monitor.report(Duration.ofMillis(30), PARK_FRAMES + ["com.example.Audit.write:13", "com.example.Api.call:7"])
+
+        then:
+            meterRegistry.get("deebank.virtual.threads.pinned.sites").counter().count() == 2
+    }
+
+    def "should fall back to the innermost frame when all are in the JDK"() {
+        when:
+            monitor.report(Duration.ofMillis(30), PARK_FRAMES)
+            monitor.report(Duration.ofMillis(30), PARK_FRAMES)
+
+        then:
+            meterRegistry.get("deebank.virtual.threads.pinned.sites").counter().count() == 1
+    }
+
+    // Virtual threads stopped pinning inside synchronized blocks in JDK 24
+    @Requires({ Runtime.version().feature() < 24 })
+    def "should report every site at which a virtual thread is pinned"() {
+        given:
+            monitor.start()
+            def conditions = new PollingConditions(timeout: 10)
+
+        when:
+            pinInFirstSite().join()
+            pinInSecondSite().join()
+
+        then:
+            conditions.eventually {
+                assert meterRegistry.get("deebank.virtual.threads.pinned.sites").counter().count() == 2
+            }
+            monitor.reportedSites.any { it.contains("pinInFirstSite") }
+            monitor.reportedSites.any { it.contains("pinInSecondSite") }
+    }
+
+    @CompileStatic
+    private static Thread pinInFirstSite() {
+        Object lock = new Object()
+        Thread.ofVirtual().start {
+            synchronized (lock) {
+                Thread.sleep(50)
+            }
+        }
+    }
+
+    @CompileStatic
+    private static Thread pinInSecondSite() {
+        Object lock = new Object()
+        Thread.ofVirtual().start {
+            synchronized (lock) {
+                Thread.sleep(50)
+            }
+        }
+    }
+
+}
@@ -1,8 +1,17 @@
 package com.deebank.accountservice.controller
 
 import com.deebank.accountservice.BaseIntSpec
+import com.deebank.accountservice.cache.JsonPayloadCache
 import com.deebank.accountservice.dto.AccountDto
 import com.deebank.accountservice.dto.AccountRequestDto
+import com.deebank.accountservice.dto.AccountStatsDto
+import com.deebank.accountservice.dto.BatchItemResultDto
+import com.deebank.accountservice.dto.BatchResultDto
+import com.deebank.accountservice.dto.LookupResultDto
+import com.deebank.accountservice.dto.PageDto
+import com.deebank.accountservice.exception.BusinessException
+import com.deebank.accountservice.exception.ErrorCode
+import com.deebank.accountservice.exception.PreconditionFailedException
 import com.deebank.accountservice.exception.ResourceNotFoundException
 import com.deebank.accountservice.service.AccountService
 import tools.jackson.databind.ObjectMapper
@@ -24,7 +33,12 @@ class AccountControllerIntSpec extends BaseIntSpec {
     @SpringBean
     AccountService accountService = Mock()
 
+    @Autowired
+    JsonPayloadCache jsonPayloadCache
+
     def setup() {
+        // Service mocks do not publish change events, so start every feature with an empty cache
+        jsonPayloadCache.clear()
         // Verify that Spring context is loaded and MockMvc is set up
         assert mockMvc != null : "MockMvc should be set up by base class"
         assert objectMapper != null : "ObjectMapper should be injected by Spring"
@@ -62,6 +76,69 @@ class AccountControllerIntSpec extends BaseIntSpec {
                     .andExpect(jsonPath('$.data.accountType').value("Savings"))
     }
 
+    def "POST /api/accounts/batch - should return per-item results"() {
+        given:
+            def requests = [
+                    new AccountRequestDto(customerId: 1L, accountType: "Savings", branchAddress: "123 Main St"),
+                    new AccountRequestDto(customerId: 999L, accountType: "Savings", branchAddress: "123 Main St")
+            ]
+            def result = BatchResultDto.of([
+                    BatchItemResultDto.success(0, AccountDto.builder().accountNumber(1234567L).customerId(1L).build()),
+                    BatchItemResultDto.<AccountDto>failure(1, "RESOURCE_NOT_FOUND", "Customer not found with id: 999")
+            ])
+
+        when:
+            def response = mockMvc.perform(
+                    post("/api/accounts/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(requests))
+            )
+
+        then:
+            1 * accountService.createAccounts({ it.size() == 2 }) >> result
+            response.andExpect(status().isOk())
+                    .andExpect(jsonPath('$.statusMsg').value("Batch processed: 1 created, 1 failed"))
+                    .andExpect(jsonPath('$.data.succeeded').value(1))
+                    .andExpect(jsonPath('$.data.results[0].data.accountNumber').value(1234567L))
+                    .andExpect(jsonPath('$.data.results[1].errorCode').value("RESOURCE_NOT_FOUND"))
+    }
+
+    def "POST /api/accounts/lookup - should return found and missing accounts"() {
+        given:
+            def result = LookupResultDto.<AccountDto>builder()
+                    .found([AccountDto.builder().accountNumber(1234567L).customerId(1L).build()])
+                    .missing([9999999L])
+                    .build()
+
+        when:
+            def response = mockMvc.perform(
+                    post("/api/accounts/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[1234567, 9999999]")
+            )
+
+        then:
+            1 * accountService.lookupAccounts([1234567L, 9999999L]) >> result
+            response.andExpect(status().isOk())
+                    .andExpect(jsonPath('$.statusMsg').value("Lookup processed: 1 found, 1 missing"))
+                    .andExpect(jsonPath('$.data.found[0].accountNumber').value(1234567L))
+                    .andExpect(jsonPath('$.data.missing[0]').value(9999999L))
+    }
+
+    def "POST /api/accounts/lookup - should return 400 for too many account numbers"() {
+        when:
+            def response = mockMvc.perform(
+                    post("/api/accounts/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[1234567]")
+            )
+
+        then:
+            1 * accountService.lookupAccounts(_) >> { throw new IllegalArgumentException("Lookup cannot contain more than 500 IDs") }
+            response.andExpect(status().isBadRequest())
+                    .andExpect(jsonPath('$.errorCode').value("INVALID_INPUT"))
+    }
+
     def "POST /api/accounts - should return 400 when validation fails"() {
         given:
             def requestDto = new AccountRequestDto(
@@ -102,6 +179,53 @@ class AccountControllerIntSpec extends BaseIntSpec {
                     .andExpect(jsonPath('$.data.accountNumber').value(1234567L))
     }
 
+    def "GET /api/accounts/{accountNumber} - should send the version as a strong ETag"() {
+        when:
+            def result = mockMvc.perform(get("/api/accounts/1234567"))
+
+        then:
+            1 * accountService.getAccount(1234567L) >> AccountDto.builder().accountNumber(1234567L).version(3L).build()
+            result.andExpect(status().isOk())
+                    .andExpect(header().string("ETag", '"3"'))
+                    .andExpect(jsonPath('$.data.version').value(3))
+    }
+
+    def "GET /api/accounts/{accountNumber} - should answer a matching If-None-Match from the version alone"() {
+        when:
+            def result = mockMvc.perform(get("/api/accounts/1234567").header("If-None-Match", '"3"'))
+
+        then:
+            1 * accountService.getAccountVersion(1234567L) >> 3L
+            0 * accountService.getAccount(_)
+            result.andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", '"3"'))
+                    .andExpect(content().string(""))
+    }
+
+    def "GET /api/accounts/{accountNumber} - should answer If-None-Match from the cached payload"() {
+        given:
+            1 * accountService.getAccount(1234567L) >> AccountDto.builder().accountNumber(1234567L).version(3L).build()
+            mockMvc.perform(get("/api/accounts/1234567")).andExpect(status().isOk())
+
+        when:
+            def result = mockMvc.perform(get("/api/accounts/1234567").header("If-None-Match", '"3"'))
+
+        then:
+            0 * accountService._
+            result.andExpect(status().isNotModified())
+    }
+
+    def "GET /api/accounts/{accountNumber} - should return the account when If-None-Match is stale"() {
+        when:
+            def result = mockMvc.perform(get("/api/accounts/1234567").header("If-None-Match", '"2"'))
+
+        then:
+            1 * accountService.getAccountVersion(1234567L) >> 3L
+            1 * accountService.getAccount(1234567L) >> AccountDto.builder().accountNumber(1234567L).version(3L).build()
+            result.andExpect(status().isOk())
+                    .andExpect(header().string("ETag", '"3"'))
+    }
+
     def "GET /api/accounts/{accountNumber} - should return 404 when account not found"() {
         when:
             def result = mockMvc.perform(get("/api/accounts/9999999"))
@@ -114,21 +238,84 @@ class AccountControllerIntSpec extends BaseIntSpec {
                     .andExpect(jsonPath('$.errorCode').value("RESOURCE_NOT_FOUND"))
     }
 
-    def "GET /api/accounts - should return all accounts"() {
+    def "GET /api/accounts - should return first page of accounts"() {
         given:
-            def accounts = [
-                    AccountDto.builder().accountNumber(1234567L).accountType("Savings").build(),
-                    AccountDto.builder().accountNumber(7654321L).accountType("Checking").build()
-            ]
+            def page = PageDto.builder()
+                    .items([
+                            AccountDto.builder().accountNumber(1234567L).accountType("Savings").build(),
+                            AccountDto.builder().accountNumber(7654321L).accountType("Checking").build()
+                    ])
+                    .size(2)
+                    .hasMore(false)
+                    .build()
 
         when:
             def result = mockMvc.perform(get("/api/accounts"))
 
         then:
-            1 * accountService.getAllAccounts() >> accounts
+            1 * accountService.getAccounts({ it.cursor == null && it.size == null }) >> page
             result.andExpect(status().isOk())
-                    .andExpect(jsonPath('$.data').isArray())
-                    .andExpect(jsonPath('$.data.length()').value(2))
+                    .andExpect(jsonPath('$.data.items').isArray())
+                    .andExpect(jsonPath('$.data.items.length()').value(2))
+                    .andExpect(jsonPath('$.data.hasMore').value(false))
+    }
+
+    def "GET /api/accounts - should pass cursor, sort and filters to the service"() {
+        when:
+            def result = mockMvc.perform(get("/api/accounts")
+                    .param("cursor", "ZGVzYzo3NjU0MzIx")
+                    .param("size", "10")
+                    .param("sort", "desc")
+                    .param("accountType", "Savings")
+                    .param("customerIdFrom", "1")
+                    .param("customerIdTo", "5"))
+
+        then:
+            1 * accountService.getAccounts({
+                it.cursor == "ZGVzYzo3NjU0MzIx" && it.size == 10 && it.sort == "desc" &&
+                        it.accountType == "Savings" && it.customerIdFrom == 1L && it.customerIdTo == 5L
+            }) >> PageDto.builder().items([]).size(0).hasMore(false).build()
+            result.andExpect(status().isOk())
+    }
+
+    def "GET /api/accounts - should return 400 for an invalid page size"() {
+        when:
+            def result = mockMvc.perform(get("/api/accounts").param("size", "0"))
+
+        then:
+            1 * accountService.getAccounts(_) >> { throw new IllegalArgumentException("Page size must be between 1 and 500") }
+            result.andExpect(status().isBadRequest())
+                    .andExpect(jsonPath('$.errorCode').value("INVALID_INPUT"))
+    }
+
+    def "GET /api/accounts/stats - should return account counts by type and branch"() {
+        given:
+            def stats = AccountStatsDto.builder()
+                    .totalAccounts(3L)
+                    .byAccountType(["Checking": 1L, "Savings": 2L])
+                    .byBranchAddress(["123 Main St": 3L])
+                    .build()
+
+        when:
+            def result = mockMvc.perform(get("/api/accounts/stats"))
+
+        then:
+            1 * accountService.getAccountStats() >> stats
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath('$.data.totalAccounts').value(3))
+                    .andExpect(jsonPath('$.data.byAccountType.Savings').value(2))
+                    .andExpect(jsonPath('$.data.byBranchAddress["123 Main St"]').value(3))
+    }
+
+    def "GET /api/accounts/stats - should return 503 while the statistics are being counted"() {
+        when:
+            def result = mockMvc.perform(get("/api/accounts/stats"))
+
+        then:
+            1 * accountService.getAccountStats() >> {
+                throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "Account statistics are still being counted, retry later")
+            }
+            result.andExpect(status().isServiceUnavailable())
     }
 
     def "GET /api/accounts/customer/{customerId} - should return accounts for customer"() {
@@ -168,7 +355,7 @@ class AccountControllerIntSpec extends BaseIntSpec {
             )
 
         then:
-            1 * accountService.updateAccount(1234567L, _) >> accountDto
+            1 * accountService.updateAccount(1234567L, _, null) >> accountDto
             result.andExpect(status().isOk())
                     .andExpect(jsonPath('$.data.accountType').value("Checking"))
     }
@@ -193,7 +380,7 @@ class AccountControllerIntSpec extends BaseIntSpec {
             )
 
         then:
-            1 * accountService.partialUpdateAccount(1234567L, _) >> accountDto
+            1 * accountService.partialUpdateAccount(1234567L, _, null) >> accountDto
             result.andExpect(status().isOk())
                     .andExpect(jsonPath('$.data.accountType').value("Investment"))
     }
@@ -203,9 +390,38 @@ class AccountControllerIntSpec extends BaseIntSpec {
             def result = mockMvc.perform(delete("/api/accounts/1234567"))
 
         then:
-            1 * accountService.deleteAccount(1234567L)
+            1 * accountService.deleteAccount(1234567L, null)
             result.andExpect(status().isOk())
                     .andExpect(jsonPath('$.statusMsg').value("Account deleted successfully"))
     }
-}
 
+    def "PUT /api/accounts/{accountNumber} - should pass the If-Match version and return the new ETag"() {
+        given:
+            def requestDto = new AccountRequestDto(customerId: 1L, accountType: "Checking", branchAddress: "456 Oak Ave")
+
+        when:
+            def result = mockMvc.perform(
+                    put("/api/accounts/1234567")
+                            .header("If-Match", '"3"')
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(requestDto))
+            )
+
+        then:
+            1 * accountService.updateAccount(1234567L, _, 3L) >> AccountDto.builder().accountNumber(1234567L).version(4L).build()
+            result.andExpect(status().isOk())
+                    .andExpect(header().string("ETag", '"4"'))
+    }
+
+    def "DELETE /api/accounts/{accountNumber} - should return 412 when If-Match no longer matches"() {
+        when:
+            def result = mockMvc.perform(delete("/api/accounts/1234567").header("If-Match", '"3"'))
+
+        then:
+            1 * accountService.deleteAccount(1234567L, 3L) >> {
+                throw new PreconditionFailedException("Account 1234567 is at version 4, not 3")
+            }
+            result.andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath('$.errorCode').value("PRECONDITION_FAILED"))
+    }
+}
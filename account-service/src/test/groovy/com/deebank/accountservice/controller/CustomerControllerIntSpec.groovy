@@ -1,11 +1,15 @@
 package com.deebank.accountservice.controller
 
 import com.deebank.accountservice.BaseIntSpec
+import com.deebank.accountservice.cache.JsonPayloadCache
 import com.deebank.accountservice.dto.CustomerDto
 import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.dto.LookupResultDto
+import com.deebank.accountservice.dto.PageDto
 import com.deebank.accountservice.exception.ResourceAlreadyExistsException
 import com.deebank.accountservice.exception.ResourceNotFoundException
 import com.deebank.accountservice.exception.OperationNotAllowedException
+import com.deebank.accountservice.exception.PreconditionFailedException
 import com.deebank.accountservice.service.CustomerService
 import tools.jackson.databind.ObjectMapper
 import org.spockframework.spring.SpringBean
@@ -26,6 +30,14 @@ class CustomerControllerIntSpec extends BaseIntSpec {
     @SpringBean
     CustomerService customerService = Mock()
 
+    @Autowired
+    JsonPayloadCache jsonPayloadCache
+
+    def setup() {
+        // Service mocks do not publish change events, so start every feature with an empty cache
+        jsonPayloadCache.clear()
+    }
+
     def "POST /api/customers - should create customer successfully"() {
         given:
             def requestDto = new CustomerRequestDto(
@@ -104,6 +116,64 @@ class CustomerControllerIntSpec extends BaseIntSpec {
                     .andExpect(jsonPath('$.validationErrors').isArray())
     }
 
+    def "POST /api/customers/lookup - should return found and missing customers"() {
+        given:
+            def result = LookupResultDto.<CustomerDto>builder()
+                    .found([CustomerDto.builder().customerId(1L).name("John Doe").accountNumbers([1234567L]).build()])
+                    .missing([2L])
+                    .build()
+
+        when:
+            def response = mockMvc.perform(
+                    post("/api/customers/lookup")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("[1, 2]")
+            )
+
+        then:
+            1 * customerService.lookupCustomers([1L, 2L]) >> result
+            response.andExpect(status().isOk())
+                    .andExpect(jsonPath('$.statusMsg').value("Lookup processed: 1 found, 1 missing"))
+                    .andExpect(jsonPath('$.data.found[0].accountNumbers[0]').value(1234567L))
+                    .andExpect(jsonPath('$.data.missing[0]').value(2L))
+    }
+
+    def "GET /api/customers/search - should pass the criteria to the service"() {
+        given:
+            def page = PageDto.builder()
+                    .items([CustomerDto.builder().customerId(3L).name("Ann Lee").build()])
+                    .size(1)
+                    .hasMore(true)
+                    .nextCursor("Mzoz")
+                    .build()
+
+        when:
+            def result = mockMvc.perform(get("/api/customers/search")
+                    .param("name", "ann")
+                    .param("emailDomain", "example.com")
+                    .param("mobileNumber", "81")
+                    .param("size", "1"))
+
+        then:
+            1 * customerService.searchCustomers({
+                it.name == "ann" && it.emailDomain == "example.com" && it.mobileNumber == "81" && it.size == 1 && it.cursor == null
+            }) >> page
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath('$.data.items[0].customerId').value(3))
+                    .andExpect(jsonPath('$.data.hasMore').value(true))
+                    .andExpect(jsonPath('$.data.nextCursor').value("Mzoz"))
+    }
+
+    def "GET /api/customers/search - should return 400 without a criterion"() {
+        when:
+            def result = mockMvc.perform(get("/api/customers/search"))
+
+        then:
+            1 * customerService.searchCustomers(_) >> { throw new IllegalArgumentException("Search needs a name, email domain or mobile number") }
+            result.andExpect(status().isBadRequest())
+                    .andExpect(jsonPath('$.errorCode').value("INVALID_INPUT"))
+    }
+
     def "GET /api/customers/{customerId} - should return customer successfully"() {
         given:
             def customerDto = CustomerDto.builder()
@@ -124,6 +194,17 @@ class CustomerControllerIntSpec extends BaseIntSpec {
                     .andExpect(jsonPath('$.data.name').value("John Doe"))
     }
 
+    def "GET /api/customers/{customerId} - should answer a matching If-None-Match from the version alone"() {
+        when:
+            def result = mockMvc.perform(get("/api/customers/1").header("If-None-Match", '"7"'))
+
+        then:
+            1 * customerService.getCustomerVersion(1L) >> 7L
+            0 * customerService.getCustomer(_)
+            result.andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", '"7"'))
+    }
+
     def "GET /api/customers/{customerId} - should return 404 when customer not found"() {
         when:
             def result = mockMvc.perform(get("/api/customers/999"))
@@ -136,22 +217,43 @@ class CustomerControllerIntSpec extends BaseIntSpec {
                     .andExpect(jsonPath('$.errorCode').value("RESOURCE_NOT_FOUND"))
     }
 
-    def "GET /api/customers - should return all customers"() {
+    def "GET /api/customers - should return first page of customers"() {
         given:
-            def customers = [
-                    CustomerDto.builder().customerId(1L).name("John Doe").build(),
-                    CustomerDto.builder().customerId(2L).name("Jane Doe").build()
-            ]
+            def page = PageDto.builder()
+                    .items([
+                            CustomerDto.builder().customerId(1L).name("John Doe").build(),
+                            CustomerDto.builder().customerId(2L).name("Jane Doe").build()
+                    ])
+                    .size(2)
+                    .hasMore(true)
+                    .nextCursor("YXNjOjI")
+                    .build()
 
         when:
-            def result = mockMvc.perform(get("/api/customers"))
+            def result = mockMvc.perform(get("/api/customers").param("size", "2"))
 
         then:
-            1 * customerService.getAllCustomers() >> customers
+            1 * customerService.getCustomers({ it.size == 2 && it.cursor == null }) >> page
             result.andExpect(status().isOk())
                     .andExpect(jsonPath('$.statusCode').value("200"))
-                    .andExpect(jsonPath('$.data').isArray())
-                    .andExpect(jsonPath('$.data.length()').value(2))
+                    .andExpect(jsonPath('$.data.items').isArray())
+                    .andExpect(jsonPath('$.data.items.length()').value(2))
+                    .andExpect(jsonPath('$.data.hasMore').value(true))
+                    .andExpect(jsonPath('$.data.nextCursor').value("YXNjOjI"))
+    }
+
+    def "GET /api/customers - should pass cursor and filters to the service"() {
+        when:
+            def result = mockMvc.perform(get("/api/customers")
+                    .param("cursor", "YXNjOjI")
+                    .param("customerIdFrom", "1")
+                    .param("customerIdTo", "10"))
+
+        then:
+            1 * customerService.getCustomers({ it.cursor == "YXNjOjI" && it.customerIdFrom == 1L && it.customerIdTo == 10L }) >>
+                    PageDto.builder().items([]).size(0).hasMore(false).build()
+            result.andExpect(status().isOk())
+                    .andExpect(jsonPath('$.data.items.length()').value(0))
     }
 
     def "PUT /api/customers/{customerId} - should update customer successfully"() {
@@ -176,7 +278,7 @@ class CustomerControllerIntSpec extends BaseIntSpec {
             )
 
         then:
-            1 * customerService.updateCustomer(1L, _) >> customerDto
+            1 * customerService.updateCustomer(1L, _, null) >> customerDto
             result.andExpect(status().isOk())
                     .andExpect(jsonPath('$.statusCode').value("200"))
                     .andExpect(jsonPath('$.data.name').value("John Updated"))
@@ -204,7 +306,7 @@ class CustomerControllerIntSpec extends BaseIntSpec {
             )
 
         then:
-            1 * customerService.partialUpdateCustomer(1L, _) >> customerDto
+            1 * customerService.partialUpdateCustomer(1L, _, null) >> customerDto
             result.andExpect(status().isOk())
                     .andExpect(jsonPath('$.data.name').value("John Patched"))
     }
@@ -214,7 +316,7 @@ class CustomerControllerIntSpec extends BaseIntSpec {
             def result = mockMvc.perform(delete("/api/customers/1"))
 
         then:
-            1 * customerService.deleteCustomer(1L)
+            1 * customerService.deleteCustomer(1L, null)
             result.andExpect(status().isOk())
                     .andExpect(jsonPath('$.statusCode').value("200"))
                     .andExpect(jsonPath('$.statusMsg').value("Customer deleted successfully"))
@@ -225,11 +327,27 @@ class CustomerControllerIntSpec extends BaseIntSpec {
             def result = mockMvc.perform(delete("/api/customers/1"))
 
         then:
-            1 * customerService.deleteCustomer(1L) >> {
+            1 * customerService.deleteCustomer(1L, null) >> {
                 throw new OperationNotAllowedException("Cannot delete customer with id 1 because they have associated accounts")
             }
             result.andExpect(status().isBadRequest())
                     .andExpect(jsonPath('$.errorCode').value("OPERATION_NOT_ALLOWED"))
     }
-}
 
+    def "PATCH /api/customers/{customerId} - should return 412 when If-Match no longer matches"() {
+        when:
+            def result = mockMvc.perform(
+                    patch("/api/customers/1")
+                            .header("If-Match", '"7"')
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content('{"name":"John Patched"}')
+            )
+
+        then:
+            1 * customerService.partialUpdateCustomer(1L, _, 7L) >> {
+                throw new PreconditionFailedException("Customer 1 is at version 8, not 7")
+            }
+            result.andExpect(status().isPreconditionFailed())
+                    .andExpect(jsonPath('$.errorCode').value("PRECONDITION_FAILED"))
+    }
+}
@@ -0,0 +1,177 @@
+package com.deebank.accountservice.dictionary
+
+import org.springframework.dao.DuplicateKeyException
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.core.RowCallbackHandler
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.TransactionDefinition
+import org.springframework.transaction.support.SimpleTransactionStatus
+import spock.lang.Specification
+
+import java.sql.ResultSet
+import java.time.Duration
+import java.util.concurrent.Callable
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+class ValueDictionarySpec extends Specification {
+
+    JdbcTemplate jdbcTemplate = Mock()
+    PlatformTransactionManager transactionManager = Mock()
+    ValueDictionary dictionary = dictionary(Duration.ZERO)
+    // Rows of the dictionary table: key, value
+    List<List> table = []
+
+    def setup() {
+        jdbcTemplate.query({ it.startsWith("SELECT") }, _ as RowCallbackHandler) >> { args -> rows(args[1], table) }
+    }
+
+    def "should look up both ways without a query once loaded"() {
+        given:
+            table << [1, "Savings"] << [2, "Checking"]
+            dictionary.keyOf("Savings")
+
+        when:
+            def key = dictionary.keyOf("Checking")
+            def value = dictionary.valueOf(1)
+
+        then:
+            0 * jdbcTemplate._
+            key.asInt == 2
+            value == "Savings"
+            dictionary.size() == 2
+    }
+
+    def "should reload for a value or key added by another instance"() {
+        given:
+            table << [1, "Savings"]
+            dictionary.keyOf("Savings")
+            table << [2, "Checking"]
+
+        expect:
+            dictionary.valueOf(2) == "Checking"
+            dictionary.keyOf("Checking").asInt == 2
+            dictionary.keyOf("Current").empty
+    }
+
+    def "should answer a value known to be absent without a query"() {
+        given:
+            dictionary = dictionary(Duration.ofMinutes(1))
+            table << [1, "Savings"]
+
+        when:
+            def first = dictionary.keyOf("Current")
+
+        then:
+            1 * jdbcTemplate.query(_, _ as RowCallbackHandler) >> { args -> rows(args[1], table) }
+            first.empty
+
+        when:
+            def again = (1..100).collect { dictionary.keyOf("Current") }
+            def other = dictionary.keyOf("Deposit")
+
+        then:
+            // Within the interval neither the same nor another unknown value reloads the table
+            0 * jdbcTemplate._
+            again.every { it.empty }
+            other.empty
+    }
+
+    def "should let one of many concurrent misses reload the table"() {
+        given:
+            dictionary = dictionary(Duration.ofMinutes(1))
+            def loading = new CountDownLatch(1)
+            def release = new CountDownLatch(1)
+            def executor = Executors.newFixedThreadPool(8)
+
+        when:
+            def reloading = executor.submit({ dictionary.keyOf("Current") } as Callable)
+            loading.await(5, TimeUnit.SECONDS)
+            def others = (1..7).collect { executor.submit({ dictionary.keyOf("Current $it") } as Callable) }
+            // The others answer from the copy in memory instead of queuing behind the reload
+            def answered = others*.get(5, TimeUnit.SECONDS)
+            release.countDown()
+            reloading.get(5, TimeUnit.SECONDS)
+
+        then:
+            1 * jdbcTemplate.query(_, _ as RowCallbackHandler) >> {
+                loading.countDown()
+                release.await(5, TimeUnit.SECONDS)
+            }
+            answered.every { it.empty }
+
+        cleanup:
+            executor.shutdown()
+    }
+
+    def "should hand out one instance per value"() {
+        given:
+            table << [1, new String("Savings")]
+
+        expect:
+            dictionary.valueOf(1).is(dictionary.valueOf(1))
+            dictionary.valueOf(dictionary.keyOf(new String("Savings")).asInt).is(dictionary.valueOf(1))
+    }
+
+    def "should reject a key the table does not have"() {
+        when:
+            dictionary.valueOf(7)
+
+        then:
+            thrown(IllegalStateException)
+    }
+
+    def "should add a new value in a transaction of its own"() {
+        when:
+            def key = dictionary.register("Savings")
+
+        then:
+            1 * transactionManager.getTransaction({ it.propagationBehavior == TransactionDefinition.PROPAGATION_REQUIRES_NEW }) >>
+                    new SimpleTransactionStatus()
+            1 * jdbcTemplate.update({ it.startsWith("INSERT INTO account_type") }, "Savings") >> {
+                table << [1, "Savings"]
+                1
+            }
+            1 * transactionManager.commit(_)
+            key == 1
+
+        when:
+            key = dictionary.register("Savings")
+
+        then:
+            0 * transactionManager._
+            0 * jdbcTemplate._
+            key == 1
+    }
+
+    def "should take the key of a value another instance added meanwhile"() {
+        given:
+            transactionManager.getTransaction(_) >> new SimpleTransactionStatus()
+
+        when:
+            def key = dictionary.register("Savings")
+
+        then:
+            1 * jdbcTemplate.update(_, "Savings") >> {
+                table << [3, "Savings"]
+                throw new DuplicateKeyException("uk_account_type_name")
+            }
+            key == 3
+    }
+
+    private ValueDictionary dictionary(Duration minReloadInterval) {
+        new ValueDictionary("account type", "account_type", "account_type_id", "name",
+                jdbcTemplate, transactionManager, minReloadInterval)
+    }
+
+    private static void rows(RowCallbackHandler handler, List<List> entries) {
+        entries.each { entry ->
+            handler.processRow([
+                    getInt   : { int column -> entry[0] },
+                    getString: { int column -> entry[1] }
+            ] as ResultSet)
+        }
+    }
+
+}
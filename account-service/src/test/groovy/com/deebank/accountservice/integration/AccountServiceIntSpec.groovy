@@ -153,5 +153,29 @@ class AccountServiceIntSpec extends Specification {
         then:
             thrown(ResourceNotFoundException)
     }
-}
 
+    def "should create a batch of accounts and report missing customers per item"() {
+        given:
+            def customer = customerService.createCustomer(new CustomerRequestDto(
+                    name: "Batch Customer",
+                    email: "batch@test.com",
+                    mobileNumber: "83333333"
+            ))
+            def requests = (1..120).collect {
+                new AccountRequestDto(customerId: customer.customerId, accountType: "Savings", branchAddress: "Batch Street " + it)
+            }
+            requests << new AccountRequestDto(customerId: 999999L, accountType: "Savings", branchAddress: "Nowhere")
+
+        when:
+            def result = accountService.createAccounts(requests)
+
+        then:
+            result.total == 121
+            result.succeeded == 120
+            result.failed == 1
+            result.results[120].errorCode == "RESOURCE_NOT_FOUND"
+            result.results.findAll { it.success }*.data*.createdBy.every { it == "Account Service" }
+            accountService.getAccountsByCustomerId(customer.customerId)*.accountNumber as Set ==
+                    result.results.findAll { it.success }*.data*.accountNumber as Set
+    }
+}
@@ -0,0 +1,147 @@
+package com.deebank.accountservice.integration
+
+import com.deebank.accountservice.BaseIntSpec
+import com.deebank.accountservice.cache.JsonPayloadCache
+import com.deebank.accountservice.dto.AccountRequestDto
+import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.service.AccountService
+import com.deebank.accountservice.service.CustomerService
+import com.deebank.accountservice.sql.SqlStatementBudgetInterceptor
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.http.MediaType
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+/**
+ * ETags, If-None-Match and If-Match against the real services and database.
+ */
+class ConditionalRequestIntSpec extends BaseIntSpec {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger()
+
+    @Autowired
+    CustomerService customerService
+
+    @Autowired
+    AccountService accountService
+
+    @Autowired
+    JsonPayloadCache jsonPayloadCache
+
+    def "an unchanged account should be revalidated with a version lookup and no payload"() {
+        given:
+            def accountNumber = createAccount(createCustomer())
+            def eTag = mockMvc.perform(get("/api/accounts/" + accountNumber)).andReturn().response.getHeader("ETag")
+            jsonPayloadCache.clear()
+
+        when:
+            def recording = SqlStatementBudgetInterceptor.record()
+            def response
+            try {
+                response = mockMvc.perform(get("/api/accounts/" + accountNumber).header("If-None-Match", eTag))
+                        .andExpect(status().isNotModified())
+                        .andReturn().response
+            } finally {
+                recording.close()
+            }
+
+        then:
+            eTag == '"0"'
+            response.contentAsString.isEmpty()
+            recording.usages.first().statements() == 1
+    }
+
+    def "an update should change the ETag so the old one no longer revalidates"() {
+        given:
+            def accountNumber = createAccount(createCustomer())
+            def eTag = mockMvc.perform(get("/api/accounts/" + accountNumber)).andReturn().response.getHeader("ETag")
+
+        when:
+            def updated = mockMvc.perform(patch("/api/accounts/" + accountNumber).header("If-Match", eTag)
+                    .contentType(MediaType.APPLICATION_JSON).content('{"branchAddress":"2 Tag Street"}'))
+                    .andExpect(status().isOk())
+                    .andReturn().response.getHeader("ETag")
+
+        then:
+            updated == '"1"'
+            mockMvc.perform(get("/api/accounts/" + accountNumber).header("If-None-Match", eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", updated))
+            mockMvc.perform(get("/api/accounts/" + accountNumber).header("If-None-Match", updated))
+                    .andExpect(status().isNotModified())
+    }
+
+    def "a write based on an outdated ETag should fail with 412 and change nothing"() {
+        given:
+            def customerId = createCustomer()
+            def accountNumber = createAccount(customerId)
+            accountService.partialUpdateAccount(accountNumber, new AccountRequestDto(branchAddress: "2 Tag Street"))
+
+        expect:
+            mockMvc.perform(put("/api/accounts/" + accountNumber).header("If-Match", '"0"')
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("""{"customerId":${customerId},"accountType":"Checking","branchAddress":"3 Tag Street"}"""))
+                    .andExpect(status().isPreconditionFailed())
+            mockMvc.perform(delete("/api/accounts/" + accountNumber).header("If-Match", '"0"'))
+                    .andExpect(status().isPreconditionFailed())
+            with(accountService.getAccount(accountNumber)) {
+                branchAddress == "2 Tag Street"
+                version == 1L
+            }
+            mockMvc.perform(delete("/api/accounts/" + accountNumber).header("If-Match", '"1"'))
+                    .andExpect(status().isOk())
+    }
+
+    def "a customer's ETag should change when its list of accounts does"() {
+        given:
+            def customerId = createCustomer()
+            def eTag = mockMvc.perform(get("/api/customers/" + customerId)).andReturn().response.getHeader("ETag")
+
+        when:
+            createAccount(customerId)
+
+        then:
+            mockMvc.perform(get("/api/customers/" + customerId).header("If-None-Match", eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", '"1"'))
+    }
+
+    def "a customer update with a matching If-Match should succeed and one with a stale tag should not"() {
+        given:
+            def customerId = createCustomer()
+
+        expect:
+            mockMvc.perform(patch("/api/customers/" + customerId).header("If-Match", '"0"')
+                    .contentType(MediaType.APPLICATION_JSON).content('{"name":"Tag Renamed"}'))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", '"1"'))
+            mockMvc.perform(patch("/api/customers/" + customerId).header("If-Match", '"0"')
+                    .contentType(MediaType.APPLICATION_JSON).content('{"name":"Tag Renamed Again"}'))
+                    .andExpect(status().isPreconditionFailed())
+            customerService.getCustomer(customerId).name == "Tag Renamed"
+    }
+
+    private Long createCustomer() {
+        def index = SEQUENCE.incrementAndGet()
+        customerService.createCustomer(new CustomerRequestDto(
+                name: "Tag " + index,
+                email: "tag" + index + "@test.com",
+                mobileNumber: String.valueOf(97000000 + index)
+        )).customerId
+    }
+
+    private Long createAccount(Long customerId) {
+        accountService.createAccount(new AccountRequestDto(
+                customerId: customerId,
+                accountType: "Savings",
+                branchAddress: "1 Tag Street"
+        )).accountNumber
+    }
+}
@@ -0,0 +1,112 @@
+package com.deebank.accountservice.integration
+
+import com.deebank.accountservice.config.CustomerImportProperties
+import com.deebank.accountservice.entity.CustomerImport
+import com.deebank.accountservice.repository.CustomerImportRepository
+import com.deebank.accountservice.repository.CustomerRepository
+import com.deebank.accountservice.service.CustomerImportService
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.ContextConfiguration
+import spock.lang.Specification
+
+import java.nio.charset.StandardCharsets
+
+/**
+ * Not transactional: every chunk of an import commits on its own, which is what resuming relies on.
+ */
+@SpringBootTest
+@ContextConfiguration(classes = [com.deebank.accountservice.AccountServiceApplication])
+@ActiveProfiles("test")
+class CustomerImportIntSpec extends Specification {
+
+    @Autowired
+    CustomerImportService customerImportService
+
+    @Autowired
+    CustomerImportProperties customerImportProperties
+
+    @Autowired
+    CustomerRepository customerRepository
+
+    @Autowired
+    CustomerImportRepository customerImportRepository
+
+    int originalChunkSize
+
+    def setup() {
+        originalChunkSize = customerImportProperties.chunkSize
+        customerImportProperties.chunkSize = 2
+    }
+
+    def cleanup() {
+        customerImportProperties.chunkSize = originalChunkSize
+        customerRepository.deleteAll(customerRepository.findAll().findAll { it.email.startsWith("import") })
+        customerImportRepository.deleteAll()
+    }
+
+    def "should import CSV in chunks and report rejected lines"() {
+        given:
+            def csv = """name,email,mobileNumber
+                |"Doe, Jane",import1@test.com,91000001
+                |John,import2@test.com,91000002
+                |Bad Mobile,import3@test.com,123
+                |
+                |Duplicate,import1@test.com,91000004
+                |Unterminated,"import5@test.com,91000005
+                |""".stripMargin()
+
+        when:
+            def result = customerImportService.importCustomers(stream(csv), CustomerImport.Format.CSV, null)
+
+        then:
+            result.status == "COMPLETED"
+            result.linesProcessed == 6
+            result.imported == 2
+            result.rejected == 3
+            result.errors.any { it.startsWith("line 4: mobileNumber") }
+            result.errors.contains("line 6: Customer with email import1@test.com already exists")
+            result.errors.contains("line 7: Unterminated quoted field")
+            customerRepository.findByEmail("import1@test.com").get().name == "Doe, Jane"
+    }
+
+    def "should resume a failed NDJSON import after the last committed chunk"() {
+        given:
+            def lines = (1..5).collect { """{"name":"Customer $it","email":"import$it@test.com","mobileNumber":"9200000$it"}""" }
+            def ndjson = lines.join("\n")
+
+        when: "the connection drops after the third line"
+            customerImportService.importCustomers(failingAfter(lines.take(3).join("\n") + "\n"), CustomerImport.Format.NDJSON, null)
+
+        then:
+            thrown(IOException)
+            def failed = customerImportRepository.findAll().first()
+            failed.status == CustomerImport.Status.FAILED
+            failed.linesProcessed == 2
+            failed.imported == 2
+
+        when: "the same input is uploaded again"
+            def result = customerImportService.importCustomers(stream(ndjson), CustomerImport.Format.NDJSON, failed.importId)
+
+        then:
+            result.status == "COMPLETED"
+            result.linesProcessed == 5
+            result.imported == 5
+            result.rejected == 0
+            customerRepository.findAll().count { it.email.startsWith("import") } == 5
+    }
+
+    private static InputStream stream(String content) {
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))
+    }
+
+    private static InputStream failingAfter(String content) {
+        new SequenceInputStream(stream(content), new InputStream() {
+            @Override
+            int read() throws IOException {
+                throw new IOException("Connection reset")
+            }
+        })
+    }
+}
@@ -0,0 +1,172 @@
+package com.deebank.accountservice.integration
+
+import com.deebank.accountservice.dto.AccountRequestDto
+import com.deebank.accountservice.dto.CustomerPageRequestDto
+import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.service.AccountService
+import com.deebank.accountservice.service.CustomerService
+import jakarta.persistence.EntityManager
+import jakarta.persistence.EntityManagerFactory
+import org.hibernate.SessionFactory
+import org.hibernate.stat.Statistics
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.annotation.Transactional
+import spock.lang.Specification
+
+@SpringBootTest
+@ContextConfiguration(classes = [com.deebank.accountservice.AccountServiceApplication])
+@ActiveProfiles("test")
+@Transactional
+class CustomerQueryCountIntSpec extends Specification {
+
+    @Autowired
+    CustomerService customerService
+
+    @Autowired
+    AccountService accountService
+
+    @Autowired
+    EntityManager entityManager
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    Statistics statistics
+
+    def setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory).statistics
+    }
+
+    def "should read a page of customers with two queries regardless of page size"() {
+        given:
+            def customerIds = createCustomersWithAccounts(customerCount)
+            resetStatistics()
+
+        when:
+            def page = customerService.getCustomers(new CustomerPageRequestDto(
+                    size: 50, customerIdFrom: customerIds.min(), customerIdTo: customerIds.max()))
+
+        then:
+            page.items.size() == customerCount
+            page.items.every { it.accountNumbers.size() == 2 }
+            statistics.prepareStatementCount == 2
+
+        where:
+            customerCount << [1, 5, 20]
+    }
+
+    def "should read a single customer with two queries"() {
+        given:
+            def customerId = createCustomersWithAccounts(1).first()
+            resetStatistics()
+
+        when:
+            def customer = customerService.getCustomer(customerId)
+
+        then:
+            customer.accountNumbers.size() == 2
+            statistics.prepareStatementCount == 2
+    }
+
+    def "should look up many customers with two queries and many accounts with one"() {
+        given:
+            def customerIds = createCustomersWithAccounts(5)
+            def accountNumbers = customerIds.collectMany { accountService.getAccountsByCustomerId(it)*.accountNumber }
+            entityManager.clear()
+            resetStatistics()
+
+        when:
+            def customers = customerService.lookupCustomers(customerIds + [Long.MAX_VALUE])
+            def customerStatements = statistics.prepareStatementCount
+            def accounts = accountService.lookupAccounts(accountNumbers + [1L])
+
+        then:
+            customers.found*.customerId == customerIds
+            customers.found.every { it.accountNumbers.size() == 2 }
+            customers.missing == [Long.MAX_VALUE]
+            customerStatements == 2
+            accounts.found*.accountNumber == accountNumbers
+            accounts.missing == [1L]
+            statistics.prepareStatementCount == 3
+    }
+
+    def "should list the accounts of a customer with one query and no existence check"() {
+        given:
+            def customerId = createCustomersWithAccounts(1).first()
+            resetStatistics()
+
+        when:
+            def accounts = accountService.getAccountsByCustomerId(customerId)
+
+        then:
+            accounts.size() == 2
+            statistics.prepareStatementCount == 1
+    }
+
+    def "should update an account with one statement and read the new state back"() {
+        given:
+            def customerId = createCustomersWithAccounts(1).first()
+            def accountNumber = accountService.getAccountsByCustomerId(customerId).first().accountNumber
+            // Load the account into the persistence context, as a read earlier in the transaction would
+            accountService.getAccount(accountNumber)
+            resetStatistics()
+
+        when:
+            def updated = accountService.updateAccount(accountNumber, new AccountRequestDto(
+                    customerId: customerId, accountType: "Checking", branchAddress: "2 Query Street"))
+
+        then:
+            statistics.prepareStatementCount == 1
+            updated.customerId == customerId
+            updated.version == 1L
+            updated.accountType == "Checking"
+            updated.updatedAt != null
+            accountService.getAccount(accountNumber).accountType == "Checking"
+    }
+
+    def "should update a customer with one statement plus the account number lookup"() {
+        given:
+            def customerId = createCustomersWithAccounts(1).first()
+            customerService.getCustomer(customerId)
+            resetStatistics()
+
+        when:
+            def updated = customerService.partialUpdateCustomer(customerId, new CustomerRequestDto(name: "Query Count Renamed"))
+
+        then:
+            statistics.prepareStatementCount == 2
+            updated.name == "Query Count Renamed"
+            updated.email == "querycount1@test.com"
+            updated.accountNumbers.size() == 2
+            customerService.getCustomer(customerId).name == "Query Count Renamed"
+    }
+
+    private List<Long> createCustomersWithAccounts(int count) {
+        def customerIds = (1..count).collect { index ->
+            def customer = customerService.createCustomer(new CustomerRequestDto(
+                    name: "Query Count " + index,
+                    email: "querycount" + index + "@test.com",
+                    mobileNumber: String.valueOf(93000000 + index)
+            ))
+            2.times {
+                accountService.createAccount(new AccountRequestDto(
+                        customerId: customer.customerId,
+                        accountType: "Savings",
+                        branchAddress: "1 Query Street"
+                ))
+            }
+            customer.customerId
+        }
+        // Write everything out and start from an empty persistence context
+        entityManager.flush()
+        entityManager.clear()
+        customerIds
+    }
+
+    private void resetStatistics() {
+        statistics.clear()
+    }
+}
@@ -1,6 +1,7 @@
 package com.deebank.accountservice.integration
 
 import com.deebank.accountservice.dto.CustomerDto
+import com.deebank.accountservice.dto.CustomerPageRequestDto
 import com.deebank.accountservice.dto.CustomerRequestDto
 import com.deebank.accountservice.exception.OperationNotAllowedException
 import com.deebank.accountservice.exception.ResourceAlreadyExistsException
@@ -92,6 +93,19 @@ class CustomerServiceIntSpec extends Specification {
             thrown(ResourceAlreadyExistsException)
     }
 
+    def "should prevent taking another customer's email on update"() {
+        given:
+            customerService.createCustomer(new CustomerRequestDto(name: "Owner", email: "owner@test.com", mobileNumber: "81111111"))
+            def other = customerService.createCustomer(new CustomerRequestDto(name: "Other", email: "other@test.com", mobileNumber: "82222222"))
+
+        when:
+            customerService.partialUpdateCustomer(other.customerId, new CustomerRequestDto(email: "owner@test.com"))
+
+        then:
+            def ex = thrown(ResourceAlreadyExistsException)
+            ex.message == "Customer with email owner@test.com already exists"
+    }
+
     def "should update customer successfully"() {
         given:
             def createRequest = new CustomerRequestDto(
@@ -148,12 +162,54 @@ class CustomerServiceIntSpec extends Specification {
             customerService.createCustomer(request2)
 
         when:
-            def allCustomers = customerService.getAllCustomers()
+            def allCustomers = customerService.getCustomers(new CustomerPageRequestDto()).items
 
         then:
             allCustomers.size() >= 2
             allCustomers.any { it.email == "one@test.com" }
             allCustomers.any { it.email == "two@test.com" }
     }
+
+    def "should walk all customers page by page with a cursor"() {
+        given:
+            def created = (1..5).collect {
+                customerService.createCustomer(new CustomerRequestDto(
+                        name: "Paged Customer " + it,
+                        email: "paged" + it + "@test.com",
+                        mobileNumber: "9100000" + it
+                ))
+            }
+            def ids = created*.customerId
+            def request = new CustomerPageRequestDto(size: 2, customerIdFrom: ids.min(), customerIdTo: ids.max())
+
+        when:
+            def pages = []
+            def page = customerService.getCustomers(request)
+            pages << page
+            while (page.hasMore) {
+                page = customerService.getCustomers(new CustomerPageRequestDto(
+                        size: 2, cursor: page.nextCursor, customerIdFrom: ids.min(), customerIdTo: ids.max()))
+                pages << page
+            }
+
+        then:
+            pages*.size == [2, 2, 1]
+            pages.collectMany { it.items*.customerId } == ids.sort()
+            pages.last().nextCursor == null
+    }
+
+    def "should return customers in descending order"() {
+        given:
+            def first = customerService.createCustomer(new CustomerRequestDto(name: "First", email: "desc1@test.com", mobileNumber: "92000001"))
+            def second = customerService.createCustomer(new CustomerRequestDto(name: "Second", email: "desc2@test.com", mobileNumber: "92000002"))
+
+        when:
+            def page = customerService.getCustomers(new CustomerPageRequestDto(
+                    sort: "desc", customerIdFrom: first.customerId, customerIdTo: second.customerId))
+
+        then:
+            page.items*.customerId == [second.customerId, first.customerId]
+            !page.hasMore
+    }
 }
 
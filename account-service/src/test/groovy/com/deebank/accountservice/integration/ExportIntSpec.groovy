@@ -0,0 +1,81 @@
+package com.deebank.accountservice.integration
+
+import com.deebank.accountservice.BaseIntSpec
+import com.deebank.accountservice.dto.AccountRequestDto
+import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.service.AccountService
+import com.deebank.accountservice.service.CustomerService
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.http.MediaType
+import tools.jackson.databind.ObjectMapper
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*
+
+class ExportIntSpec extends BaseIntSpec {
+
+    @Autowired
+    AccountService accountService
+
+    @Autowired
+    CustomerService customerService
+
+    @Autowired
+    ObjectMapper objectMapper
+
+    List<Long> customerIds = []
+    List<Long> accountNumbers = []
+
+    def setup() {
+        3.times { index ->
+            def customer = customerService.createCustomer(new CustomerRequestDto(
+                    name: "Export Customer " + index,
+                    email: "export" + index + "@test.com",
+                    mobileNumber: String.valueOf(94000000 + index)
+            ))
+            customerIds << customer.customerId
+            accountNumbers << accountService.createAccount(new AccountRequestDto(
+                    customerId: customer.customerId,
+                    accountType: "Savings",
+                    branchAddress: "1 Export Street"
+            )).accountNumber
+        }
+    }
+
+    def cleanup() {
+        accountNumbers.each { accountService.deleteAccount(it) }
+        customerIds.each { customerService.deleteCustomer(it) }
+    }
+
+    def "GET /api/accounts/export - should stream every account as one JSON line"() {
+        when:
+            def lines = export("/api/accounts/export")
+
+        then:
+            def exported = lines.findAll { it.accountNumber in accountNumbers }
+            exported.size() == 3
+            exported.every { it.accountType == "Savings" && it.customerId in customerIds }
+    }
+
+    def "GET /api/customers/export - should stream every customer with its account numbers"() {
+        when:
+            def lines = export("/api/customers/export")
+
+        then:
+            def exported = lines.findAll { it.customerId in customerIds }
+            exported.size() == 3
+            exported.every { it.accountNumbers.size() == 1 && it.accountNumbers[0] in accountNumbers }
+    }
+
+    private List<Map> export(String path) {
+        def mvcResult = mockMvc.perform(get(path).accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+        mvcResult.getAsyncResult()
+        assert mvcResult.response.status == 200
+        assert mvcResult.response.contentType.startsWith(MediaType.APPLICATION_NDJSON_VALUE)
+        mvcResult.response.contentAsString.readLines()
+                .findAll { !it.isBlank() }
+                .collect { objectMapper.readValue(it, Map) }
+    }
+}
@@ -0,0 +1,156 @@
+package com.deebank.accountservice.integration
+
+import com.deebank.accountservice.BaseIntSpec
+import com.deebank.accountservice.datasource.ReadYourWritesFilter
+import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.service.AccountService
+import com.deebank.accountservice.service.CustomerService
+import org.flywaydb.core.Flyway
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Qualifier
+import org.springframework.http.MediaType
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+import org.springframework.test.context.TestPropertySource
+import org.springframework.test.web.servlet.setup.MockMvcBuilders
+import tools.jackson.databind.ObjectMapper
+
+import javax.sql.DataSource
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+/**
+ * A second local H2 database stands in for the replica. It is migrated but never receives the
+ * primary's writes, so where a read was served from is visible in its result.
+ */
+@TestPropertySource(properties = [
+        "deebank.datasource.replica.url=" + ReadReplicaRoutingIntSpec.REPLICA_URL,
+        "deebank.datasource.replica.username=sa",
+        "deebank.datasource.replica.password=",
+        "deebank.datasource.replica.read-your-writes.window=PT1M"
+])
+class ReadReplicaRoutingIntSpec extends BaseIntSpec {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica-routing;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+    static final long REPLICA_ONLY_CUSTOMER_ID = 900001L
+    static final long SHARED_CUSTOMER_ID = 900002L
+    static final String INSERT_CUSTOMER_SQL = "INSERT INTO customer (customer_id, name, email, mobile_number, created_at, created_by) VALUES (?, ?, ?, ?, CURRENT_DATE, 'replica')"
+
+    @Autowired
+    AccountService accountService
+
+    @Autowired
+    CustomerService customerService
+
+    @Autowired
+    ReadYourWritesFilter readYourWritesFilter
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource
+
+    @Autowired
+    ObjectMapper objectMapper
+
+    def setupSpec() {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").load().migrate()
+        def replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""))
+        replica.update(INSERT_CUSTOMER_SQL, REPLICA_ONLY_CUSTOMER_ID, "Replica Only", "replica-only@test.com", "89999999")
+        replica.update(INSERT_CUSTOMER_SQL, SHARED_CUSTOMER_ID, "Shared", "shared@test.com", "89999998")
+    }
+
+    def setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext)
+                .addFilters(readYourWritesFilter)
+                .build()
+    }
+
+    def "should serve read-only transactions from the replica"() {
+        when:
+            def customer = customerService.getCustomer(REPLICA_ONLY_CUSTOMER_ID)
+
+        then:
+            customer.email == "replica-only@test.com"
+            count(primaryDataSource, REPLICA_ONLY_CUSTOMER_ID) == 0
+    }
+
+    def "should send writes to the primary"() {
+        when:
+            def created = customerService.createCustomer(new CustomerRequestDto(
+                    name: "Primary Write", email: "primary-write@test.com", mobileNumber: "88000001"))
+
+        then:
+            count(primaryDataSource, created.customerId) == 1
+            count(replicaDataSource, created.customerId) == 0
+    }
+
+    def "should pin the reads of a client to the primary after it wrote"() {
+        given:
+            def response = mockMvc.perform(post("/api/customers")
+                    .header("X-Client-Id", "client-a")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content('{"name":"Reader","email":"reader@test.com","mobileNumber":"88000002"}'))
+                    .andExpect(status().isCreated())
+                    .andReturn().response.contentAsString
+            long customerId = objectMapper.readTree(response).path("data").path("customerId").asLong()
+
+        when:
+            def sameClient = listCustomerIds(customerId, "client-a")
+            def otherClient = listCustomerIds(customerId, "client-b")
+            def anonymous = listCustomerIds(customerId, null)
+
+        then:
+            sameClient == [customerId]
+            otherClient == []
+            anonymous == []
+    }
+
+    def "a read from the lagging replica should not be cached for clients pinned to the primary"() {
+        given:
+            new JdbcTemplate(primaryDataSource).update(INSERT_CUSTOMER_SQL, SHARED_CUSTOMER_ID, "Shared",
+                    "shared@test.com", "89999998")
+
+        when: "a client adds an account, which invalidates the cached accounts of the customer"
+            def response = mockMvc.perform(post("/api/accounts")
+                    .header("X-Client-Id", "client-c")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content('{"customerId":' + SHARED_CUSTOMER_ID + ',"accountType":"Savings","branchAddress":"1 Replica Street"}'))
+                    .andExpect(status().isCreated())
+                    .andReturn().response.contentAsString
+            long accountNumber = objectMapper.readTree(response).path("data").path("accountNumber").asLong()
+
+        and: "another client reads them from the replica before it has caught up"
+            def fromReplica = accountService.getAccountsByCustomerId(SHARED_CUSTOMER_ID)
+
+        and: "the writing client reads them back"
+            def body = mockMvc.perform(get("/api/accounts/customer/" + SHARED_CUSTOMER_ID).header("X-Client-Id", "client-c"))
+                    .andExpect(status().isOk())
+                    .andReturn().response.contentAsString
+
+        then:
+            fromReplica == []
+            objectMapper.readTree(body).path("data").collect { it.path("accountNumber").asLong() } == [accountNumber]
+    }
+
+    private List<Long> listCustomerIds(long customerId, String clientId) {
+        def request = get("/api/customers")
+                .param("customerIdFrom", String.valueOf(customerId))
+                .param("customerIdTo", String.valueOf(customerId))
+        if (clientId != null) {
+            request.header("X-Client-Id", clientId)
+        }
+        def body = mockMvc.perform(request).andExpect(status().isOk()).andReturn().response.contentAsString
+        objectMapper.readTree(body).path("data").path("items").collect { it.path("customerId").asLong() }
+    }
+
+    private static int count(DataSource dataSource, long customerId) {
+        new JdbcTemplate(dataSource).queryForObject(
+                "SELECT COUNT(*) FROM customer WHERE customer_id = ?", Integer, customerId)
+    }
+}
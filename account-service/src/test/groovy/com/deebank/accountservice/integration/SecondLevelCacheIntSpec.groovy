@@ -0,0 +1,140 @@
+package com.deebank.accountservice.integration
+
+import com.deebank.accountservice.dto.AccountRequestDto
+import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.exception.ResourceNotFoundException
+import com.deebank.accountservice.service.AccountService
+import com.deebank.accountservice.service.CustomerService
+import io.micrometer.core.instrument.MeterRegistry
+import jakarta.persistence.EntityManagerFactory
+import org.hibernate.SessionFactory
+import org.hibernate.stat.Statistics
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.ContextConfiguration
+import spock.lang.Specification
+
+/**
+ * Not transactional: the second-level cache is only populated and invalidated on commit.
+ */
+@SpringBootTest
+@ContextConfiguration(classes = [com.deebank.accountservice.AccountServiceApplication])
+@ActiveProfiles("test")
+class SecondLevelCacheIntSpec extends Specification {
+
+    @Autowired
+    AccountService accountService
+
+    @Autowired
+    CustomerService customerService
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    MeterRegistry meterRegistry
+
+    Statistics statistics
+    Long customerId
+    List<Long> accountNumbers = []
+
+    def setup() {
+        statistics = entityManagerFactory.unwrap(SessionFactory).statistics
+        customerId = customerService.createCustomer(new CustomerRequestDto(
+                name: "Cached Customer",
+                email: "cached@test.com",
+                mobileNumber: "93000001"
+        )).customerId
+        accountNumbers << createAccount("1 Cache Street")
+    }
+
+    def cleanup() {
+        accountNumbers.each {
+            try {
+                accountService.deleteAccount(it)
+            } catch (RuntimeException ignored) {
+                // Already deleted by the test
+            }
+        }
+        customerService.deleteCustomer(customerId)
+    }
+
+    def "repeated reads by primary key should be served from the cache"() {
+        given:
+            statistics.clear()
+
+        when:
+            def first = accountService.getAccount(accountNumbers[0])
+            def second = accountService.getAccount(accountNumbers[0])
+            def customer = customerService.getCustomer(customerId)
+            customerService.getCustomer(customerId)
+
+        then:
+            first == second
+            customer.accountNumbers == accountNumbers
+            statistics.secondLevelCacheHitCount >= 3
+            // Both customer lookups and their account numbers were answered without SQL except the first account number query
+            statistics.prepareStatementCount == 1
+            statistics.queryCacheHitCount == 1
+    }
+
+    def "update, patch and delete should invalidate cached accounts"() {
+        given:
+            accountService.getAccount(accountNumbers[0])
+
+        when:
+            accountService.updateAccount(accountNumbers[0], new AccountRequestDto(
+                    customerId: customerId, accountType: "Checking", branchAddress: "2 Cache Street"))
+
+        then:
+            accountService.getAccount(accountNumbers[0]).accountType == "Checking"
+
+        when:
+            accountService.partialUpdateAccount(accountNumbers[0], new AccountRequestDto(branchAddress: "3 Cache Street"))
+
+        then:
+            accountService.getAccount(accountNumbers[0]).branchAddress == "3 Cache Street"
+
+        when:
+            accountService.deleteAccount(accountNumbers[0])
+            accountService.getAccount(accountNumbers[0])
+
+        then:
+            thrown(ResourceNotFoundException)
+    }
+
+    def "writes to accounts should invalidate cached lookups by customer"() {
+        given:
+            accountService.getAccountsByCustomerId(customerId)
+
+        when:
+            accountNumbers << createAccount("4 Cache Street")
+            def accounts = accountService.getAccountsByCustomerId(customerId)
+
+        then:
+            accounts*.accountNumber as Set == accountNumbers as Set
+            customerService.getCustomer(customerId).accountNumbers as Set == accountNumbers as Set
+    }
+
+    def "customer updates should invalidate the cached customer"() {
+        given:
+            customerService.getCustomer(customerId)
+
+        when:
+            customerService.partialUpdateCustomer(customerId, new CustomerRequestDto(name: "Renamed Customer"))
+
+        then:
+            customerService.getCustomer(customerId).name == "Renamed Customer"
+    }
+
+    def "cache regions should publish eviction meters"() {
+        expect:
+            !meterRegistry.find("cache.evictions").tag("cache.manager", "hibernate").functionCounters().isEmpty()
+    }
+
+    private Long createAccount(String branchAddress) {
+        accountService.createAccount(new AccountRequestDto(
+                customerId: customerId, accountType: "Savings", branchAddress: branchAddress)).accountNumber
+    }
+}
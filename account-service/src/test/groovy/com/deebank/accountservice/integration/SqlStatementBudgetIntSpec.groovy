@@ -0,0 +1,182 @@
+package com.deebank.accountservice.integration
+
+import com.deebank.accountservice.BaseIntSpec
+import com.deebank.accountservice.dto.AccountRequestDto
+import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.service.AccountService
+import com.deebank.accountservice.service.CustomerService
+import com.deebank.accountservice.sql.EnforceSqlStatementBudgets
+import com.deebank.accountservice.sql.SqlStatementBudgetInterceptor
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.http.MediaType
+
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+/**
+ * Every endpoint against the real services, held to the statement budget declared on it.
+ */
+@EnforceSqlStatementBudgets
+class SqlStatementBudgetIntSpec extends BaseIntSpec {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger()
+
+    @Autowired
+    CustomerService customerService
+
+    @Autowired
+    AccountService accountService
+
+    def "customer endpoints should stay within their statement budgets"() {
+        given:
+            def customerId = createCustomer()
+            2.times { createAccount(customerId) }
+            def index = SEQUENCE.incrementAndGet()
+
+        expect:
+            mockMvc.perform(post("/api/customers").contentType(MediaType.APPLICATION_JSON).content(customerJson(index)))
+                    .andExpect(status().isCreated())
+            mockMvc.perform(get("/api/customers/" + customerId)).andExpect(status().isOk())
+            mockMvc.perform(get("/api/customers").param("size", "20")).andExpect(status().isOk())
+            mockMvc.perform(put("/api/customers/" + customerId).contentType(MediaType.APPLICATION_JSON)
+                    .content(customerJson(SEQUENCE.incrementAndGet()))).andExpect(status().isOk())
+            mockMvc.perform(patch("/api/customers/" + customerId).contentType(MediaType.APPLICATION_JSON)
+                    .content('{"name":"Budget Patched"}')).andExpect(status().isOk())
+    }
+
+    def "account endpoints should stay within their statement budgets"() {
+        given:
+            def customerId = createCustomer()
+            def accountNumber = createAccount(customerId)
+            // Budgets cover the steady state; the first account of a new branch also adds it to the dictionary
+            createAccount(customerId, "2 Budget Street")
+
+        expect:
+            mockMvc.perform(post("/api/accounts").contentType(MediaType.APPLICATION_JSON).content(accountJson(customerId)))
+                    .andExpect(status().isCreated())
+            mockMvc.perform(get("/api/accounts/" + accountNumber)).andExpect(status().isOk())
+            mockMvc.perform(get("/api/accounts").param("size", "20")).andExpect(status().isOk())
+            mockMvc.perform(get("/api/accounts/customer/" + customerId)).andExpect(status().isOk())
+            mockMvc.perform(put("/api/accounts/" + accountNumber).contentType(MediaType.APPLICATION_JSON)
+                    .content(accountJson(customerId))).andExpect(status().isOk())
+            mockMvc.perform(patch("/api/accounts/" + accountNumber).contentType(MediaType.APPLICATION_JSON)
+                    .content('{"branchAddress":"2 Budget Street"}')).andExpect(status().isOk())
+            mockMvc.perform(delete("/api/accounts/" + accountNumber)).andExpect(status().isOk())
+    }
+
+    // The first request may still reload the dictionary to learn that the type is unknown
+    @EnforceSqlStatementBudgets(2)
+    def "filtering on an unknown account type should not query the dictionary"() {
+        given:
+            createAccount(createCustomer())
+
+        when:
+            def recording = SqlStatementBudgetInterceptor.record()
+            try {
+                3.times {
+                    mockMvc.perform(get("/api/accounts").param("accountType", "Unknown Type")).andExpect(status().isOk())
+                }
+            } finally {
+                recording.close()
+            }
+
+        then:
+            recording.usages.size() == 3
+            // Only the page query: the type is remembered as unknown
+            recording.usages[1].statements() == 1
+            recording.usages[2].statements() == 1
+    }
+
+    def "should count statements issued through JdbcTemplate"() {
+        given:
+            def customerId = createCustomer()
+            createAccount(customerId)
+
+        when:
+            def recording = SqlStatementBudgetInterceptor.record()
+            try {
+                mockMvc.perform(post("/api/accounts").contentType(MediaType.APPLICATION_JSON)
+                        .content(accountJson(customerId))).andExpect(status().isCreated())
+                mockMvc.perform(post("/api/accounts").contentType(MediaType.APPLICATION_JSON)
+                        .content(accountJson(customerId, "Budget Branch " + SEQUENCE.incrementAndGet())))
+                        .andExpect(status().isCreated())
+            } finally {
+                recording.close()
+            }
+
+        then:
+            // A new branch adds the dictionary reload, insert and reload, all issued through JdbcTemplate
+            recording.usages[1].statements() == recording.usages[0].statements() + 3
+    }
+
+    def "deleting a customer should stay within its statement budget"() {
+        given:
+            def customerId = createCustomer()
+
+        expect:
+            mockMvc.perform(delete("/api/customers/" + customerId)).andExpect(status().isOk())
+    }
+
+    @EnforceSqlStatementBudgets(10)
+    def "a feature level budget should replace the endpoint budgets"() {
+        given:
+            def customerId = createCustomer()
+
+        expect:
+            mockMvc.perform(get("/api/customers/" + customerId)).andExpect(status().isOk())
+    }
+
+    def "should record the statements and budget of each endpoint call"() {
+        given:
+            def customerId = createCustomer()
+            2.times { createAccount(customerId) }
+
+        when:
+            def recording = SqlStatementBudgetInterceptor.record()
+            try {
+                mockMvc.perform(get("/api/customers/" + customerId)).andExpect(status().isOk())
+            } finally {
+                recording.close()
+            }
+
+        then:
+            recording.usages.size() == 1
+            with(recording.usages.first()) {
+                endpoint() == "CustomerController#getCustomer"
+                // The customer row may come from the second-level cache
+                statements() in 1..2
+                budget() == 3
+            }
+    }
+
+    private Long createCustomer() {
+        def index = SEQUENCE.incrementAndGet()
+        customerService.createCustomer(new CustomerRequestDto(
+                name: "Budget " + index,
+                email: "budget" + index + "@test.com",
+                mobileNumber: String.valueOf(96000000 + index)
+        )).customerId
+    }
+
+    private Long createAccount(Long customerId, String branchAddress = "1 Budget Street") {
+        accountService.createAccount(new AccountRequestDto(
+                customerId: customerId,
+                accountType: "Savings",
+                branchAddress: branchAddress
+        )).accountNumber
+    }
+
+    private static String customerJson(int index) {
+        """{"name":"Budget ${index}","email":"budget${index}@test.com","mobileNumber":"${96000000 + index}"}"""
+    }
+
+    private static String accountJson(Long customerId, String branchAddress = "1 Budget Street") {
+        """{"customerId":${customerId},"accountType":"Savings","branchAddress":"${branchAddress}"}"""
+    }
+}
@@ -0,0 +1,45 @@
+package com.deebank.accountservice.metrics
+
+import com.deebank.accountservice.BaseIntSpec
+import com.deebank.accountservice.exception.ErrorCode
+import io.micrometer.core.instrument.MeterRegistry
+import org.springframework.beans.factory.annotation.Autowired
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status
+
+class MetricsIntSpec extends BaseIntSpec {
+
+    @Autowired
+    MeterRegistry meterRegistry
+
+    def "should count error responses by error code"() {
+        given:
+            def before = meterRegistry.get("deebank.errors").tag("code", "RESOURCE_NOT_FOUND").counter().count()
+
+        when:
+            def result = mockMvc.perform(get("/api/accounts/9999998"))
+
+        then:
+            result.andExpect(status().isNotFound())
+            meterRegistry.get("deebank.errors").tags("code", "RESOURCE_NOT_FOUND", "status", "404").counter().count() == before + 1
+    }
+
+    def "should register a counter for every error code up front"() {
+        expect:
+            meterRegistry.get("deebank.errors").counters().size() == ErrorCode.values().length
+    }
+
+    def "should time service methods"() {
+        when:
+            mockMvc.perform(get("/api/accounts/9999998"))
+
+        then:
+            meterRegistry.get("deebank.service").tags("method", "getAccount", "exception", "ResourceNotFoundException").timer().count() >= 1
+    }
+
+    def "should expose open Hibernate sessions as a gauge"() {
+        expect:
+            meterRegistry.get("deebank.hibernate.sessions.open").gauge().value() >= 0
+    }
+}
@@ -0,0 +1,180 @@
+package com.deebank.accountservice.repository
+
+import com.deebank.accountservice.dictionary.AccountDictionaries
+import com.deebank.accountservice.dto.AccountRequestDto
+import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.entity.Account
+import com.deebank.accountservice.entity.Customer
+import com.deebank.accountservice.service.AccountService
+import com.deebank.accountservice.service.CustomerService
+import jakarta.persistence.EntityManager
+import jakarta.persistence.EntityManagerFactory
+import org.hibernate.SessionFactory
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.test.context.SpringBootTest
+import org.springframework.data.domain.AuditorAware
+import org.springframework.test.context.ActiveProfiles
+import org.springframework.test.context.ContextConfiguration
+import org.springframework.transaction.PlatformTransactionManager
+import org.springframework.transaction.annotation.Propagation
+import org.springframework.transaction.annotation.Transactional
+import org.springframework.transaction.support.TransactionTemplate
+import spock.lang.Specification
+
+/**
+ * Runs the update fragments the way they run on databases without {@code FROM OLD TABLE} /
+ * {@code FROM FINAL TABLE}, against H2.
+ */
+@SpringBootTest
+@ContextConfiguration(classes = [com.deebank.accountservice.AccountServiceApplication])
+@ActiveProfiles("test")
+@Transactional
+class UpdateRepositoryFallbackIntSpec extends Specification {
+
+    @Autowired
+    EntityManager entityManager
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory
+
+    @Autowired
+    PlatformTransactionManager transactionManager
+
+    @Autowired
+    AuditorAware<String> auditorAware
+
+    @Autowired
+    AccountDictionaries dictionaries
+
+    @Autowired
+    AccountService accountService
+
+    @Autowired
+    CustomerService customerService
+
+    CustomerUpdateRepositoryImpl customerUpdates
+    AccountUpdateRepositoryImpl accountUpdates
+
+    def setup() {
+        customerUpdates = new CustomerUpdateRepositoryImpl(entityManager, auditorAware, false)
+        accountUpdates = new AccountUpdateRepositoryImpl(entityManager, auditorAware, dictionaries, false)
+    }
+
+    def "should patch a customer and read the updated row back"() {
+        given:
+            def customer = createCustomer("fallback1@test.com", "91000001")
+
+        when:
+            def patched = customerUpdates.patchCustomer(customer.customerId, "Renamed Customer", null, null, customer.version)
+
+        then:
+            patched.isPresent()
+            patched.get().name == "Renamed Customer"
+            patched.get().email == "fallback1@test.com"
+            patched.get().version == customer.version + 1
+        and:
+            customerUpdates.patchCustomer(customer.customerId, "Stale Customer", null, null, customer.version).isEmpty()
+            customerUpdates.patchCustomer(99999L, "Missing Customer", null, null, null).isEmpty()
+    }
+
+    def "should increment the versions of existing customers only"() {
+        given:
+            def customer = createCustomer("fallback2@test.com", "91000002")
+
+        when:
+            def updated = customerUpdates.incrementVersions([customer.customerId, customer.customerId, 99999L])
+
+        then:
+            updated == [customer.customerId]
+            customerService.getCustomer(customer.customerId).version == customer.version + 1
+    }
+
+    def "should update an account and return its previous owner"() {
+        given:
+            def owner = createCustomer("fallback3@test.com", "91000003")
+            def newOwner = createCustomer("fallback4@test.com", "91000004")
+            def account = accountService.createAccount(new AccountRequestDto(
+                    customerId: owner.customerId,
+                    accountType: "Savings",
+                    branchAddress: "1 Fallback Street"
+            ))
+
+        when:
+            def update = accountUpdates.patchAccount(account.accountNumber, newOwner.customerId, null, null, account.version)
+
+        then:
+            update.isPresent()
+            update.get().previousCustomerId() == owner.customerId
+            update.get().account().customerId == newOwner.customerId
+            update.get().account().accountType == "Savings"
+            update.get().account().branchAddress == "1 Fallback Street"
+            update.get().account().version == account.version + 1
+        and:
+            accountUpdates.patchAccount(account.accountNumber, owner.customerId, null, null, account.version).isEmpty()
+            accountUpdates.patchAccount(account.accountNumber, 99999L, null, null, null).isEmpty()
+            accountService.getAccount(account.accountNumber).customerId == newOwner.customerId
+    }
+
+    // Not transactional: the second-level cache is only populated and invalidated on commit
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    def "a fallback update should leave the cache of the other table alone"() {
+        given:
+            def transactions = new TransactionTemplate(transactionManager)
+            def cache = entityManagerFactory.unwrap(SessionFactory).cache
+            def customer = createCustomer("fallback5@test.com", "91000005")
+            def account = accountService.createAccount(new AccountRequestDto(
+                    customerId: customer.customerId,
+                    accountType: "Savings",
+                    branchAddress: "1 Fallback Street"
+            ))
+            def load = {
+                transactions.executeWithoutResult {
+                    entityManager.find(Customer, customer.customerId)
+                    entityManager.find(Account, account.accountNumber)
+                }
+            }
+            load()
+
+        when:
+            transactions.executeWithoutResult {
+                customerUpdates.patchCustomer(customer.customerId, "Renamed Customer", null, null, null)
+            }
+
+        then:
+            !cache.containsEntity(Customer, customer.customerId)
+            cache.containsEntity(Account, account.accountNumber)
+
+        when:
+            load()
+            transactions.executeWithoutResult {
+                accountUpdates.patchAccount(account.accountNumber, null, null, "1 Fallback Street", null)
+            }
+
+        then:
+            cache.containsEntity(Customer, customer.customerId)
+            !cache.containsEntity(Account, account.accountNumber)
+
+        when:
+            load()
+            transactions.executeWithoutResult {
+                customerUpdates.incrementVersions([customer.customerId])
+            }
+
+        then:
+            !cache.containsEntity(Customer, customer.customerId)
+            cache.containsEntity(Account, account.accountNumber)
+
+        cleanup:
+            accountService.deleteAccount(account.accountNumber)
+            customerService.deleteCustomer(customer.customerId)
+    }
+
+    private createCustomer(String email, String mobileNumber) {
+        customerService.createCustomer(new CustomerRequestDto(
+                name: "Fallback Customer",
+                email: email,
+                mobileNumber: mobileNumber
+        ))
+    }
+
+}
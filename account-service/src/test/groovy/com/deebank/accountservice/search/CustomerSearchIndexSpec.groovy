@@ -0,0 +1,190 @@
+package com.deebank.accountservice.search
+
+import com.deebank.accountservice.config.CustomerSearchProperties
+import com.deebank.accountservice.entity.Customer
+import com.deebank.accountservice.exception.BusinessException
+import com.deebank.accountservice.exception.ErrorCode
+import com.deebank.accountservice.util.SearchCursor
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.core.RowCallbackHandler
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+
+import java.sql.ResultSet
+
+class CustomerSearchIndexSpec extends Specification {
+
+    JdbcTemplate jdbcTemplate = Mock()
+    CustomerSearchProperties properties = new CustomerSearchProperties()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    CustomerSearchIndex index = new CustomerSearchIndex(jdbcTemplate, properties, meterRegistry)
+    // Rows of the customer table: ID, name, email, mobile number
+    List<List> table = []
+
+    def setup() {
+        jdbcTemplate.query({ it.contains("FROM customer") }, _ as RowCallbackHandler) >> { args -> rows(args[1], table) }
+    }
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+    }
+
+    def "should refuse to search until the table has been scanned"() {
+        when:
+            index.search(index.query("ann", null, null), null, 10)
+
+        then:
+            def ex = thrown(BusinessException)
+            ex.errorCode == ErrorCode.SERVICE_UNAVAILABLE
+    }
+
+    def "should rank whole words before prefixes and the first name word first"() {
+        given:
+            load([[1L, "Joanna Ann", "a@example.com", "81000001"],
+                    [2L, "Annabel Lee", "b@example.com", "81000002"],
+                    [3L, "Ann Lee", "c@example.com", "81000003"],
+                    [4L, "Bob Lee", "d@example.com", "81000004"]])
+
+        when:
+            def hits = index.search(index.query("ann", null, null), null, 10)
+
+        then:
+            0 * jdbcTemplate._
+            // Ann Lee: whole first word; Joanna Ann (whole word) and Annabel Lee (prefix of the first word) tie
+            hits.customerIds() == [3L, 1L, 2L]
+            hits.next() == null
+            meterRegistry.get("deebank.customer.search.index.size").gauge().value() == 4
+    }
+
+    def "should require every criterion to match"() {
+        given:
+            load([[1L, "Ann Lee", "ann@example.com", "81000001"],
+                    [2L, "Ann Lee", "ann@other.org", "81000002"],
+                    [3L, "Ann Ng", "ng@Example.com", "92000003"],
+                    [4L, "Annie Lee-Smith", "annie@example.com", "81100004"]])
+
+        expect:
+            index.search(index.query("an le", null, null), null, 10).customerIds() == [1L, 2L, 4L]
+            index.search(index.query("ann", "@EXAMPLE.com", null), null, 10).customerIds() == [1L, 3L, 4L]
+            index.search(index.query(null, "example.com", "810"), null, 10).customerIds() == [1L]
+            index.search(index.query("smith", null, "811"), null, 10).customerIds() == [4L]
+            index.search(index.query(null, "nowhere.net", null), null, 10).customerIds().isEmpty()
+    }
+
+    def "should list a customer once when several name words start with the prefix"() {
+        given:
+            load([[1L, "Ann Annabel Anne", "a@example.com", "81000001"]])
+
+        expect:
+            index.search(index.query("an", null, null), null, 10).customerIds() == [1L]
+    }
+
+    def "should page through the ranking with the cursor"() {
+        given:
+            load([[1L, "Ann One", "a@example.com", "81000001"],
+                    [2L, "Annabel Two", "b@example.com", "81000002"],
+                    [3L, "Ann Three", "c@example.com", "81000003"],
+                    [4L, "Annabel Four", "d@example.com", "81000004"],
+                    [5L, "Ann Five", "e@example.com", "81000005"]])
+            def query = index.query("ann", null, null)
+
+        when:
+            def first = index.search(query, null, 2)
+            def second = index.search(query, SearchCursor.decode(first.next().encode()), 2)
+            def third = index.search(query, second.next(), 2)
+
+        then:
+            first.customerIds() == [1L, 3L]
+            second.customerIds() == [5L, 2L]
+            third.customerIds() == [4L]
+            third.next() == null
+    }
+
+    def "should apply saves and deletes only once the transaction commits"() {
+        given:
+            load([[1L, "Ann Lee", "ann@example.com", "81000001"]])
+            TransactionSynchronizationManager.initSynchronization()
+
+        when:
+            index.customersSaved([new Customer(customerId: 1L, name: "Bob Lee", email: "bob@example.com", mobileNumber: "81000001"),
+                                  new Customer(customerId: 2L, name: "Anna Ng", email: "anna@example.com", mobileNumber: "81000002")])
+
+        then:
+            index.search(index.query("ann", null, null), null, 10).customerIds() == [1L]
+
+        when:
+            TransactionSynchronizationManager.synchronizations*.afterCommit()
+            TransactionSynchronizationManager.clearSynchronization()
+
+        then:
+            index.search(index.query("ann", null, null), null, 10).customerIds() == [2L]
+            index.search(index.query("bob", null, null), null, 10).customerIds() == [1L]
+
+        when:
+            index.customerDeleted(2L)
+
+        then:
+            index.search(index.query("ann", null, null), null, 10).customerIds().isEmpty()
+            index.search(index.query(null, "example.com", null), null, 10).customerIds() == [1L]
+    }
+
+    def "should keep changes committed while a rebuild scans the table"() {
+        when:
+            index.rebuild()
+
+        then:
+            1 * jdbcTemplate.query(_, _ as RowCallbackHandler) >> { args ->
+                // Committed concurrently, after the scan read the table
+                index.customersSaved([new Customer(customerId: 7L, name: "Ann New", email: "new@example.com", mobileNumber: "81000007")])
+                rows(args[1], [[1L, "Ann Lee", "ann@example.com", "81000001"]])
+            }
+            index.search(index.query("ann", null, null), null, 10).customerIds() == [1L, 7L]
+    }
+
+    def "should reject criteria that would match too much"() {
+        when:
+            index.query(name, null, mobileNumber)
+
+        then:
+            thrown(IllegalArgumentException)
+
+        where:
+            name  | mobileNumber
+            null  | null
+            " - " | null
+            "a"   | null
+            null  | "8"
+    }
+
+    def "should not load or answer anything when disabled"() {
+        given:
+            properties.enabled = false
+
+        when:
+            index.rebuild()
+            index.search(index.query("ann", null, null), null, 10)
+
+        then:
+            0 * jdbcTemplate._
+            def ex = thrown(BusinessException)
+            ex.errorCode == ErrorCode.SERVICE_UNAVAILABLE
+    }
+
+    private void load(List<List> customers) {
+        table.addAll(customers)
+        index.rebuild()
+    }
+
+    private static void rows(RowCallbackHandler handler, List<List> customers) {
+        customers.each { customer ->
+            handler.processRow([
+                    getLong  : { int column -> customer[0] },
+                    getString: { int column -> customer[column - 1] }
+            ] as ResultSet)
+        }
+    }
+
+}
@@ -1,22 +1,51 @@
 package com.deebank.accountservice.service
 
+import com.deebank.accountservice.cache.ExistenceIndex
+import com.deebank.accountservice.config.AccountBatchProperties
+import com.deebank.accountservice.config.LookupProperties
+import com.deebank.accountservice.config.PaginationProperties
+import com.deebank.accountservice.dictionary.AccountDictionaries
 import com.deebank.accountservice.dto.AccountDto
+import com.deebank.accountservice.dto.AccountPageRequestDto
 import com.deebank.accountservice.dto.AccountRequestDto
 import com.deebank.accountservice.entity.Account
+import com.deebank.accountservice.event.AccountChangedEvent
+import com.deebank.accountservice.exception.ErrorCode
+import com.deebank.accountservice.exception.PreconditionFailedException
 import com.deebank.accountservice.exception.ResourceNotFoundException
 import com.deebank.accountservice.repository.AccountRepository
+import com.deebank.accountservice.repository.AccountUpdate
 import com.deebank.accountservice.repository.CustomerRepository
+import com.deebank.accountservice.stats.AccountStatistics
 import com.deebank.accountservice.util.AccountNumberGenerator
+import com.deebank.accountservice.util.PageCursor
+import jakarta.persistence.EntityManager
+import jakarta.validation.Validation
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.data.domain.Sort
+import org.springframework.transaction.support.TransactionOperations
 import spock.lang.Specification
 
 import java.time.LocalDate
+import java.time.LocalDateTime
 
 class AccountServiceSpec extends Specification {
 
     AccountRepository accountRepository = Mock()
     CustomerRepository customerRepository = Mock()
     AccountNumberGenerator accountNumberGenerator = Mock()
-    AccountService accountService = new AccountService(accountRepository, customerRepository, accountNumberGenerator)
+    PaginationProperties paginationProperties = new PaginationProperties()
+    AccountBatchProperties accountBatchProperties = new AccountBatchProperties(flushSize: 2)
+    EntityManager entityManager = Mock()
+    ApplicationEventPublisher eventPublisher = Mock()
+    ExistenceIndex existenceIndex = Mock()
+    LookupProperties lookupProperties = new LookupProperties(maxIds: 3)
+    AccountStatistics accountStatistics = Mock()
+    AccountDictionaries accountDictionaries = Mock()
+    AccountService accountService = new AccountService(accountRepository, customerRepository, accountNumberGenerator,
+            paginationProperties, accountBatchProperties, entityManager, Validation.buildDefaultValidatorFactory().validator,
+            eventPublisher, existenceIndex, lookupProperties, accountStatistics, accountDictionaries,
+            TransactionOperations.withoutTransaction())
 
     def "should create account successfully"() {
         given:
@@ -38,9 +67,12 @@ class AccountServiceSpec extends Specification {
             def result = accountService.createAccount(requestDto)
 
         then:
-            1 * customerRepository.existsById(1L) >> true
+            1 * customerRepository.incrementVersions([1L]) >> [1L]
+            1 * accountDictionaries.register(["Savings"], ["123 Main St"])
             1 * accountNumberGenerator.generateAccountNumber() >> 1234567L
             1 * accountRepository.save(_) >> savedAccount
+            1 * existenceIndex.accountsCreated([1234567L])
+            1 * accountStatistics.accountsCreated({ it*.accountType == ["Savings"] && it*.branchAddress == ["123 Main St"] })
             result.accountNumber == 1234567L
             result.accountType == "Savings"
     }
@@ -57,7 +89,7 @@ class AccountServiceSpec extends Specification {
             accountService.createAccount(requestDto)
 
         then:
-            1 * customerRepository.existsById(999L) >> false
+            1 * customerRepository.incrementVersions([999L]) >> []
             0 * accountRepository.save(_)
             thrown(ResourceNotFoundException)
     }
@@ -75,7 +107,7 @@ class AccountServiceSpec extends Specification {
             def result = accountService.getAccount(1234567L)
 
         then:
-            1 * accountRepository.findByAccountNumber(1234567L) >> Optional.of(account)
+            1 * accountRepository.findById(1234567L) >> Optional.of(account)
             result.accountNumber == 1234567L
             result.accountType == "Savings"
     }
@@ -85,20 +117,14 @@ class AccountServiceSpec extends Specification {
             accountService.getAccount(9999999L)
 
         then:
-            1 * accountRepository.findByAccountNumber(9999999L) >> Optional.empty()
+            1 * accountRepository.findById(9999999L) >> Optional.empty()
             thrown(ResourceNotFoundException)
     }
 
-    def "should update account successfully"() {
+    def "should update account with a single conditional update"() {
         given:
-            def existingAccount = new Account(
-                    accountNumber: 1234567L,
-                    customerId: 1L,
-                    accountType: "Savings",
-                    branchAddress: "123 Main St"
-            )
             def requestDto = new AccountRequestDto(
-                    customerId: 2L,  // Different customer ID to trigger the check
+                    customerId: 2L,
                     accountType: "Checking",
                     branchAddress: "456 Oak Ave"
             )
@@ -113,20 +139,20 @@ class AccountServiceSpec extends Specification {
             def result = accountService.updateAccount(1234567L, requestDto)
 
         then:
-            1 * accountRepository.findByAccountNumber(1234567L) >> Optional.of(existingAccount)
-            1 * customerRepository.existsById(2L) >> true
-            1 * accountRepository.save(_) >> updatedAccount
+            1 * accountRepository.updateAccount(1234567L, 2L, "Checking", "456 Oak Ave", null) >> Optional.of(new AccountUpdate(1L, "Savings", "123 Main St", updatedAccount))
+            0 * accountRepository.findById(_)
+            0 * accountRepository.save(_)
+            0 * customerRepository.existsById(_)
+            // Both the old and the new owner list this account
+            1 * customerRepository.incrementVersions([1L, 2L])
+            1 * accountStatistics.accountUpdated("Savings", "123 Main St", updatedAccount)
+            1 * eventPublisher.publishEvent(new AccountChangedEvent([1234567L], [1L, 2L]))
             result.accountType == "Checking"
+            result.customerId == 2L
     }
 
     def "should partially update account"() {
         given:
-            def existingAccount = new Account(
-                    accountNumber: 1234567L,
-                    customerId: 1L,
-                    accountType: "Savings",
-                    branchAddress: "123 Main St"
-            )
             def requestDto = new AccountRequestDto(
                     customerId: null,
                     accountType: "Investment",
@@ -134,28 +160,277 @@ class AccountServiceSpec extends Specification {
             )
             def updatedAccount = new Account(
                     accountNumber: 1234567L,
-                    accountType: "Investment"
+                    customerId: 1L,
+                    accountType: "Investment",
+                    branchAddress: "123 Main St"
             )
 
         when:
             def result = accountService.partialUpdateAccount(1234567L, requestDto)
 
         then:
-            1 * accountRepository.findByAccountNumber(1234567L) >> Optional.of(existingAccount)
-            1 * accountRepository.save(_) >> updatedAccount
+            1 * accountDictionaries.register(["Investment"], [null])
+            1 * accountRepository.patchAccount(1234567L, null, "Investment", null, null) >> Optional.of(new AccountUpdate(1L, "Savings", "123 Main St", updatedAccount))
+            0 * accountRepository.save(_)
+            0 * customerRepository.incrementVersions(_)
+            1 * eventPublisher.publishEvent(new AccountChangedEvent([1234567L], [1L]))
             result.accountType == "Investment"
+            result.branchAddress == "123 Main St"
+    }
+
+    def "should report a missing account when the update matches no row"() {
+        given:
+            def requestDto = new AccountRequestDto(customerId: 2L, accountType: "Checking", branchAddress: "456 Oak Ave")
+
+        when:
+            accountService.updateAccount(9999999L, requestDto)
+
+        then:
+            1 * accountRepository.updateAccount(9999999L, 2L, "Checking", "456 Oak Ave", null) >> Optional.empty()
+            1 * accountRepository.findVersion(9999999L) >> Optional.empty()
+            thrown(ResourceNotFoundException)
+            0 * eventPublisher.publishEvent(_)
+    }
+
+    def "should report a missing customer when the account exists but the update matches no row"() {
+        given:
+            def requestDto = new AccountRequestDto(customerId: 999L)
+
+        when:
+            accountService.partialUpdateAccount(1234567L, requestDto)
+
+        then:
+            1 * accountRepository.patchAccount(1234567L, 999L, null, null, null) >> Optional.empty()
+            1 * accountRepository.findVersion(1234567L) >> Optional.of(0L)
+            def e = thrown(RuntimeException)
+            e.message == "Customer not found with id: 999"
+            0 * eventPublisher.publishEvent(_)
     }
 
     def "should delete account successfully"() {
         given:
-            def account = new Account(accountNumber: 1234567L)
+            def account = new Account(accountNumber: 1234567L, customerId: 1L, version: 0L)
 
         when:
             accountService.deleteAccount(1234567L)
 
         then:
-            1 * accountRepository.findByAccountNumber(1234567L) >> Optional.of(account)
+            1 * accountRepository.findById(1234567L) >> Optional.of(account)
             1 * accountRepository.delete(account)
+            1 * customerRepository.incrementVersions([1L]) >> [1L]
+            1 * existenceIndex.accountDeleted(1234567L)
+            1 * accountStatistics.accountDeleted(account)
+            1 * eventPublisher.publishEvent({ it instanceof AccountChangedEvent && it.accountNumbers() == [1234567L] })
     }
-}
 
+    def "should list the accounts of a customer without checking that the customer exists"() {
+        when:
+            def accounts = accountService.getAccountsByCustomerId(1L)
+
+        then:
+            1 * accountRepository.findByCustomerId(1L) >> [new Account(accountNumber: 1234567L, customerId: 1L)]
+            0 * existenceIndex._
+            0 * customerRepository._
+            accounts*.accountNumber == [1234567L]
+    }
+
+    def "should only look up a customer without accounts when the existence index does not know it"() {
+        when:
+            def accounts = accountService.getAccountsByCustomerId(1L)
+
+        then:
+            1 * accountRepository.findByCustomerId(1L) >> []
+            1 * existenceIndex.customerExists(1L) >> known
+            lookups * customerRepository.existsById(1L) >> true
+            accounts.isEmpty()
+
+        where:
+            known | lookups
+            true  | 0
+            false | 1
+    }
+
+    def "should report a missing customer when listing its accounts"() {
+        when:
+            accountService.getAccountsByCustomerId(999L)
+
+        then:
+            1 * accountRepository.findByCustomerId(999L) >> []
+            1 * existenceIndex.customerExists(999L) >> false
+            1 * customerRepository.existsById(999L) >> false
+            thrown(ResourceNotFoundException)
+    }
+
+    def "should refuse an update when the account has another version than expected"() {
+        given:
+            def requestDto = new AccountRequestDto(accountType: "Checking")
+
+        when:
+            accountService.partialUpdateAccount(1234567L, requestDto, 3L)
+
+        then:
+            1 * accountRepository.patchAccount(1234567L, null, "Checking", null, 3L) >> Optional.empty()
+            1 * accountRepository.findVersion(1234567L) >> Optional.of(4L)
+            def e = thrown(PreconditionFailedException)
+            e.message == "Account 1234567 is at version 4, not 3"
+            0 * eventPublisher.publishEvent(_)
+    }
+
+    def "should refuse a delete when the account has another version than expected"() {
+        given:
+            def account = new Account(accountNumber: 1234567L, customerId: 1L, version: 4L)
+
+        when:
+            accountService.deleteAccount(1234567L, 3L)
+
+        then:
+            1 * accountRepository.findById(1234567L) >> Optional.of(account)
+            thrown(PreconditionFailedException)
+            0 * accountRepository.delete(_)
+            0 * customerRepository.incrementVersions(_)
+    }
+
+    def "should resolve many account numbers with one query and report the missing ones"() {
+        when:
+            def result = accountService.lookupAccounts([7654321L, 1234567L, 9999999L, 7654321L])
+
+        then:
+            1 * accountRepository.findAllByAccountNumbers([7654321L, 1234567L, 9999999L]) >> [
+                    new Account(accountNumber: 1234567L, customerId: 1L),
+                    new Account(accountNumber: 7654321L, customerId: 2L)
+            ]
+            0 * accountRepository.findById(_)
+            result.found*.accountNumber == [7654321L, 1234567L]
+            result.missing == [9999999L]
+    }
+
+    def "should reject an empty, oversized or null-containing lookup"() {
+        when:
+            accountService.lookupAccounts(accountNumbers)
+
+        then:
+            thrown(IllegalArgumentException)
+            0 * accountRepository._
+
+        where:
+            accountNumbers << [null, [], [1L, 2L, 3L, 4L], [1L, null]]
+    }
+
+    def "should return a page and a cursor when more accounts follow"() {
+        given:
+            def rows = (1..3).collect { new Account(accountNumber: 1000000L + it, customerId: 1L, accountType: "Savings") }
+
+        when:
+            def page = accountService.getAccounts(new AccountPageRequestDto(size: 2, accountType: "Savings"))
+
+        then:
+            1 * accountRepository.findPageAscending(null, "Savings", null, null, { it.pageSize == 3 }) >> rows
+            page.items*.accountNumber == [1000001L, 1000002L]
+            page.hasMore
+            PageCursor.decode(page.nextCursor) == new PageCursor(Sort.Direction.ASC, 1000002L)
+    }
+
+    def "should continue descending from the cursor"() {
+        given:
+            def cursor = new PageCursor(Sort.Direction.DESC, 1000005L).encode()
+
+        when:
+            def page = accountService.getAccounts(new AccountPageRequestDto(cursor: cursor, size: 2))
+
+        then:
+            1 * accountRepository.findPageDescending(1000005L, null, null, null, _) >> [new Account(accountNumber: 1000004L)]
+            page.items*.accountNumber == [1000004L]
+            !page.hasMore
+            page.nextCursor == null
+    }
+
+    def "should reject a page size above the maximum"() {
+        when:
+            accountService.getAccounts(new AccountPageRequestDto(size: 501))
+
+        then:
+            0 * accountRepository._
+            thrown(IllegalArgumentException)
+    }
+
+    def "should reject a malformed cursor"() {
+        when:
+            accountService.getAccounts(new AccountPageRequestDto(cursor: "not-a-cursor"))
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+
+    def "should answer account stats from the in-memory counts"() {
+        given:
+            def reconciledAt = LocalDateTime.now()
+
+        when:
+            def stats = accountService.getAccountStats()
+
+        then:
+            1 * accountStatistics.snapshot() >> new AccountStatistics.Snapshot(3L,
+                    new TreeMap(["Checking": 1L, "Savings": 2L]), new TreeMap(["123 Main St": 3L]), reconciledAt)
+            0 * accountRepository._
+            stats.totalAccounts == 3L
+            stats.byAccountType == ["Checking": 1L, "Savings": 2L]
+            stats.byBranchAddress == ["123 Main St": 3L]
+            stats.reconciledAt == reconciledAt
+    }
+
+    def "should create a batch of accounts and report failures per item"() {
+        given:
+            def requests = [
+                    new AccountRequestDto(customerId: 1L, accountType: "Savings", branchAddress: "1 Main St"),
+                    new AccountRequestDto(customerId: 999L, accountType: "Savings", branchAddress: "2 Main St"),
+                    new AccountRequestDto(customerId: 1L, accountType: "", branchAddress: "3 Main St"),
+                    new AccountRequestDto(customerId: 2L, accountType: "Checking", branchAddress: "4 Main St"),
+                    new AccountRequestDto(customerId: 2L, accountType: "Current", branchAddress: "5 Main St")
+            ]
+
+        when:
+            def result = accountService.createAccounts(requests)
+
+        then:
+            // Once for the valid items, before the write transaction
+            1 * accountDictionaries.register(["Savings", "Savings", "Checking", "Current"],
+                    ["1 Main St", "2 Main St", "4 Main St", "5 Main St"])
+            1 * customerRepository.incrementVersions({ it as Set == [1L, 999L, 2L] as Set }) >> [1L, 2L]
+            0 * customerRepository.existsById(_)
+            1 * accountNumberGenerator.generateAccountNumbers(3) >> [1000001L, 1000002L, 1000003L]
+            // Three accepted accounts with a flush size of two are inserted in two chunks
+            1 * accountRepository.saveAll({ it*.accountNumber == [1000001L, 1000002L] }) >> { args -> args[0] }
+            1 * accountRepository.saveAll({ it*.accountNumber == [1000003L] }) >> { args -> args[0] }
+            2 * accountRepository.flush()
+            1 * accountStatistics.accountsCreated({ it*.accountNumber == [1000001L, 1000002L] })
+            1 * accountStatistics.accountsCreated({ it*.accountNumber == [1000003L] })
+            2 * entityManager.clear()
+            0 * accountRepository.save(_)
+            result.total == 5
+            result.succeeded == 3
+            result.failed == 2
+            result.results*.index == [0, 1, 2, 3, 4]
+            result.results*.success == [true, false, false, true, true]
+            result.results[0].data.accountNumber == 1000001L
+            result.results[1].errorCode == ErrorCode.RESOURCE_NOT_FOUND.code
+            result.results[2].errorCode == ErrorCode.VALIDATION_FAILED.code
+            result.results[2].errorMessage.startsWith("accountType:")
+            result.results[3].data.accountNumber == 1000002L
+            result.results[4].data.accountType == "Current"
+    }
+
+    def "should reject an empty or oversized batch"() {
+        given:
+            accountBatchProperties.maxItems = 1
+
+        when:
+            accountService.createAccounts(requests)
+
+        then:
+            0 * accountRepository._
+            thrown(IllegalArgumentException)
+
+        where:
+            requests << [[], [new AccountRequestDto(), new AccountRequestDto()]]
+    }
+}
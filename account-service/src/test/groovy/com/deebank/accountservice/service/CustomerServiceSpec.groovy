@@ -1,22 +1,44 @@
 package com.deebank.accountservice.service
 
+import com.deebank.accountservice.cache.ExistenceIndex
+import com.deebank.accountservice.config.LookupProperties
+import com.deebank.accountservice.config.PaginationProperties
 import com.deebank.accountservice.dto.CustomerDto
+import com.deebank.accountservice.dto.CustomerPageRequestDto
 import com.deebank.accountservice.dto.CustomerRequestDto
+import com.deebank.accountservice.dto.CustomerSearchRequestDto
 import com.deebank.accountservice.entity.Customer
+import com.deebank.accountservice.event.CustomerChangedEvent
+import com.deebank.accountservice.exception.ErrorCode
 import com.deebank.accountservice.exception.OperationNotAllowedException
+import com.deebank.accountservice.exception.PreconditionFailedException
 import com.deebank.accountservice.exception.ResourceAlreadyExistsException
 import com.deebank.accountservice.exception.ResourceNotFoundException
 import com.deebank.accountservice.repository.AccountRepository
+import com.deebank.accountservice.repository.CustomerAccountNumber
 import com.deebank.accountservice.repository.CustomerRepository
+import com.deebank.accountservice.search.CustomerSearchIndex
+import com.deebank.accountservice.search.CustomerSearchQuery
+import com.deebank.accountservice.util.SearchCursor
+import jakarta.validation.Validation
+import org.springframework.context.ApplicationEventPublisher
+import org.springframework.dao.DataIntegrityViolationException
 import spock.lang.Specification
 
+import java.sql.SQLException
 import java.time.LocalDate
 
 class CustomerServiceSpec extends Specification {
 
     CustomerRepository customerRepository = Mock()
     AccountRepository accountRepository = Mock()
-    CustomerService customerService = new CustomerService(customerRepository, accountRepository)
+    PaginationProperties paginationProperties = new PaginationProperties()
+    ApplicationEventPublisher eventPublisher = Mock()
+    ExistenceIndex existenceIndex = Mock()
+    CustomerSearchIndex customerSearchIndex = Mock()
+    CustomerService customerService = new CustomerService(customerRepository, accountRepository, paginationProperties,
+            Validation.buildDefaultValidatorFactory().validator, eventPublisher, existenceIndex, new LookupProperties(),
+            customerSearchIndex)
 
     def "should create customer successfully"() {
         given:
@@ -38,13 +60,16 @@ class CustomerServiceSpec extends Specification {
             def result = customerService.createCustomer(requestDto)
 
         then:
-            1 * customerRepository.findByEmail("john@example.com") >> Optional.empty()
-            1 * customerRepository.findByMobileNumber("81234567") >> Optional.empty()
-            1 * customerRepository.save(_) >> savedCustomer
-            1 * accountRepository.findByCustomerId(1L) >> []
+            0 * customerRepository.findByEmail(_)
+            0 * customerRepository.findByMobileNumber(_)
+            1 * customerRepository.saveAndFlush(_) >> savedCustomer
+            0 * accountRepository._
+            1 * existenceIndex.customersCreated([1L])
+            1 * customerSearchIndex.customersSaved([savedCustomer])
             result.customerId == 1L
             result.name == "John Doe"
             result.email == "john@example.com"
+            result.accountNumbers == []
     }
 
     def "should throw exception when email already exists"() {
@@ -54,15 +79,14 @@ class CustomerServiceSpec extends Specification {
                     email: "existing@example.com",
                     mobileNumber: "81234567"
             )
-            def existingCustomer = new Customer(customerId: 1L, email: "existing@example.com")
 
         when:
             customerService.createCustomer(requestDto)
 
         then:
-            1 * customerRepository.findByEmail("existing@example.com") >> Optional.of(existingCustomer)
-            0 * customerRepository.save(_)
-            thrown(ResourceAlreadyExistsException)
+            1 * customerRepository.saveAndFlush(_) >> { throw violation("UK_CUSTOMER_EMAIL") }
+            def ex = thrown(ResourceAlreadyExistsException)
+            ex.message == "Customer with email existing@example.com already exists"
     }
 
     def "should throw exception when mobile number already exists"() {
@@ -72,16 +96,30 @@ class CustomerServiceSpec extends Specification {
                     email: "john@example.com",
                     mobileNumber: "81234567"
             )
-            def existingCustomer = new Customer(customerId: 1L, mobileNumber: "81234567")
 
         when:
             customerService.createCustomer(requestDto)
 
         then:
-            1 * customerRepository.findByEmail("john@example.com") >> Optional.empty()
-            1 * customerRepository.findByMobileNumber("81234567") >> Optional.of(existingCustomer)
-            0 * customerRepository.save(_)
-            thrown(ResourceAlreadyExistsException)
+            1 * customerRepository.saveAndFlush(_) >> { throw violation("UK_CUSTOMER_MOBILE_NUMBER") }
+            def ex = thrown(ResourceAlreadyExistsException)
+            ex.message == "Customer with mobile number 81234567 already exists"
+    }
+
+    def "should propagate integrity violations that are not uniqueness conflicts"() {
+        given:
+            def requestDto = new CustomerRequestDto(name: "John Doe", email: "john@example.com", mobileNumber: "81234567")
+
+        when:
+            customerService.createCustomer(requestDto)
+
+        then:
+            1 * customerRepository.saveAndFlush(_) >> { throw violation("NULL not allowed for column \"NAME\"") }
+            thrown(DataIntegrityViolationException)
+    }
+
+    private static DataIntegrityViolationException violation(String detail) {
+        new DataIntegrityViolationException("could not execute statement", new SQLException(detail))
     }
 
     def "should get customer by id successfully"() {
@@ -98,9 +136,11 @@ class CustomerServiceSpec extends Specification {
 
         then:
             1 * customerRepository.findById(1L) >> Optional.of(customer)
-            1 * accountRepository.findByCustomerId(1L) >> []
+            1 * accountRepository.findAccountNumbersByCustomerId(1L) >> [1234567L]
+            0 * accountRepository.findByCustomerId(_)
             result.customerId == 1L
             result.name == "John Doe"
+            result.accountNumbers == [1234567L]
     }
 
     def "should throw exception when customer not found"() {
@@ -112,14 +152,8 @@ class CustomerServiceSpec extends Specification {
             thrown(ResourceNotFoundException)
     }
 
-    def "should update customer successfully"() {
+    def "should update customer with a single statement"() {
         given:
-            def existingCustomer = new Customer(
-                    customerId: 1L,
-                    name: "John Doe",
-                    email: "john@example.com",
-                    mobileNumber: "81234567"
-            )
             def requestDto = new CustomerRequestDto(
                     name: "John Updated",
                     email: "john.updated@example.com",
@@ -136,12 +170,76 @@ class CustomerServiceSpec extends Specification {
             def result = customerService.updateCustomer(1L, requestDto)
 
         then:
-            1 * customerRepository.findById(1L) >> Optional.of(existingCustomer)
-            1 * customerRepository.findByEmail("john.updated@example.com") >> Optional.empty()
-            1 * customerRepository.findByMobileNumber("98765432") >> Optional.empty()
-            1 * customerRepository.save(_) >> updatedCustomer
-            1 * accountRepository.findByCustomerId(1L) >> []
+            1 * customerRepository.updateCustomer(1L, "John Updated", "john.updated@example.com", "98765432", null) >> Optional.of(updatedCustomer)
+            0 * customerRepository.findById(_)
+            0 * customerRepository.saveAndFlush(_)
+            1 * accountRepository.findAccountNumbersByCustomerId(1L) >> [1234567L]
+            1 * customerSearchIndex.customersSaved([updatedCustomer])
+            1 * eventPublisher.publishEvent(new CustomerChangedEvent(1L))
             result.name == "John Updated"
+            result.accountNumbers == [1234567L]
+    }
+
+    def "should partially update customer"() {
+        given:
+            def requestDto = new CustomerRequestDto(mobileNumber: "98765432")
+            def updatedCustomer = new Customer(
+                    customerId: 1L,
+                    name: "John Doe",
+                    email: "john@example.com",
+                    mobileNumber: "98765432"
+            )
+
+        when:
+            def result = customerService.partialUpdateCustomer(1L, requestDto)
+
+        then:
+            1 * customerRepository.patchCustomer(1L, null, null, "98765432", null) >> Optional.of(updatedCustomer)
+            1 * accountRepository.findAccountNumbersByCustomerId(1L) >> []
+            result.name == "John Doe"
+            result.mobileNumber == "98765432"
+    }
+
+    def "should throw exception when updating a customer that does not exist"() {
+        given:
+            def requestDto = new CustomerRequestDto(name: "John Doe", email: "john@example.com", mobileNumber: "81234567")
+
+        when:
+            customerService.updateCustomer(999L, requestDto)
+
+        then:
+            1 * customerRepository.updateCustomer(999L, "John Doe", "john@example.com", "81234567", null) >> Optional.empty()
+            0 * customerRepository.findVersion(_)
+            thrown(ResourceNotFoundException)
+            0 * eventPublisher.publishEvent(_)
+    }
+
+    def "should translate a taken email on update"() {
+        given:
+            def requestDto = new CustomerRequestDto(email: "existing@example.com")
+
+        when:
+            customerService.partialUpdateCustomer(1L, requestDto)
+
+        then:
+            1 * customerRepository.patchCustomer(1L, null, "existing@example.com", null, null) >> { throw violation("UK_CUSTOMER_EMAIL") }
+            def ex = thrown(ResourceAlreadyExistsException)
+            ex.message == "Customer with email existing@example.com already exists"
+    }
+
+    def "should refuse an update when the customer has another version than expected"() {
+        given:
+            def requestDto = new CustomerRequestDto(name: "John Updated")
+
+        when:
+            customerService.partialUpdateCustomer(1L, requestDto, 3L)
+
+        then:
+            1 * customerRepository.patchCustomer(1L, "John Updated", null, null, 3L) >> Optional.empty()
+            1 * customerRepository.findVersion(1L) >> Optional.of(5L)
+            def ex = thrown(PreconditionFailedException)
+            ex.message == "Customer 1 is at version 5, not 3"
+            0 * eventPublisher.publishEvent(_)
     }
 
     def "should delete customer successfully"() {
@@ -153,23 +251,150 @@ class CustomerServiceSpec extends Specification {
 
         then:
             1 * customerRepository.findById(1L) >> Optional.of(customer)
-            1 * accountRepository.findByCustomerId(1L) >> []
+            1 * accountRepository.existsByCustomerId(1L) >> false
+            0 * accountRepository.findByCustomerId(_)
             1 * customerRepository.delete(customer)
+            1 * existenceIndex.customerDeleted(1L)
+            1 * customerSearchIndex.customerDeleted(1L)
+            1 * eventPublisher.publishEvent(new CustomerChangedEvent(1L))
     }
 
     def "should throw exception when deleting customer with accounts"() {
         given:
             def customer = new Customer(customerId: 1L)
-            def account = new com.deebank.accountservice.entity.Account(accountNumber: 1234567L)
 
         when:
             customerService.deleteCustomer(1L)
 
         then:
             1 * customerRepository.findById(1L) >> Optional.of(customer)
-            1 * accountRepository.findByCustomerId(1L) >> [account]
+            1 * accountRepository.existsByCustomerId(1L) >> true
             0 * customerRepository.delete(_)
+            0 * existenceIndex.customerDeleted(_)
             thrown(OperationNotAllowedException)
     }
-}
 
+    def "should resolve many customers and all their account numbers with two queries"() {
+        when:
+            def result = customerService.lookupCustomers([3L, 2L, 1L])
+
+        then:
+            1 * customerRepository.findAllByCustomerIds([3L, 2L, 1L]) >> [
+                    new Customer(customerId: 1L, name: "Customer 1"),
+                    new Customer(customerId: 3L, name: "Customer 3")
+            ]
+            1 * accountRepository.findAccountNumbersByCustomerIds([3L, 1L]) >> [accountNumber(3L, 3333333L)]
+            0 * accountRepository.findAccountNumbersByCustomerId(_)
+            result.found*.customerId == [3L, 1L]
+            result.found*.accountNumbers == [[3333333L], []]
+            result.missing == [2L]
+    }
+
+    def "should not query account numbers when no customer is found"() {
+        when:
+            def result = customerService.lookupCustomers([5L])
+
+        then:
+            1 * customerRepository.findAllByCustomerIds([5L]) >> []
+            0 * accountRepository._
+            result.found.isEmpty()
+            result.missing == [5L]
+    }
+
+    def "should load account numbers for a whole page with one query"() {
+        given:
+            def customers = (1..3).collect { new Customer(customerId: it as Long, name: "Customer " + it) }
+            def accountNumbers = [
+                    accountNumber(1L, 1111111L),
+                    accountNumber(1L, 1111112L),
+                    accountNumber(3L, 3333333L)
+            ]
+
+        when:
+            def page = customerService.getCustomers(new CustomerPageRequestDto(size: 10))
+
+        then:
+            1 * customerRepository.findPageAscending(null, null, null, _) >> customers
+            1 * accountRepository.findAccountNumbersByCustomerIds([1L, 2L, 3L]) >> accountNumbers
+            0 * accountRepository.findAccountNumbersByCustomerId(_)
+            0 * accountRepository.findByCustomerId(_)
+            page.items*.accountNumbers == [[1111111L, 1111112L], [], [3333333L]]
+    }
+
+    def "should read a page of search hits in ranked order and drop those that no longer match"() {
+        given:
+            def query = CustomerSearchQuery.of("ann", null, null, 2)
+            def next = new SearchCursor(2, 1L)
+
+        when:
+            def page = customerService.searchCustomers(new CustomerSearchRequestDto(name: "ann", size: 3))
+
+        then:
+            1 * customerSearchIndex.query("ann", null, null) >> query
+            1 * customerSearchIndex.search(query, null, 3) >> new CustomerSearchIndex.Hits([3L, 2L, 1L], next)
+            1 * customerRepository.findAllByCustomerIds([3L, 2L, 1L]) >> [
+                    new Customer(customerId: 1L, name: "Ann Lee"),
+                    // Renamed by another instance since the index saw it
+                    new Customer(customerId: 2L, name: "Bob Lee"),
+                    new Customer(customerId: 3L, name: "Annabel Ng")
+            ]
+            1 * accountRepository.findAccountNumbersByCustomerIds([3L, 1L]) >> []
+            page.items*.customerId == [3L, 1L]
+            page.hasMore
+            page.nextCursor == next.encode()
+    }
+
+    def "should not query the database when the search finds nothing"() {
+        given:
+            def query = CustomerSearchQuery.of(null, "example.com", null, 2)
+
+        when:
+            def page = customerService.searchCustomers(new CustomerSearchRequestDto(emailDomain: "example.com"))
+
+        then:
+            1 * customerSearchIndex.query(null, "example.com", null) >> query
+            1 * customerSearchIndex.search(query, null, 50) >> new CustomerSearchIndex.Hits([], null)
+            0 * customerRepository._
+            0 * accountRepository._
+            page.items.isEmpty()
+            !page.hasMore
+            page.nextCursor == null
+    }
+
+    private CustomerAccountNumber accountNumber(Long customerId, Long accountNumber) {
+        Stub(CustomerAccountNumber) {
+            getCustomerId() >> customerId
+            getAccountNumber() >> accountNumber
+        }
+    }
+
+    def "should create a batch of customers with set-based uniqueness checks"() {
+        given:
+            def requests = [
+                    new CustomerRequestDto(name: "Ann", email: "ann@example.com", mobileNumber: "81000001"),
+                    new CustomerRequestDto(name: "Bob", email: "taken@example.com", mobileNumber: "81000002"),
+                    new CustomerRequestDto(name: "Cat", email: "cat@example.com", mobileNumber: "12345"),
+                    new CustomerRequestDto(name: "Ann Again", email: "ann@example.com", mobileNumber: "81000004"),
+                    new CustomerRequestDto(name: "Dan", email: "dan@example.com", mobileNumber: "81000005")
+            ]
+
+        when:
+            def result = customerService.createCustomers(requests)
+
+        then:
+            1 * customerRepository.findExistingEmails({ it as Set == ["ann@example.com", "taken@example.com", "dan@example.com"] as Set }) >> ["taken@example.com"]
+            1 * customerRepository.findExistingMobileNumbers(_) >> []
+            0 * customerRepository.findByEmail(_)
+            1 * customerRepository.saveAll({ it*.name == ["Ann", "Dan"] }) >> { args ->
+                args[0].eachWithIndex { customer, i -> customer.customerId = 100L + i }
+                args[0]
+            }
+            1 * customerRepository.flush()
+            result.succeeded == 2
+            result.results*.success == [true, false, false, false, true]
+            result.results[1].errorCode == ErrorCode.RESOURCE_ALREADY_EXISTS.code
+            result.results[2].errorCode == ErrorCode.VALIDATION_FAILED.code
+            result.results[3].errorMessage == "Customer with email ann@example.com already exists"
+            result.results[4].data.customerId == 101L
+    }
+}
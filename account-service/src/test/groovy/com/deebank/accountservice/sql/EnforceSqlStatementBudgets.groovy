@@ -0,0 +1,24 @@
+package com.deebank.accountservice.sql
+
+import org.spockframework.runtime.extension.ExtensionAnnotation
+
+import java.lang.annotation.ElementType
+import java.lang.annotation.Retention
+import java.lang.annotation.RetentionPolicy
+import java.lang.annotation.Target
+
+/**
+ * Fails a feature when an endpoint call it performs through MockMvc issues more SQL statements than
+ * allowed. On a spec, every feature is held to the {@link SqlStatementBudget} of the endpoints it
+ * calls; on a feature, {@code value} sets a budget for each of its calls instead.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target([ElementType.TYPE, ElementType.METHOD])
+@ExtensionAnnotation(SqlStatementBudgetExtension)
+@interface EnforceSqlStatementBudgets {
+
+    /**
+     * Maximum statements per endpoint call; the endpoint's own budget when negative.
+     */
+    int value() default -1
+}
@@ -0,0 +1,54 @@
+package com.deebank.accountservice.sql
+
+import org.spockframework.runtime.extension.IAnnotationDrivenExtension
+import org.spockframework.runtime.extension.IMethodInterceptor
+import org.spockframework.runtime.extension.IMethodInvocation
+import org.spockframework.runtime.model.FeatureInfo
+import org.spockframework.runtime.model.SpecInfo
+
+/**
+ * Records the endpoint calls of each feature with {@link SqlStatementBudgetInterceptor#record()} and
+ * fails the feature if any of them went over budget. Needs {@code deebank.sql-budget.enabled}, which
+ * the test profile sets.
+ */
+class SqlStatementBudgetExtension implements IAnnotationDrivenExtension<EnforceSqlStatementBudgets> {
+
+    @Override
+    void visitSpecAnnotation(EnforceSqlStatementBudgets annotation, SpecInfo spec) {
+        spec.allFeatures
+                .findAll { !it.featureMethod.isAnnotationPresent(EnforceSqlStatementBudgets) }
+                .each { it.featureMethod.addInterceptor(new BudgetInterceptor(annotation.value())) }
+    }
+
+    @Override
+    void visitFeatureAnnotation(EnforceSqlStatementBudgets annotation, FeatureInfo feature) {
+        feature.featureMethod.addInterceptor(new BudgetInterceptor(annotation.value()))
+    }
+
+    private static class BudgetInterceptor implements IMethodInterceptor {
+
+        private final int budget
+
+        BudgetInterceptor(int budget) {
+            this.budget = budget
+        }
+
+        @Override
+        void intercept(IMethodInvocation invocation) throws Throwable {
+            SqlStatementBudgetInterceptor.Recording recording = SqlStatementBudgetInterceptor.record()
+            try {
+                invocation.proceed()
+                def overBudget = recording.usages
+                        .collect { budget < 0 ? it : new SqlStatementUsage(it.endpoint(), it.statements(), budget) }
+                        .findAll { it.overBudget }
+                if (!overBudget.isEmpty()) {
+                    throw new AssertionError("SQL statement budget exceeded:\n" + overBudget.collect {
+                        "  ${it.endpoint()} issued ${it.statements()} statements, budget ${it.budget()}"
+                    }.join("\n"))
+                }
+            } finally {
+                recording.close()
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.deebank.accountservice.sql
+
+import spock.lang.Specification
+
+import javax.sql.DataSource
+import java.sql.Connection
+import java.sql.PreparedStatement
+import java.sql.Statement
+
+class StatementCountingDataSourceSpec extends Specification {
+
+    Connection connection = Mock()
+    DataSource target = Stub() {
+        getConnection() >> connection
+    }
+    StatementCountingDataSource dataSource = new StatementCountingDataSource(target)
+
+    def "should count prepared statements once and plain statements per execution"() {
+        given:
+            PreparedStatement prepared = Mock()
+            Statement plain = Mock()
+            connection.prepareStatement(_) >> prepared
+            connection.createStatement() >> plain
+
+        when:
+            def count = SqlStatementCounter.start()
+            try {
+                def wrapped = dataSource.getConnection()
+                def statement = wrapped.prepareStatement("UPDATE accounts SET version = version + 1")
+                statement.addBatch()
+                statement.addBatch()
+                statement.executeBatch()
+                def created = wrapped.createStatement()
+                created.executeQuery("SELECT 1")
+                created.execute("SELECT 2")
+            } finally {
+                count.close()
+            }
+
+        then:
+            count.statements == 3
+    }
+
+    def "should count nothing while no count is open"() {
+        given:
+            connection.prepareStatement(_) >> Mock(PreparedStatement)
+
+        when:
+            dataSource.getConnection().prepareStatement("SELECT 1")
+            def count = SqlStatementCounter.start()
+            count.close()
+
+        then:
+            count.statements == 0
+    }
+
+    def "should pass everything else through to the connection"() {
+        when:
+            def wrapped = dataSource.getConnection()
+            wrapped.commit()
+            wrapped.close()
+
+        then:
+            1 * connection.commit()
+            1 * connection.close()
+            wrapped == wrapped
+    }
+
+}
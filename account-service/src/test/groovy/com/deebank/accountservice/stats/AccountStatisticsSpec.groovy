@@ -0,0 +1,175 @@
+package com.deebank.accountservice.stats
+
+import com.deebank.accountservice.config.AccountStatsProperties
+import com.deebank.accountservice.entity.Account
+import com.deebank.accountservice.exception.BusinessException
+import com.deebank.accountservice.exception.ErrorCode
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.core.RowCallbackHandler
+import org.springframework.transaction.support.TransactionSynchronizationManager
+import spock.lang.Specification
+
+import java.sql.ResultSet
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+
+class AccountStatisticsSpec extends Specification {
+
+    JdbcTemplate jdbcTemplate = Mock()
+    AccountStatsProperties properties = new AccountStatsProperties()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    AccountStatistics statistics = new AccountStatistics(jdbcTemplate, properties, meterRegistry)
+    // Result of the GROUP BY: account type, branch address, count
+    List<List> groups = []
+
+    def setup() {
+        jdbcTemplate.query({ it.contains("GROUP BY") }, _ as RowCallbackHandler) >> { args -> rows(args[1], groups) }
+    }
+
+    def cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization()
+        }
+    }
+
+    def "should refuse a snapshot until the table has been counted"() {
+        when:
+            statistics.snapshot()
+
+        then:
+            def ex = thrown(BusinessException)
+            ex.errorCode == ErrorCode.SERVICE_UNAVAILABLE
+    }
+
+    def "should sum the counted groups by type and by branch without a query"() {
+        given:
+            groups << ["Savings", "1 Main St", 5L] << ["Checking", "1 Main St", 2L] << ["Savings", "2 High St", 1L]
+            statistics.reconcile()
+
+        when:
+            def snapshot = statistics.snapshot()
+
+        then:
+            0 * jdbcTemplate._
+            snapshot.totalAccounts() == 8L
+            snapshot.byAccountType() == ["Checking": 2L, "Savings": 6L]
+            snapshot.byBranchAddress() == ["1 Main St": 7L, "2 High St": 1L]
+            snapshot.reconciledAt() != null
+    }
+
+    def "should apply creates, updates and deletes only once the transaction commits"() {
+        given:
+            groups << ["Savings", "1 Main St", 1L]
+            statistics.reconcile()
+            TransactionSynchronizationManager.initSynchronization()
+
+        when:
+            statistics.accountsCreated([account("Checking", "1 Main St"), account("Checking", "2 High St")])
+            statistics.accountUpdated("Savings", "1 Main St", account("Savings", "2 High St"))
+
+        then:
+            statistics.snapshot().totalAccounts() == 1L
+
+        when:
+            TransactionSynchronizationManager.synchronizations*.afterCommit()
+            TransactionSynchronizationManager.clearSynchronization()
+            def snapshot = statistics.snapshot()
+
+        then:
+            snapshot.totalAccounts() == 3L
+            snapshot.byAccountType() == ["Checking": 2L, "Savings": 1L]
+            snapshot.byBranchAddress() == ["1 Main St": 1L, "2 High St": 2L]
+
+        when:
+            statistics.accountDeleted(account("Checking", "1 Main St"))
+            snapshot = statistics.snapshot()
+
+        then:
+            // Groups that drop to zero are left out
+            snapshot.byBranchAddress() == ["2 High St": 2L]
+    }
+
+    def "should not count an update that keeps the type and branch"() {
+        given:
+            groups << ["Savings", "1 Main St", 1L]
+            statistics.reconcile()
+
+        when:
+            statistics.accountUpdated("Savings", "1 Main St", account("Savings", "1 Main St"))
+
+        then:
+            statistics.snapshot().byAccountType() == ["Savings": 1L]
+    }
+
+    def "should count concurrent writes exactly"() {
+        given:
+            statistics.reconcile()
+            def executor = Executors.newFixedThreadPool(8)
+
+        when:
+            def futures = (1..8).collect {
+                executor.submit({
+                    1000.times { statistics.accountsCreated([account("Savings", "1 Main St")]) }
+                    500.times { statistics.accountDeleted(account("Savings", "1 Main St")) }
+                } as Callable)
+            }
+            futures*.get()
+
+        then:
+            statistics.snapshot().totalAccounts() == 4000L
+
+        cleanup:
+            executor.shutdown()
+    }
+
+    def "should replace drifted counts on reconciliation and keep changes committed meanwhile"() {
+        given:
+            groups << ["Savings", "1 Main St", 2L]
+            statistics.reconcile()
+            // Written through another instance
+            groups.clear()
+            groups << ["Savings", "1 Main St", 5L]
+
+        when:
+            statistics.reconcile()
+
+        then:
+            1 * jdbcTemplate.query(_, _ as RowCallbackHandler) >> { args ->
+                // Committed concurrently, after the count read the table
+                statistics.accountsCreated([account("Checking", "1 Main St")])
+                rows(args[1], groups)
+            }
+            statistics.snapshot().byAccountType() == ["Checking": 1L, "Savings": 5L]
+            // Three Savings accounts this instance had not seen
+            meterRegistry.get("deebank.account.stats.corrections").counter().count() == 3
+    }
+
+    def "should not count or answer anything when disabled"() {
+        given:
+            properties.enabled = false
+
+        when:
+            statistics.reconcile()
+            statistics.snapshot()
+
+        then:
+            0 * jdbcTemplate._
+            def ex = thrown(BusinessException)
+            ex.errorCode == ErrorCode.SERVICE_UNAVAILABLE
+    }
+
+    private static Account account(String accountType, String branchAddress) {
+        new Account(accountType: accountType, branchAddress: branchAddress)
+    }
+
+    private static void rows(RowCallbackHandler handler, List<List> groups) {
+        groups.each { group ->
+            handler.processRow([
+                    getString: { int column -> group[column - 1] },
+                    getLong  : { int column -> group[2] }
+            ] as ResultSet)
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package com.deebank.accountservice.util
+
+import com.deebank.accountservice.cache.ExistenceIndex
+import com.deebank.accountservice.config.AccountNumberProperties
+import com.deebank.accountservice.exception.BusinessException
+import com.deebank.accountservice.exception.ErrorCode
+import com.deebank.accountservice.repository.AccountRepository
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.jdbc.core.JdbcTemplate
+import spock.lang.Specification
+
+class AccountNumberGeneratorSpec extends Specification {
+
+    AccountRepository accountRepository = Mock()
+    JdbcTemplate jdbcTemplate = Mock()
+    ExistenceIndex existenceIndex = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+
+    def "random mode should retry until an unused number is found"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.RANDOM), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            def accountNumber = generator.generateAccountNumber()
+
+        then:
+            2 * accountRepository.existsByAccountNumber(_) >>> [true, false]
+            0 * jdbcTemplate._
+            accountNumber >= 1000000L
+            accountNumber <= 9999999L
+    }
+
+    def "random mode should skip numbers the existence index knows are taken without a query"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.RANDOM), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            def accountNumber = generator.generateAccountNumber()
+
+        then:
+            2 * existenceIndex.accountExists(_) >>> [true, false]
+            1 * accountRepository.existsByAccountNumber(_) >> false
+            meterRegistry.get("deebank.account.number.generation.attempts").summary().totalAmount() == 2
+            accountNumber >= 1000000L
+    }
+
+    def "random mode should record attempts and generation time"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.RANDOM), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            generator.generateAccountNumber()
+
+        then:
+            3 * accountRepository.existsByAccountNumber(_) >>> [true, true, false]
+            meterRegistry.get("deebank.account.number.generation.attempt").timer().count() == 3
+            meterRegistry.get("deebank.account.number.generation.attempts").summary().totalAmount() == 3
+            meterRegistry.get("deebank.account.number.generation")
+                    .tags("mode", "random", "operation", "single", "outcome", "success").timer().count() == 1
+    }
+
+    def "random mode should fail after max attempts"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.RANDOM), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            generator.generateAccountNumber()
+
+        then:
+            100 * accountRepository.existsByAccountNumber(_) >> true
+            def e = thrown(BusinessException)
+            e.errorCode == ErrorCode.GENERATION_FAILED
+    }
+
+    def "random mode should allocate a batch with one existence query per round"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.RANDOM), Optional.empty(), meterRegistry, existenceIndex)
+            def rounds = []
+
+        when:
+            def accountNumbers = generator.generateAccountNumbers(20)
+
+        then:
+            2 * accountRepository.findExistingAccountNumbers(_) >> { args ->
+                rounds << args[0].size()
+                // Two candidates of the first round are already in use
+                rounds.size() == 1 ? new ArrayList<Long>(args[0]).take(2) : []
+            }
+            0 * accountRepository.existsByAccountNumber(_)
+            rounds == [20, 2]
+            accountNumbers.size() == 20
+            accountNumbers.toSet().size() == 20
+    }
+
+    def "permutation mode should allocate a batch across sequence blocks"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.PERMUTATION), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            def accountNumbers = generator.generateAccountNumbers(75)
+
+        then:
+            2 * jdbcTemplate.queryForObject(_ as String, Long) >>> [0L, 50L]
+            accountNumbers.toSet().size() == 75
+    }
+
+    def "permutation mode should generate unique numbers without existence checks"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.PERMUTATION), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            def accountNumbers = (1..120).collect { generator.generateAccountNumber() }
+
+        then:
+            3 * jdbcTemplate.queryForObject(_ as String, Long) >>> [0L, 50L, 100L]
+            0 * accountRepository.existsByAccountNumber(_)
+            accountNumbers.toSet().size() == 120
+            accountNumbers.every { it >= 1000000L && it <= 9999999L }
+    }
+
+    def "permutation mode should not reuse numbers from blocks handed to other instances"() {
+        given:
+            def first = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.PERMUTATION), Optional.empty(), meterRegistry, existenceIndex)
+            def second = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.PERMUTATION), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            def fromFirst = (1..50).collect { first.generateAccountNumber() }
+            def fromSecond = (1..50).collect { second.generateAccountNumber() }
+
+        then:
+            2 * jdbcTemplate.queryForObject(_ as String, Long) >>> [0L, 50L]
+            (fromFirst + fromSecond).toSet().size() == 100
+    }
+
+    def "permutation mode should fail once the number space is exhausted"() {
+        given:
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.PERMUTATION), Optional.empty(), meterRegistry, existenceIndex)
+
+        when:
+            generator.generateAccountNumber()
+
+        then:
+            1 * jdbcTemplate.queryForObject(_ as String, Long) >> 9000000L
+            def e = thrown(BusinessException)
+            e.errorCode == ErrorCode.GENERATION_FAILED
+    }
+
+    def "permutation mode should require a key"() {
+        given:
+            def props = new AccountNumberProperties(mode: AccountNumberProperties.Mode.PERMUTATION)
+
+        when:
+            new AccountNumberGenerator(accountRepository, jdbcTemplate, props, Optional.empty(), meterRegistry, existenceIndex)
+
+        then:
+            thrown(IllegalStateException)
+    }
+
+    def "pool mode should hand out numbers from the reservation pool"() {
+        given:
+            AccountNumberPool pool = Mock()
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.POOL), Optional.of(pool), meterRegistry, existenceIndex)
+
+        when:
+            def accountNumber = generator.generateAccountNumber()
+
+        then:
+            1 * pool.take() >> 1234567L
+            0 * accountRepository.existsByAccountNumber(_)
+            accountNumber == 1234567L
+    }
+
+    def "pool mode should take a batch from the reservation pool"() {
+        given:
+            AccountNumberPool pool = Mock()
+            def generator = new AccountNumberGenerator(accountRepository, jdbcTemplate, properties(AccountNumberProperties.Mode.POOL), Optional.of(pool), meterRegistry, existenceIndex)
+
+        when:
+            def accountNumbers = generator.generateAccountNumbers(2)
+
+        then:
+            1 * pool.take(2) >> [1234567L, 7654321L]
+            0 * pool.take()
+            accountNumbers == [1234567L, 7654321L]
+    }
+
+    private static AccountNumberProperties properties(AccountNumberProperties.Mode mode) {
+        new AccountNumberProperties(mode: mode, permutationKey: "test-key")
+    }
+}
@@ -0,0 +1,182 @@
+package com.deebank.accountservice.util
+
+import com.deebank.accountservice.config.AccountNumberProperties
+import com.deebank.accountservice.exception.BusinessException
+import com.deebank.accountservice.exception.ErrorCode
+import com.deebank.accountservice.repository.AccountRepository
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import org.springframework.dao.DuplicateKeyException
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate
+import org.springframework.mock.env.MockEnvironment
+import org.springframework.transaction.PlatformTransactionManager
+import spock.lang.Specification
+
+import java.time.Duration
+
+class AccountNumberPoolSpec extends Specification {
+
+    AccountRepository accountRepository = Mock()
+    NamedParameterJdbcTemplate jdbcTemplate = Mock()
+    PlatformTransactionManager transactionManager = Mock()
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry()
+    AccountNumberProperties properties = new AccountNumberProperties()
+    AccountNumberPool pool
+
+    def setup() {
+        properties.pool.capacity = 10
+        properties.pool.lowWaterMark = 0
+        properties.pool.refillBatchSize = 10
+        properties.pool.takeTimeout = Duration.ofMillis(50)
+        pool = new AccountNumberPool(accountRepository, jdbcTemplate, properties, meterRegistry, new MockEnvironment(),
+                transactionManager)
+    }
+
+    def cleanup() {
+        pool.shutdown()
+    }
+
+    def "refill should reserve only numbers that are neither used nor reserved"() {
+        given:
+            List<Long> drawn = null
+            def rounds = 0
+
+        when:
+            pool.refill()
+
+        then:
+            2 * jdbcTemplate.queryForList(_ as String, _ as Map, Long) >> { args ->
+                if (drawn == null) {
+                    drawn = new ArrayList<Long>(args[1].accountNumbers)
+                    return [drawn[0]]
+                }
+                []
+            }
+            2 * accountRepository.findExistingAccountNumbers(_) >> { args ->
+                // Second round for the two free slots: pretend every candidate is taken
+                ++rounds == 1 ? [drawn[1]] : new ArrayList<Long>(args[0])
+            }
+            1 * jdbcTemplate.batchUpdate(_ as String, { it.length == 8 })
+            pool.depth() == 8
+            meterRegistry.get("deebank.account.number.pool.depth").gauge().value() == 8
+    }
+
+    def "a batch that fails part way should be rolled back and retried row by row"() {
+        given:
+            accountRepository.findExistingAccountNumbers(_) >> []
+            jdbcTemplate.queryForList(_ as String, _ as Map, Long) >> []
+            properties.pool.capacity = 3
+            properties.pool.refillBatchSize = 3
+            pool = new AccountNumberPool(accountRepository, jdbcTemplate, properties, meterRegistry, new MockEnvironment(),
+                    transactionManager)
+            def rows = 0
+
+        when:
+            pool.refill()
+
+        then:
+            1 * jdbcTemplate.batchUpdate({ it.startsWith("INSERT") }, { it.length == 3 }) >> {
+                throw new DuplicateKeyException("reserved by another instance")
+            }
+            1 * transactionManager.rollback(_)
+            // The rolled back rows are inserted again; only the one reserved elsewhere is skipped
+            3 * jdbcTemplate.update({ it.startsWith("INSERT") }, _) >> {
+                if (++rows == 2) {
+                    throw new DuplicateKeyException("reserved by another instance")
+                }
+                1
+            }
+            pool.depth() == 2
+    }
+
+    def "reservations that no longer fit in the pool should be released"() {
+        given:
+            accountRepository.findExistingAccountNumbers(_) >> []
+            jdbcTemplate.queryForList(_ as String, _ as Map, Long) >> []
+            def filledMeanwhile = false
+
+        when:
+            pool.refill()
+
+        then:
+            2 * jdbcTemplate.batchUpdate({ it.startsWith("INSERT") }, { it.length == 10 }) >> {
+                if (!filledMeanwhile) {
+                    // Stands in for anything that fills the pool while this batch is being reserved
+                    filledMeanwhile = true
+                    pool.refill()
+                }
+                null
+            }
+            1 * jdbcTemplate.batchUpdate({ it.startsWith("DELETE FROM account_number_reservation WHERE account_number") }, { it.length == 10 })
+            pool.depth() == 10
+            meterRegistry.get("deebank.account.number.pool.reserved").counter().count() == 10
+    }
+
+    def "take should hand out a reserved number and release its reservation"() {
+        given:
+            accountRepository.findExistingAccountNumbers(_) >> []
+            jdbcTemplate.queryForList(_ as String, _ as Map, Long) >> []
+            pool.refill()
+
+        when:
+            def accountNumber = pool.take()
+
+        then:
+            1 * jdbcTemplate.update({ it.startsWith("DELETE FROM account_number_reservation WHERE account_number") }, { it.accountNumber >= 1000000L })
+            accountNumber >= 1000000L
+            accountNumber <= 9999999L
+            pool.depth() == 9
+    }
+
+    def "take with a count should drain across refills and release reservations in one batch"() {
+        given:
+            accountRepository.findExistingAccountNumbers(_) >> []
+            jdbcTemplate.queryForList(_ as String, _ as Map, Long) >> []
+            properties.pool.takeTimeout = Duration.ofSeconds(5)
+            pool.refill()
+
+        when:
+            def accountNumbers = pool.take(15)
+
+        then:
+            1 * jdbcTemplate.batchUpdate({ it.startsWith("DELETE FROM account_number_reservation WHERE account_number") }, { it.length == 15 })
+            accountNumbers.size() == 15
+            accountNumbers.toSet().size() == 15
+    }
+
+    def "take with a count should give back what it took when the pool runs dry"() {
+        given:
+            accountRepository.findExistingAccountNumbers(_) >> []
+            jdbcTemplate.queryForList(_ as String, _ as Map, Long) >>> [[]] >> { throw new IllegalStateException("database unavailable") }
+            pool.refill()
+
+        when:
+            pool.take(15)
+
+        then:
+            thrown(BusinessException)
+            0 * jdbcTemplate.batchUpdate({ it.startsWith("DELETE") }, _)
+            pool.depth() == 10
+    }
+
+    def "take should record a stall and fail when the pool stays empty"() {
+        given:
+            accountRepository.findExistingAccountNumbers(_) >> { throw new IllegalStateException("database unavailable") }
+
+        when:
+            pool.take()
+
+        then:
+            def e = thrown(BusinessException)
+            e.errorCode == ErrorCode.GENERATION_FAILED
+            meterRegistry.get("deebank.account.number.pool.stalls").timer().count() == 1
+            meterRegistry.get("deebank.account.number.pool.exhausted").counter().count() == 1
+    }
+
+    def "reclaimExpired should delete reservations older than the lease"() {
+        when:
+            pool.reclaimExpired()
+
+        then:
+            1 * jdbcTemplate.update({ it.contains("reserved_at <") }, { it.containsKey("cutoff") }) >> 3
+    }
+}
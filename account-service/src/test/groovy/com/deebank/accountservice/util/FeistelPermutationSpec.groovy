@@ -0,0 +1,41 @@
+package com.deebank.accountservice.util
+
+import spock.lang.Specification
+
+class FeistelPermutationSpec extends Specification {
+
+    def "should map every value of the domain to a distinct value of the domain"() {
+        given:
+            def permutation = new FeistelPermutation(domainSize, "secret".bytes)
+
+        when:
+            def results = (0L..<domainSize).collect { permutation.permute(it) } as Set
+
+        then:
+            results.size() == domainSize
+            results.every { it >= 0 && it < domainSize }
+
+        where:
+            domainSize << [2L, 1000L, 1025L, 4096L]
+    }
+
+    def "should produce different permutations for different keys"() {
+        given:
+            def first = new FeistelPermutation(1000L, "key-one".bytes)
+            def second = new FeistelPermutation(1000L, "key-two".bytes)
+
+        expect:
+            (0L..<1000L).collect { first.permute(it) } != (0L..<1000L).collect { second.permute(it) }
+    }
+
+    def "should reject values outside of the domain"() {
+        given:
+            def permutation = new FeistelPermutation(1000L, "secret".bytes)
+
+        when:
+            permutation.permute(1000L)
+
+        then:
+            thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,60 @@
+package com.deebank.accountservice.util
+
+import spock.lang.Specification
+
+class LongHashSetSpec extends Specification {
+
+    def "should add, find and remove keys including zero and negatives"() {
+        given:
+            def set = new LongHashSet()
+
+        expect:
+            set.add(key)
+            !set.add(key)
+            set.contains(key)
+            set.size() == 1
+            set.remove(key)
+            !set.remove(key)
+            !set.contains(key)
+            set.isEmpty()
+
+        where:
+            key << [0L, 1L, -1L, 1234567L, Long.MAX_VALUE, Long.MIN_VALUE]
+    }
+
+    def "should behave like a HashSet under random adds and removes while growing"() {
+        given:
+            def set = new LongHashSet(4)
+            def expected = new HashSet<Long>()
+            def random = new Random(42)
+
+        when:
+            20000.times {
+                // A small key range forces long probe runs and many removals from their middle
+                long key = random.nextInt(5000) - 100
+                if (random.nextInt(3) == 0) {
+                    assert set.remove(key) == expected.remove(key)
+                } else {
+                    assert set.add(key) == expected.add(key)
+                }
+            }
+
+        then:
+            set.size() == expected.size()
+            (-100L..<4900L).every { set.contains(it) == expected.contains(it) }
+    }
+
+    def "should keep sequential IDs apart"() {
+        given:
+            def set = new LongHashSet()
+
+        when:
+            (1L..100000L).each { set.add(it) }
+
+        then:
+            set.size() == 100000
+            (1L..100000L).every { set.contains(it) }
+            !set.contains(100001L)
+    }
+
+}